@@ -3,6 +3,8 @@ package com.ecomarketspa.Assembler;
 import com.ecomarketspa.Controller.PedidoController; // Asegúrate de importar el controlador correcto
 import com.ecomarketspa.Model.Pedido;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.LinkRelation;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import org.springframework.stereotype.Component;
 
@@ -11,10 +13,16 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
 @Component
 public class PedidoModelAssembler implements RepresentationModelAssembler<Pedido, EntityModel<Pedido>> {
 
+    // Los enlaces se resuelven una vez y luego solo se expanden (ver PlantillaEnlace)
+    private final PlantillaEnlace enlaceSelf = new PlantillaEnlace(
+            () -> linkTo(methodOn(PedidoController.class).obtenerPedidoPorId(null)).withSelfRel(), IanaLinkRelations.SELF);
+    private final PlantillaEnlace enlaceColeccion = new PlantillaEnlace(
+            () -> linkTo(methodOn(PedidoController.class).listarPedidos()).withRel("pedidos"), LinkRelation.of("pedidos"));
+
     @Override
     public EntityModel<Pedido> toModel(Pedido pedido) {
         return EntityModel.of(pedido, //
-                linkTo(methodOn(PedidoController.class).obtenerPedidoPorId(pedido.getId())).withSelfRel(), // Enlace a sí mismo
-                linkTo(methodOn(PedidoController.class).listarPedidos()).withRel("pedidos")); // Enlace a la colección de pedidos
+                enlaceSelf.expandir(pedido.getId()), // Enlace a sí mismo
+                enlaceColeccion.expandir()); // Enlace a la colección de pedidos
     }
 }
@@ -0,0 +1,96 @@
+package com.ecomarketspa.Assembler;
+
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Enlace HATEOAS precompilado para un método de controlador.
+ *
+ * linkTo(methodOn(...)) crea un proxy, resuelve el mapping y arma la URI en cada llamada. Aquí eso
+ * se hace una sola vez: la primera expansión resuelve el enlace con las variables sin valor (queda
+ * "/api/productos/{id}") y guarda la ruta separada en tramos fijos y variables. Las siguientes solo
+ * concatenan texto. El esquema, host y context path dependen de la petición, así que se calculan
+ * una vez por petición y se anteponen a la ruta.
+ */
+final class PlantillaEnlace {
+
+    private static final String ATRIBUTO_BASE = PlantillaEnlace.class.getName() + ".base";
+
+    private final Supplier<Link> resolucion;
+    private final LinkRelation relacion;
+    private volatile String[] tramos; // Tramos fijos; entre cada par va una variable
+
+    PlantillaEnlace(Supplier<Link> resolucion, LinkRelation relacion) {
+        this.resolucion = resolucion;
+        this.relacion = relacion;
+    }
+
+    // Los valores reemplazan las variables de la plantilla en orden de aparición
+    Link expandir(Object... valores) {
+        RequestAttributes atributos = RequestContextHolder.getRequestAttributes();
+        if (atributos == null) {
+            return enlaceSinPlantilla(valores); // Fuera de una petición HTTP no hay base que reutilizar
+        }
+        String base = (String) atributos.getAttribute(ATRIBUTO_BASE, RequestAttributes.SCOPE_REQUEST);
+        if (base == null) {
+            base = ServletUriComponentsBuilder.fromCurrentServletMapping().build().toUriString();
+            atributos.setAttribute(ATRIBUTO_BASE, base, RequestAttributes.SCOPE_REQUEST);
+        }
+        String[] compilada = tramos;
+        if (compilada == null) {
+            compilada = compilar(base);
+            if (compilada == null) {
+                return enlaceSinPlantilla(valores);
+            }
+            tramos = compilada;
+        }
+        if (valores.length != compilada.length - 1) {
+            throw new IllegalArgumentException("La plantilla espera " + (compilada.length - 1) + " valores");
+        }
+
+        StringBuilder href = new StringBuilder(base.length() + 32).append(base).append(compilada[0]);
+        for (int i = 0; i < valores.length; i++) {
+            href.append(codificar(valores[i])).append(compilada[i + 1]);
+        }
+        return Link.of(href.toString(), relacion);
+    }
+
+    private String[] compilar(String base) {
+        String href = resolucion.get().getHref();
+        if (!href.startsWith(base)) {
+            return null;
+        }
+        List<String> partes = new ArrayList<>();
+        String ruta = href.substring(base.length());
+        int desde = 0;
+        int abre;
+        while ((abre = ruta.indexOf('{', desde)) >= 0) {
+            int cierra = ruta.indexOf('}', abre);
+            partes.add(ruta.substring(desde, abre));
+            desde = cierra + 1;
+        }
+        partes.add(ruta.substring(desde));
+        return partes.toArray(String[]::new);
+    }
+
+    // Camino lento, equivalente al linkTo(methodOn(...)) original
+    private Link enlaceSinPlantilla(Object... valores) {
+        return resolucion.get().expand(valores).withRel(relacion);
+    }
+
+    private static String codificar(Object valor) {
+        if (valor instanceof Number) {
+            return valor.toString();
+        }
+        return UriUtils.encodePathSegment(String.valueOf(valor), StandardCharsets.UTF_8);
+    }
+}
@@ -3,6 +3,8 @@ package com.ecomarketspa.Assembler;
 import com.ecomarketspa.Controller.ProductoController; // Importa el controlador correcto
 import com.ecomarketspa.Model.Producto;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.LinkRelation;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import org.springframework.stereotype.Component;
 
@@ -11,10 +13,16 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
 @Component
 public class ProductoModelAssembler implements RepresentationModelAssembler<Producto, EntityModel<Producto>> {
 
+    // Los enlaces se resuelven una vez y luego solo se expanden (ver PlantillaEnlace)
+    private final PlantillaEnlace enlaceSelf = new PlantillaEnlace(
+            () -> linkTo(methodOn(ProductoController.class).obtenerProductoPorId(null, null)).withSelfRel(), IanaLinkRelations.SELF);
+    private final PlantillaEnlace enlaceColeccion = new PlantillaEnlace(
+            () -> linkTo(methodOn(ProductoController.class).listarProductos(null)).withRel("productos"), LinkRelation.of("productos"));
+
     @Override
     public EntityModel<Producto> toModel(Producto producto) {
         return EntityModel.of(producto, //
-                linkTo(methodOn(ProductoController.class).obtenerProductoPorId(producto.getId())).withSelfRel(), // Enlace a sí mismo
-                linkTo(methodOn(ProductoController.class).listarProductos()).withRel("productos")); // Enlace a la colección de productos
+                enlaceSelf.expandir(producto.getId()), // Enlace a sí mismo
+                enlaceColeccion.expandir()); // Enlace a la colección de productos
     }
 }
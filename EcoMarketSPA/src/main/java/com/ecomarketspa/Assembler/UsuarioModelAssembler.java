@@ -3,6 +3,8 @@ package com.ecomarketspa.Assembler;
 import com.ecomarketspa.Controller.UsuarioController; // Importa el controlador correcto
 import com.ecomarketspa.Model.Usuario;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.LinkRelation;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import org.springframework.stereotype.Component;
 
@@ -11,10 +13,16 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
 @Component
 public class UsuarioModelAssembler implements RepresentationModelAssembler<Usuario, EntityModel<Usuario>> {
 
+    // Los enlaces se resuelven una vez y luego solo se expanden (ver PlantillaEnlace)
+    private final PlantillaEnlace enlaceSelf = new PlantillaEnlace(
+            () -> linkTo(methodOn(UsuarioController.class).obtenerUsuarioPorId(null)).withSelfRel(), IanaLinkRelations.SELF);
+    private final PlantillaEnlace enlaceColeccion = new PlantillaEnlace(
+            () -> linkTo(methodOn(UsuarioController.class).listarUsuarios()).withRel("usuarios"), LinkRelation.of("usuarios"));
+
     @Override
     public EntityModel<Usuario> toModel(Usuario usuario) {
         return EntityModel.of(usuario, //
-                linkTo(methodOn(UsuarioController.class).obtenerUsuarioPorId(usuario.getId())).withSelfRel(), // Enlace a sí mismo
-                linkTo(methodOn(UsuarioController.class).listarUsuarios()).withRel("usuarios")); // Enlace a la colección de usuarios
+                enlaceSelf.expandir(usuario.getId()), // Enlace a sí mismo
+                enlaceColeccion.expandir()); // Enlace a la colección de usuarios
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,38 @@
+package com.ecomarketspa.Config;
+
+import com.ecomarketspa.Service.ProveedorSimulado;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+// Proveedores en memoria para los tres canales, solo para tests y benchmarks: no envían nada. Se activan con
+// ecomarket.notificaciones.proveedores-simulados=true (perfil h2 de los tests); sin esa propiedad no se registran,
+// y un tipo de notificación sin un bean de ProveedorNotificaciones real queda contado en sinCanal.
+@Configuration
+@ConditionalOnProperty(name = "ecomarket.notificaciones.proveedores-simulados", havingValue = "true")
+public class ProveedoresSimuladosConfig {
+
+    @Value("${ecomarket.notificaciones.simulados.latencia:20ms}")
+    private Duration latencia;
+
+    @Value("${ecomarket.notificaciones.simulados.tasa-fallos:0}")
+    private double tasaFallos;
+
+    @Bean
+    public ProveedorSimulado proveedorCorreoSimulado() {
+        return new ProveedorSimulado("Email", 100, latencia, tasaFallos);
+    }
+
+    @Bean
+    public ProveedorSimulado proveedorSmsSimulado() {
+        return new ProveedorSimulado("SMS", 50, latencia, tasaFallos);
+    }
+
+    @Bean
+    public ProveedorSimulado proveedorAppSimulado() {
+        return new ProveedorSimulado("App", 500, latencia, tasaFallos);
+    }
+}
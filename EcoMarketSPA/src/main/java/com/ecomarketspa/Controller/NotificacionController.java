@@ -1,7 +1,13 @@
 package com.ecomarketspa.Controller;
 
+import com.ecomarketspa.Dto.BandejaNotificaciones;
+import com.ecomarketspa.Dto.EstadoCanalDespacho;
+import com.ecomarketspa.Dto.EstadoDifusion;
+import com.ecomarketspa.Dto.SolicitudDifusion;
 import com.ecomarketspa.Model.Notificacion;
+import com.ecomarketspa.Service.DifusionNotificacionService;
 import com.ecomarketspa.Service.NotificacionService;
+import com.ecomarketspa.Service.SuscripcionesNotificaciones;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -9,21 +15,36 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/notificaciones")
 @Tag(name = "Notificaciones", description = "Operaciones relacionadas con la gestión de notificaciones para usuarios")
 public class NotificacionController {
 
+    private static final int TAMANO_BANDEJA_MAXIMO = 100;
+
     @Autowired
     private NotificacionService notificacionService;
 
+    @Autowired
+    private DifusionNotificacionService difusionNotificacionService;
+
+    @Autowired
+    private SuscripcionesNotificaciones suscripcionesNotificaciones;
+
     @Operation(summary = "Obtener todas las notificaciones",
-            description = "Recupera una lista de todas las notificaciones enviadas en el sistema.")
+            description = "Recupera una lista de todas las notificaciones enviadas en el sistema. " +
+                    "Para las de un usuario usar /api/notificaciones/usuario/{usuarioId}, que pagina por cursor.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Lista de notificaciones recuperada exitosamente",
                     content = @Content(mediaType = "application/json",
@@ -35,6 +56,20 @@ public class NotificacionController {
         return notificacionService.listarNotificaciones();
     }
 
+    @Operation(summary = "Estado del despacho de notificaciones",
+            description = "Métricas de cada canal de entrega (Email, SMS, App): notificaciones en cola frente a la capacidad, " +
+                    "en espera de reintento, y acumulados de encoladas, enviadas, lotes, reintentos, fallidas y rechazadas por cola llena.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Métricas recuperadas exitosamente",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = EstadoCanalDespacho.class))),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @GetMapping("/despacho")
+    public List<EstadoCanalDespacho> estadoDespacho() {
+        return notificacionService.estadoDespacho();
+    }
+
     @Operation(summary = "Obtener una notificación por ID",
             description = "Recupera los detalles de una notificación específica utilizando su ID.")
     @ApiResponses(value = {
@@ -54,7 +89,8 @@ public class NotificacionController {
     @Operation(summary = "Crear o actualizar una notificación",
             description = "Crea una nueva notificación o actualiza una existente si el ID es proporcionado. " +
                     "Si el ID existe, actualiza la notificación; si no, crea una nueva. " +
-                    "Asegúrate de que el usuario receptor de la notificación exista.")
+                    "Asegúrate de que el usuario receptor de la notificación exista. " +
+                    "Las notificaciones nuevas de tipo Email, SMS o App se entregan en segundo plano después de guardarlas.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Notificación creada o actualizada exitosamente",
                     content = @Content(mediaType = "application/json",
@@ -82,4 +118,165 @@ public class NotificacionController {
         notificacionService.eliminarNotificacion(id);
         return ResponseEntity.noContent().build();
     }
+
+    @Operation(summary = "Obtener la bandeja de notificaciones de un usuario",
+            description = "Recupera una página de las notificaciones del usuario, de la más nueva a la más antigua, indicando cuáles están leídas " +
+                    "y cuántas quedan sin leer. Para la página siguiente se envía 'siguienteCursor' como antesDeId; " +
+                    "el tiempo de respuesta no depende de qué tan profunda sea la página.",
+            parameters = {
+                    @io.swagger.v3.oas.annotations.Parameter(name = "usuarioId", description = "ID del usuario", required = true),
+                    @io.swagger.v3.oas.annotations.Parameter(name = "antesDeId", description = "Id de la última notificación de la página anterior (cursor)"),
+                    @io.swagger.v3.oas.annotations.Parameter(name = "tamano", description = "Cantidad de notificaciones por página (máximo " + TAMANO_BANDEJA_MAXIMO + ")")
+            })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Página de la bandeja recuperada exitosamente",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = BandejaNotificaciones.class))),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @GetMapping("/usuario/{usuarioId}")
+    public BandejaNotificaciones obtenerBandeja(@PathVariable Long usuarioId,
+                                                @RequestParam(required = false) Long antesDeId,
+                                                @RequestParam(defaultValue = "20") int tamano) {
+        int tamanoPagina = Math.max(1, Math.min(tamano, TAMANO_BANDEJA_MAXIMO));
+        return notificacionService.obtenerBandeja(usuarioId, antesDeId, tamanoPagina);
+    }
+
+    @Operation(summary = "Contar las notificaciones no leídas de un usuario",
+            description = "Devuelve cuántas notificaciones del usuario son posteriores a la última que marcó como leída.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Conteo recuperado exitosamente",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @GetMapping("/usuario/{usuarioId}/no-leidas")
+    public Map<String, Long> contarNoLeidas(@PathVariable Long usuarioId) {
+        return Map.of("noLeidas", notificacionService.contarNoLeidas(usuarioId));
+    }
+
+    @Operation(summary = "Marcar como leídas las notificaciones de un usuario",
+            description = "Marca como leídas todas las notificaciones del usuario hasta 'hastaId' inclusive, o todas las actuales si no se indica. " +
+                    "Nunca desmarca notificaciones ya leídas. Devuelve el id de la última leída y las que quedan sin leer.",
+            parameters = {
+                    @io.swagger.v3.oas.annotations.Parameter(name = "usuarioId", description = "ID del usuario", required = true),
+                    @io.swagger.v3.oas.annotations.Parameter(name = "hastaId", description = "Id de la notificación más nueva que se leyó")
+            })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Notificaciones marcadas como leídas",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @PostMapping("/usuario/{usuarioId}/leidas")
+    public Map<String, Long> marcarLeidas(@PathVariable Long usuarioId, @RequestParam(required = false) Long hastaId) {
+        long ultimaLeidaId = notificacionService.marcarLeidas(usuarioId, hastaId);
+        return Map.of("ultimaLeidaId", ultimaLeidaId, "noLeidas", notificacionService.contarNoLeidas(usuarioId));
+    }
+
+    @Operation(summary = "Suscribirse a las notificaciones nuevas de un usuario",
+            description = "Abre un flujo Server-Sent Events que envía un evento 'notificacion' (id, tipo, mensaje) por cada notificación " +
+                    "nueva del usuario en cuanto se guarda, y un comentario de latido periódico. Al reconectar, el navegador envía " +
+                    "Last-Event-ID y se reenvían las notificaciones posteriores; si son demasiadas se envía en su lugar un evento 'resincronizar' " +
+                    "con la ruta de la bandeja, que el cliente debe recargar. Si el cliente no consume los eventos a tiempo se cierra " +
+                    "la conexión; la bandeja sigue teniendo todas las notificaciones.",
+            parameters = {
+                    @io.swagger.v3.oas.annotations.Parameter(name = "usuarioId", description = "ID del usuario", required = true),
+                    @io.swagger.v3.oas.annotations.Parameter(name = "Last-Event-ID", description = "Id de la última notificación recibida antes de reconectar")
+            })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Suscripción abierta",
+                    content = @Content(mediaType = "text/event-stream")),
+            @ApiResponse(responseCode = "503", description = "El servidor alcanzó el máximo de suscriptores"),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @GetMapping(value = "/usuario/{usuarioId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> suscribir(@PathVariable Long usuarioId,
+                                                @RequestHeader(name = "Last-Event-ID", required = false) Long ultimoId) {
+        try {
+            return ResponseEntity.ok(suscripcionesNotificaciones.suscribir(usuarioId, ultimoId));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    @Operation(summary = "Estado de las suscripciones en tiempo real",
+            description = "Devuelve los suscriptores conectados a este nodo y los contadores de notificaciones publicadas, entregadas, " +
+                    "descartadas y de suscriptores desalojados por lentos.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Estado recuperado exitosamente",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @GetMapping("/suscripciones")
+    public Map<String, Long> estadoSuscripciones() {
+        return suscripcionesNotificaciones.estadisticas();
+    }
+
+    @Operation(summary = "Difundir una notificación a un segmento de usuarios",
+            description = "Crea una notificación para cada usuario del segmento: TODOS, PEDIDOS_EN_ESTADO (usuarios con algún pedido " +
+                    "en 'estado') o CONSULTA (usuarios cuyo nombre o correo contiene 'consulta'). Se ejecuta en segundo plano: " +
+                    "la respuesta trae el id para consultar el avance. Las notificaciones de tipo Email, SMS o App también se entregan.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Difusión aceptada; la cabecera Location apunta a su avance",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = EstadoDifusion.class))),
+            @ApiResponse(responseCode = "400", description = "Solicitud inválida (ej. falta el tipo, el mensaje o el dato del segmento)"),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @PostMapping("/difusiones")
+    public ResponseEntity<EstadoDifusion> iniciarDifusion(@RequestBody SolicitudDifusion solicitud) {
+        try {
+            EstadoDifusion difusion = difusionNotificacionService.iniciarDifusion(solicitud);
+            return ResponseEntity.accepted()
+                    .location(ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}").buildAndExpand(difusion.id()).toUri())
+                    .body(difusion);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(summary = "Obtener las difusiones recientes",
+            description = "Recupera el avance de las difusiones en curso y de las últimas terminadas, de la más reciente a la más antigua.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Difusiones recuperadas exitosamente",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = EstadoDifusion.class))),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @GetMapping("/difusiones")
+    public List<EstadoDifusion> listarDifusiones() {
+        return difusionNotificacionService.listarDifusiones();
+    }
+
+    @Operation(summary = "Obtener el avance de una difusión",
+            description = "Devuelve la situación de la difusión, los usuarios estimados del segmento y las notificaciones creadas y despachadas hasta ahora.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Difusión encontrada",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = EstadoDifusion.class))),
+            @ApiResponse(responseCode = "404", description = "Difusión no encontrada"),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @GetMapping("/difusiones/{id}")
+    public ResponseEntity<EstadoDifusion> obtenerDifusion(@PathVariable Long id) {
+        return difusionNotificacionService.obtenerDifusion(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @Operation(summary = "Cancelar una difusión",
+            description = "Detiene la difusión al terminar el lote en curso. Las notificaciones ya creadas se mantienen.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Cancelación solicitada"),
+            @ApiResponse(responseCode = "404", description = "Difusión no encontrada"),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @DeleteMapping("/difusiones/{id}")
+    public ResponseEntity<Void> cancelarDifusion(@PathVariable Long id) {
+        return difusionNotificacionService.cancelarDifusion(id)
+                ? ResponseEntity.accepted().build()
+                : ResponseEntity.notFound().build();
+    }
 }
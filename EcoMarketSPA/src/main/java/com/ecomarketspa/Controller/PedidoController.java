@@ -1,8 +1,18 @@
 package com.ecomarketspa.Controller;
 
 import com.ecomarketspa.Assembler.PedidoModelAssembler;
+import com.ecomarketspa.Dto.ResultadoTransicion;
+import com.ecomarketspa.Dto.ResumenVentas;
+import com.ecomarketspa.Dto.SolicitudTransicion;
+import com.ecomarketspa.Model.EstadoPedido;
 import com.ecomarketspa.Model.Pedido;
+import com.ecomarketspa.Service.IdempotenciaPedidoService;
+import com.ecomarketspa.Service.IngestaPedidos;
 import com.ecomarketspa.Service.PedidoService;
+import com.ecomarketspa.Service.TransicionPedidoService;
+import com.ecomarketspa.Service.VentasDiariasService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -12,15 +22,26 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.RepresentationModel; // Para el caso de conteo
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.format.annotation.DateTimeFormat; // Importar para el formato de fechas
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
@@ -36,6 +57,26 @@ public class PedidoController {
     @Autowired
     private PedidoModelAssembler assembler;
 
+    @Autowired
+    private IngestaPedidos ingestaPedidos;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private IdempotenciaPedidoService idempotenciaPedidoService;
+
+    @Autowired
+    private VentasDiariasService ventasDiariasService;
+
+    @Autowired
+    private TransicionPedidoService transicionPedidoService;
+
+    private static final int TAMANO_PAGINA_MAXIMO = 1000;
+    private static final int TAMANO_LOTE_STREAM = 500;
+    private static final int LARGO_MAXIMO_CLAVE_IDEMPOTENCIA = 255;
+    private static final int MAXIMO_IDS_TRANSICION = 10000;
+
     @Operation(summary = "Obtener todos los pedidos",
             description = "Recupera una lista de todos los pedidos registrados en el sistema, enriquecida con enlaces HATEOAS.")
     @ApiResponses(value = {
@@ -71,27 +112,74 @@ public class PedidoController {
     }
 
     @Operation(summary = "Crear o actualizar un pedido",
-            description = "Crea un nuevo pedido o actualiza uno existente si el ID es proporcionado, con respuesta enriquecida con enlaces HATEOAS.")
+            description = "Crea un nuevo pedido o actualiza uno existente si el ID es proporcionado, con respuesta enriquecida con enlaces HATEOAS. " +
+                    "Con el commit agrupado habilitado, los pedidos nuevos se guardan en lote junto con los de otras peticiones. " +
+                    "Si se envía la cabecera Idempotency-Key, un reintento con la misma clave devuelve el pedido original " +
+                    "(con la cabecera Idempotent-Replayed: true) en vez de crear otro.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Pedido creado o actualizado exitosamente",
                     content = @Content(mediaType = "application/hal+json",
                             schema = @Schema(implementation = EntityModel.class))),
-            @ApiResponse(responseCode = "400", description = "Solicitud inválida (ej. usuario asociado no existe)"),
+            @ApiResponse(responseCode = "400", description = "Solicitud inválida (ej. usuario asociado no existe o Idempotency-Key de más de 255 caracteres)"),
+            @ApiResponse(responseCode = "409", description = "La Idempotency-Key ya se usó para un pedido que luego fue eliminado"),
+            @ApiResponse(responseCode = "503", description = "Buffer de ingesta lleno o ingesta detenida: el pedido no se guardó; reintentar después de lo indicado en Retry-After"),
+            @ApiResponse(responseCode = "504", description = "El pedido no se confirmó a tiempo y puede haberse guardado igual; " +
+                    "para reintentar sin riesgo de duplicarlo se debe enviar una Idempotency-Key"),
             @ApiResponse(responseCode = "500", description = "Error interno del servidor")
     })
     @PostMapping
-    public ResponseEntity<EntityModel<Pedido>> guardarPedido(@RequestBody Pedido pedido) {
-        Pedido savedPedido = pedidoService.guardarPedido(pedido);
+    public ResponseEntity<EntityModel<Pedido>> guardarPedido(@RequestBody Pedido pedido,
+                                                             @RequestHeader(value = "Idempotency-Key", required = false) String claveIdempotencia) {
+        if (claveIdempotencia != null && pedido.getId() == null) {
+            return guardarPedidoIdempotente(claveIdempotencia, pedido);
+        }
+        Pedido savedPedido;
+        if (pedido.getId() == null && ingestaPedidos.estaHabilitada()) {
+            try {
+                savedPedido = ingestaPedidos.encolar(pedido).join();
+            } catch (RejectedExecutionException e) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof TimeoutException) {
+                    // El escritor pudo haber tomado el lote antes del plazo y confirmarlo después: sin Retry-After,
+                    // porque un reintento a ciegas puede duplicar el pedido
+                    return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).build();
+                }
+                if (e.getCause() instanceof RejectedExecutionException) {
+                    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+                }
+                throw e.getCause() instanceof RuntimeException causa ? causa : e; // Mismo error que un guardado directo
+            }
+        } else {
+            savedPedido = pedidoService.guardarPedido(pedido);
+        }
+        return ResponseEntity
+                .created(linkTo(methodOn(PedidoController.class).obtenerPedidoPorId(savedPedido.getId())).toUri())
+                .body(assembler.toModel(savedPedido));
+    }
+
+    // Va por fuera del commit agrupado: la clave tiene que confirmarse en la misma transacción que su pedido
+    private ResponseEntity<EntityModel<Pedido>> guardarPedidoIdempotente(String clave, Pedido pedido) {
+        if (clave.isBlank() || clave.length() > LARGO_MAXIMO_CLAVE_IDEMPOTENCIA) {
+            return ResponseEntity.badRequest().build();
+        }
+        IdempotenciaPedidoService.Resultado resultado = idempotenciaPedidoService.guardarPedido(clave, pedido);
+        if (resultado.pedido().isEmpty()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        Pedido savedPedido = resultado.pedido().get();
         return ResponseEntity
                 .created(linkTo(methodOn(PedidoController.class).obtenerPedidoPorId(savedPedido.getId())).toUri())
+                .header("Idempotent-Replayed", String.valueOf(resultado.repetido()))
                 .body(assembler.toModel(savedPedido));
     }
 
     @Operation(summary = "Eliminar un pedido por ID",
-            description = "Elimina un pedido del sistema utilizando su ID. No retorna contenido con enlaces HATEOAS.")
+            description = "Elimina un pedido del sistema utilizando su ID. Los pedidos archivados son de solo lectura y no se pueden eliminar. No retorna contenido con enlaces HATEOAS.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Pedido eliminado exitosamente"),
             @ApiResponse(responseCode = "404", description = "Pedido no encontrado"),
+            @ApiResponse(responseCode = "409", description = "El pedido está archivado y es de solo lectura"),
             @ApiResponse(responseCode = "500", description = "Error interno del servidor")
     })
     @DeleteMapping("/{id}")
@@ -99,13 +187,18 @@ public class PedidoController {
         if (pedidoService.obtenerPedidoPorId(id).isEmpty()) {
             return ResponseEntity.notFound().build();
         }
-        pedidoService.eliminarPedido(id);
+        try {
+            pedidoService.eliminarPedido(id);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
         return ResponseEntity.noContent().build();
     }
 
 
     @Operation(summary = "Obtener pedidos por estado",
-            description = "Recupera una lista de pedidos filtrados por un estado específico (ej. PENDIENTE, ENVIADO, ENTREGADO, CANCELADO), con enlaces HATEOAS.")
+            description = "Recupera una lista de pedidos filtrados por un estado específico (PENDIENTE, PROCESANDO, ENVIADO, ENTREGADO, CANCELADO; " +
+                    "no distingue mayúsculas), con enlaces HATEOAS. Los ids se obtienen del índice en memoria por estado, sin recorrer la tabla de pedidos.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Lista de pedidos por estado recuperada exitosamente",
                     content = @Content(mediaType = "application/hal+json",
@@ -114,13 +207,66 @@ public class PedidoController {
             @ApiResponse(responseCode = "500", description = "Error interno del servidor")
     })
     @GetMapping("/estado/{estado}")
-    public CollectionModel<EntityModel<Pedido>> obtenerPedidosPorEstado(@PathVariable String estado) {
-        List<EntityModel<Pedido>> pedidos = pedidoService.buscarPedidosPorEstado(estado).stream()
+    public ResponseEntity<CollectionModel<EntityModel<Pedido>>> obtenerPedidosPorEstado(@PathVariable String estado) {
+        EstadoPedido estadoPedido;
+        try {
+            estadoPedido = EstadoPedido.desde(estado);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<EntityModel<Pedido>> pedidos = pedidoService.buscarPedidosPorEstado(estadoPedido).stream()
                 .map(assembler::toModel)
                 .collect(Collectors.toList());
 
-        return CollectionModel.of(pedidos,
-                linkTo(methodOn(PedidoController.class).obtenerPedidosPorEstado(estado)).withSelfRel());
+        return ResponseEntity.ok(CollectionModel.of(pedidos,
+                linkTo(methodOn(PedidoController.class).obtenerPedidosPorEstado(estado)).withSelfRel()));
+    }
+
+    @Operation(summary = "Contar pedidos por estado",
+            description = "Obtiene la cantidad de pedidos en un estado, leída del índice en memoria por estado sin consultar la base de datos.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Conteo de pedidos por estado recuperado exitosamente",
+                    content = @Content(mediaType = "application/hal+json",
+                            schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "400", description = "Estado de pedido inválido"),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @GetMapping("/estado/{estado}/count")
+    public ResponseEntity<EntityModel<Map<String, Long>>> contarPedidosPorEstado(@PathVariable String estado) {
+        EstadoPedido estadoPedido;
+        try {
+            estadoPedido = EstadoPedido.desde(estado);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        Map<String, Long> countMap = new HashMap<>();
+        countMap.put("totalPedidos", pedidoService.contarPedidosPorEstado(estadoPedido));
+
+        EntityModel<Map<String, Long>> resource = EntityModel.of(countMap);
+        resource.add(linkTo(methodOn(PedidoController.class).contarPedidosPorEstado(estado)).withSelfRel());
+        resource.add(linkTo(methodOn(PedidoController.class).obtenerPedidosPorEstado(estado)).withRel("pedidos-en-estado"));
+        return ResponseEntity.ok(resource);
+    }
+
+    @Operation(summary = "Cambiar el estado de varios pedidos",
+            description = "Pasa los pedidos indicados al estado pedido, validando cada uno contra las transiciones permitidas " +
+                    "(PENDIENTE → PROCESANDO → ENVIADO → ENTREGADO; PENDIENTE y PROCESANDO también pueden pasar a CANCELADO). " +
+                    "Se aplica por lotes con una sentencia UPDATE por estado de origen. La respuesta informa los ids aplicados " +
+                    "y los rechazados con su motivo. Máximo " + MAXIMO_IDS_TRANSICION + " ids por petición.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Transiciones procesadas",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ResultadoTransicion.class))),
+            @ApiResponse(responseCode = "400", description = "Lista de ids vacía o demasiado grande, o estado faltante o inválido"),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @PostMapping("/transiciones")
+    public ResponseEntity<ResultadoTransicion> transicionarPedidos(@RequestBody SolicitudTransicion solicitud) {
+        if (solicitud.estado() == null || solicitud.ids() == null || solicitud.ids().isEmpty()
+                || solicitud.ids().size() > MAXIMO_IDS_TRANSICION) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(transicionPedidoService.transicionar(solicitud.ids(), solicitud.estado()));
     }
 
     @Operation(summary = "Obtener pedidos por ID de usuario",
@@ -143,7 +289,8 @@ public class PedidoController {
     }
 
     @Operation(summary = "Obtener pedidos entre dos fechas",
-            description = "Recupera una lista de pedidos realizados dentro de un rango de fechas específico. Formato de fecha esperado: yyyy-MM-dd'T'HH:mm:ss.SSSZ (ej. 2023-10-26T10:00:00.000+0000), o un formato simple como yyyy-MM-dd para solo día. La hora y la zona horaria pueden ser relevantes si tu DB las almacena.",
+            description = "Recupera una lista de pedidos realizados dentro de un rango de fechas específico. Formato de fecha esperado: yyyy-MM-dd'T'HH:mm:ss.SSSZ (ej. 2023-10-26T10:00:00.000+0000), o un formato simple como yyyy-MM-dd para solo día. La hora y la zona horaria pueden ser relevantes si tu DB las almacena. " +
+                    "Devuelve el rango completo; para rangos grandes usar /rango-fechas/paginado o /rango-fechas/stream.",
             parameters = {
                     @io.swagger.v3.oas.annotations.Parameter(name = "inicio", description = "Fecha y hora de inicio (ej. 2023-01-01T00:00:00.000+0000)", required = true),
                     @io.swagger.v3.oas.annotations.Parameter(name = "fin", description = "Fecha y hora de fin (ej. 2023-12-31T23:59:59.999+0000)", required = true)
@@ -168,6 +315,87 @@ public class PedidoController {
                 linkTo(methodOn(PedidoController.class).obtenerPedidosEntreFechas(inicio, fin)).withSelfRel());
     }
 
+    @Operation(summary = "Obtener pedidos entre dos fechas paginados por cursor",
+            description = "Recupera una página de pedidos realizados dentro de un rango de fechas, ordenados por fecha e id. Formato de fecha esperado: yyyy-MM-dd'T'HH:mm:ss.SSSZ (ej. 2023-10-26T10:00:00.000+0000). " +
+                    "La respuesta incluye un enlace 'next' con el cursor (despuesDeFecha, despuesDeId) de la siguiente página mientras queden pedidos; " +
+                    "el tiempo de respuesta no depende de qué tan profunda sea la página.",
+            parameters = {
+                    @io.swagger.v3.oas.annotations.Parameter(name = "inicio", description = "Fecha y hora de inicio (ej. 2023-01-01T00:00:00.000+0000)", required = true),
+                    @io.swagger.v3.oas.annotations.Parameter(name = "fin", description = "Fecha y hora de fin (ej. 2023-12-31T23:59:59.999+0000)", required = true),
+                    @io.swagger.v3.oas.annotations.Parameter(name = "despuesDeFecha", description = "Fecha del último pedido de la página anterior (cursor)"),
+                    @io.swagger.v3.oas.annotations.Parameter(name = "despuesDeId", description = "Id del último pedido de la página anterior (cursor)"),
+                    @io.swagger.v3.oas.annotations.Parameter(name = "tamano", description = "Cantidad de pedidos por página (máximo " + TAMANO_PAGINA_MAXIMO + ")")
+            })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Página de pedidos entre fechas recuperada exitosamente",
+                    content = @Content(mediaType = "application/hal+json",
+                            schema = @Schema(implementation = CollectionModel.class))),
+            @ApiResponse(responseCode = "400", description = "Formato de fecha inválido"),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @GetMapping("/rango-fechas/paginado")
+    public CollectionModel<EntityModel<Pedido>> obtenerPedidosEntreFechasPaginados(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSZ") Date inicio, // Ajustar el patrón si tu fecha es diferente
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSZ") Date fin, // Ajustar el patrón si tu fecha es diferente
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSZ") Date despuesDeFecha,
+            @RequestParam(required = false) Long despuesDeId,
+            @RequestParam(defaultValue = "100") int tamano) {
+        int tamanoPagina = Math.max(1, Math.min(tamano, TAMANO_PAGINA_MAXIMO)); // Se acota para no devolver el mes completo de una vez
+        List<Pedido> pagina = pedidoService.buscarPedidosEntreFechasDespuesDe(inicio, fin, despuesDeFecha, despuesDeId, tamanoPagina);
+
+        List<EntityModel<Pedido>> pedidos = pagina.stream()
+                .map(assembler::toModel)
+                .collect(Collectors.toList());
+
+        CollectionModel<EntityModel<Pedido>> resultado = CollectionModel.of(pedidos,
+                linkTo(methodOn(PedidoController.class).obtenerPedidosEntreFechasPaginados(inicio, fin, despuesDeFecha, despuesDeId, tamanoPagina)).withSelfRel());
+
+        // Si la página vino llena puede haber más pedidos: el cursor es el último (fecha, id) entregado
+        if (pagina.size() == tamanoPagina) {
+            Pedido ultimo = pagina.get(pagina.size() - 1);
+            resultado.add(linkTo(methodOn(PedidoController.class)
+                    .obtenerPedidosEntreFechasPaginados(inicio, fin, ultimo.getFecha(), ultimo.getId(), tamanoPagina))
+                    .withRel(IanaLinkRelations.NEXT));
+        }
+        return resultado;
+    }
+
+    @Operation(summary = "Obtener pedidos entre dos fechas en streaming",
+            description = "Escribe todos los pedidos del rango como un arreglo JSON a medida que se leen por lotes desde la base de datos. " +
+                    "El uso de memoria no depende de la cantidad de pedidos. Los pedidos se entregan sin enlaces HATEOAS.",
+            parameters = {
+                    @io.swagger.v3.oas.annotations.Parameter(name = "inicio", description = "Fecha y hora de inicio (ej. 2023-01-01T00:00:00.000+0000)", required = true),
+                    @io.swagger.v3.oas.annotations.Parameter(name = "fin", description = "Fecha y hora de fin (ej. 2023-12-31T23:59:59.999+0000)", required = true)
+            })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Pedidos enviados exitosamente",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = Pedido.class))),
+            @ApiResponse(responseCode = "400", description = "Formato de fecha inválido"),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @GetMapping(value = "/rango-fechas/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> obtenerPedidosEntreFechasEnStreaming(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSZ") Date inicio,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSZ") Date fin) {
+        StreamingResponseBody cuerpo = salida -> {
+            try (JsonGenerator generador = objectMapper.getFactory().createGenerator(salida)) {
+                generador.writeStartArray();
+                pedidoService.recorrerPedidosEntreFechas(inicio, fin, TAMANO_LOTE_STREAM, pedido -> {
+                    try {
+                        generador.writeObject(pedido);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e); // El cliente cerró la conexión
+                    }
+                });
+                generador.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(cuerpo);
+    }
+
     @Operation(summary = "Contar pedidos por usuario",
             description = "Obtiene el número total de pedidos realizados por un usuario específico.")
     @ApiResponses(value = {
@@ -190,4 +418,39 @@ public class PedidoController {
 
         return ResponseEntity.ok(resource);
     }
-}
\ No newline at end of file
+
+    @Operation(summary = "Resumen de ventas entre dos días",
+            description = "Suma la cantidad de pedidos y el total vendido entre dos días (ambos incluidos), con el desglose por estado y por día. " +
+                    "Se calcula a partir de acumulados diarios que se mantienen al crear, modificar o eliminar pedidos, " +
+                    "así que un año completo se responde leyendo del orden de 365 filas por estado. Formato de fecha: yyyy-MM-dd.",
+            parameters = {
+                    @io.swagger.v3.oas.annotations.Parameter(name = "inicio", description = "Primer día del rango (ej. 2024-01-01)", required = true),
+                    @io.swagger.v3.oas.annotations.Parameter(name = "fin", description = "Último día del rango (ej. 2024-12-31)", required = true),
+                    @io.swagger.v3.oas.annotations.Parameter(name = "estado", description = "Considerar solo los pedidos en este estado")
+            })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Resumen de ventas recuperado exitosamente",
+                    content = @Content(mediaType = "application/hal+json",
+                            schema = @Schema(implementation = ResumenVentas.class))),
+            @ApiResponse(responseCode = "400", description = "Formato de fecha o estado inválido, o 'inicio' posterior a 'fin'"),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @GetMapping("/ventas")
+    public ResponseEntity<EntityModel<ResumenVentas>> obtenerResumenVentas(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin,
+            @RequestParam(required = false) String estado) {
+        EstadoPedido estadoPedido;
+        try {
+            estadoPedido = EstadoPedido.desde(estado);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (inicio.isAfter(fin)) {
+            return ResponseEntity.badRequest().build();
+        }
+        EntityModel<ResumenVentas> resource = EntityModel.of(ventasDiariasService.consultar(inicio, fin, estadoPedido));
+        resource.add(linkTo(methodOn(PedidoController.class).obtenerResumenVentas(inicio, fin, estado)).withSelfRel());
+        return ResponseEntity.ok(resource);
+    }
+}
@@ -1,8 +1,12 @@
 package com.ecomarketspa.Controller;
 
 import com.ecomarketspa.Assembler.ProductoModelAssembler; // Importa el ensamblador
+import com.ecomarketspa.Dto.ResultadoImportacion;
 import com.ecomarketspa.Model.Producto;
+import com.ecomarketspa.Service.ImportacionProductoService;
 import com.ecomarketspa.Service.ProductoService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -10,12 +14,24 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.hateoas.CollectionModel; // Importa CollectionModel
 import org.springframework.hateoas.EntityModel;   // Importa EntityModel
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*; // Añadir para static import de linkTo/methodOn
@@ -31,55 +47,214 @@ public class ProductoController {
     @Autowired
     private ProductoModelAssembler assembler; // Inyecta el ensamblador
 
+    @Autowired
+    private ImportacionProductoService importacionProductoService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private static final int TAMANO_PAGINA_MAXIMO = 1000;
+    private static final int TAMANO_LOTE_STREAM = 500;
+    private static final int TAMANO_LOTE_IMPORTACION_MAXIMO = 5000;
+    private static final String MEDIA_TYPE_CSV = "text/csv";
+    private static final String MEDIA_TYPE_NDJSON = "application/x-ndjson";
+
     @Operation(summary = "Obtener todos los productos",
-            description = "Recupera una lista de todos los productos disponibles en el inventario, enriquecida con enlaces HATEOAS.")
+            description = "Recupera una lista de todos los productos disponibles en el inventario, enriquecida con enlaces HATEOAS. " +
+                    "Responde con un ETag de la versión del catálogo; si el encabezado If-None-Match coincide, devuelve 304 sin cuerpo.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Lista de productos recuperada exitosamente",
                     content = @Content(mediaType = "application/hal+json", // Importante: mediaType para HAL+JSON
                             schema = @Schema(implementation = CollectionModel.class))), // Esquema de colección
+            @ApiResponse(responseCode = "304", description = "El catálogo no cambió desde la versión indicada en If-None-Match"),
             @ApiResponse(responseCode = "500", description = "Error interno del servidor")
     })
     @GetMapping
-    public CollectionModel<EntityModel<Producto>> listarProductos() {
+    public ResponseEntity<CollectionModel<EntityModel<Producto>>> listarProductos(WebRequest request) {
+        // La versión se lee antes que los datos: si cambian entremedio, el cliente solo pierde un 304
+        String etag = productoService.obtenerEtagCatalogo();
+        if (request.checkNotModified(etag)) {
+            return null; // 304 ya preparado por checkNotModified
+        }
         List<EntityModel<Producto>> productos = productoService.listarProductos().stream()
                 .map(assembler::toModel) // Convierte cada Producto a EntityModel<Producto>
                 .collect(Collectors.toList());
 
-        return CollectionModel.of(productos, linkTo(methodOn(ProductoController.class).listarProductos()).withSelfRel());
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .body(CollectionModel.of(productos, linkTo(methodOn(ProductoController.class).listarProductos(null)).withSelfRel()));
+    }
+
+    @Operation(summary = "Obtener productos paginados por cursor",
+            description = "Recupera una página de productos con id mayor que 'despuesDeId', ordenados por id. " +
+                    "La respuesta incluye un enlace 'next' con el cursor de la siguiente página mientras queden productos.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Página de productos recuperada exitosamente",
+                    content = @Content(mediaType = "application/hal+json",
+                            schema = @Schema(implementation = CollectionModel.class))),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @GetMapping("/paginado")
+    public CollectionModel<EntityModel<Producto>> listarProductosPaginados(
+            @RequestParam(defaultValue = "0") Long despuesDeId,
+            @RequestParam(defaultValue = "50") int tamano) {
+        int tamanoPagina = Math.max(1, Math.min(tamano, TAMANO_PAGINA_MAXIMO)); // Se acota para no volver a cargar todo el catálogo
+        List<Producto> pagina = productoService.listarProductosDespuesDe(despuesDeId, tamanoPagina);
+
+        List<EntityModel<Producto>> productos = pagina.stream()
+                .map(assembler::toModel)
+                .collect(Collectors.toList());
+
+        CollectionModel<EntityModel<Producto>> resultado = CollectionModel.of(productos,
+                linkTo(methodOn(ProductoController.class).listarProductosPaginados(despuesDeId, tamanoPagina)).withSelfRel());
+
+        // Si la página vino llena puede haber más productos: el cursor es el último id entregado
+        if (pagina.size() == tamanoPagina) {
+            Long siguienteCursor = pagina.get(pagina.size() - 1).getId();
+            resultado.add(linkTo(methodOn(ProductoController.class).listarProductosPaginados(siguienteCursor, tamanoPagina))
+                    .withRel(IanaLinkRelations.NEXT));
+        }
+        return resultado;
+    }
+
+    @Operation(summary = "Obtener todos los productos en streaming",
+            description = "Escribe el catálogo completo como un arreglo JSON a medida que se leen los lotes desde la base de datos. " +
+                    "El uso de memoria no depende del tamaño del catálogo. Los productos se entregan sin enlaces HATEOAS.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Catálogo enviado exitosamente",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = Producto.class))),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> listarProductosEnStreaming() {
+        StreamingResponseBody cuerpo = salida -> {
+            try (JsonGenerator generador = objectMapper.getFactory().createGenerator(salida)) {
+                generador.writeStartArray();
+                productoService.recorrerProductos(TAMANO_LOTE_STREAM, producto -> {
+                    try {
+                        generador.writeObject(producto);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e); // El cliente cerró la conexión
+                    }
+                });
+                generador.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(cuerpo);
+    }
+
+    @Operation(summary = "Exportar el catálogo completo en NDJSON",
+            description = "Escribe un producto JSON por línea leyendo la base de datos con un cursor de solo avance. " +
+                    "Pensado para feeds de catálogo completos: la memoria usada no depende de la cantidad de productos.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Catálogo exportado exitosamente",
+                    content = @Content(mediaType = MEDIA_TYPE_NDJSON,
+                            schema = @Schema(implementation = Producto.class))),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @GetMapping(value = "/exportar", produces = MEDIA_TYPE_NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportarProductos() {
+        StreamingResponseBody cuerpo = salida -> {
+            try (JsonGenerator generador = objectMapper.getFactory().createGenerator(salida)) {
+                generador.setRootValueSeparator(null); // El separador entre productos es el salto de línea
+                productoService.exportarProductos(producto -> {
+                    try {
+                        generador.writeObject(producto);
+                        generador.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e); // El cliente cerró la conexión
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(MEDIA_TYPE_NDJSON))
+                .body(cuerpo);
     }
 
     @Operation(summary = "Obtener un producto por ID",
-            description = "Recupera los detalles de un producto específico utilizando su ID, enriquecido con enlaces HATEOAS.")
+            description = "Recupera los detalles de un producto específico utilizando su ID, enriquecido con enlaces HATEOAS. " +
+                    "Responde con un ETag de la versión del producto; si el encabezado If-None-Match coincide, devuelve 304 sin cuerpo.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Producto encontrado",
                     content = @Content(mediaType = "application/hal+json", // Importante: mediaType para HAL+JSON
                             schema = @Schema(implementation = EntityModel.class))), // Esquema de entidad
+            @ApiResponse(responseCode = "304", description = "El producto no cambió desde la versión indicada en If-None-Match"),
             @ApiResponse(responseCode = "404", description = "Producto no encontrado"),
             @ApiResponse(responseCode = "500", description = "Error interno del servidor")
     })
     @GetMapping("/{id}")
-    public ResponseEntity<EntityModel<Producto>> obtenerProductoPorId(@PathVariable Long id) {
+    public ResponseEntity<EntityModel<Producto>> obtenerProductoPorId(@PathVariable Long id, WebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            // Solo se consulta la columna de versión; la entidad se carga únicamente si cambió
+            Optional<Long> version = productoService.obtenerVersionProducto(id);
+            if (version.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            if (request.checkNotModified(etagProducto(id, version.get()))) {
+                return null; // 304 ya preparado por checkNotModified
+            }
+        }
         return productoService.obtenerProductoPorId(id)
-                .map(assembler::toModel) // Convierte el Producto a EntityModel<Producto>
-                .map(ResponseEntity::ok)
+                .map(producto -> ResponseEntity.ok()
+                        .eTag(etagProducto(producto.getId(), producto.getVersion()))
+                        .body(assembler.toModel(producto))) // Convierte el Producto a EntityModel<Producto>
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    private static String etagProducto(Long id, long version) {
+        return "\"producto-" + id + "-" + version + "\"";
+    }
+
+    // Versión contenida en un ETag de etagProducto para ese mismo producto, o null si no corresponde
+    private static Long versionDeEtag(Long id, String etag) {
+        String prefijo = "\"producto-" + id + "-";
+        if (id == null || !etag.startsWith(prefijo) || !etag.endsWith("\"") || etag.length() <= prefijo.length() + 1) {
+            return null;
+        }
+        try {
+            return Long.parseLong(etag.substring(prefijo.length(), etag.length() - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
     @Operation(summary = "Crear o actualizar un producto",
-            description = "Crea un nuevo producto o actualiza uno existente si el ID es proporcionado, con respuesta enriquecida con enlaces HATEOAS.")
+            description = "Crea un nuevo producto o actualiza uno existente si el ID es proporcionado, con respuesta enriquecida con enlaces HATEOAS. " +
+                    "Al actualizar se usa la versión enviada en el cuerpo o, si viene, la del ETag en If-Match; si el producto cambió " +
+                    "desde esa versión responde 409 y no se guarda nada. La respuesta incluye el ETag de la nueva versión.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Producto creado o actualizado exitosamente",
                     content = @Content(mediaType = "application/hal+json", // Importante: mediaType para HAL+JSON
                             schema = @Schema(implementation = EntityModel.class))), // Esquema de entidad
             @ApiResponse(responseCode = "400", description = "Solicitud inválida"),
+            @ApiResponse(responseCode = "409", description = "El producto fue modificado por otra solicitud; se debe volver a leer"),
+            @ApiResponse(responseCode = "412", description = "If-Match no corresponde a un ETag de este producto"),
             @ApiResponse(responseCode = "500", description = "Error interno del servidor")
     })
     @PostMapping
-    public ResponseEntity<EntityModel<Producto>> guardarProducto(@RequestBody Producto producto) {
-        Producto savedProducto = productoService.guardarProducto(producto);
+    public ResponseEntity<EntityModel<Producto>> guardarProducto(@RequestBody Producto producto,
+                                                                 @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (ifMatch != null) {
+            Long version = versionDeEtag(producto.getId(), ifMatch.trim());
+            if (version == null) {
+                return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+            }
+            producto.setVersion(version);
+        }
+        Producto savedProducto;
+        try {
+            savedProducto = productoService.guardarProducto(producto);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
         // Retorna el EntityModel del producto guardado o actualizado
         return ResponseEntity
-                .created(linkTo(methodOn(ProductoController.class).obtenerProductoPorId(savedProducto.getId())).toUri())
+                .created(linkTo(methodOn(ProductoController.class).obtenerProductoPorId(savedProducto.getId(), null)).toUri())
+                .eTag(etagProducto(savedProducto.getId(), savedProducto.getVersion()))
                 .body(assembler.toModel(savedProducto));
     }
 
@@ -120,6 +295,89 @@ public class ProductoController {
                 linkTo(methodOn(ProductoController.class).obtenerProductosPorCategoria(categoria)).withSelfRel());
     }
 
+    @Operation(summary = "Buscar productos por texto",
+            description = "Busca en el nombre y la descripción de los productos. No distingue mayúsculas ni tildes, " +
+                    "la última palabra se completa como prefijo y los resultados vienen ordenados por relevancia.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Resultados de la búsqueda recuperados exitosamente",
+                    content = @Content(mediaType = "application/hal+json",
+                            schema = @Schema(implementation = CollectionModel.class))),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @GetMapping("/buscar")
+    public CollectionModel<EntityModel<Producto>> buscarProductos(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limite) {
+        int limiteAcotado = Math.max(1, Math.min(limite, TAMANO_PAGINA_MAXIMO));
+        List<EntityModel<Producto>> productos = productoService.buscarPorTexto(q, limiteAcotado).stream()
+                .map(assembler::toModel)
+                .collect(Collectors.toList());
+
+        return CollectionModel.of(productos,
+                linkTo(methodOn(ProductoController.class).buscarProductos(q, limiteAcotado)).withSelfRel());
+    }
+
+    @Operation(summary = "Obtener estadísticas de la caché de categorías",
+            description = "Devuelve los aciertos, fallos, desalojos y entradas de la caché categoría → productos, útil para dimensionarla.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Estadísticas recuperadas exitosamente",
+                    content = @Content(mediaType = "application/hal+json",
+                            schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @GetMapping("/cache-categorias/estadisticas")
+    public ResponseEntity<EntityModel<Map<String, Long>>> obtenerEstadisticasCacheCategorias() {
+        EntityModel<Map<String, Long>> resource = EntityModel.of(productoService.obtenerEstadisticasCacheCategorias());
+        resource.add(linkTo(methodOn(ProductoController.class).obtenerEstadisticasCacheCategorias()).withSelfRel());
+        return ResponseEntity.ok(resource);
+    }
+
+    @Operation(summary = "Importar productos desde CSV",
+            description = "Crea productos en lote a partir de un CSV con cabecera (nombre, precio y opcionalmente categoria, stock, descripcion). " +
+                    "El archivo se procesa en streaming y las filas inválidas se informan sin detener la importación.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Importación procesada; revisar el resumen para las filas con error",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ResultadoImportacion.class))),
+            @ApiResponse(responseCode = "400", description = "CSV mal formado"),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @PostMapping(value = "/importar", consumes = MEDIA_TYPE_CSV)
+    public ResponseEntity<ResultadoImportacion> importarProductosCsv(
+            InputStream cuerpo,
+            @RequestParam(defaultValue = "500") int tamanoLote) {
+        try {
+            return ResponseEntity.ok(importacionProductoService.importarCsv(cuerpo, acotarLoteImportacion(tamanoLote)));
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(summary = "Importar productos desde NDJSON",
+            description = "Crea productos en lote a partir de un objeto JSON de producto por línea. " +
+                    "El cuerpo se procesa en streaming y las líneas inválidas se informan sin detener la importación.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Importación procesada; revisar el resumen para las filas con error",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ResultadoImportacion.class))),
+            @ApiResponse(responseCode = "400", description = "Cuerpo ilegible"),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @PostMapping(value = "/importar", consumes = MEDIA_TYPE_NDJSON)
+    public ResponseEntity<ResultadoImportacion> importarProductosNdjson(
+            InputStream cuerpo,
+            @RequestParam(defaultValue = "500") int tamanoLote) {
+        try {
+            return ResponseEntity.ok(importacionProductoService.importarNdjson(cuerpo, acotarLoteImportacion(tamanoLote)));
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    private static int acotarLoteImportacion(int tamanoLote) {
+        return Math.max(1, Math.min(tamanoLote, TAMANO_LOTE_IMPORTACION_MAXIMO));
+    }
+
     @Operation(summary = "Obtener productos con stock bajo un umbral",
             description = "Recupera una lista de productos cuyo stock es menor que el valor especificado, con enlaces HATEOAS.")
     @ApiResponses(value = {
@@ -0,0 +1,128 @@
+package com.ecomarketspa.Controller;
+
+import com.ecomarketspa.Dto.SolicitudReserva;
+import com.ecomarketspa.Model.ReservaStock;
+import com.ecomarketspa.Service.ProductoService;
+import com.ecomarketspa.Service.ReservaStockService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/reservas")
+@Tag(name = "Reservas de stock", description = "Reserva, confirmación y liberación de stock de productos sin sobreventa")
+public class ReservaStockController {
+
+    @Autowired
+    private ReservaStockService reservaStockService;
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Operation(summary = "Obtener una reserva por ID",
+            description = "Recupera el estado de una reserva de stock utilizando su ID.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Reserva encontrada",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ReservaStock.class))),
+            @ApiResponse(responseCode = "404", description = "Reserva no encontrada"),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @GetMapping("/{id}")
+    public ResponseEntity<ReservaStock> obtenerReservaPorId(@PathVariable Long id) {
+        return reservaStockService.obtenerReservaPorId(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @Operation(summary = "Reservar stock de un producto",
+            description = "Descuenta de forma atómica la cantidad indicada del stock del producto y crea una reserva activa. " +
+                    "Si el stock no alcanza, no se descuenta nada.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Reserva creada exitosamente",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ReservaStock.class))),
+            @ApiResponse(responseCode = "400", description = "Cantidad inválida"),
+            @ApiResponse(responseCode = "404", description = "Producto no encontrado"),
+            @ApiResponse(responseCode = "409", description = "Stock insuficiente"),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @PostMapping
+    public ResponseEntity<ReservaStock> reservar(@RequestBody SolicitudReserva solicitud) {
+        if (solicitud.cantidad() <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        return reservaStockService.reservar(solicitud.productoId(), solicitud.cantidad())
+                .map(reserva -> ResponseEntity.status(HttpStatus.CREATED).body(reserva))
+                .orElseGet(() -> productoService.obtenerProductoPorId(solicitud.productoId()).isEmpty()
+                        ? ResponseEntity.notFound().build()
+                        : ResponseEntity.status(HttpStatus.CONFLICT).build());
+    }
+
+    @Operation(summary = "Reservar stock de varios productos",
+            description = "Reserva varios productos en una sola operación contra la base de datos. " +
+                    "Es todo o nada: si algún producto no tiene stock suficiente (o no existe) no se reserva ninguno.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Reservas creadas exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Lista vacía o cantidad inválida"),
+            @ApiResponse(responseCode = "409", description = "Stock insuficiente en al menos un producto"),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @PostMapping("/lote")
+    public ResponseEntity<List<ReservaStock>> reservarLote(@RequestBody List<SolicitudReserva> solicitudes) {
+        if (solicitudes.isEmpty() || solicitudes.stream().anyMatch(solicitud -> solicitud.cantidad() <= 0)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return reservaStockService.reservarLote(solicitudes)
+                .map(reservas -> ResponseEntity.status(HttpStatus.CREATED).body(reservas))
+                .orElse(ResponseEntity.status(HttpStatus.CONFLICT).build());
+    }
+
+    @Operation(summary = "Confirmar una reserva",
+            description = "Marca una reserva activa como confirmada: el descuento de stock pasa a ser definitivo.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Reserva confirmada exitosamente"),
+            @ApiResponse(responseCode = "404", description = "Reserva no encontrada"),
+            @ApiResponse(responseCode = "409", description = "La reserva ya fue confirmada o liberada"),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @PostMapping("/{id}/confirmar")
+    public ResponseEntity<Void> confirmar(@PathVariable Long id) {
+        if (reservaStockService.confirmar(id)) {
+            return ResponseEntity.noContent().build();
+        }
+        return respuestaTransicionFallida(id);
+    }
+
+    @Operation(summary = "Liberar una reserva",
+            description = "Cancela una reserva activa y devuelve las unidades reservadas al stock del producto.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Reserva liberada exitosamente"),
+            @ApiResponse(responseCode = "404", description = "Reserva no encontrada"),
+            @ApiResponse(responseCode = "409", description = "La reserva ya fue confirmada o liberada"),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @PostMapping("/{id}/liberar")
+    public ResponseEntity<Void> liberar(@PathVariable Long id) {
+        if (reservaStockService.liberar(id)) {
+            return ResponseEntity.noContent().build();
+        }
+        return respuestaTransicionFallida(id);
+    }
+
+    private ResponseEntity<Void> respuestaTransicionFallida(Long id) {
+        if (reservaStockService.obtenerReservaPorId(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+}
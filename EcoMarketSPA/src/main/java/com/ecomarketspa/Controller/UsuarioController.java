@@ -1,7 +1,9 @@
 package com.ecomarketspa.Controller;
 
 import com.ecomarketspa.Assembler.UsuarioModelAssembler; // Importa el ensamblador
+import com.ecomarketspa.Dto.PerfilUsuario;
 import com.ecomarketspa.Model.Usuario;
+import com.ecomarketspa.Service.PerfilUsuarioService;
 import com.ecomarketspa.Service.UsuarioService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -10,8 +12,10 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.hateoas.CollectionModel; // Importa CollectionModel
 import org.springframework.hateoas.EntityModel;   // Importa EntityModel
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -28,6 +32,9 @@ public class UsuarioController {
     @Autowired
     private UsuarioService usuarioService;
 
+    @Autowired
+    private PerfilUsuarioService perfilUsuarioService;
+
     @Autowired
     private UsuarioModelAssembler assembler; // Inyecta el ensamblador
 
@@ -65,6 +72,25 @@ public class UsuarioController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @Operation(summary = "Obtener el perfil completo de un usuario",
+            description = "Devuelve en una sola llamada el usuario, sus " + PerfilUsuarioService.PEDIDOS_RECIENTES + " pedidos más recientes, su cantidad de pedidos y sus notificaciones. Las secciones se consultan en paralelo; las que fallan o no responden a tiempo quedan en null y se listan en 'incompletas'.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Perfil recuperado, posiblemente con secciones incompletas",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = PerfilUsuario.class))),
+            @ApiResponse(responseCode = "404", description = "Usuario no encontrado"),
+            @ApiResponse(responseCode = "503", description = "No se pudieron obtener los datos del usuario; el cuerpo trae las demás secciones"),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @GetMapping("/{id}/perfil")
+    public ResponseEntity<PerfilUsuario> obtenerPerfilUsuario(@PathVariable Long id) {
+        return perfilUsuarioService.obtenerPerfil(id)
+                .map(perfil -> perfil.usuario() == null
+                        ? ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(perfil)
+                        : ResponseEntity.ok(perfil))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @Operation(summary = "Crear o actualizar un usuario",
             description = "Crea un nuevo usuario o actualiza uno existente si el ID es proporcionado, con respuesta enriquecida con enlaces HATEOAS.")
     @ApiResponses(value = {
@@ -72,11 +98,20 @@ public class UsuarioController {
                     content = @Content(mediaType = "application/hal+json", // Importante: mediaType para HAL+JSON
                             schema = @Schema(implementation = EntityModel.class))), // Esquema de entidad
             @ApiResponse(responseCode = "400", description = "Solicitud inválida"),
+            @ApiResponse(responseCode = "409", description = "El correo ya está registrado por otro usuario"),
             @ApiResponse(responseCode = "500", description = "Error interno del servidor")
     })
     @PostMapping
     public ResponseEntity<EntityModel<Usuario>> guardarUsuario(@RequestBody Usuario usuario) {
-        Usuario savedUsuario = usuarioService.guardarUsuario(usuario);
+        Usuario savedUsuario;
+        try {
+            savedUsuario = usuarioService.guardarUsuario(usuario);
+        } catch (DataIntegrityViolationException e) {
+            if (usuarioService.correoRegistradoPorOtro(usuario)) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).build(); // Índice único de correo_norm
+            }
+            throw e; // Otra restricción: no es un correo repetido
+        }
         // Retorna el EntityModel del usuario guardado o actualizado
         return ResponseEntity
                 .created(linkTo(methodOn(UsuarioController.class).obtenerUsuarioPorId(savedUsuario.getId())).toUri())
@@ -102,7 +137,7 @@ public class UsuarioController {
     // --- Nuevos endpoints personalizados con HATEOAS ---
 
     @Operation(summary = "Obtener usuarios por nombre",
-            description = "Recupera una lista de usuarios cuyo nombre contiene la cadena especificada (búsqueda parcial e insensible a mayúsculas/minúsculas), con enlaces HATEOAS.")
+            description = "Recupera una lista de usuarios cuyo nombre contiene la cadena especificada (búsqueda parcial e insensible a mayúsculas/minúsculas y tildes), con enlaces HATEOAS.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Lista de usuarios por nombre recuperada exitosamente",
                     content = @Content(mediaType = "application/hal+json",
@@ -120,7 +155,7 @@ public class UsuarioController {
     }
 
     @Operation(summary = "Obtener usuarios por correo electrónico",
-            description = "Recupera una lista de usuarios cuyo correo electrónico contiene la cadena especificada (búsqueda parcial e insensible a mayúsculas/minúsculas), con enlaces HATEOAS.")
+            description = "Recupera una lista de usuarios cuyo correo electrónico contiene la cadena especificada (búsqueda parcial e insensible a mayúsculas/minúsculas y tildes), con enlaces HATEOAS.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Lista de usuarios por correo electrónico recuperada exitosamente",
                     content = @Content(mediaType = "application/hal+json",
@@ -137,6 +172,23 @@ public class UsuarioController {
                 linkTo(methodOn(UsuarioController.class).obtenerUsuariosPorCorreo(correo)).withSelfRel());
     }
 
+    @Operation(summary = "Obtener un usuario por correo electrónico exacto",
+            description = "Recupera el usuario registrado con el correo indicado, sin distinguir mayúsculas/minúsculas ni espacios al inicio o al final. Sirve para verificar si un correo ya está registrado; los correos que seguro no existen se descartan sin consultar la base de datos.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Usuario encontrado",
+                    content = @Content(mediaType = "application/hal+json",
+                            schema = @Schema(implementation = EntityModel.class))),
+            @ApiResponse(responseCode = "404", description = "No hay un usuario registrado con ese correo"),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @GetMapping("/por-correo")
+    public ResponseEntity<EntityModel<Usuario>> obtenerUsuarioPorCorreoExacto(@RequestParam String correo) {
+        return usuarioService.buscarPorCorreoExacto(correo)
+                .map(assembler::toModel)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @Operation(summary = "Obtener usuarios con pedidos pendientes",
             description = "Recupera una lista de todos los usuarios que tienen al menos un pedido en estado 'PENDIENTE', con enlaces HATEOAS.")
     @ApiResponses(value = {
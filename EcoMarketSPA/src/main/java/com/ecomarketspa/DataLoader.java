@@ -2,6 +2,7 @@ package com.ecomarketspa;
 
 import com.ecomarketspa.Model.Usuario;
 import com.ecomarketspa.Model.Producto;
+import com.ecomarketspa.Model.EstadoPedido;
 import com.ecomarketspa.Model.Pedido;
 import com.ecomarketspa.Model.Notificacion;
 import com.ecomarketspa.Repository.UsuarioRepository;
@@ -78,7 +79,7 @@ public class DataLoader implements CommandLineRunner { // Implementa CommandLine
         // --- Generar Pedidos ---
         if (pedidoRepository.count() == 0 && !usuarios.isEmpty()) {
             System.out.println("Generando pedidos de prueba...");
-            String[] estadosPedido = {"Pendiente", "Procesando", "Enviado", "Entregado", "Cancelado"};
+            EstadoPedido[] estadosPedido = EstadoPedido.values();
             for (int i = 0; i < 15; i++) { // Generamos 15 pedidos
                 Pedido pedido = new Pedido();
                 pedido.setEstado(estadosPedido[random.nextInt(estadosPedido.length)]);
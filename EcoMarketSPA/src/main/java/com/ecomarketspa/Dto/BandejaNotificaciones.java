@@ -0,0 +1,15 @@
+package com.ecomarketspa.Dto;
+
+import java.util.List;
+
+// Página de la bandeja de un usuario, de la más nueva a la más antigua. 'siguienteCursor' es el valor de
+// antesDeId para pedir la página siguiente, o null si no quedan más.
+public record BandejaNotificaciones(Long usuarioId,
+                                    List<Entrada> notificaciones,
+                                    long noLeidas,
+                                    long ultimaLeidaId,
+                                    Long siguienteCursor) {
+
+    public record Entrada(Long id, String tipo, String mensaje, boolean leida) {
+    }
+}
@@ -0,0 +1,15 @@
+package com.ecomarketspa.Dto;
+
+// Métricas de un canal de DespachoNotificaciones. 'pendientes' frente a 'capacidad' y 'rechazadas' muestran
+// la contrapresión; los demás son acumulados desde el arranque.
+public record EstadoCanalDespacho(String canal,
+                                  int pendientes,
+                                  int capacidad,
+                                  long enReintento,
+                                  long encoladas,
+                                  long enviadas,
+                                  long lotes,
+                                  long reintentos,
+                                  long fallidas,
+                                  long rechazadas) {
+}
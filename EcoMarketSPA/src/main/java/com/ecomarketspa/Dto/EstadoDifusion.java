@@ -0,0 +1,24 @@
+package com.ecomarketspa.Dto;
+
+import java.util.Date;
+
+// Avance de una difusión en segundo plano. 'usuariosEstimados' es el conteo del segmento al empezar;
+// los usuarios que se registren mientras corre también pueden recibirla.
+public record EstadoDifusion(long id,
+                             SolicitudDifusion solicitud,
+                             Situacion situacion,
+                             long usuariosEstimados,
+                             long notificacionesCreadas,
+                             long notificacionesDespachadas,
+                             Date inicio,
+                             Date fin,
+                             String error) {
+
+    public enum Situacion {
+        EN_COLA,
+        EN_CURSO,
+        COMPLETADA,
+        CANCELADA,
+        FALLIDA
+    }
+}
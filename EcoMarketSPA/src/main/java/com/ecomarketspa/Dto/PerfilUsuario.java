@@ -0,0 +1,17 @@
+package com.ecomarketspa.Dto;
+
+import com.ecomarketspa.Model.Notificacion;
+import com.ecomarketspa.Model.Pedido;
+import com.ecomarketspa.Model.Usuario;
+
+import java.util.List;
+import java.util.Map;
+
+// Vista agregada de un usuario. Las secciones que fallaron o no respondieron a tiempo quedan en null
+// y aparecen en 'incompletas' (sección -> motivo)
+public record PerfilUsuario(Usuario usuario,
+                            List<Pedido> pedidosRecientes,
+                            Long cantidadPedidos,
+                            List<Notificacion> notificaciones,
+                            Map<String, String> incompletas) {
+}
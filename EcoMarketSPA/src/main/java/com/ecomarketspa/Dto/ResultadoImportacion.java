@@ -0,0 +1,14 @@
+package com.ecomarketspa.Dto;
+
+import java.util.List;
+
+// Resumen de una importación masiva. Solo se detallan los primeros errores para acotar el tamaño de la respuesta.
+public record ResultadoImportacion(long filasLeidas,
+                                   long filasImportadas,
+                                   long filasConError,
+                                   List<ErrorFila> errores,
+                                   boolean erroresTruncados) {
+
+    public record ErrorFila(long fila, String mensaje) {
+    }
+}
@@ -0,0 +1,14 @@
+package com.ecomarketspa.Dto;
+
+import com.ecomarketspa.Model.EstadoPedido;
+
+import java.util.List;
+
+// Resultado de un cambio de estado masivo: qué pedidos pasaron al estado pedido y cuáles no, con el motivo
+public record ResultadoTransicion(EstadoPedido estado,
+                                  List<Long> aplicados,
+                                  List<Rechazo> rechazados) {
+
+    public record Rechazo(Long id, String motivo) {
+    }
+}
@@ -0,0 +1,20 @@
+package com.ecomarketspa.Dto;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+// Ventas de un rango de días armadas a partir de los acumulados diarios (ver VentaDiaria)
+public record ResumenVentas(LocalDate inicio,
+                            LocalDate fin,
+                            long cantidad,
+                            double total,
+                            Map<String, Totales> porEstado,
+                            List<Dia> dias) {
+
+    public record Totales(long cantidad, double total) {
+    }
+
+    public record Dia(LocalDate dia, long cantidad, double total) {
+    }
+}
@@ -0,0 +1,18 @@
+package com.ecomarketspa.Dto;
+
+import com.ecomarketspa.Model.EstadoPedido;
+
+// Cuerpo de una difusión: la notificación (tipo y mensaje) que recibe cada usuario del segmento.
+// 'estado' se usa con PEDIDOS_EN_ESTADO y 'consulta' (subcadena del nombre o del correo) con CONSULTA.
+public record SolicitudDifusion(String tipo,
+                                String mensaje,
+                                Segmento segmento,
+                                EstadoPedido estado,
+                                String consulta) {
+
+    public enum Segmento {
+        TODOS,
+        PEDIDOS_EN_ESTADO,
+        CONSULTA
+    }
+}
@@ -0,0 +1,5 @@
+package com.ecomarketspa.Dto;
+
+// Cuerpo de las peticiones de reserva: qué producto y cuántas unidades
+public record SolicitudReserva(Long productoId, int cantidad) {
+}
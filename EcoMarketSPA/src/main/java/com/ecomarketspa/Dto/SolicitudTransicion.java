@@ -0,0 +1,9 @@
+package com.ecomarketspa.Dto;
+
+import com.ecomarketspa.Model.EstadoPedido;
+
+import java.util.List;
+
+// Cuerpo de un cambio de estado masivo: a qué estado pasan los pedidos indicados
+public record SolicitudTransicion(List<Long> ids, EstadoPedido estado) {
+}
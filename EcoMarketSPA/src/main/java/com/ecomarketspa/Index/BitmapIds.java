@@ -0,0 +1,212 @@
+package com.ecomarketspa.Index;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.LongConsumer;
+
+/**
+ * Conjunto de ids comprimido al estilo Roaring.
+ *
+ * Los ids se agrupan en bloques de 65536 según sus bits altos. Cada bloque guarda los 16 bits bajos
+ * como arreglo ordenado mientras tiene hasta 4096 elementos (8 KB como máximo) y como mapa de bits
+ * de 8 KB cuando tiene más; así un bloque nunca ocupa más de 8 KB y los ids consecutivos, como los
+ * que genera un IDENTITY, quedan muy compactos. La cardinalidad se mantiene al día para responder en O(1).
+ *
+ * No es thread-safe: IndiceEstadosPedido sincroniza el acceso.
+ */
+public class BitmapIds {
+
+    private static final int MAXIMO_ARREGLO = 4096;
+
+    private final TreeMap<Long, Bloque> bloques = new TreeMap<>();
+    private long cardinalidad;
+
+    public boolean agregar(long id) {
+        Bloque bloque = bloques.get(id >>> 16);
+        if (bloque == null) {
+            bloque = new Arreglo();
+            bloques.put(id >>> 16, bloque);
+        }
+        if (!bloque.agregar((char) id)) {
+            return false;
+        }
+        if (bloque instanceof Arreglo arreglo && arreglo.tamano > MAXIMO_ARREGLO) {
+            bloques.put(id >>> 16, arreglo.aBits());
+        }
+        cardinalidad++;
+        return true;
+    }
+
+    public boolean quitar(long id) {
+        Bloque bloque = bloques.get(id >>> 16);
+        if (bloque == null || !bloque.quitar((char) id)) {
+            return false;
+        }
+        if (bloque.tamano() == 0) {
+            bloques.remove(id >>> 16);
+        } else if (bloque instanceof Bits bits && bits.tamano <= MAXIMO_ARREGLO) {
+            bloques.put(id >>> 16, bits.aArreglo());
+        }
+        cardinalidad--;
+        return true;
+    }
+
+    public boolean contiene(long id) {
+        Bloque bloque = bloques.get(id >>> 16);
+        return bloque != null && bloque.contiene((char) id);
+    }
+
+    public long cardinalidad() {
+        return cardinalidad;
+    }
+
+    // Entrega los ids en orden ascendente
+    public void recorrer(LongConsumer consumidor) {
+        for (Map.Entry<Long, Bloque> entrada : bloques.entrySet()) {
+            entrada.getValue().recorrer(entrada.getKey() << 16, consumidor);
+        }
+    }
+
+    public long[] aArreglo() {
+        long[] ids = new long[Math.toIntExact(cardinalidad)];
+        int[] posicion = {0};
+        recorrer(id -> ids[posicion[0]++] = id);
+        return ids;
+    }
+
+    // Bytes ocupados por los bloques, para comparar contra un conjunto sin comprimir
+    public long bytesAproximados() {
+        long bytes = 0;
+        for (Bloque bloque : bloques.values()) {
+            bytes += bloque instanceof Bits ? 8192 : 2L * ((Arreglo) bloque).valores.length;
+        }
+        return bytes;
+    }
+
+    private interface Bloque {
+        boolean agregar(char bajo);
+
+        boolean quitar(char bajo);
+
+        boolean contiene(char bajo);
+
+        int tamano();
+
+        void recorrer(long base, LongConsumer consumidor);
+    }
+
+    // Hasta 4096 valores de 16 bits, ordenados
+    private static final class Arreglo implements Bloque {
+        private char[] valores = new char[4];
+        private int tamano;
+
+        @Override
+        public boolean agregar(char bajo) {
+            int posicion = Arrays.binarySearch(valores, 0, tamano, bajo);
+            if (posicion >= 0) {
+                return false;
+            }
+            posicion = -posicion - 1;
+            if (tamano == valores.length) {
+                valores = Arrays.copyOf(valores, Math.min(valores.length * 2, MAXIMO_ARREGLO + 1));
+            }
+            System.arraycopy(valores, posicion, valores, posicion + 1, tamano - posicion);
+            valores[posicion] = bajo;
+            tamano++;
+            return true;
+        }
+
+        @Override
+        public boolean quitar(char bajo) {
+            int posicion = Arrays.binarySearch(valores, 0, tamano, bajo);
+            if (posicion < 0) {
+                return false;
+            }
+            System.arraycopy(valores, posicion + 1, valores, posicion, tamano - posicion - 1);
+            tamano--;
+            return true;
+        }
+
+        @Override
+        public boolean contiene(char bajo) {
+            return Arrays.binarySearch(valores, 0, tamano, bajo) >= 0;
+        }
+
+        @Override
+        public int tamano() {
+            return tamano;
+        }
+
+        @Override
+        public void recorrer(long base, LongConsumer consumidor) {
+            for (int i = 0; i < tamano; i++) {
+                consumidor.accept(base | valores[i]);
+            }
+        }
+
+        Bits aBits() {
+            Bits bits = new Bits();
+            for (int i = 0; i < tamano; i++) {
+                bits.agregar(valores[i]);
+            }
+            return bits;
+        }
+    }
+
+    // 65536 bits en 1024 palabras
+    private static final class Bits implements Bloque {
+        private final long[] palabras = new long[1024];
+        private int tamano;
+
+        @Override
+        public boolean agregar(char bajo) {
+            long mascara = 1L << bajo;
+            if ((palabras[bajo >>> 6] & mascara) != 0) {
+                return false;
+            }
+            palabras[bajo >>> 6] |= mascara;
+            tamano++;
+            return true;
+        }
+
+        @Override
+        public boolean quitar(char bajo) {
+            long mascara = 1L << bajo;
+            if ((palabras[bajo >>> 6] & mascara) == 0) {
+                return false;
+            }
+            palabras[bajo >>> 6] &= ~mascara;
+            tamano--;
+            return true;
+        }
+
+        @Override
+        public boolean contiene(char bajo) {
+            return (palabras[bajo >>> 6] & (1L << bajo)) != 0;
+        }
+
+        @Override
+        public int tamano() {
+            return tamano;
+        }
+
+        @Override
+        public void recorrer(long base, LongConsumer consumidor) {
+            for (int i = 0; i < palabras.length; i++) {
+                long palabra = palabras[i];
+                while (palabra != 0) {
+                    consumidor.accept(base | ((long) i << 6) | Long.numberOfTrailingZeros(palabra));
+                    palabra &= palabra - 1;
+                }
+            }
+        }
+
+        Arreglo aArreglo() {
+            Arreglo arreglo = new Arreglo();
+            arreglo.valores = new char[tamano];
+            recorrer(0, bajo -> arreglo.valores[arreglo.tamano++] = (char) bajo);
+            return arreglo;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.ecomarketspa.Index;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché acotada categoría → ids de productos (ordenados), con desalojo LRU.
+ *
+ * Cada escritura de productos invalida las categorías afectadas. Para no guardar un
+ * resultado leído antes de una invalidación, quien carga desde la base de datos toma
+ * la generación actual antes de consultar y solo guarda si no hubo invalidaciones entre medio.
+ *
+ * Un acierto es un get sobre ConcurrentHashMap más la marca de último uso de su entrada, sin
+ * bloqueos: un LinkedHashMap en orden de acceso reordena su lista en cada get y obligaba a
+ * serializar todas las lecturas. Las escrituras (guardar tras un fallo, invalidar, limpiar) sí
+ * se serializan entre ellas para que la comprobación de la generación y el desalojo sean atómicos;
+ * el desalojo recorre las entradas buscando la de uso más antiguo, que con la capacidad de la
+ * caché cuesta mucho menos que la consulta que provocó el fallo.
+ */
+@Component
+public class CacheCategorias {
+
+    private static final class Entrada {
+
+        private final long[] ids;
+        private volatile long ultimoUso = System.nanoTime();
+
+        private Entrada(long[] ids) {
+            this.ids = ids;
+        }
+    }
+
+    private final int capacidad;
+    private final ConcurrentHashMap<String, Entrada> entradas = new ConcurrentHashMap<>();
+    private final Object escrituras = new Object();
+    private final AtomicLong generacion = new AtomicLong();
+
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder desalojos = new LongAdder();
+
+    public CacheCategorias(@Value("${ecomarket.cache.categorias.capacidad:256}") int capacidad) {
+        if (capacidad <= 0) {
+            throw new IllegalArgumentException("La capacidad de la caché debe ser mayor que cero");
+        }
+        this.capacidad = capacidad;
+    }
+
+    // Devuelve los ids cacheados de la categoría o null si no está en la caché.
+    public long[] obtener(String categoria) {
+        Entrada entrada = entradas.get(categoria);
+        if (entrada == null) {
+            fallos.increment();
+            return null;
+        }
+        entrada.ultimoUso = System.nanoTime();
+        aciertos.increment();
+        return entrada.ids;
+    }
+
+    public long generacionActual() {
+        return generacion.get();
+    }
+
+    // Guarda los ids de una categoría leídos en la generación indicada.
+    public void guardar(String categoria, long[] ids, long generacionLeida) {
+        long[] ordenados = ids.clone();
+        Arrays.sort(ordenados);
+        synchronized (escrituras) {
+            if (generacion.get() == generacionLeida) {
+                entradas.put(categoria, new Entrada(ordenados));
+                if (entradas.size() > capacidad) {
+                    desalojarMenosUsada();
+                }
+            }
+        }
+    }
+
+    // Invalida la categoría indicada y cualquier otra que contenga al producto (por ejemplo, si cambió de categoría).
+    public void invalidarProducto(long id, String categoria) {
+        synchronized (escrituras) {
+            generacion.incrementAndGet();
+            if (categoria != null) {
+                entradas.remove(categoria);
+            }
+            entradas.values().removeIf(entrada -> Arrays.binarySearch(entrada.ids, id) >= 0);
+        }
+    }
+
+    public void limpiar() {
+        synchronized (escrituras) {
+            generacion.incrementAndGet();
+            entradas.clear();
+        }
+    }
+
+    public Map<String, Long> estadisticas() {
+        Map<String, Long> estadisticas = new LinkedHashMap<>();
+        estadisticas.put("aciertos", aciertos.sum());
+        estadisticas.put("fallos", fallos.sum());
+        estadisticas.put("desalojos", desalojos.sum());
+        estadisticas.put("entradas", (long) entradas.size());
+        estadisticas.put("capacidad", (long) capacidad);
+        return estadisticas;
+    }
+
+    // Solo bajo 'escrituras'
+    private void desalojarMenosUsada() {
+        Map.Entry<String, Entrada> menosUsada = null;
+        for (Map.Entry<String, Entrada> entrada : entradas.entrySet()) {
+            if (menosUsada == null || entrada.getValue().ultimoUso - menosUsada.getValue().ultimoUso < 0) {
+                menosUsada = entrada;
+            }
+        }
+        if (menosUsada != null && entradas.remove(menosUsada.getKey(), menosUsada.getValue())) {
+            desalojos.increment();
+        }
+    }
+}
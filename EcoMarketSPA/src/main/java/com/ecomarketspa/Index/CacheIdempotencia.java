@@ -0,0 +1,90 @@
+package com.ecomarketspa.Index;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caché acotada Idempotency-Key → id del pedido creado, con vencimiento por TTL.
+ *
+ * La lectura es un get sobre ConcurrentHashMap, sin bloqueos. Cuando se supera la capacidad,
+ * un solo hilo a la vez recorre el mapa: primero quita las entradas vencidas y, si no alcanza,
+ * las que vaya encontrando hasta volver a la capacidad. Lo que se desaloja sigue en la tabla
+ * claves_idempotencia, así que un desalojo solo cuesta una consulta extra.
+ */
+@Component
+public class CacheIdempotencia {
+
+    private record Entrada(long pedidoId, long vence) {
+    }
+
+    private final int capacidad;
+    private final long ttlNanos;
+    private final ConcurrentHashMap<String, Entrada> entradas = new ConcurrentHashMap<>();
+    private final AtomicBoolean desalojando = new AtomicBoolean();
+
+    public CacheIdempotencia(@Value("${ecomarket.idempotencia.capacidad:100000}") int capacidad,
+                             @Value("${ecomarket.idempotencia.ttl:24h}") Duration ttl) {
+        if (capacidad <= 0) {
+            throw new IllegalArgumentException("La capacidad de la caché debe ser mayor que cero");
+        }
+        this.capacidad = capacidad;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    // Devuelve el id del pedido creado con esta clave, o null si no está en caché o ya venció
+    public Long obtener(String clave) {
+        Entrada entrada = entradas.get(clave);
+        if (entrada == null) {
+            return null;
+        }
+        if (System.nanoTime() - entrada.vence() > 0) {
+            entradas.remove(clave, entrada);
+            return null;
+        }
+        return entrada.pedidoId();
+    }
+
+    // Clave recién creada: vence dentro de un TTL completo
+    public void guardar(String clave, long pedidoId) {
+        guardar(clave, pedidoId, System.nanoTime() + ttlNanos);
+    }
+
+    // Clave leída de claves_idempotencia: vence cuando vence el registro ('creada' + TTL), no un TTL después de leerla
+    public void guardar(String clave, long pedidoId, Date creada) {
+        long restanteNanos = TimeUnit.MILLISECONDS.toNanos(creada.getTime() - System.currentTimeMillis()) + ttlNanos;
+        guardar(clave, pedidoId, System.nanoTime() + restanteNanos);
+    }
+
+    private void guardar(String clave, long pedidoId, long vence) {
+        entradas.put(clave, new Entrada(pedidoId, vence));
+        if (entradas.size() > capacidad && desalojando.compareAndSet(false, true)) {
+            try {
+                desalojar();
+            } finally {
+                desalojando.set(false);
+            }
+        }
+    }
+
+    public int tamano() {
+        return entradas.size();
+    }
+
+    private void desalojar() {
+        long ahora = System.nanoTime();
+        entradas.entrySet().removeIf(entrada -> ahora - entrada.getValue().vence() > 0);
+        Iterator<Map.Entry<String, Entrada>> iterador = entradas.entrySet().iterator();
+        while (entradas.size() > capacidad && iterador.hasNext()) {
+            iterador.next();
+            iterador.remove();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.ecomarketspa.Index;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Cambios incrementales (sumar o restar) que se aplican en memoria después del commit, y carga de una
+ * consulta agrupada que no se cruce con ellos.
+ *
+ * Un cambio confirmado antes de la consulta pero aplicado después de empezar la carga quedaría contado dos
+ * veces: en la consulta y al aplicarse. Como son sumas, no se puede reconciliar después, así que la consulta
+ * se repite hasta que corre sin cambios en vuelo al empezar ni registrados mientras corría. Con eso, todo
+ * cambio que se aplique en la carga se registró después de la consulta y no está incluido en ella.
+ */
+final class CambiosConfirmados {
+
+    private static final int INTENTOS_CARGA = 20;
+    private static final long PAUSA_ENTRE_INTENTOS_NANOS = 50_000_000L;
+
+    private final AtomicLong registrados = new AtomicLong();
+    private final AtomicLong enVuelo = new AtomicLong(); // Registrados que todavía no terminan de aplicarse (o descartarse)
+
+    // Ejecuta 'aplicar' después del commit, o de inmediato fuera de una transacción; si hay rollback no se aplica.
+    // Queda en vuelo desde que se registra hasta que termina de aplicarse.
+    void registrar(Runnable aplicar) {
+        enVuelo.incrementAndGet(); // Antes que 'registrados': consultarSinCambios los lee en el orden inverso
+        registrados.incrementAndGet();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            try {
+                aplicar.run();
+            } finally {
+                enVuelo.decrementAndGet();
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int estado) {
+                try {
+                    if (estado == STATUS_COMMITTED) {
+                        aplicar.run();
+                    }
+                } finally {
+                    enVuelo.decrementAndGet();
+                }
+            }
+        });
+    }
+
+    // Devuelve el resultado de la primera ejecución de 'consulta' que no se cruzó con ningún cambio, o null si no
+    // se logró en INTENTOS_CARGA (con escrituras constantes). 'antesDeConsultar' se ejecuta en cada intento después
+    // de tomar la marca: lo que prepare solo lo ven los cambios que quedaron en vuelo o se registraron después.
+    <T> T consultarSinCambios(Runnable antesDeConsultar, Supplier<T> consulta) {
+        for (int intento = 0; intento < INTENTOS_CARGA; intento++) {
+            long registradosAntes = registrados.get();
+            boolean sinCambiosEnVuelo = enVuelo.get() == 0;
+            antesDeConsultar.run();
+            T resultado = consulta.get();
+            if (sinCambiosEnVuelo && registrados.get() == registradosAntes) {
+                return resultado;
+            }
+            LockSupport.parkNanos(PAUSA_ENTRE_INTENTOS_NANOS);
+        }
+        return null;
+    }
+}
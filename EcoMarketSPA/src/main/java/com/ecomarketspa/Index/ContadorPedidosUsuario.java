@@ -0,0 +1,75 @@
+package com.ecomarketspa.Index;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Cantidad de pedidos por usuario, mantenida en memoria para responder el conteo sin un COUNT(*).
+ *
+ * Los cambios llegan desde PedidoListener y se aplican recién después del commit, así un pedido
+ * revertido nunca se cuenta. Al arrancar se carga con una sola consulta agrupada, repetida hasta que no se
+ * cruce con ningún cambio (ver CambiosConfirmados); mientras tanto obtener() devuelve null y el servicio
+ * consulta la base de datos.
+ */
+@Component
+public class ContadorPedidosUsuario {
+
+    private volatile ConcurrentHashMap<Long, LongAdder> totales = new ConcurrentHashMap<>();
+    private volatile ConcurrentHashMap<Long, LongAdder> enCarga; // Recibe los cambios registrados después de la consulta
+    private volatile boolean cargado;
+    private final CambiosConfirmados cambios = new CambiosConfirmados();
+
+    public void registrarCambio(Long usuarioId, long delta) {
+        if (usuarioId == null || delta == 0) {
+            return;
+        }
+        cambios.registrar(() -> aplicar(usuarioId, delta));
+    }
+
+    // Reemplaza los totales por los de la consulta agrupada más los cambios registrados después de ella.
+    // Devuelve false si la consulta se cruzó con cambios en todos los intentos: los totales quedan como estaban.
+    // Se puede volver a ejecutar para reconciliar.
+    public synchronized boolean cargar(Supplier<Map<Long, Long>> consultaTotales) {
+        Map<Long, Long> consulta = cambios.consultarSinCambios(() -> enCarga = new ConcurrentHashMap<>(), consultaTotales);
+        ConcurrentHashMap<Long, LongAdder> nuevos = enCarga;
+        if (consulta == null) {
+            enCarga = null;
+            return false;
+        }
+        consulta.forEach((usuarioId, total) -> sumar(nuevos, usuarioId, total));
+        totales = nuevos;
+        enCarga = null;
+        cargado = true;
+        return true;
+    }
+
+    public boolean estaCargado() {
+        return cargado;
+    }
+
+    // Devuelve null si el contador aún no se carga
+    public Long obtener(Long usuarioId) {
+        if (!cargado) {
+            return null;
+        }
+        LongAdder total = totales.get(usuarioId);
+        return total == null ? 0L : total.sum();
+    }
+
+    private void aplicar(Long usuarioId, long delta) {
+        ConcurrentHashMap<Long, LongAdder> recarga = enCarga;
+        ConcurrentHashMap<Long, LongAdder> actuales = totales;
+        if (recarga != null && recarga != actuales) { // Justo después del reemplazo son el mismo mapa
+            sumar(recarga, usuarioId, delta);
+        }
+        sumar(actuales, usuarioId, delta);
+    }
+
+    private static void sumar(ConcurrentHashMap<Long, LongAdder> mapa, Long usuarioId, long delta) {
+        mapa.computeIfAbsent(usuarioId, id -> new LongAdder()).add(delta);
+    }
+}
@@ -0,0 +1,160 @@
+package com.ecomarketspa.Index;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Filtro de Bloom con los correos normalizados de los usuarios registrados.
+ *
+ * Si puedeExistir() devuelve false el correo seguro no está registrado y no hace falta consultar la base
+ * de datos; si devuelve true puede ser un falso positivo y hay que confirmarlo. Un filtro de Bloom no
+ * permite quitar elementos, así que los correos eliminados o cambiados siguen dando positivo hasta la
+ * próxima reconstrucción, que dimensiona el filtro para la cantidad de usuarios del momento.
+ *
+ * Antes de la primera reconstrucción no hay filtro y todo puede existir.
+ */
+@Component
+public class FiltroBloomCorreos {
+
+    private static final long CAPACIDAD_MINIMA = 1024;
+    private static final double HOLGURA = 1.5; // Margen para las altas que lleguen antes de la próxima reconstrucción
+
+    private final double probabilidadFalsoPositivo;
+    private final ReentrantLock candadoReconstruccion = new ReentrantLock();
+    private volatile Filtro filtro;
+    private List<String> enReconstruccion; // Altas recibidas mientras corre una reconstrucción; solo bajo el monitor
+
+    public FiltroBloomCorreos(@Value("${ecomarket.usuarios.filtro-correos.falsos-positivos:0.01}") double probabilidadFalsoPositivo) {
+        if (probabilidadFalsoPositivo <= 0 || probabilidadFalsoPositivo >= 1) {
+            throw new IllegalArgumentException("La probabilidad de falso positivo debe estar entre 0 y 1");
+        }
+        this.probabilidadFalsoPositivo = probabilidadFalsoPositivo;
+    }
+
+    public boolean puedeExistir(String correoNorm) {
+        Filtro actual = filtro;
+        return actual == null || actual.contiene(correoNorm);
+    }
+
+    public void agregar(String correoNorm) {
+        if (correoNorm == null) {
+            return;
+        }
+        synchronized (this) {
+            if (enReconstruccion != null) {
+                enReconstruccion.add(correoNorm);
+            }
+        }
+        Filtro actual = filtro;
+        if (actual != null) {
+            actual.agregar(correoNorm);
+        }
+    }
+
+    public boolean estaCargado() {
+        return filtro != null;
+    }
+
+    // true cuando ya se agregaron más correos que los previstos y la tasa de falsos positivos empieza a subir
+    public boolean estaSaturado() {
+        Filtro actual = filtro;
+        return actual != null && actual.agregados.get() > actual.capacidad;
+    }
+
+    // Construye un filtro nuevo para 'esperados' correos con el recorrido completo y lo publica. Las altas que
+    // lleguen mientras corre quedan anotadas y se agregan también al filtro nuevo antes de publicarlo.
+    public void reconstruir(long esperados, Consumer<Consumer<String>> recorrido) {
+        candadoReconstruccion.lock(); // Una reconstrucción a la vez; las altas no esperan por ella
+        try {
+            synchronized (this) {
+                enReconstruccion = new ArrayList<>();
+            }
+            Filtro nuevo = new Filtro(Math.max(CAPACIDAD_MINIMA, (long) (esperados * HOLGURA)), probabilidadFalsoPositivo);
+            boolean completo = false;
+            try {
+                recorrido.accept(correo -> {
+                    if (correo != null) {
+                        nuevo.agregar(correo);
+                    }
+                });
+                completo = true;
+            } finally {
+                synchronized (this) {
+                    if (completo) {
+                        enReconstruccion.forEach(nuevo::agregar);
+                        filtro = nuevo;
+                    }
+                    enReconstruccion = null;
+                }
+            }
+        } finally {
+            candadoReconstruccion.unlock();
+        }
+    }
+
+    // Mapa de bits de m bits con k funciones de hash derivadas de dos hashes de 64 bits (Kirsch-Mitzenmacher)
+    private static final class Filtro {
+
+        private final AtomicLongArray palabras;
+        private final long bits;
+        private final int funciones;
+        private final long capacidad;
+        private final AtomicLong agregados = new AtomicLong();
+
+        Filtro(long capacidad, double probabilidad) {
+            long m = (long) Math.ceil(-capacidad * Math.log(probabilidad) / (Math.log(2) * Math.log(2)));
+            this.palabras = new AtomicLongArray(Math.toIntExact((m + 63) / 64));
+            this.bits = 64L * palabras.length();
+            this.funciones = (int) Math.max(1, Math.min(16, Math.round((double) bits / capacidad * Math.log(2))));
+            this.capacidad = capacidad;
+        }
+
+        void agregar(String valor) {
+            long h1 = hash(valor, 0x9E3779B97F4A7C15L);
+            long h2 = hash(valor, 0xC2B2AE3D27D4EB4FL) | 1;
+            for (int i = 0; i < funciones; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bits);
+                int palabra = (int) (bit >>> 6);
+                long mascara = 1L << bit;
+                long anterior;
+                do {
+                    anterior = palabras.get(palabra);
+                } while ((anterior & mascara) == 0 && !palabras.compareAndSet(palabra, anterior, anterior | mascara));
+            }
+            agregados.incrementAndGet();
+        }
+
+        boolean contiene(String valor) {
+            long h1 = hash(valor, 0x9E3779B97F4A7C15L);
+            long h2 = hash(valor, 0xC2B2AE3D27D4EB4FL) | 1;
+            for (int i = 0; i < funciones; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bits);
+                if ((palabras.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Hash de 64 bits de los caracteres con el finalizador de MurmurHash3
+        private static long hash(String valor, long semilla) {
+            long h = semilla;
+            for (int i = 0; i < valor.length(); i++) {
+                h = (h ^ valor.charAt(i)) * 0x100000001B3L;
+            }
+            h ^= h >>> 33;
+            h *= 0xFF51AFD7ED558CCDL;
+            h ^= h >>> 33;
+            h *= 0xC4CEB9FE1A85EC53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
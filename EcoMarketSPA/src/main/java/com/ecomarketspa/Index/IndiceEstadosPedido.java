@@ -0,0 +1,127 @@
+package com.ecomarketspa.Index;
+
+import com.ecomarketspa.Model.EstadoPedido;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Ids de pedido por estado, en un BitmapIds por cada EstadoPedido.
+ *
+ * Responde qué pedidos están en un estado y cuántos son sin recorrer la tabla. Igual que
+ * ContadorPedidosUsuario, los cambios llegan desde PedidoListener y se aplican después del commit,
+ * y se carga al arrancar; hasta entonces estaCargado() es false y el servicio consulta la base de datos.
+ */
+@Component
+public class IndiceEstadosPedido {
+
+    private final ReentrantReadWriteLock candado = new ReentrantReadWriteLock();
+    private Map<EstadoPedido, BitmapIds> porEstado = nuevosBitmaps();
+    private List<Asignacion> enCarga; // Cambios confirmados mientras corre la carga; se vuelven a aplicar al final
+    private volatile boolean cargado;
+
+    // estado null significa que el pedido se eliminó
+    private record Asignacion(long pedidoId, EstadoPedido estado) {
+    }
+
+    public void registrarCambio(Long pedidoId, EstadoPedido estado) {
+        if (pedidoId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    aplicar(new Asignacion(pedidoId, estado));
+                }
+            });
+        } else {
+            aplicar(new Asignacion(pedidoId, estado));
+        }
+    }
+
+    // Reemplaza el índice por el recorrido completo de (id, estado). Los cambios confirmados mientras corre se
+    // vuelven a aplicar al final; como cada cambio deja el pedido en un solo estado, repetirlos no altera el resultado.
+    public synchronized void cargar(Consumer<BiConsumer<Long, EstadoPedido>> recorrido) {
+        escribir(() -> enCarga = new ArrayList<>());
+        Map<EstadoPedido, BitmapIds> nuevos = nuevosBitmaps();
+        recorrido.accept((pedidoId, estado) -> {
+            if (estado != null) {
+                nuevos.get(estado).agregar(pedidoId);
+            }
+        });
+        escribir(() -> {
+            enCarga.forEach(asignacion -> asignar(nuevos, asignacion));
+            enCarga = null;
+            porEstado = nuevos;
+        });
+        cargado = true;
+    }
+
+    public boolean estaCargado() {
+        return cargado;
+    }
+
+    public long contar(EstadoPedido estado) {
+        candado.readLock().lock();
+        try {
+            return porEstado.get(estado).cardinalidad();
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    // Ids de los pedidos en 'estado', en orden ascendente
+    public long[] pedidosEn(EstadoPedido estado) {
+        candado.readLock().lock();
+        try {
+            return porEstado.get(estado).aArreglo();
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    private void aplicar(Asignacion asignacion) {
+        escribir(() -> {
+            if (enCarga != null) {
+                enCarga.add(asignacion);
+            }
+            asignar(porEstado, asignacion);
+        });
+    }
+
+    private static void asignar(Map<EstadoPedido, BitmapIds> bitmaps, Asignacion asignacion) {
+        bitmaps.forEach((estado, bitmap) -> {
+            if (estado == asignacion.estado()) {
+                bitmap.agregar(asignacion.pedidoId());
+            } else {
+                bitmap.quitar(asignacion.pedidoId());
+            }
+        });
+    }
+
+    private void escribir(Runnable cambio) {
+        candado.writeLock().lock();
+        try {
+            cambio.run();
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    private static Map<EstadoPedido, BitmapIds> nuevosBitmaps() {
+        Map<EstadoPedido, BitmapIds> bitmaps = new EnumMap<>(EstadoPedido.class);
+        for (EstadoPedido estado : EstadoPedido.values()) {
+            bitmaps.put(estado, new BitmapIds());
+        }
+        return bitmaps;
+    }
+}
@@ -0,0 +1,204 @@
+package com.ecomarketspa.Index;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Índice en memoria de precios de productos.
+ *
+ * Guarda dos arreglos paralelos (precios y ids) ordenados por (precio, id) y responde
+ * rangos de precio con búsqueda binaria. Las escrituras crean una copia nueva de los
+ * arreglos y la publican de forma atómica (copy-on-write), así los lectores nunca bloquean.
+ * Es local a cada instancia de la aplicación.
+ */
+@Component
+public class IndicePrecios {
+
+    // Instantánea inmutable: nunca se modifica después de publicarse
+    private record Instantanea(double[] precios, long[] ids) {
+    }
+
+    private static final Instantanea VACIA = new Instantanea(new double[0], new long[0]);
+
+    private volatile Instantanea actual = VACIA;
+    private volatile boolean cargado = false;
+
+    // Reemplaza el contenido completo del índice. Los arreglos no necesitan venir ordenados.
+    public synchronized void cargar(long[] ids, double[] precios) {
+        actual = ordenar(ids, precios);
+        cargado = true;
+    }
+
+    // Inserta o mueve varios productos copiando los arreglos una sola vez (para importaciones masivas).
+    public synchronized void actualizarLote(long[] ids, double[] precios) {
+        if (ids.length == 0) {
+            return;
+        }
+        Instantanea nuevos = ordenar(ids, precios);
+        Set<Long> reemplazados = new HashSet<>();
+        for (long id : ids) {
+            reemplazados.add(id);
+        }
+
+        Instantanea base = actual;
+        int largoMaximo = base.ids().length + nuevos.ids().length;
+        double[] mezclaPrecios = new double[largoMaximo];
+        long[] mezclaIds = new long[largoMaximo];
+        int i = 0;
+        int j = 0;
+        int destino = 0;
+        while (i < base.ids().length || j < nuevos.ids().length) {
+            if (i < base.ids().length && reemplazados.contains(base.ids()[i])) {
+                i++; // Su posición anterior se descarta; la nueva viene en 'nuevos'
+                continue;
+            }
+            boolean tomarBase = j >= nuevos.ids().length
+                    || (i < base.ids().length && comparar(base.precios()[i], base.ids()[i], nuevos.precios()[j], nuevos.ids()[j]) < 0);
+            if (tomarBase) {
+                mezclaPrecios[destino] = base.precios()[i];
+                mezclaIds[destino++] = base.ids()[i++];
+            } else {
+                mezclaPrecios[destino] = nuevos.precios()[j];
+                mezclaIds[destino++] = nuevos.ids()[j++];
+            }
+        }
+        actual = new Instantanea(Arrays.copyOf(mezclaPrecios, destino), Arrays.copyOf(mezclaIds, destino));
+    }
+
+    private static Instantanea ordenar(long[] ids, double[] precios) {
+        if (ids.length != precios.length) {
+            throw new IllegalArgumentException("Los arreglos de ids y precios deben tener el mismo largo");
+        }
+        Integer[] orden = new Integer[ids.length];
+        for (int i = 0; i < orden.length; i++) {
+            orden[i] = i;
+        }
+        Arrays.sort(orden, (a, b) -> comparar(precios[a], ids[a], precios[b], ids[b]));
+
+        double[] nuevosPrecios = new double[ids.length];
+        long[] nuevosIds = new long[ids.length];
+        for (int i = 0; i < orden.length; i++) {
+            nuevosPrecios[i] = precios[orden[i]];
+            nuevosIds[i] = ids[orden[i]];
+        }
+        return new Instantanea(nuevosPrecios, nuevosIds);
+    }
+
+    public boolean estaCargado() {
+        return cargado;
+    }
+
+    public int tamano() {
+        return actual.ids().length;
+    }
+
+    // Inserta o mueve un producto a su nueva posición según el precio.
+    public synchronized void actualizar(long id, double precio) {
+        Instantanea base = actual;
+        int anterior = posicionDe(base, id);
+        if (anterior >= 0 && Double.compare(base.precios()[anterior], precio) == 0) {
+            return; // El precio no cambió
+        }
+
+        int largoSinAnterior = anterior >= 0 ? base.ids().length - 1 : base.ids().length;
+        double[] precios = new double[largoSinAnterior + 1];
+        long[] ids = new long[largoSinAnterior + 1];
+
+        int destino = 0;
+        boolean insertado = false;
+        for (int i = 0; i < base.ids().length; i++) {
+            if (i == anterior) {
+                continue;
+            }
+            if (!insertado && comparar(precio, id, base.precios()[i], base.ids()[i]) < 0) {
+                precios[destino] = precio;
+                ids[destino] = id;
+                destino++;
+                insertado = true;
+            }
+            precios[destino] = base.precios()[i];
+            ids[destino] = base.ids()[i];
+            destino++;
+        }
+        if (!insertado) {
+            precios[destino] = precio;
+            ids[destino] = id;
+        }
+        actual = new Instantanea(precios, ids);
+    }
+
+    public synchronized void eliminar(long id) {
+        Instantanea base = actual;
+        int posicion = posicionDe(base, id);
+        if (posicion < 0) {
+            return;
+        }
+        int largo = base.ids().length;
+        double[] precios = new double[largo - 1];
+        long[] ids = new long[largo - 1];
+        System.arraycopy(base.precios(), 0, precios, 0, posicion);
+        System.arraycopy(base.precios(), posicion + 1, precios, posicion, largo - posicion - 1);
+        System.arraycopy(base.ids(), 0, ids, 0, posicion);
+        System.arraycopy(base.ids(), posicion + 1, ids, posicion, largo - posicion - 1);
+        actual = new Instantanea(precios, ids);
+    }
+
+    // Devuelve los ids con precio en [minPrecio, maxPrecio], ordenados por precio ascendente.
+    public long[] buscarEntre(double minPrecio, double maxPrecio) {
+        Instantanea instantanea = actual; // Una sola lectura volátil: el resto trabaja sobre datos inmutables
+        if (minPrecio > maxPrecio) {
+            return new long[0];
+        }
+        int desde = primeraPosicionMayorOIgual(instantanea.precios(), minPrecio);
+        int hasta = primeraPosicionMayor(instantanea.precios(), maxPrecio);
+        return Arrays.copyOfRange(instantanea.ids(), desde, Math.max(desde, hasta));
+    }
+
+    private static int comparar(double precioA, long idA, double precioB, long idB) {
+        int comparacion = Double.compare(precioA, precioB);
+        return comparacion != 0 ? comparacion : Long.compare(idA, idB);
+    }
+
+    // Los arreglos están ordenados por precio, no por id, así que la búsqueda por id es lineal.
+    // Solo la usan las escrituras, que de todos modos copian el arreglo completo.
+    private static int posicionDe(Instantanea instantanea, long id) {
+        long[] ids = instantanea.ids();
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int primeraPosicionMayorOIgual(double[] precios, double valor) {
+        int bajo = 0;
+        int alto = precios.length;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (Double.compare(precios[medio], valor) < 0) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+
+    private static int primeraPosicionMayor(double[] precios, double valor) {
+        int bajo = 0;
+        int alto = precios.length;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (Double.compare(precios[medio], valor) <= 0) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+}
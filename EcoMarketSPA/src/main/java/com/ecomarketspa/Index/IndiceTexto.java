@@ -0,0 +1,492 @@
+package com.ecomarketspa.Index;
+
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido en memoria sobre nombre y descripción de productos.
+ *
+ * Los términos se normalizan (minúsculas y sin tildes) y se guardan en un diccionario
+ * ordenado para poder expandir prefijos. Cada término apunta a una lista inmutable de ids
+ * ordenados con su peso (las apariciones en el nombre valen más que en la descripción).
+ * Las actualizaciones reemplazan las listas afectadas por copias nuevas, así las búsquedas
+ * nunca bloquean. El ranking suma peso × idf de cada término y exige que todos aparezcan.
+ *
+ * Un prefijo corto puede expandirse a miles de términos: las primeras expansiones se puntúan cada una con su
+ * idf y las que pasan de MAX_EXPANSIONES_PREFIJO se unen en una sola lista con el idf de la unión. Así el costo
+ * de puntuar queda acotado sin dejar fuera a ningún producto que coincida con el prefijo.
+ */
+@Component
+public class IndiceTexto {
+
+    private static final int PESO_NOMBRE = 3;
+    private static final int PESO_DESCRIPCION = 1;
+    private static final int LARGO_MINIMO_PREFIJO = 2;
+    private static final int MAX_EXPANSIONES_PREFIJO = 64; // Expansiones puntuadas por separado; el resto va unido
+
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    private static final Set<String> PALABRAS_VACIAS = Set.of(
+            "a", "al", "con", "de", "del", "el", "en", "la", "las", "lo", "los", "o", "para", "por", "sin", "su", "un", "una", "y");
+
+    // Lista de productos de un término: ids ordenados y su peso en la misma posición. Nunca se modifica.
+    private record Postings(long[] ids, byte[] pesos) {
+
+        static final Postings VACIA = new Postings(new long[0], new byte[0]);
+
+        int posicionDe(long id) {
+            return Arrays.binarySearch(ids, id);
+        }
+
+        Postings con(long id, byte peso) {
+            int posicion = posicionDe(id);
+            if (posicion >= 0) {
+                byte[] nuevosPesos = pesos.clone();
+                nuevosPesos[posicion] = peso;
+                return new Postings(ids, nuevosPesos);
+            }
+            int insercion = -posicion - 1;
+            long[] nuevosIds = new long[ids.length + 1];
+            byte[] nuevosPesos = new byte[ids.length + 1];
+            System.arraycopy(ids, 0, nuevosIds, 0, insercion);
+            System.arraycopy(pesos, 0, nuevosPesos, 0, insercion);
+            nuevosIds[insercion] = id;
+            nuevosPesos[insercion] = peso;
+            System.arraycopy(ids, insercion, nuevosIds, insercion + 1, ids.length - insercion);
+            System.arraycopy(pesos, insercion, nuevosPesos, insercion + 1, ids.length - insercion);
+            return new Postings(nuevosIds, nuevosPesos);
+        }
+
+        // Une dos listas ordenadas; si un id está en ambas gana el peso de 'otra'
+        Postings mezclar(Postings otra) {
+            long[] nuevosIds = new long[ids.length + otra.ids.length];
+            byte[] nuevosPesos = new byte[nuevosIds.length];
+            int i = 0;
+            int j = 0;
+            int destino = 0;
+            while (i < ids.length || j < otra.ids.length) {
+                if (j >= otra.ids.length || (i < ids.length && ids[i] < otra.ids[j])) {
+                    nuevosIds[destino] = ids[i];
+                    nuevosPesos[destino++] = pesos[i++];
+                } else {
+                    if (i < ids.length && ids[i] == otra.ids[j]) {
+                        i++;
+                    }
+                    nuevosIds[destino] = otra.ids[j];
+                    nuevosPesos[destino++] = otra.pesos[j++];
+                }
+            }
+            return new Postings(Arrays.copyOf(nuevosIds, destino), Arrays.copyOf(nuevosPesos, destino));
+        }
+
+        Postings sin(long id) {
+            int posicion = posicionDe(id);
+            if (posicion < 0) {
+                return this;
+            }
+            long[] nuevosIds = new long[ids.length - 1];
+            byte[] nuevosPesos = new byte[ids.length - 1];
+            System.arraycopy(ids, 0, nuevosIds, 0, posicion);
+            System.arraycopy(pesos, 0, nuevosPesos, 0, posicion);
+            System.arraycopy(ids, posicion + 1, nuevosIds, posicion, ids.length - posicion - 1);
+            System.arraycopy(pesos, posicion + 1, nuevosPesos, posicion, ids.length - posicion - 1);
+            return new Postings(nuevosIds, nuevosPesos);
+        }
+    }
+
+    // Contenido completo del índice; una reconstrucción lo reemplaza de una sola vez
+    private record Contenido(ConcurrentSkipListMap<String, Postings> postings, Map<Long, String[]> terminosPorProducto) {
+    }
+
+    // Cambio recibido mientras corre una reconstrucción; se vuelve a aplicar al publicarla
+    private record CambioPendiente(String nombre, String descripcion, boolean eliminado) {
+    }
+
+    private volatile Contenido contenido = new Contenido(new ConcurrentSkipListMap<>(), new ConcurrentHashMap<>());
+    private Map<Long, CambioPendiente> cambiosPendientes; // Solo se usa bajo el monitor de esta instancia
+    private Reconstruccion enCurso; // Dueña de 'cambiosPendientes'; también bajo el monitor
+
+    // Convierte un texto en términos: minúsculas, sin tildes ("Jabón" -> "jabon") y sin palabras vacías.
+    public static List<String> tokenizar(String texto) {
+        List<String> terminos = new ArrayList<>();
+        if (texto == null || texto.isBlank()) {
+            return terminos;
+        }
+        String normalizado = MARCAS_DIACRITICAS.matcher(Normalizer.normalize(texto.toLowerCase(Locale.ROOT), Normalizer.Form.NFD)).replaceAll("");
+        for (String termino : SEPARADORES.split(normalizado)) {
+            if (!termino.isEmpty() && !PALABRAS_VACIAS.contains(termino)) {
+                terminos.add(termino);
+            }
+        }
+        return terminos;
+    }
+
+    // Agrega o reemplaza un producto en el índice.
+    public synchronized void indexar(long id, String nombre, String descripcion) {
+        if (cambiosPendientes != null) {
+            cambiosPendientes.put(id, new CambioPendiente(nombre, descripcion, false));
+        }
+        aplicar(contenido, id, nombre, descripcion);
+    }
+
+    public synchronized void eliminar(long id) {
+        if (cambiosPendientes != null) {
+            cambiosPendientes.put(id, new CambioPendiente(null, null, true));
+        }
+        retirar(contenido, id);
+    }
+
+    public int tamano() {
+        return contenido.terminosPorProducto().size();
+    }
+
+    // Agrega o reemplaza varios productos copiando cada lista de términos una sola vez (para importaciones masivas).
+    public synchronized void indexarLote(long[] ids, String[] nombres, String[] descripciones) {
+        Contenido actual = contenido;
+        Map<Long, Integer> ultimaAparicion = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            ultimaAparicion.put(ids[i], i);
+        }
+        Map<String, ListaCreciente> nuevasPorTermino = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            if (ultimaAparicion.get(ids[i]) != i) {
+                continue; // Si un id viene repetido en el lote, gana su última versión
+            }
+            if (cambiosPendientes != null) {
+                cambiosPendientes.put(ids[i], new CambioPendiente(nombres[i], descripciones[i], false));
+            }
+            retirar(actual, ids[i]);
+            Map<String, Integer> pesos = pesosDe(nombres[i], descripciones[i]);
+            String[] terminos = new String[pesos.size()];
+            int t = 0;
+            for (Map.Entry<String, Integer> entrada : pesos.entrySet()) {
+                ListaCreciente lista = nuevasPorTermino.computeIfAbsent(entrada.getKey(), ListaCreciente::new);
+                lista.agregar(ids[i], acotarPeso(entrada.getValue()));
+                terminos[t++] = lista.termino;
+            }
+            actual.terminosPorProducto().put(ids[i], terminos);
+        }
+        nuevasPorTermino.forEach((termino, lista) ->
+                actual.postings().put(termino, actual.postings().getOrDefault(termino, Postings.VACIA).mezclar(lista.congelar())));
+        // Se reemplazan las referencias por las instancias del diccionario para no duplicar cadenas
+        for (long id : ids) {
+            String[] terminos = actual.terminosPorProducto().get(id);
+            for (int t = 0; t < terminos.length; t++) {
+                terminos[t] = actual.postings().ceilingKey(terminos[t]);
+            }
+        }
+    }
+
+    // Inicia una reconstrucción completa. Mientras se llena, las búsquedas siguen usando el índice actual
+    // y las escrituras que lleguen se guardan para aplicarlas también sobre el índice nuevo.
+    public synchronized Reconstruccion iniciarReconstruccion() {
+        cambiosPendientes = new HashMap<>();
+        enCurso = new Reconstruccion();
+        return enCurso;
+    }
+
+    private static void aplicar(Contenido actual, long id, String nombre, String descripcion) {
+        Map<String, Integer> pesos = pesosDe(nombre, descripcion);
+        retirar(actual, id);
+
+        String[] terminos = new String[pesos.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> entrada : pesos.entrySet()) {
+            String termino = entrada.getKey();
+            Postings anterior = actual.postings().getOrDefault(termino, Postings.VACIA);
+            actual.postings().put(termino, anterior.con(id, acotarPeso(entrada.getValue())));
+            terminos[i++] = actual.postings().ceilingKey(termino); // Se reutiliza la instancia del diccionario
+        }
+        actual.terminosPorProducto().put(id, terminos);
+    }
+
+    // Devuelve hasta 'limite' ids ordenados por relevancia. El último término de la consulta se trata
+    // como prefijo ("jab" encuentra "jabon"), el resto debe coincidir completo.
+    public List<Long> buscar(String consulta, int limite) {
+        List<String> terminos = tokenizar(consulta);
+        if (terminos.isEmpty() || limite <= 0) {
+            return Collections.emptyList();
+        }
+        Contenido actual = contenido;
+        double totalProductos = Math.max(1, actual.terminosPorProducto().size());
+
+        // Cada término de la consulta se resuelve a una o más listas (varias si es un prefijo)
+        List<Map<String, Postings>> coincidenciasPorTermino = new ArrayList<>();
+        for (int i = 0; i < terminos.size(); i++) {
+            boolean esPrefijo = i == terminos.size() - 1 && terminos.get(i).length() >= LARGO_MINIMO_PREFIJO;
+            Map<String, Postings> coincidencias = coincidencias(actual, terminos.get(i), esPrefijo);
+            if (coincidencias.isEmpty()) {
+                return Collections.emptyList(); // Todos los términos son obligatorios
+            }
+            coincidenciasPorTermino.add(coincidencias);
+        }
+
+        // Se recorren los candidatos del término más selectivo y se verifican contra el resto con búsqueda binaria
+        coincidenciasPorTermino.sort((a, b) -> Integer.compare(cantidadCandidatos(a), cantidadCandidatos(b)));
+        Map<Long, Double> candidatos = puntajes(coincidenciasPorTermino.get(0), terminos, totalProductos);
+
+        PriorityQueue<Map.Entry<Long, Double>> mejores = new PriorityQueue<>(
+                (a, b) -> a.getValue().equals(b.getValue()) ? Long.compare(b.getKey(), a.getKey()) : Double.compare(a.getValue(), b.getValue()));
+        for (Map.Entry<Long, Double> candidato : candidatos.entrySet()) {
+            double total = candidato.getValue();
+            for (int i = 1; i < coincidenciasPorTermino.size() && total >= 0; i++) {
+                double puntaje = puntaje(coincidenciasPorTermino.get(i), candidato.getKey(), terminos, totalProductos);
+                total = puntaje < 0 ? -1 : total + puntaje;
+            }
+            if (total >= 0) {
+                mejores.offer(Map.entry(candidato.getKey(), total));
+                if (mejores.size() > limite) {
+                    mejores.poll(); // Se descarta el de menor puntaje
+                }
+            }
+        }
+
+        List<Long> resultado = new ArrayList<>(mejores.size());
+        while (!mejores.isEmpty()) {
+            resultado.add(mejores.poll().getKey());
+        }
+        Collections.reverse(resultado);
+        return resultado;
+    }
+
+    /**
+     * Acumula productos para reconstruir el índice desde cero. {@link #agregar} se puede llamar
+     * desde varios hilos a la vez; {@link #publicar} ordena las listas y reemplaza el índice.
+     */
+    public final class Reconstruccion {
+
+        private final ConcurrentHashMap<String, ListaCreciente> listas = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<Long, String[]> terminosPorProducto = new ConcurrentHashMap<>();
+
+        private Reconstruccion() {
+        }
+
+        public void agregar(long id, String nombre, String descripcion) {
+            Map<String, Integer> pesos = pesosDe(nombre, descripcion);
+            String[] terminos = new String[pesos.size()];
+            int i = 0;
+            for (Map.Entry<String, Integer> entrada : pesos.entrySet()) {
+                ListaCreciente lista = listas.computeIfAbsent(entrada.getKey(), ListaCreciente::new);
+                lista.agregar(id, acotarPeso(entrada.getValue()));
+                terminos[i++] = lista.termino;
+            }
+            terminosPorProducto.put(id, terminos);
+        }
+
+        // Abandona la reconstrucción (por ejemplo si falló la lectura): el índice actual sigue vigente
+        // y las escrituras dejan de acumularse para ella
+        public void descartar() {
+            synchronized (IndiceTexto.this) {
+                if (enCurso == this) {
+                    cambiosPendientes = null;
+                    enCurso = null;
+                }
+            }
+        }
+
+        public void publicar() {
+            ConcurrentSkipListMap<String, Postings> postings = new ConcurrentSkipListMap<>();
+            listas.values().parallelStream().forEach(lista -> postings.put(lista.termino, lista.congelar()));
+            synchronized (IndiceTexto.this) {
+                Contenido nuevo = new Contenido(postings, terminosPorProducto);
+                if (cambiosPendientes != null) {
+                    cambiosPendientes.forEach((id, cambio) -> {
+                        if (cambio.eliminado()) {
+                            retirar(nuevo, id);
+                        } else {
+                            aplicar(nuevo, id, cambio.nombre(), cambio.descripcion());
+                        }
+                    });
+                }
+                if (enCurso == this) {
+                    cambiosPendientes = null;
+                    enCurso = null;
+                }
+                contenido = nuevo;
+            }
+        }
+    }
+
+    // Lista de productos de un término durante la reconstrucción
+    private static final class ListaCreciente {
+
+        private final String termino;
+        private long[] ids = new long[4];
+        private byte[] pesos = new byte[4];
+        private int tamano;
+
+        private ListaCreciente(String termino) {
+            this.termino = termino;
+        }
+
+        private synchronized void agregar(long id, byte peso) {
+            if (tamano == ids.length) {
+                ids = Arrays.copyOf(ids, tamano * 2);
+                pesos = Arrays.copyOf(pesos, tamano * 2);
+            }
+            ids[tamano] = id;
+            pesos[tamano] = peso;
+            tamano++;
+        }
+
+        private synchronized Postings congelar() {
+            long[] idsFinales = Arrays.copyOf(ids, tamano);
+            byte[] pesosFinales = Arrays.copyOf(pesos, tamano);
+            ordenarPorId(idsFinales, pesosFinales, 0, tamano - 1);
+            return new Postings(idsFinales, pesosFinales);
+        }
+    }
+
+    private static Map<String, Integer> pesosDe(String nombre, String descripcion) {
+        Map<String, Integer> pesos = new LinkedHashMap<>();
+        tokenizar(nombre).forEach(termino -> pesos.merge(termino, PESO_NOMBRE, Integer::sum));
+        tokenizar(descripcion).forEach(termino -> pesos.merge(termino, PESO_DESCRIPCION, Integer::sum));
+        return pesos;
+    }
+
+    private static byte acotarPeso(int peso) {
+        return (byte) Math.min(peso, Byte.MAX_VALUE);
+    }
+
+    private static void retirar(Contenido actual, long id) {
+        String[] anteriores = actual.terminosPorProducto().remove(id);
+        if (anteriores == null) {
+            return;
+        }
+        for (String termino : anteriores) {
+            Postings postings = actual.postings().get(termino);
+            if (postings != null) {
+                Postings restantes = postings.sin(id);
+                if (restantes.ids().length == 0) {
+                    actual.postings().remove(termino);
+                } else {
+                    actual.postings().put(termino, restantes);
+                }
+            }
+        }
+    }
+
+    private static Map<String, Postings> coincidencias(Contenido actual, String termino, boolean esPrefijo) {
+        NavigableMap<String, Postings> rango = esPrefijo
+                ? actual.postings().subMap(termino, true, termino + Character.MAX_VALUE, false)
+                : actual.postings().subMap(termino, true, termino, true);
+        Map<String, Postings> coincidencias = new LinkedHashMap<>();
+        Map<Long, Byte> resto = null; // Expansiones que pasan del máximo, con el mayor peso de cada producto
+        for (Map.Entry<String, Postings> entrada : rango.entrySet()) {
+            if (coincidencias.size() < MAX_EXPANSIONES_PREFIJO) {
+                coincidencias.put(entrada.getKey(), entrada.getValue());
+                continue;
+            }
+            if (resto == null) {
+                resto = new HashMap<>();
+            }
+            Postings postings = entrada.getValue();
+            for (int i = 0; i < postings.ids().length; i++) {
+                resto.merge(postings.ids()[i], postings.pesos()[i], (a, b) -> a >= b ? a : b);
+            }
+        }
+        if (resto != null) {
+            long[] ids = new long[resto.size()];
+            byte[] pesos = new byte[ids.length];
+            int i = 0;
+            for (Map.Entry<Long, Byte> entrada : resto.entrySet()) {
+                ids[i] = entrada.getKey();
+                pesos[i++] = entrada.getValue();
+            }
+            ordenarPorId(ids, pesos, 0, ids.length - 1);
+            // La clave no es un término real: nunca coincide con la consulta, así que puntúa como prefijo
+            coincidencias.put(termino + "*", new Postings(ids, pesos));
+        }
+        return coincidencias;
+    }
+
+    private static int cantidadCandidatos(Map<String, Postings> coincidencias) {
+        int total = 0;
+        for (Postings postings : coincidencias.values()) {
+            total += postings.ids().length;
+        }
+        return total;
+    }
+
+    // Puntaje de cada producto de las listas (el mejor entre las expansiones de un prefijo)
+    private static Map<Long, Double> puntajes(Map<String, Postings> coincidencias, List<String> consulta, double totalProductos) {
+        Map<Long, Double> puntajes = new HashMap<>();
+        for (Map.Entry<String, Postings> entrada : coincidencias.entrySet()) {
+            Postings postings = entrada.getValue();
+            double factor = factor(entrada.getKey(), consulta, totalProductos, postings);
+            for (int i = 0; i < postings.ids().length; i++) {
+                puntajes.merge(postings.ids()[i], postings.pesos()[i] * factor, Math::max);
+            }
+        }
+        return puntajes;
+    }
+
+    // Puntaje de un producto en las listas de un término, o -1 si no aparece en ninguna
+    private static double puntaje(Map<String, Postings> coincidencias, long id, List<String> consulta, double totalProductos) {
+        double mejor = -1;
+        for (Map.Entry<String, Postings> entrada : coincidencias.entrySet()) {
+            Postings postings = entrada.getValue();
+            int posicion = postings.posicionDe(id);
+            if (posicion >= 0) {
+                mejor = Math.max(mejor, postings.pesos()[posicion] * factor(entrada.getKey(), consulta, totalProductos, postings));
+            }
+        }
+        return mejor;
+    }
+
+    private static double factor(String termino, List<String> consulta, double totalProductos, Postings postings) {
+        double idf = Math.log(1.0 + totalProductos / (1 + postings.ids().length));
+        // Una coincidencia exacta puntúa más que una completada por prefijo
+        return consulta.contains(termino) ? idf : idf * 0.5;
+    }
+
+    // Quicksort sobre los dos arreglos paralelos, usando los ids como clave
+    private static void ordenarPorId(long[] ids, byte[] pesos, int desde, int hasta) {
+        while (desde < hasta) {
+            long pivote = ids[(desde + hasta) >>> 1];
+            int i = desde;
+            int j = hasta;
+            while (i <= j) {
+                while (ids[i] < pivote) {
+                    i++;
+                }
+                while (ids[j] > pivote) {
+                    j--;
+                }
+                if (i <= j) {
+                    long id = ids[i];
+                    ids[i] = ids[j];
+                    ids[j] = id;
+                    byte peso = pesos[i];
+                    pesos[i] = pesos[j];
+                    pesos[j] = peso;
+                    i++;
+                    j--;
+                }
+            }
+            // Se recurre sobre la parte más chica para acotar la profundidad de la pila
+            if (j - desde < hasta - i) {
+                ordenarPorId(ids, pesos, desde, j);
+                desde = i;
+            } else {
+                ordenarPorId(ids, pesos, i, hasta);
+                hasta = j;
+            }
+        }
+    }
+}
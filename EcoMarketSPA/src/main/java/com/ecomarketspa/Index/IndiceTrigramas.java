@@ -0,0 +1,209 @@
+package com.ecomarketspa.Index;
+
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Índice de trigramas sobre nombre y correo de usuarios, para búsquedas por subcadena.
+ *
+ * Un LIKE '%x%' no puede usar un índice B-tree y recorre toda la tabla. Aquí cada texto se normaliza
+ * (minúsculas y sin tildes) y cada secuencia de 3 caracteres apunta a un BitmapIds con los usuarios que
+ * la contienen. Una consulta intersecta las listas de sus trigramas partiendo de la más corta y verifica
+ * cada candidato contra el texto guardado, porque tener todos los trigramas no garantiza la subcadena
+ * ("abcxbcd" tiene los de "abcd"). Las consultas de menos de 3 caracteres recorren los textos.
+ *
+ * Igual que IndiceEstadosPedido, se carga al arrancar y hasta entonces estaCargado() es false.
+ */
+@Component
+public class IndiceTrigramas {
+
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+
+    private final ReentrantReadWriteLock candado = new ReentrantReadWriteLock();
+    private Campo nombres = new Campo();
+    private Campo correos = new Campo();
+    private List<Registro> enCarga; // Cambios recibidos mientras corre la carga; se vuelven a aplicar al final
+    private volatile boolean cargado;
+
+    // nombre y correo null con 'eliminado' significa que el usuario se borró
+    public record Registro(long id, String nombre, String correo, boolean eliminado) {
+    }
+
+    // Minúsculas y sin tildes: "José" -> "jose". A diferencia de IndiceTexto no separa palabras.
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        return MARCAS_DIACRITICAS.matcher(Normalizer.normalize(texto.toLowerCase(Locale.ROOT), Normalizer.Form.NFD)).replaceAll("");
+    }
+
+    public void indexar(long id, String nombre, String correo) {
+        aplicar(new Registro(id, nombre, correo, false));
+    }
+
+    public void eliminar(long id) {
+        aplicar(new Registro(id, null, null, true));
+    }
+
+    // Reemplaza el índice por el recorrido completo de usuarios. Los cambios que lleguen mientras corre
+    // se vuelven a aplicar al final; indexar reemplaza al usuario completo, así que repetirlos no altera el resultado.
+    public synchronized void cargar(Consumer<Consumer<Registro>> recorrido) {
+        escribir(() -> enCarga = new ArrayList<>());
+        Campo nuevosNombres = new Campo();
+        Campo nuevosCorreos = new Campo();
+        recorrido.accept(usuario -> {
+            nuevosNombres.indexar(usuario.id(), usuario.nombre());
+            nuevosCorreos.indexar(usuario.id(), usuario.correo());
+        });
+        escribir(() -> {
+            enCarga.forEach(usuario -> asignar(nuevosNombres, nuevosCorreos, usuario));
+            enCarga = null;
+            nombres = nuevosNombres;
+            correos = nuevosCorreos;
+        });
+        cargado = true;
+    }
+
+    public boolean estaCargado() {
+        return cargado;
+    }
+
+    public int tamano() {
+        candado.readLock().lock();
+        try {
+            return nombres.textos.size();
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    // Ids (ascendentes) de los usuarios cuyo nombre normalizado contiene la consulta normalizada
+    public long[] buscarPorNombre(String consulta) {
+        candado.readLock().lock();
+        try {
+            return nombres.buscar(normalizar(consulta));
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    public long[] buscarPorCorreo(String consulta) {
+        candado.readLock().lock();
+        try {
+            return correos.buscar(normalizar(consulta));
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    private void aplicar(Registro usuario) {
+        escribir(() -> {
+            if (enCarga != null) {
+                enCarga.add(usuario);
+            }
+            asignar(nombres, correos, usuario);
+        });
+    }
+
+    private static void asignar(Campo nombres, Campo correos, Registro usuario) {
+        if (usuario.eliminado()) {
+            nombres.retirar(usuario.id());
+            correos.retirar(usuario.id());
+        } else {
+            nombres.indexar(usuario.id(), usuario.nombre());
+            correos.indexar(usuario.id(), usuario.correo());
+        }
+    }
+
+    private void escribir(Runnable cambio) {
+        candado.writeLock().lock();
+        try {
+            cambio.run();
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    // Trigramas de un campo. No es thread-safe: el candado del índice sincroniza el acceso.
+    private static final class Campo {
+
+        private final Map<Long, BitmapIds> porTrigrama = new HashMap<>();
+        private final Map<Long, String> textos = new HashMap<>(); // Texto normalizado de cada usuario
+
+        void indexar(long id, String texto) {
+            retirar(id);
+            String normalizado = normalizar(texto);
+            textos.put(id, normalizado);
+            for (long trigrama : trigramas(normalizado)) {
+                porTrigrama.computeIfAbsent(trigrama, t -> new BitmapIds()).agregar(id);
+            }
+        }
+
+        void retirar(long id) {
+            String anterior = textos.remove(id);
+            if (anterior == null) {
+                return;
+            }
+            for (long trigrama : trigramas(anterior)) {
+                BitmapIds ids = porTrigrama.get(trigrama);
+                if (ids != null && ids.quitar(id) && ids.cardinalidad() == 0) {
+                    porTrigrama.remove(trigrama);
+                }
+            }
+        }
+
+        long[] buscar(String consulta) {
+            Set<Long> trigramasConsulta = trigramas(consulta);
+            if (trigramasConsulta.isEmpty()) {
+                // Menos de 3 caracteres: no hay trigramas que intersectar
+                return textos.entrySet().stream()
+                        .filter(entrada -> entrada.getValue().contains(consulta))
+                        .mapToLong(Map.Entry::getKey).sorted().toArray();
+            }
+            List<BitmapIds> listas = new ArrayList<>(trigramasConsulta.size());
+            for (long trigrama : trigramasConsulta) {
+                BitmapIds ids = porTrigrama.get(trigrama);
+                if (ids == null) {
+                    return new long[0]; // Algún trigrama no aparece en ningún usuario
+                }
+                listas.add(ids);
+            }
+            listas.sort(Comparator.comparingLong(BitmapIds::cardinalidad));
+            long[] resultado = new long[Math.toIntExact(listas.get(0).cardinalidad())];
+            int[] cantidad = {0};
+            listas.get(0).recorrer(id -> {
+                for (int i = 1; i < listas.size(); i++) {
+                    if (!listas.get(i).contiene(id)) {
+                        return;
+                    }
+                }
+                if (textos.get(id).contains(consulta)) {
+                    resultado[cantidad[0]++] = id;
+                }
+            });
+            return Arrays.copyOf(resultado, cantidad[0]);
+        }
+
+        // Cada trigrama se codifica como sus 3 caracteres de 16 bits en un long
+        private static Set<Long> trigramas(String texto) {
+            Set<Long> trigramas = new LinkedHashSet<>();
+            for (int i = 0; i + 3 <= texto.length(); i++) {
+                trigramas.add(((long) texto.charAt(i) << 32) | ((long) texto.charAt(i + 1) << 16) | texto.charAt(i + 2));
+            }
+            return trigramas;
+        }
+    }
+}
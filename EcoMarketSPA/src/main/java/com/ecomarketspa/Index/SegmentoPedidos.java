@@ -0,0 +1,252 @@
+package com.ecomarketspa.Index;
+
+import com.ecomarketspa.Model.EstadoPedido;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Archivo inmutable con pedidos archivados, organizado por columnas y leído con un MappedByteBuffer.
+ *
+ * Formato: cabecera (número mágico, versión, cantidad de filas, rangos de id y fecha y el diccionario
+ * de estados con la cantidad de pedidos de cada uno), alineada a 8 bytes, seguida de las columnas de
+ * ancho fijo id, fecha (epoch ms), usuario_id y total (8 bytes cada una) y estado (1 byte, índice en el
+ * diccionario). Las filas van ordenadas por id, así que buscar un id es una búsqueda binaria y filtrar
+ * por usuario o estado recorre solo esa columna.
+ *
+ * Las lecturas usan posiciones absolutas sobre el buffer, por lo que varios hilos pueden consultar el mismo segmento.
+ */
+public final class SegmentoPedidos {
+
+    private static final int MAGICO = 0x45434F53; // "ECOS"
+    private static final int VERSION = 1;
+
+    public record Fila(long id, long fecha, double total, long usuarioId, EstadoPedido estado) {
+    }
+
+    private final Path archivo;
+    private final MappedByteBuffer datos;
+    private final int filas;
+    private final long idMinimo;
+    private final long idMaximo;
+    private final long fechaMinima;
+    private final long fechaMaxima;
+    private final EstadoPedido[] diccionario;
+    private final Map<EstadoPedido, Long> cantidadPorEstado = new EnumMap<>(EstadoPedido.class);
+    private final int columnaId;
+    private final int columnaFecha;
+    private final int columnaUsuario;
+    private final int columnaTotal;
+    private final int columnaEstado;
+
+    private SegmentoPedidos(Path archivo, MappedByteBuffer datos) throws IOException {
+        this.archivo = archivo;
+        this.datos = datos;
+        if (datos.getInt(0) != MAGICO || datos.getInt(4) != VERSION) {
+            throw new IOException("No es un segmento de pedidos válido: " + archivo);
+        }
+        filas = datos.getInt(8);
+        idMinimo = datos.getLong(12);
+        idMaximo = datos.getLong(20);
+        fechaMinima = datos.getLong(28);
+        fechaMaxima = datos.getLong(36);
+        int posicion = 44;
+        diccionario = new EstadoPedido[datos.get(posicion++)];
+        for (int i = 0; i < diccionario.length; i++) {
+            byte[] nombre = new byte[datos.getShort(posicion)];
+            datos.get(posicion + 2, nombre);
+            posicion += 2 + nombre.length;
+            diccionario[i] = EstadoPedido.valueOf(new String(nombre, StandardCharsets.UTF_8));
+            cantidadPorEstado.put(diccionario[i], (long) datos.getInt(posicion));
+            posicion += 4;
+        }
+        columnaId = alinear(posicion);
+        columnaFecha = columnaId + 8 * filas;
+        columnaUsuario = columnaFecha + 8 * filas;
+        columnaTotal = columnaUsuario + 8 * filas;
+        columnaEstado = columnaTotal + 8 * filas;
+        if (columnaEstado + filas != datos.capacity()) {
+            throw new IOException("Segmento de pedidos truncado: " + archivo);
+        }
+    }
+
+    // Escribe las filas (ordenadas por id) en 'archivo' y fuerza los datos a disco antes de volver
+    public static void escribir(Path archivo, List<Fila> filas) throws IOException {
+        List<EstadoPedido> diccionario = new ArrayList<>();
+        Map<EstadoPedido, Integer> cantidades = new EnumMap<>(EstadoPedido.class);
+        long fechaMinima = Long.MAX_VALUE;
+        long fechaMaxima = Long.MIN_VALUE;
+        for (int i = 0; i < filas.size(); i++) {
+            Fila fila = filas.get(i);
+            if (i > 0 && fila.id() <= filas.get(i - 1).id()) {
+                throw new IllegalArgumentException("Las filas de un segmento deben venir ordenadas por id y sin repetir");
+            }
+            if (cantidades.merge(fila.estado(), 1, Integer::sum) == 1) {
+                diccionario.add(fila.estado());
+            }
+            fechaMinima = Math.min(fechaMinima, fila.fecha());
+            fechaMaxima = Math.max(fechaMaxima, fila.fecha());
+        }
+
+        int cabecera = 45;
+        for (EstadoPedido estado : diccionario) {
+            cabecera += 2 + estado.name().getBytes(StandardCharsets.UTF_8).length + 4;
+        }
+        int n = filas.size();
+        ByteBuffer buffer = ByteBuffer.allocate(alinear(cabecera) + 33 * n);
+        buffer.putInt(MAGICO).putInt(VERSION).putInt(n)
+                .putLong(n == 0 ? 0 : filas.get(0).id()).putLong(n == 0 ? 0 : filas.get(n - 1).id())
+                .putLong(fechaMinima).putLong(fechaMaxima)
+                .put((byte) diccionario.size());
+        for (EstadoPedido estado : diccionario) {
+            byte[] nombre = estado.name().getBytes(StandardCharsets.UTF_8);
+            buffer.putShort((short) nombre.length).put(nombre).putInt(cantidades.get(estado));
+        }
+        buffer.position(alinear(cabecera));
+        filas.forEach(fila -> buffer.putLong(fila.id()));
+        filas.forEach(fila -> buffer.putLong(fila.fecha()));
+        filas.forEach(fila -> buffer.putLong(fila.usuarioId()));
+        filas.forEach(fila -> buffer.putDouble(fila.total()));
+        filas.forEach(fila -> buffer.put((byte) diccionario.indexOf(fila.estado())));
+        buffer.flip();
+
+        try (FileChannel canal = FileChannel.open(archivo,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+            canal.force(true);
+        }
+    }
+
+    public static SegmentoPedidos abrir(Path archivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            return new SegmentoPedidos(archivo, canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size()));
+        }
+    }
+
+    public Path archivo() {
+        return archivo;
+    }
+
+    public int filas() {
+        return filas;
+    }
+
+    public long idMinimo() {
+        return idMinimo;
+    }
+
+    public long idMaximo() {
+        return idMaximo;
+    }
+
+    public long fechaMinima() {
+        return fechaMinima;
+    }
+
+    public long fechaMaxima() {
+        return fechaMaxima;
+    }
+
+    public long id(int fila) {
+        return datos.getLong(columnaId + 8 * fila);
+    }
+
+    public Fila fila(int fila) {
+        return new Fila(id(fila),
+                datos.getLong(columnaFecha + 8 * fila),
+                datos.getDouble(columnaTotal + 8 * fila),
+                datos.getLong(columnaUsuario + 8 * fila),
+                diccionario[datos.get(columnaEstado + fila)]);
+    }
+
+    // Búsqueda binaria sobre la columna de ids; null si el pedido no está en el segmento
+    public Fila buscar(long id) {
+        if (filas == 0 || id < idMinimo || id > idMaximo) {
+            return null;
+        }
+        int desde = 0;
+        int hasta = filas - 1;
+        while (desde <= hasta) {
+            int medio = (desde + hasta) >>> 1;
+            long actual = id(medio);
+            if (actual < id) {
+                desde = medio + 1;
+            } else if (actual > id) {
+                hasta = medio - 1;
+            } else {
+                return fila(medio);
+            }
+        }
+        return null;
+    }
+
+    public void filtrarPorUsuario(long usuarioId, Consumer<Fila> consumidor) {
+        for (int i = 0; i < filas; i++) {
+            if (datos.getLong(columnaUsuario + 8 * i) == usuarioId) {
+                consumidor.accept(fila(i));
+            }
+        }
+    }
+
+    public void filtrarPorEstado(EstadoPedido estado, Consumer<Fila> consumidor) {
+        int codigo = -1;
+        for (int i = 0; i < diccionario.length; i++) {
+            if (diccionario[i] == estado) {
+                codigo = i;
+            }
+        }
+        if (codigo < 0) {
+            return; // El estado no aparece en este segmento
+        }
+        for (int i = 0; i < filas; i++) {
+            if (datos.get(columnaEstado + i) == codigo) {
+                consumidor.accept(fila(i));
+            }
+        }
+    }
+
+    // Pedidos con fecha dentro de [desde, hasta] (epoch ms, ambos incluidos)
+    public void filtrarPorFecha(long desde, long hasta, Consumer<Fila> consumidor) {
+        if (filas == 0 || hasta < fechaMinima || desde > fechaMaxima) {
+            return;
+        }
+        for (int i = 0; i < filas; i++) {
+            long fecha = datos.getLong(columnaFecha + 8 * i);
+            if (fecha >= desde && fecha <= hasta) {
+                consumidor.accept(fila(i));
+            }
+        }
+    }
+
+    public void recorrer(Consumer<Fila> consumidor) {
+        for (int i = 0; i < filas; i++) {
+            consumidor.accept(fila(i));
+        }
+    }
+
+    public long contarPorEstado(EstadoPedido estado) {
+        return cantidadPorEstado.getOrDefault(estado, 0L);
+    }
+
+    public void contarPorUsuario(Map<Long, Long> totales) {
+        for (int i = 0; i < filas; i++) {
+            totales.merge(datos.getLong(columnaUsuario + 8 * i), 1L, Long::sum);
+        }
+    }
+
+    private static int alinear(int posicion) {
+        return (posicion + 7) & ~7;
+    }
+}
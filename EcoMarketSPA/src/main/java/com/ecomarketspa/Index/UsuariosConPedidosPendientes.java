@@ -0,0 +1,86 @@
+package com.ecomarketspa.Index;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Usuarios que tienen al menos un pedido PENDIENTE, para responder /api/usuarios/con-pedidos-pendientes
+ * sin consultar la tabla de pedidos.
+ *
+ * Guarda cuántos pedidos pendientes tiene cada usuario y lo quita del mapa cuando llega a cero. Durante una
+ * carga un usuario puede quedar un momento en negativo (su cambio llegó antes que la fila de la consulta),
+ * por eso el conjunto son los usuarios con cantidad mayor que cero. Igual que ContadorPedidosUsuario, los cambios llegan desde PedidoListener
+ * (y desde TransicionPedidoService, que cambia estados sin pasar por JPA), se aplican después del commit y
+ * se carga al arrancar con una consulta agrupada que no se cruce con ellos; hasta entonces estaCargado() es false.
+ */
+@Component
+public class UsuariosConPedidosPendientes {
+
+    private volatile ConcurrentHashMap<Long, Long> pendientes = new ConcurrentHashMap<>();
+    private volatile ConcurrentHashMap<Long, Long> enCarga; // Recibe los cambios registrados después de la consulta
+    private volatile boolean cargado;
+    private final CambiosConfirmados cambios = new CambiosConfirmados();
+
+    public void registrarCambio(Long usuarioId, long delta) {
+        if (usuarioId == null || delta == 0) {
+            return;
+        }
+        cambios.registrar(() -> aplicar(usuarioId, delta));
+    }
+
+    // Reemplaza el conjunto por la consulta agrupada (usuario -> pedidos pendientes) más los cambios registrados
+    // después de ella. Devuelve false si la consulta se cruzó con cambios en todos los intentos: el conjunto queda
+    // como estaba. Se puede volver a ejecutar para reconciliar.
+    public synchronized boolean cargar(Supplier<Map<Long, Long>> consultaPendientes) {
+        Map<Long, Long> consulta = cambios.consultarSinCambios(() -> enCarga = new ConcurrentHashMap<>(), consultaPendientes);
+        ConcurrentHashMap<Long, Long> nuevos = enCarga;
+        if (consulta == null) {
+            enCarga = null;
+            return false;
+        }
+        consulta.forEach((usuarioId, cantidad) -> sumar(nuevos, usuarioId, cantidad));
+        pendientes = nuevos;
+        enCarga = null;
+        cargado = true;
+        return true;
+    }
+
+    public boolean estaCargado() {
+        return cargado;
+    }
+
+    public boolean contiene(Long usuarioId) {
+        Long cantidad = pendientes.get(usuarioId);
+        return cantidad != null && cantidad > 0;
+    }
+
+    public int tamano() {
+        return usuarioIds().length;
+    }
+
+    // Ids de los usuarios con pedidos pendientes, en orden ascendente
+    public long[] usuarioIds() {
+        return pendientes.entrySet().stream()
+                .filter(entrada -> entrada.getValue() > 0)
+                .mapToLong(Map.Entry::getKey).sorted().toArray();
+    }
+
+    private void aplicar(Long usuarioId, long delta) {
+        ConcurrentHashMap<Long, Long> recarga = enCarga;
+        ConcurrentHashMap<Long, Long> actuales = pendientes;
+        if (recarga != null && recarga != actuales) { // Justo después del reemplazo son el mismo mapa
+            sumar(recarga, usuarioId, delta);
+        }
+        sumar(actuales, usuarioId, delta);
+    }
+
+    private static void sumar(ConcurrentHashMap<Long, Long> mapa, Long usuarioId, long delta) {
+        mapa.compute(usuarioId, (id, actual) -> {
+            long total = (actual == null ? 0 : actual) + delta;
+            return total == 0 ? null : total; // En cero sale del mapa
+        });
+    }
+}
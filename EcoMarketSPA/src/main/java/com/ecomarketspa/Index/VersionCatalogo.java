@@ -0,0 +1,44 @@
+package com.ecomarketspa.Index;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versión global del catálogo de productos, usada como ETag del listado completo.
+ *
+ * Cualquier escritura sobre productos la incrementa. Dentro de una transacción el incremento se
+ * aplica recién después del commit: si se hiciera antes, un lector podría recibir la versión nueva
+ * junto con los datos todavía sin confirmar y quedarse con ellos en caché. El instante de arranque
+ * forma parte de la etiqueta para que un reinicio no reutilice versiones anteriores.
+ */
+@Component
+public class VersionCatalogo {
+
+    private final long arranque = System.currentTimeMillis();
+    private final AtomicLong version = new AtomicLong();
+
+    public void incrementar() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    version.incrementAndGet();
+                }
+            });
+        } else {
+            version.incrementAndGet();
+        }
+    }
+
+    public long actual() {
+        return version.get();
+    }
+
+    // ETag fuerte (entre comillas) del listado de productos
+    public String etag() {
+        return "\"productos-" + arranque + "-" + version.get() + "\"";
+    }
+}
@@ -0,0 +1,28 @@
+package com.ecomarketspa.Model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.util.Date;
+
+// Clave Idempotency-Key ya usada y el pedido que creó. La restricción única sobre 'clave'
+// resuelve las carreras entre reintentos simultáneos: solo uno de ellos puede confirmar.
+@Entity
+@Data
+@Table(name = "claves_idempotencia", indexes = {
+        @Index(name = "idx_claves_idempotencia_fecha", columnList = "fecha") // Purga de claves vencidas
+})
+public class ClaveIdempotencia {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 255)
+    private String clave;
+
+    @Column(name = "pedido_id", nullable = false)
+    private Long pedidoId;
+
+    private Date fecha;
+}
@@ -0,0 +1,84 @@
+package com.ecomarketspa.Model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+// Se guarda como un código de un byte (columna estado_codigo). Los códigos no se deben reutilizar ni renumerar.
+public enum EstadoPedido {
+    PENDIENTE(1),
+    PROCESANDO(2),
+    ENVIADO(3),
+    ENTREGADO(4),
+    CANCELADO(5);
+
+    private static final EstadoPedido[] POR_CODIGO = new EstadoPedido[6];
+
+    static {
+        for (EstadoPedido estado : values()) {
+            POR_CODIGO[estado.codigo] = estado;
+        }
+    }
+
+    private final byte codigo;
+
+    EstadoPedido(int codigo) {
+        this.codigo = (byte) codigo;
+    }
+
+    public byte getCodigo() {
+        return codigo;
+    }
+
+    // Transiciones permitidas: PENDIENTE → PROCESANDO → ENVIADO → ENTREGADO, y se puede cancelar antes del envío
+    public Set<EstadoPedido> siguientes() {
+        return switch (this) {
+            case PENDIENTE -> EnumSet.of(PROCESANDO, CANCELADO);
+            case PROCESANDO -> EnumSet.of(ENVIADO, CANCELADO);
+            case ENVIADO -> EnumSet.of(ENTREGADO);
+            case ENTREGADO, CANCELADO -> EnumSet.noneOf(EstadoPedido.class);
+        };
+    }
+
+    public boolean puedePasarA(EstadoPedido destino) {
+        return siguientes().contains(destino);
+    }
+
+    public static EstadoPedido desdeCodigo(int codigo) {
+        if (codigo <= 0 || codigo >= POR_CODIGO.length || POR_CODIGO[codigo] == null) {
+            throw new IllegalArgumentException("Código de estado de pedido desconocido: " + codigo);
+        }
+        return POR_CODIGO[codigo];
+    }
+
+    // Acepta el nombre sin distinguir mayúsculas ("Pendiente", "PENDIENTE"), como lo escribían los clientes antes del enum
+    @JsonCreator
+    public static EstadoPedido desde(String texto) {
+        if (texto == null) {
+            return null;
+        }
+        try {
+            return valueOf(texto.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Estado de pedido desconocido: " + texto);
+        }
+    }
+
+    @Converter
+    public static class Conversor implements AttributeConverter<EstadoPedido, Byte> {
+
+        @Override
+        public Byte convertToDatabaseColumn(EstadoPedido estado) {
+            return estado == null ? null : estado.codigo;
+        }
+
+        @Override
+        public EstadoPedido convertToEntityAttribute(Byte codigo) {
+            return codigo == null ? null : desdeCodigo(codigo);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.ecomarketspa.Model;
+
+public enum EstadoReserva {
+    ACTIVA,     // El stock ya fue descontado y está apartado
+    CONFIRMADA, // La venta se concretó: el descuento de stock es definitivo
+    LIBERADA    // Se canceló y el stock volvió al producto
+}
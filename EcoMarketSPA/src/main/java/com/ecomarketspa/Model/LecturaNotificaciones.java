@@ -0,0 +1,20 @@
+package com.ecomarketspa.Model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+// Hasta qué notificación leyó cada usuario: todas las suyas con id <= ultimaLeidaId están leídas.
+// Un solo número por usuario basta porque la bandeja se lee en orden de id; NotificacionService lo
+// actualiza con JDBC y solo lo hace avanzar.
+@Entity
+@Data
+@Table(name = "lectura_notificaciones")
+public class LecturaNotificaciones {
+
+    @Id
+    @Column(name = "usuario_id")
+    private Long usuarioId;
+
+    @Column(name = "ultima_leida_id", nullable = false)
+    private long ultimaLeidaId;
+}
@@ -5,6 +5,10 @@ import lombok.Data;
 
 @Entity
 @Data
+@Table(name = "notificacion", indexes = {
+        // Bandeja por usuario: la página por cursor (id < ?) y el conteo de no leídas (id > ?) son rangos de este índice
+        @Index(name = "idx_notificacion_usuario_id", columnList = "usuario_id, id")
+})
 public class Notificacion {
 
     @Id
@@ -1,19 +1,31 @@
 package com.ecomarketspa.Model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 import java.util.Date;
 
 @Entity
 @Data
+@EntityListeners(PedidoListener.class)
+@Table(name = "pedido", indexes = {
+        // Sirve las consultas por rango de fechas paginadas por cursor (fecha, id) sin ordenar en memoria
+        @Index(name = "idx_pedido_fecha_id", columnList = "fecha, id"),
+        @Index(name = "idx_pedido_estado", columnList = "estado_codigo")
+})
 public class Pedido {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    private String estado;
+    // Si llega sin estado, PedidoListener lo crea como PENDIENTE
+    @Convert(converter = EstadoPedido.Conversor.class)
+    @Column(name = "estado_codigo", nullable = false)
+    private EstadoPedido estado;
     private Date fecha;
 
     private Double total;
@@ -21,4 +33,30 @@ public class Pedido {
     @ManyToOne
     @JoinColumn(name = "usuario_id", nullable = false)
     private Usuario usuario;
+
+    // Usuario con el que se leyó el pedido; PedidoListener lo usa para detectar reasignaciones
+    @Transient
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Long usuarioIdCargado;
+
+    // Día, estado y total con que se leyó el pedido; PedidoListener los usa para mover el pedido entre acumulados diarios
+    @Transient
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Date fechaCargada;
+
+    @Transient
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private EstadoPedido estadoCargado;
+
+    @Transient
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Double totalCargado;
 }
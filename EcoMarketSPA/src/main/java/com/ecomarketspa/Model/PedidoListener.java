@@ -0,0 +1,118 @@
+package com.ecomarketspa.Model;
+
+import com.ecomarketspa.Index.ContadorPedidosUsuario;
+import com.ecomarketspa.Index.IndiceEstadosPedido;
+import com.ecomarketspa.Index.UsuariosConPedidosPendientes;
+import com.ecomarketspa.Service.VentasDiariasService;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import jakarta.persistence.PrePersist;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.Objects;
+
+// Mantiene ContadorPedidosUsuario, IndiceEstadosPedido, UsuariosConPedidosPendientes y los acumulados de VentasDiariasService al crear, eliminar o modificar pedidos.
+// Hibernate crea el listener a través de Spring, por eso puede recibir dependencias con @Autowired.
+public class PedidoListener {
+
+    @Autowired
+    private ContadorPedidosUsuario contadorPedidosUsuario;
+
+    @Autowired
+    private IndiceEstadosPedido indiceEstadosPedido;
+
+    @Autowired
+    private UsuariosConPedidosPendientes usuariosConPedidosPendientes;
+
+    @Autowired
+    @Lazy // Depende de un repositorio JPA, que a su vez necesita el EntityManagerFactory que está creando este listener
+    private VentasDiariasService ventasDiariasService;
+
+    @PrePersist
+    void estadoInicial(Pedido pedido) {
+        if (pedido.getEstado() == null) {
+            pedido.setEstado(EstadoPedido.PENDIENTE);
+        }
+    }
+
+    @PostLoad
+    void pedidoCargado(Pedido pedido) {
+        recordar(pedido);
+    }
+
+    @PostPersist
+    void pedidoCreado(Pedido pedido) {
+        contadorPedidosUsuario.registrarCambio(usuarioId(pedido), 1);
+        indiceEstadosPedido.registrarCambio(pedido.getId(), pedido.getEstado());
+        if (pedido.getEstado() == EstadoPedido.PENDIENTE) {
+            usuariosConPedidosPendientes.registrarCambio(usuarioId(pedido), 1);
+        }
+        ventasDiariasService.registrar(pedido.getFecha(), pedido.getEstado(), 1, total(pedido.getTotal()));
+        recordar(pedido);
+    }
+
+    @PostRemove
+    void pedidoEliminado(Pedido pedido) {
+        Long usuarioId = pedido.getUsuarioIdCargado() != null ? pedido.getUsuarioIdCargado() : usuarioId(pedido);
+        contadorPedidosUsuario.registrarCambio(usuarioId, -1);
+        indiceEstadosPedido.registrarCambio(pedido.getId(), null);
+        if (pedido.getEstadoCargado() == EstadoPedido.PENDIENTE) {
+            usuariosConPedidosPendientes.registrarCambio(usuarioId, -1);
+        }
+        ventasDiariasService.registrar(pedido.getFechaCargada(), pedido.getEstadoCargado(), -1, -total(pedido.getTotalCargado()));
+    }
+
+    @PostUpdate
+    void pedidoActualizado(Pedido pedido) {
+        Long anterior = pedido.getUsuarioIdCargado();
+        Long actual = usuarioId(pedido);
+        if (!Objects.equals(anterior, actual)) { // El pedido se reasignó a otro usuario
+            contadorPedidosUsuario.registrarCambio(anterior, -1);
+            contadorPedidosUsuario.registrarCambio(actual, 1);
+        }
+        if (pedido.getEstadoCargado() != pedido.getEstado()) {
+            indiceEstadosPedido.registrarCambio(pedido.getId(), pedido.getEstado());
+        }
+        if (pedido.getEstadoCargado() != pedido.getEstado() || !Objects.equals(anterior, actual)) {
+            // El pendiente deja de contar para el usuario anterior y pasa a contar para el actual
+            if (pedido.getEstadoCargado() == EstadoPedido.PENDIENTE) {
+                usuariosConPedidosPendientes.registrarCambio(anterior, -1);
+            }
+            if (pedido.getEstado() == EstadoPedido.PENDIENTE) {
+                usuariosConPedidosPendientes.registrarCambio(actual, 1);
+            }
+        }
+        if (!Objects.equals(dia(pedido.getFechaCargada()), dia(pedido.getFecha()))
+                || pedido.getEstadoCargado() != pedido.getEstado()
+                || total(pedido.getTotalCargado()) != total(pedido.getTotal())) { // Cambió de día, de estado o de monto
+            ventasDiariasService.registrar(pedido.getFechaCargada(), pedido.getEstadoCargado(), -1, -total(pedido.getTotalCargado()));
+            ventasDiariasService.registrar(pedido.getFecha(), pedido.getEstado(), 1, total(pedido.getTotal()));
+        }
+        recordar(pedido);
+    }
+
+    private static void recordar(Pedido pedido) {
+        pedido.setUsuarioIdCargado(usuarioId(pedido));
+        pedido.setFechaCargada(pedido.getFecha());
+        pedido.setEstadoCargado(pedido.getEstado());
+        pedido.setTotalCargado(pedido.getTotal());
+    }
+
+    private static Long usuarioId(Pedido pedido) {
+        return pedido.getUsuario() == null ? null : pedido.getUsuario().getId();
+    }
+
+    // Se compara por día porque Hibernate entrega la fecha como Timestamp, que no es equals a un Date con el mismo instante
+    private static LocalDate dia(Date fecha) {
+        return fecha == null ? null : VentasDiariasService.dia(fecha);
+    }
+
+    private static double total(Double total) {
+        return total == null ? 0 : total;
+    }
+}
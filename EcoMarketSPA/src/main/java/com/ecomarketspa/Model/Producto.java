@@ -16,4 +16,9 @@ public class Producto {
     private double precio;
     private int    stock;
     private String descripcion;
+
+    // Se incrementa en cada actualización, incluidas las de stock hechas con UPDATE directo; es la base del ETag del producto.
+    // null cuando el cliente no la envía: ProductoService actualiza entonces sobre la versión actual.
+    @Version
+    private Long version;
 }
@@ -0,0 +1,27 @@
+package com.ecomarketspa.Model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.util.Date;
+
+@Entity
+@Data
+@Table(name = "reservas_stock")
+public class ReservaStock {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Se guarda solo el id para no cargar el producto en cada reserva
+    @Column(name = "producto_id", nullable = false)
+    private Long productoId;
+
+    private int cantidad;
+
+    @Enumerated(EnumType.STRING)
+    private EstadoReserva estado;
+
+    private Date fecha;
+}
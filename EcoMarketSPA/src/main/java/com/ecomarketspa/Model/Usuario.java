@@ -1,11 +1,17 @@
 package com.ecomarketspa.Model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import lombok.Data;
 
+import java.util.Locale;
+
 @Entity
 @Data
 public class Usuario {
@@ -17,4 +23,23 @@ public class Usuario {
     private String nombre;
     private String correo;
     private String telefono;
+
+    // Correo sin espacios y en minúsculas; su índice único permite buscar por correo exacto y evita duplicados
+    @Column(name = "correo_norm", unique = true)
+    @JsonIgnore
+    private String correoNorm;
+
+    // También la usa FiltroCorreosService para completar correo_norm en los usuarios antiguos
+    public static String normalizarCorreo(String correo) {
+        if (correo == null || correo.isBlank()) {
+            return null;
+        }
+        return correo.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @PrePersist
+    @PreUpdate
+    void actualizarCorreoNorm() {
+        correoNorm = normalizarCorreo(correo);
+    }
 }
@@ -0,0 +1,38 @@
+package com.ecomarketspa.Model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+// Acumulado de pedidos de un día en un estado. VentasDiariasService mantiene estas filas con los cambios que
+// PedidoListener confirma, así que una consulta de un año lee a lo más 365 filas por estado en vez de cada pedido.
+@Entity
+@Data
+@IdClass(VentaDiaria.Clave.class)
+@Table(name = "ventas_diarias")
+public class VentaDiaria {
+
+    @Id
+    private LocalDate dia;
+
+    // Nombre del EstadoPedido
+    @Id
+    @Column(length = 50)
+    private String estado;
+
+    private long cantidad;
+
+    private double total;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Clave implements Serializable {
+        private LocalDate dia;
+        private String estado;
+    }
+}
@@ -0,0 +1,27 @@
+package com.ecomarketspa.Repository;
+
+import com.ecomarketspa.Model.ClaveIdempotencia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.Optional;
+
+@Repository
+public interface ClaveIdempotenciaRepository extends JpaRepository<ClaveIdempotencia, Long> {
+
+    Optional<ClaveIdempotencia> findByClave(String clave);
+
+    // Claves anteriores a 'limite' o sin fecha (guardadas antes de registrarla): ya no protegen contra reintentos
+    @Modifying
+    @Query("DELETE FROM ClaveIdempotencia c WHERE c.fecha < :limite OR c.fecha IS NULL")
+    int eliminarVencidas(@Param("limite") Date limite);
+
+    // Libera una clave vencida para volver a usarla; no borra nada si otro reintento ya la reemplazó por una vigente
+    @Modifying
+    @Query("DELETE FROM ClaveIdempotencia c WHERE c.clave = :clave AND (c.fecha < :limite OR c.fecha IS NULL)")
+    int eliminarVencida(@Param("clave") String clave, @Param("limite") Date limite);
+}
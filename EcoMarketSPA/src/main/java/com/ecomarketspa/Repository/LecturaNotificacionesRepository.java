@@ -0,0 +1,9 @@
+package com.ecomarketspa.Repository;
+
+import com.ecomarketspa.Model.LecturaNotificaciones;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface LecturaNotificacionesRepository extends JpaRepository<LecturaNotificaciones, Long> {
+}
@@ -1,9 +1,38 @@
 package com.ecomarketspa.Repository;
 
 import com.ecomarketspa.Model.Notificacion;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface NotificacionRepository extends JpaRepository<Notificacion, Long>{
+
+    List<Notificacion> findByUsuarioId(Long usuarioId);
+
+    // Página de la bandeja, de la más nueva a la más antigua: (id, tipo, mensaje) anteriores al cursor.
+    // Recorre el índice (usuario_id, id) hacia atrás desde el cursor y no carga el Usuario.
+    @Query("SELECT n.id, n.tipo, n.mensaje FROM Notificacion n " +
+            "WHERE n.usuario.id = :usuarioId AND n.id < :antesDeId ORDER BY n.id DESC")
+    List<Object[]> findPaginaBandeja(@Param("usuarioId") Long usuarioId,
+                                     @Param("antesDeId") long antesDeId,
+                                     Limit limit);
+
+    // Las posteriores a 'despuesDeId' en orden de creación, para reenviarlas al reconectar un suscriptor SSE
+    @Query("SELECT n.id, n.tipo, n.mensaje FROM Notificacion n " +
+            "WHERE n.usuario.id = :usuarioId AND n.id > :despuesDeId ORDER BY n.id")
+    List<Object[]> findPosterioresA(@Param("usuarioId") Long usuarioId,
+                                    @Param("despuesDeId") long despuesDeId,
+                                    Limit limit);
+
+    // No leídas: conteo sobre el rango (usuario_id, id > ultimaLeidaId) del índice
+    @Query("SELECT COUNT(n) FROM Notificacion n WHERE n.usuario.id = :usuarioId AND n.id > :ultimaLeidaId")
+    long contarPosterioresA(@Param("usuarioId") Long usuarioId, @Param("ultimaLeidaId") long ultimaLeidaId);
+
+    @Query("SELECT MAX(n.id) FROM Notificacion n WHERE n.usuario.id = :usuarioId")
+    Long findUltimoIdPorUsuario(@Param("usuarioId") Long usuarioId);
 }
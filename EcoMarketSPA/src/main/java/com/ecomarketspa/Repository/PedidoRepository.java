@@ -1,23 +1,89 @@
 package com.ecomarketspa.Repository;
 
+import com.ecomarketspa.Model.EstadoPedido;
 import com.ecomarketspa.Model.Pedido;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Date;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface PedidoRepository extends JpaRepository<Pedido, Long> {
 
-    List<Pedido> findByEstado(String estado);
+    List<Pedido> findByEstado(EstadoPedido estado);
+
+    long countByEstado(EstadoPedido estado);
+
+    // Carga inicial de IndiceEstadosPedido: solo (id, estado), leído con un cursor
+    @Query("SELECT p.id, p.estado FROM Pedido p")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    Stream<Object[]> streamIdYEstado();
+
+    // Bloquea los pedidos antes de un cambio de estado masivo y devuelve (id, estado, fecha, total, usuario_id) de cada uno
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p.id, p.estado, p.fecha, p.total, p.usuario.id FROM Pedido p WHERE p.id IN :ids ORDER BY p.id")
+    List<Object[]> bloquearParaTransicion(@Param("ids") Collection<Long> ids);
+
+    // No pasa por PedidoListener: quien la llama debe actualizar el índice de estados, los usuarios con pendientes y los acumulados diarios
+    @Modifying
+    @Query("UPDATE Pedido p SET p.estado = :destino WHERE p.id IN :ids AND p.estado = :origen")
+    int cambiarEstado(@Param("ids") Collection<Long> ids,
+                      @Param("origen") EstadoPedido origen,
+                      @Param("destino") EstadoPedido destino);
+
+    // Pedidos que ArchivoPedidos puede pasar a un segmento: (id, fecha, total, usuario_id, estado) en orden de id.
+    // Quedan bloqueados hasta que se eliminan, para que nadie los modifique después de copiarlos al segmento.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p.id, p.fecha, p.total, p.usuario.id, p.estado FROM Pedido p " +
+            "WHERE p.fecha < :limite AND p.estado IN :estados ORDER BY p.id")
+    List<Object[]> findParaArchivar(@Param("limite") Date limite,
+                                    @Param("estados") Collection<EstadoPedido> estados,
+                                    Limit limit);
+
+    // Solo para ArchivoPedidos, después de escribir el segmento: no pasa por PedidoListener a propósito,
+    // porque el pedido sigue contando para el usuario y para las ventas diarias
+    @Modifying
+    @Query("DELETE FROM Pedido p WHERE p.id IN :ids")
+    int eliminarArchivados(@Param("ids") Collection<Long> ids);
 
     List<Pedido> findByUsuarioId(Long usuarioId);
 
+    List<Pedido> findByUsuarioIdOrderByFechaDescIdDesc(Long usuarioId, Limit limit);
+
     List<Pedido> findByFechaBetween(Date startDate, Date endDate); // Nota: Nombre de campo 'fecha' en tu modelo
 
+    // Página por cursor dentro de un rango de fechas: pedidos posteriores a (fechaCursor, idCursor) en orden (fecha, id).
+    // El límite inferior fecha >= :fechaCursor permite que la base de datos salte directo a esa posición del índice
+    // (fecha, id), así el costo no crece con la profundidad de la página. El usuario se trae en el mismo SELECT.
+    @Query("SELECT p FROM Pedido p JOIN FETCH p.usuario " +
+            "WHERE p.fecha >= :fechaCursor AND p.fecha <= :fin " +
+            "AND (p.fecha > :fechaCursor OR p.id > :idCursor) " +
+            "ORDER BY p.fecha, p.id")
+    List<Pedido> findPaginaEntreFechas(@Param("fechaCursor") Date fechaCursor,
+                                       @Param("idCursor") Long idCursor,
+                                       @Param("fin") Date fin,
+                                       Limit limit);
+
+    @Query("SELECT p.usuario.id, COUNT(p) FROM Pedido p GROUP BY p.usuario.id")
+    List<Object[]> contarAgrupadoPorUsuario(); // Carga inicial del contador de pedidos por usuario
+
+    @Query("SELECT p.usuario.id, COUNT(p) FROM Pedido p WHERE p.estado = :estado GROUP BY p.usuario.id")
+    List<Object[]> contarPorUsuarioEnEstado(@Param("estado") EstadoPedido estado); // Carga inicial de UsuariosConPedidosPendientes
+
     @Query("SELECT COUNT(p) FROM Pedido p WHERE p.usuario.id = :usuarioId")
 
     Long countByUsuarioId(@Param("usuarioId") Long usuarioId);
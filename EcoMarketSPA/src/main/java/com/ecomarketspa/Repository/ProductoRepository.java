@@ -1,10 +1,19 @@
 package com.ecomarketspa.Repository;
 
 import com.ecomarketspa.Model.Producto;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductoRepository extends JpaRepository<Producto, Long> {
@@ -14,4 +23,31 @@ public interface ProductoRepository extends JpaRepository<Producto, Long> {
     List<Producto> findByStockLessThan(int stock);
 
     List<Producto> findByPrecioBetween(double minPrecio, double maxPrecio);
+
+    List<Producto> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit); // Paginación por cursor (keyset) sobre la clave primaria
+
+    // Cursor de solo avance para exportar el catálogo completo: el driver trae las filas de a bloques
+    // en vez de materializar el resultado (en MySQL requiere useCursorFetch=true en la URL).
+    // Solo lectura, así Hibernate no guarda copias de las entidades para detectar cambios.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    Stream<Producto> streamAllByOrderByIdAsc();
+
+    @Query("SELECT p.version FROM Producto p WHERE p.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id); // Para responder GET condicionales sin cargar la entidad
+
+    @Query("SELECT p.id, p.precio FROM Producto p")
+    List<Object[]> findIdsYPrecios(); // Solo las columnas que necesita el índice de precios, sin cargar entidades
+
+    // Descuento atómico: la condición stock >= cantidad la evalúa la base de datos con la fila bloqueada,
+    // así dos reservas concurrentes nunca pueden dejar el stock negativo. Devuelve 0 si no alcanzó el stock.
+    // Los UPDATE directos no pasan por Hibernate, por eso incrementan la versión a mano.
+    @Modifying
+    @Query("UPDATE Producto p SET p.stock = p.stock - :cantidad, p.version = p.version + 1 WHERE p.id = :id AND p.stock >= :cantidad")
+    int descontarStock(@Param("id") Long id, @Param("cantidad") int cantidad);
+
+    @Modifying
+    @Query("UPDATE Producto p SET p.stock = p.stock + :cantidad, p.version = p.version + 1 WHERE p.id = :id")
+    int devolverStock(@Param("id") Long id, @Param("cantidad") int cantidad);
 }
\ No newline at end of file
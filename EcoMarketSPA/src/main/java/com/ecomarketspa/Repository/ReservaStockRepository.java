@@ -0,0 +1,20 @@
+package com.ecomarketspa.Repository;
+
+import com.ecomarketspa.Model.EstadoReserva;
+import com.ecomarketspa.Model.ReservaStock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReservaStockRepository extends JpaRepository<ReservaStock, Long> {
+
+    // Cambia el estado solo si la reserva sigue en el estado esperado; devuelve 0 si otro hilo ya la cambió
+    @Modifying
+    @Query("UPDATE ReservaStock r SET r.estado = :nuevoEstado WHERE r.id = :id AND r.estado = :estadoEsperado")
+    int cambiarEstado(@Param("id") Long id,
+                      @Param("estadoEsperado") EstadoReserva estadoEsperado,
+                      @Param("nuevoEstado") EstadoReserva nuevoEstado);
+}
@@ -1,12 +1,18 @@
 package com.ecomarketspa.Repository;
 
+import com.ecomarketspa.Model.EstadoPedido;
 import com.ecomarketspa.Model.Usuario;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
@@ -16,9 +22,25 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
 
     List<Usuario> findByCorreoContainingIgnoreCase(String correo);
 
-    @Query("SELECT DISTINCT u FROM Usuario u JOIN Pedido p ON u.id = p.usuario.id WHERE p.estado = :estadoPedido")
-
-    List<Usuario> findUsuariosConPedidosPorEstado(@Param("estadoPedido") String estadoPedido);
+    // Semi-join: cada usuario se evalúa una vez y la subconsulta se detiene en el primer pedido, sin DISTINCT
+    @Query("SELECT u FROM Usuario u WHERE EXISTS (SELECT 1 FROM Pedido p WHERE p.usuario = u AND p.estado = :estadoPedido)")
+    List<Usuario> findUsuariosConPedidosPorEstado(@Param("estadoPedido") EstadoPedido estadoPedido);
+
+    // Recorrido completo de (id, nombre, correo) para cargar el índice de trigramas
+    @Query("SELECT u.id, u.nombre, u.correo FROM Usuario u")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    Stream<Object[]> streamIdNombreCorreo();
+
+    Optional<Usuario> findByCorreoNorm(String correoNorm);
+
+    // Recorrido de los correos normalizados para reconstruir el filtro de Bloom
+    @Query("SELECT u.correoNorm FROM Usuario u WHERE u.correoNorm IS NOT NULL")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    Stream<String> streamCorreosNorm();
 
 }
 
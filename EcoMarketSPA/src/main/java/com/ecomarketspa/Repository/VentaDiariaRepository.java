@@ -0,0 +1,16 @@
+package com.ecomarketspa.Repository;
+
+import com.ecomarketspa.Model.VentaDiaria;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface VentaDiariaRepository extends JpaRepository<VentaDiaria, VentaDiaria.Clave> {
+
+    List<VentaDiaria> findByDiaBetweenOrderByDia(LocalDate inicio, LocalDate fin);
+
+    List<VentaDiaria> findByDiaBetweenAndEstadoOrderByDia(LocalDate inicio, LocalDate fin, String estado);
+}
@@ -0,0 +1,294 @@
+package com.ecomarketspa.Service;
+
+import com.ecomarketspa.Index.IndiceEstadosPedido;
+import com.ecomarketspa.Index.SegmentoPedidos;
+import com.ecomarketspa.Model.EstadoPedido;
+import com.ecomarketspa.Repository.PedidoRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Archivo en frío de pedidos antiguos (opcional, ecomarket.pedidos.archivo.habilitado).
+ *
+ * Periódicamente, los pedidos ENTREGADO o CANCELADO más antiguos que 'antiguedad' se escriben en segmentos
+ * inmutables (SegmentoPedidos) dentro de 'directorio' y se eliminan de la tabla pedido. Solo se archivan
+ * pedidos en un estado final porque un segmento no se puede modificar.
+ *
+ * Orden de cada ciclo, en una sola transacción: se bloquean las filas candidatas, se escribe el segmento como .tmp
+ * y se fuerza a disco, se renombra a .seg, se agrega a las consultas y recién entonces se eliminan las filas. Si el
+ * proceso se cae entre medio, al arrancar se detecta que las filas de un segmento siguen en la tabla y se termina
+ * de eliminarlas.
+ * Mientras tanto un pedido puede estar en ambos lados; PedidoService prefiere siempre la fila de la base de datos.
+ *
+ * Los segmentos existentes se leen aunque el archivador esté deshabilitado.
+ */
+@Service
+public class ArchivoPedidos {
+
+    private static final Logger log = LoggerFactory.getLogger(ArchivoPedidos.class);
+
+    private static final Set<EstadoPedido> ESTADOS_ARCHIVABLES = EnumSet.of(EstadoPedido.ENTREGADO, EstadoPedido.CANCELADO);
+    private static final String EXTENSION = ".seg";
+
+    private final boolean habilitado;
+    private final Path directorio;
+    private final Duration antiguedad;
+    private final Duration intervalo;
+    private final int pedidosPorSegmento;
+
+    // Se reemplaza completa al agregar un segmento, así las consultas la recorren sin bloqueos
+    private volatile List<SegmentoPedidos> segmentos = List.of();
+    private ScheduledExecutorService programador;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private IndiceEstadosPedido indiceEstadosPedido;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    public ArchivoPedidos(@Value("${ecomarket.pedidos.archivo.habilitado:false}") boolean habilitado,
+                          @Value("${ecomarket.pedidos.archivo.directorio:archivo-pedidos}") Path directorio,
+                          @Value("${ecomarket.pedidos.archivo.antiguedad:365d}") Duration antiguedad,
+                          @Value("${ecomarket.pedidos.archivo.intervalo:1h}") Duration intervalo,
+                          @Value("${ecomarket.pedidos.archivo.pedidos-por-segmento:100000}") int pedidosPorSegmento) {
+        if (pedidosPorSegmento <= 0) {
+            throw new IllegalArgumentException("La cantidad de pedidos por segmento debe ser mayor que cero");
+        }
+        this.habilitado = habilitado;
+        this.directorio = directorio;
+        this.antiguedad = antiguedad;
+        this.intervalo = intervalo;
+        this.pedidosPorSegmento = pedidosPorSegmento;
+    }
+
+    @PostConstruct
+    void iniciar() throws IOException {
+        if (Files.isDirectory(directorio)) {
+            abrirSegmentos();
+            completarArchivadosPendientes();
+        }
+        if (habilitado) {
+            Files.createDirectories(directorio);
+            programador = Executors.newSingleThreadScheduledExecutor(
+                    tarea -> Thread.ofPlatform().name("archivo-pedidos").daemon().unstarted(tarea));
+            programador.scheduleWithFixedDelay(this::archivarProgramado, intervalo.toMillis(), intervalo.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void detener() {
+        if (programador != null) {
+            programador.shutdownNow();
+        }
+    }
+
+    public boolean estaVacio() {
+        return segmentos.isEmpty();
+    }
+
+    public int cantidadSegmentos() {
+        return segmentos.size();
+    }
+
+    // Archiva todos los pedidos que ya cumplen la antigüedad. Devuelve cuántos se archivaron.
+    public synchronized long archivar() throws IOException {
+        Files.createDirectories(directorio);
+        Date limite = new Date(System.currentTimeMillis() - antiguedad.toMillis());
+        long archivados = 0;
+        int cantidad;
+        do {
+            cantidad = archivarSegmento(limite);
+            archivados += cantidad;
+        } while (cantidad == pedidosPorSegmento);
+        return archivados;
+    }
+
+    // Un segmento en una sola transacción: los candidatos se leen con FOR UPDATE y se eliminan en la misma
+    // transacción, así un pedido que cambia mientras se escribe el segmento espera y después no encuentra la fila,
+    // en vez de perder el cambio junto con la fila. Devuelve cuántos pedidos archivó.
+    private int archivarSegmento(Date limite) throws IOException {
+        try {
+            return transactionTemplate.execute(estado -> {
+                List<Object[]> candidatos = pedidoRepository.findParaArchivar(limite, ESTADOS_ARCHIVABLES, Limit.of(pedidosPorSegmento));
+                if (candidatos.isEmpty()) {
+                    return 0;
+                }
+                List<SegmentoPedidos.Fila> filas = new ArrayList<>(candidatos.size());
+                for (Object[] fila : candidatos) {
+                    filas.add(new SegmentoPedidos.Fila((Long) fila[0], ((Date) fila[1]).getTime(),
+                            fila[2] == null ? 0 : (Double) fila[2], (Long) fila[3], (EstadoPedido) fila[4]));
+                }
+                SegmentoPedidos segmento;
+                try {
+                    segmento = escribirSegmento(filas);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                agregar(segmento);
+                eliminarDeLaBase(segmento); // Se une a esta transacción
+                return filas.size();
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public Optional<SegmentoPedidos.Fila> buscar(long id) {
+        for (SegmentoPedidos segmento : segmentos) {
+            SegmentoPedidos.Fila fila = segmento.buscar(id);
+            if (fila != null) {
+                return Optional.of(fila);
+            }
+        }
+        return Optional.empty();
+    }
+
+    public List<SegmentoPedidos.Fila> listar() {
+        List<SegmentoPedidos.Fila> filas = new ArrayList<>();
+        segmentos.forEach(segmento -> segmento.recorrer(filas::add));
+        return filas;
+    }
+
+    public List<SegmentoPedidos.Fila> buscarPorUsuario(long usuarioId) {
+        List<SegmentoPedidos.Fila> filas = new ArrayList<>();
+        segmentos.forEach(segmento -> segmento.filtrarPorUsuario(usuarioId, filas::add));
+        return filas;
+    }
+
+    public List<SegmentoPedidos.Fila> buscarPorEstado(EstadoPedido estado) {
+        List<SegmentoPedidos.Fila> filas = new ArrayList<>();
+        segmentos.forEach(segmento -> segmento.filtrarPorEstado(estado, filas::add));
+        return filas;
+    }
+
+    public List<SegmentoPedidos.Fila> buscarEntreFechas(Date inicio, Date fin) {
+        List<SegmentoPedidos.Fila> filas = new ArrayList<>();
+        segmentos.forEach(segmento -> segmento.filtrarPorFecha(inicio.getTime(), fin.getTime(), filas::add));
+        return filas;
+    }
+
+    // Hasta 'limite' pedidos de [fechaCursor, fin] posteriores al cursor (fechaCursor, idCursor), en orden (fecha, id)
+    public List<SegmentoPedidos.Fila> buscarPaginaEntreFechas(Date fechaCursor, long idCursor, Date fin, int limite) {
+        long cursor = fechaCursor.getTime();
+        List<SegmentoPedidos.Fila> filas = new ArrayList<>();
+        segmentos.forEach(segmento -> segmento.filtrarPorFecha(cursor, fin.getTime(), fila -> {
+            if (fila.fecha() > cursor || fila.id() > idCursor) {
+                filas.add(fila);
+            }
+        }));
+        filas.sort(Comparator.comparingLong(SegmentoPedidos.Fila::fecha).thenComparingLong(SegmentoPedidos.Fila::id));
+        return filas.size() > limite ? filas.subList(0, limite) : filas;
+    }
+
+    public long contarPorEstado(EstadoPedido estado) {
+        long total = 0;
+        for (SegmentoPedidos segmento : segmentos) {
+            total += segmento.contarPorEstado(estado);
+        }
+        return total;
+    }
+
+    public long contarPorUsuario(long usuarioId) {
+        long[] total = {0};
+        segmentos.forEach(segmento -> segmento.filtrarPorUsuario(usuarioId, fila -> total[0]++));
+        return total[0];
+    }
+
+    public Map<Long, Long> contarAgrupadoPorUsuario() {
+        Map<Long, Long> totales = new HashMap<>();
+        segmentos.forEach(segmento -> segmento.contarPorUsuario(totales));
+        return totales;
+    }
+
+    private void archivarProgramado() {
+        try {
+            long archivados = archivar();
+            if (archivados > 0) {
+                log.info("Se archivaron {} pedidos; segmentos: {}", archivados, segmentos.size());
+            }
+        } catch (Exception e) {
+            log.error("Error al archivar pedidos; se reintentará en el próximo ciclo", e); // El segmento a medias queda como .tmp
+        }
+    }
+
+    private SegmentoPedidos escribirSegmento(List<SegmentoPedidos.Fila> filas) throws IOException {
+        String nombre = String.format("pedidos-%019d-%019d", filas.get(0).id(), filas.get(filas.size() - 1).id());
+        Path temporal = directorio.resolve(nombre + EXTENSION + ".tmp");
+        Path destino = directorio.resolve(nombre + EXTENSION);
+        Files.deleteIfExists(temporal);
+        SegmentoPedidos.escribir(temporal, filas);
+        Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE);
+        return SegmentoPedidos.abrir(destino);
+    }
+
+    private synchronized void agregar(SegmentoPedidos segmento) {
+        List<SegmentoPedidos> nuevos = new ArrayList<>(segmentos);
+        nuevos.add(segmento);
+        segmentos = List.copyOf(nuevos);
+    }
+
+    private void eliminarDeLaBase(SegmentoPedidos segmento) {
+        transactionTemplate.executeWithoutResult(estado -> {
+            ConsultaPorLotes.enLotes(segmento.filas(), segmento::id, ids -> {
+                pedidoRepository.eliminarArchivados(ids);
+                ids.forEach(id -> indiceEstadosPedido.registrarCambio(id, null)); // Desde ahora se cuentan en el segmento
+            });
+        });
+    }
+
+    private void abrirSegmentos() throws IOException {
+        List<SegmentoPedidos> abiertos = new ArrayList<>();
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio)) {
+            for (Path archivo : archivos) {
+                String nombre = archivo.getFileName().toString();
+                if (nombre.endsWith(EXTENSION)) {
+                    abiertos.add(SegmentoPedidos.abrir(archivo));
+                } else if (nombre.endsWith(EXTENSION + ".tmp")) {
+                    Files.delete(archivo); // Escritura interrumpida: sus pedidos siguen en la base de datos
+                }
+            }
+        }
+        abiertos.sort(Comparator.comparingLong(SegmentoPedidos::idMinimo));
+        segmentos = List.copyOf(abiertos);
+    }
+
+    // Las filas de un segmento se eliminan en una sola transacción: si la primera sigue en la tabla, siguen todas
+    private void completarArchivadosPendientes() {
+        for (SegmentoPedidos segmento : segmentos) {
+            if (segmento.filas() > 0 && pedidoRepository.existsById(segmento.idMinimo())) {
+                log.warn("El segmento {} quedó sin eliminar sus pedidos de la base de datos; se completa ahora", segmento.archivo());
+                eliminarDeLaBase(segmento);
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.ecomarketspa.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntToLongFunction;
+
+// Parte listas de ids en lotes de IDS_POR_CONSULTA para no armar un IN (...) gigante: MySQL admite como
+// máximo 65.535 parámetros por sentencia y un IN muy largo tampoco aprovecha bien los índices.
+final class ConsultaPorLotes {
+
+    static final int IDS_POR_CONSULTA = 1000;
+
+    private ConsultaPorLotes() {
+    }
+
+    // Ejecuta 'consulta' por cada lote de 'ids' y junta los resultados (sin ordenar: findAllById no garantiza el orden)
+    static <T> List<T> buscar(long[] ids, Function<List<Long>, ? extends Collection<T>> consulta) {
+        List<T> resultado = new ArrayList<>(ids.length);
+        enLotes(ids.length, i -> ids[i], lote -> resultado.addAll(consulta.apply(lote)));
+        return resultado;
+    }
+
+    // Entrega a 'accion' los ids id(0) .. id(cantidad - 1) en lotes de hasta IDS_POR_CONSULTA
+    static void enLotes(int cantidad, IntToLongFunction id, Consumer<List<Long>> accion) {
+        for (int desde = 0; desde < cantidad; desde += IDS_POR_CONSULTA) {
+            List<Long> lote = new ArrayList<>(Math.min(IDS_POR_CONSULTA, cantidad - desde));
+            for (int i = desde; i < Math.min(cantidad, desde + IDS_POR_CONSULTA); i++) {
+                lote.add(id.applyAsLong(i));
+            }
+            accion.accept(lote);
+        }
+    }
+}
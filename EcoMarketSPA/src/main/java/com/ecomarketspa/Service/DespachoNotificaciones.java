@@ -0,0 +1,295 @@
+package com.ecomarketspa.Service;
+
+import com.ecomarketspa.Dto.EstadoCanalDespacho;
+import com.ecomarketspa.Model.Notificacion;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Entrega asíncrona de notificaciones, con una cola acotada y sus propios hilos por canal (Notificacion.tipo).
+ *
+ * despachar solo deja la notificación en la cola de su canal, así el hilo HTTP no espera al proveedor.
+ * Cada hilo del canal junta hasta tamanoLote() notificaciones, o las que lleguen dentro de 'ventana-ms',
+ * y las envía en una sola llamada. Si el proveedor falla, el lote vuelve a la cola después de una espera
+ * exponencial con jitter (entre la mitad y el total de espera-inicial * 2^intento, tope espera-maxima),
+ * para que los reintentos de muchos lotes no lleguen juntos; tras 'reintentos' intentos fallidos se descarta.
+ * Con la cola llena despachar espera hasta 'espera-ms' y devuelve false: un canal lento no consume memoria
+ * ni frena a los demás. Las métricas por canal se leen con estado().
+ */
+@Service
+public class DespachoNotificaciones {
+
+    private static final Logger log = LoggerFactory.getLogger(DespachoNotificaciones.class);
+
+    private final int capacidad;
+    private final int hilosPorCanal;
+    private final long ventanaNanos;
+    private final long esperaMillis;
+    private final int maxReintentos;
+    private final long esperaInicialMillis;
+    private final long esperaMaximaMillis;
+
+    private final Map<String, Canal> canales = new HashMap<>(); // Clave: canal en minúsculas
+    private final LongAdder sinCanal = new LongAdder();
+    private ScheduledExecutorService programador;
+    private volatile boolean detenido;
+
+    @Autowired(required = false)
+    private List<ProveedorNotificaciones> proveedores = List.of();
+
+    public DespachoNotificaciones(@Value("${ecomarket.notificaciones.despacho.capacidad:10000}") int capacidad,
+                                  @Value("${ecomarket.notificaciones.despacho.hilos:2}") int hilosPorCanal,
+                                  @Value("${ecomarket.notificaciones.despacho.ventana-ms:20}") long ventanaMillis,
+                                  @Value("${ecomarket.notificaciones.despacho.espera-ms:0}") long esperaMillis,
+                                  @Value("${ecomarket.notificaciones.despacho.reintentos:5}") int maxReintentos,
+                                  @Value("${ecomarket.notificaciones.despacho.espera-inicial:200ms}") Duration esperaInicial,
+                                  @Value("${ecomarket.notificaciones.despacho.espera-maxima:30s}") Duration esperaMaxima) {
+        if (capacidad <= 0 || hilosPorCanal <= 0) {
+            throw new IllegalArgumentException("La capacidad y los hilos por canal deben ser mayores que cero");
+        }
+        this.capacidad = capacidad;
+        this.hilosPorCanal = hilosPorCanal;
+        this.ventanaNanos = TimeUnit.MILLISECONDS.toNanos(ventanaMillis);
+        this.esperaMillis = esperaMillis;
+        this.maxReintentos = maxReintentos;
+        this.esperaInicialMillis = Math.max(1, esperaInicial.toMillis());
+        this.esperaMaximaMillis = Math.max(this.esperaInicialMillis, esperaMaxima.toMillis());
+    }
+
+    // 'intento' es la cantidad de envíos fallidos previos
+    private record Envio(Notificacion notificacion, int intento) {
+    }
+
+    private static final class Canal {
+
+        private final String nombre;
+        private final ProveedorNotificaciones proveedor;
+        private final BlockingQueue<Envio> cola;
+        private final List<Thread> hilos = new ArrayList<>();
+
+        private final LongAdder encoladas = new LongAdder();
+        private final LongAdder enviadas = new LongAdder();
+        private final LongAdder lotes = new LongAdder();
+        private final LongAdder reintentos = new LongAdder();
+        private final LongAdder enReintento = new LongAdder();
+        private final LongAdder fallidas = new LongAdder();
+        private final LongAdder rechazadas = new LongAdder();
+
+        Canal(ProveedorNotificaciones proveedor, int capacidad) {
+            this.nombre = proveedor.canal();
+            this.proveedor = proveedor;
+            this.cola = new ArrayBlockingQueue<>(capacidad);
+        }
+    }
+
+    @PostConstruct
+    void iniciar() {
+        for (ProveedorNotificaciones proveedor : proveedores) {
+            if (proveedor.tamanoLote() <= 0) {
+                throw new IllegalStateException("El proveedor de " + proveedor.canal() + " debe aceptar lotes de al menos una notificación");
+            }
+            Canal canal = new Canal(proveedor, capacidad);
+            if (canales.putIfAbsent(clave(proveedor.canal()), canal) != null) {
+                throw new IllegalStateException("Hay más de un proveedor para el canal " + proveedor.canal());
+            }
+        }
+        programador = Executors.newSingleThreadScheduledExecutor(
+                tarea -> Thread.ofPlatform().name("despacho-reintentos").daemon().unstarted(tarea));
+        for (Canal canal : canales.values()) {
+            for (int i = 1; i <= hilosPorCanal; i++) {
+                String nombre = "despacho-" + clave(canal.nombre) + "-" + i;
+                canal.hilos.add(Thread.ofPlatform().name(nombre).daemon().start(() -> atender(canal)));
+            }
+        }
+    }
+
+    // Deja la notificación en la cola de su canal. Devuelve false si su tipo no tiene proveedor
+    // o si la cola sigue llena después de la espera máxima.
+    public boolean despachar(Notificacion notificacion) {
+        return despachar(notificacion, esperaMillis);
+    }
+
+    // Igual que despachar, con una espera propia. Los procesos en segundo plano esperan más que una petición HTTP
+    // para que la cola llena los frene en vez de rechazar sus notificaciones.
+    public boolean despachar(Notificacion notificacion, long esperaMillis) {
+        Canal canal = notificacion.getTipo() == null ? null : canales.get(clave(notificacion.getTipo()));
+        if (canal == null) {
+            sinCanal.increment();
+            return false;
+        }
+        try {
+            if (detenido || !canal.cola.offer(new Envio(notificacion, 0), esperaMillis, TimeUnit.MILLISECONDS)) {
+                canal.rechazadas.increment();
+                return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            canal.rechazadas.increment();
+            return false;
+        }
+        canal.encoladas.increment();
+        return true;
+    }
+
+    // Igual que despachar, pero dentro de una transacción espera al commit: no se envía nada que luego se revierta
+    public void despacharAlConfirmar(Notificacion notificacion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    despacharOAvisar(notificacion);
+                }
+            });
+        } else {
+            despacharOAvisar(notificacion);
+        }
+    }
+
+    public boolean tieneCanal(String tipo) {
+        return tipo != null && canales.containsKey(clave(tipo));
+    }
+
+    public List<EstadoCanalDespacho> estado() {
+        return canales.values().stream()
+                .sorted(Comparator.comparing(canal -> canal.nombre))
+                .map(canal -> new EstadoCanalDespacho(canal.nombre, canal.cola.size(), capacidad,
+                        canal.enReintento.sum(), canal.encoladas.sum(), canal.enviadas.sum(), canal.lotes.sum(),
+                        canal.reintentos.sum(), canal.fallidas.sum(), canal.rechazadas.sum()))
+                .toList();
+    }
+
+    // Notificaciones cuyo tipo no corresponde a ningún canal
+    public long sinCanal() {
+        return sinCanal.sum();
+    }
+
+    private void despacharOAvisar(Notificacion notificacion) {
+        if (!despachar(notificacion)) {
+            log.warn("No se pudo encolar la notificación {} de tipo {}", notificacion.getId(), notificacion.getTipo());
+        }
+    }
+
+    private void atender(Canal canal) {
+        int tamanoLote = canal.proveedor.tamanoLote();
+        List<Envio> lote = new ArrayList<>(tamanoLote);
+        while (!detenido || !canal.cola.isEmpty()) {
+            try {
+                Envio primero = canal.cola.poll(100, TimeUnit.MILLISECONDS);
+                if (primero == null) {
+                    continue;
+                }
+                lote.add(primero);
+                // Se espera a lo más una ventana desde la primera notificación para completar el lote
+                long limite = System.nanoTime() + ventanaNanos;
+                while (lote.size() < tamanoLote) {
+                    if (canal.cola.drainTo(lote, tamanoLote - lote.size()) > 0) {
+                        continue;
+                    }
+                    long restante = limite - System.nanoTime();
+                    Envio siguiente = restante > 0 ? canal.cola.poll(restante, TimeUnit.NANOSECONDS) : null;
+                    if (siguiente == null) {
+                        break;
+                    }
+                    lote.add(siguiente);
+                }
+            } catch (InterruptedException e) {
+                detenido = true; // Se envía lo ya tomado y se termina de vaciar la cola antes de salir
+            }
+            if (!lote.isEmpty()) {
+                enviar(canal, lote);
+                lote.clear();
+            }
+        }
+    }
+
+    private void enviar(Canal canal, List<Envio> lote) {
+        try {
+            canal.proveedor.enviar(lote.stream().map(Envio::notificacion).toList());
+            canal.lotes.increment();
+            canal.enviadas.add(lote.size());
+        } catch (RuntimeException e) {
+            log.warn("Falló el envío de un lote de {} notificaciones por {}: {}", lote.size(), canal.nombre, e.getMessage());
+            // Un lote puede mezclar notificaciones nuevas y reintentos: cada grupo espera según su propio intento
+            Map<Integer, List<Envio>> porIntento = new TreeMap<>();
+            lote.forEach(envio -> porIntento.computeIfAbsent(envio.intento(), i -> new ArrayList<>()).add(envio));
+            porIntento.forEach((intento, envios) -> reintentar(canal, envios, intento));
+        }
+    }
+
+    private void reintentar(Canal canal, List<Envio> envios, int intento) {
+        if (intento >= maxReintentos) {
+            descartar(canal, envios);
+            return;
+        }
+        long techo = Math.min(esperaMaximaMillis, esperaInicialMillis << Math.min(intento, 30));
+        long espera = ThreadLocalRandom.current().nextLong(techo / 2, techo + 1);
+        canal.reintentos.add(envios.size());
+        canal.enReintento.add(envios.size());
+        try {
+            programador.schedule(() -> reencolar(canal, envios, intento + 1), espera, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            canal.enReintento.add(-envios.size());
+            descartar(canal, envios); // Se está deteniendo la aplicación
+        }
+    }
+
+    private void reencolar(Canal canal, List<Envio> envios, int intento) {
+        canal.enReintento.add(-envios.size());
+        List<Envio> sinLugar = new ArrayList<>();
+        for (Envio envio : envios) {
+            if (!canal.cola.offer(new Envio(envio.notificacion(), intento))) {
+                sinLugar.add(envio);
+            }
+        }
+        if (!sinLugar.isEmpty()) {
+            // Con la cola llena cuenta como otro intento fallido, así la espera crece y el reintento termina
+            reintentar(canal, sinLugar, intento);
+        }
+    }
+
+    private void descartar(Canal canal, List<Envio> envios) {
+        canal.fallidas.add(envios.size());
+        log.error("Se descartan {} notificaciones de {} tras {} intentos", envios.size(), canal.nombre, maxReintentos + 1);
+    }
+
+    private static String clave(String canal) {
+        return canal.toLowerCase(Locale.ROOT);
+    }
+
+    @PreDestroy
+    void detener() throws InterruptedException {
+        detenido = true;
+        if (programador != null) {
+            programador.shutdownNow(); // Los reintentos pendientes se pierden: no hay dónde persistirlos
+        }
+        for (Canal canal : canales.values()) {
+            for (Thread hilo : canal.hilos) {
+                hilo.join(TimeUnit.SECONDS.toMillis(10));
+            }
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.ecomarketspa.Service;
+
+import com.ecomarketspa.Dto.EstadoDifusion;
+import com.ecomarketspa.Dto.SolicitudDifusion;
+import com.ecomarketspa.Model.Notificacion;
+import com.ecomarketspa.Model.Usuario;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Difusión de una notificación a todo un segmento de usuarios, como proceso en segundo plano.
+ *
+ * Los ids del segmento se leen por páginas de 'tamano-lote' con cursor sobre usuario.id (WHERE id > ?
+ * ORDER BY id LIMIT ?), así cada consulta salta directo a su posición en la clave primaria y no se mantiene
+ * un cursor abierto durante toda la difusión. Cada página se inserta con un solo batch JDBC en su propia
+ * transacción y, si el tipo tiene canal, se entrega por DespachoNotificaciones esperando hasta
+ * 'espera-despacho' por lugar en la cola: la difusión avanza al ritmo del proveedor. En memoria vive una
+ * página a la vez y nunca se cargan entidades Usuario, sin importar el tamaño del segmento.
+ *
+ * Cancelar detiene la difusión al terminar la página en curso; las notificaciones ya insertadas se mantienen.
+ */
+@Service
+public class DifusionNotificacionService {
+
+    private static final Logger log = LoggerFactory.getLogger(DifusionNotificacionService.class);
+
+    private static final int DIFUSIONES_RECORDADAS = 100;
+    private static final String SQL_INSERTAR = "INSERT INTO notificacion (tipo, mensaje, usuario_id) VALUES (?, ?, ?)";
+
+    private final int tamanoLote;
+    private final int hilos;
+    private final long esperaDespachoMillis;
+
+    private final AtomicLong secuencia = new AtomicLong();
+    private final Map<Long, Difusion> difusiones = new ConcurrentHashMap<>();
+    private ExecutorService ejecutor;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private DespachoNotificaciones despachoNotificaciones;
+
+    @Autowired
+    private SuscripcionesNotificaciones suscripcionesNotificaciones;
+
+    public DifusionNotificacionService(@Value("${ecomarket.notificaciones.difusion.tamano-lote:1000}") int tamanoLote,
+                                       @Value("${ecomarket.notificaciones.difusion.hilos:1}") int hilos,
+                                       @Value("${ecomarket.notificaciones.difusion.espera-despacho:30s}") Duration esperaDespacho) {
+        if (tamanoLote <= 0 || hilos <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote y los hilos deben ser mayores que cero");
+        }
+        this.tamanoLote = tamanoLote;
+        this.hilos = hilos;
+        this.esperaDespachoMillis = esperaDespacho.toMillis();
+    }
+
+    // Filtro del segmento sobre la tabla usuario (alias u) y sus parámetros
+    private record Segmento(String condicion, List<Object> parametros) {
+    }
+
+    // Estado mutable de una difusión: solo lo escribe su hilo, los demás leen una foto con estado()
+    private static final class Difusion {
+
+        private final long id;
+        private final SolicitudDifusion solicitud;
+        private volatile EstadoDifusion.Situacion situacion = EstadoDifusion.Situacion.EN_COLA;
+        private volatile long usuariosEstimados;
+        private volatile long creadas;
+        private volatile long despachadas;
+        private volatile Date inicio;
+        private volatile Date fin;
+        private volatile String error;
+        private volatile boolean cancelada;
+
+        Difusion(long id, SolicitudDifusion solicitud) {
+            this.id = id;
+            this.solicitud = solicitud;
+        }
+
+        EstadoDifusion estado() {
+            return new EstadoDifusion(id, solicitud, situacion, usuariosEstimados, creadas, despachadas, inicio, fin, error);
+        }
+
+        boolean terminada() {
+            return situacion != EstadoDifusion.Situacion.EN_COLA && situacion != EstadoDifusion.Situacion.EN_CURSO;
+        }
+    }
+
+    @PostConstruct
+    void iniciar() {
+        AtomicInteger numero = new AtomicInteger();
+        ejecutor = Executors.newFixedThreadPool(hilos,
+                tarea -> Thread.ofPlatform().name("difusion-notificaciones-" + numero.incrementAndGet()).daemon().unstarted(tarea));
+    }
+
+    // Valida la solicitud y la deja en cola. Lanza IllegalArgumentException si falta un dato del segmento.
+    public EstadoDifusion iniciarDifusion(SolicitudDifusion solicitud) {
+        segmento(solicitud); // Valida antes de encolar
+        if (solicitud.tipo() == null || solicitud.tipo().isBlank() || solicitud.mensaje() == null || solicitud.mensaje().isBlank()) {
+            throw new IllegalArgumentException("El tipo y el mensaje son obligatorios");
+        }
+        Difusion difusion = new Difusion(secuencia.incrementAndGet(), solicitud);
+        difusiones.put(difusion.id, difusion);
+        olvidarTerminadas();
+        ejecutor.execute(() -> ejecutar(difusion));
+        return difusion.estado();
+    }
+
+    public Optional<EstadoDifusion> obtenerDifusion(long id) {
+        return Optional.ofNullable(difusiones.get(id)).map(Difusion::estado);
+    }
+
+    // Las más recientes primero
+    public List<EstadoDifusion> listarDifusiones() {
+        return difusiones.values().stream()
+                .sorted(Comparator.comparingLong((Difusion difusion) -> difusion.id).reversed())
+                .map(Difusion::estado)
+                .toList();
+    }
+
+    // Devuelve false si la difusión no existe. Cancelar una ya terminada no tiene efecto.
+    public boolean cancelarDifusion(long id) {
+        Difusion difusion = difusiones.get(id);
+        if (difusion == null) {
+            return false;
+        }
+        difusion.cancelada = true;
+        return true;
+    }
+
+    private void ejecutar(Difusion difusion) {
+        difusion.inicio = new Date();
+        difusion.situacion = EstadoDifusion.Situacion.EN_CURSO;
+        SolicitudDifusion solicitud = difusion.solicitud;
+        try {
+            Segmento segmento = segmento(solicitud);
+            difusion.usuariosEstimados = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM usuario u WHERE " + segmento.condicion(), Long.class, segmento.parametros().toArray());
+            String sqlPagina = "SELECT u.id FROM usuario u WHERE u.id > ? AND " + segmento.condicion() + " ORDER BY u.id LIMIT ?";
+            boolean despachar = despachoNotificaciones.tieneCanal(solicitud.tipo());
+            long cursor = 0;
+            while (!difusion.cancelada && !Thread.currentThread().isInterrupted()) {
+                List<Object> parametros = new ArrayList<>();
+                parametros.add(cursor);
+                parametros.addAll(segmento.parametros());
+                parametros.add(tamanoLote);
+                List<Long> usuarioIds = jdbcTemplate.queryForList(sqlPagina, Long.class, parametros.toArray());
+                if (usuarioIds.isEmpty()) {
+                    break;
+                }
+                // Con usuarios conectados por SSE también hacen falta los ids, para empujarles la suya
+                boolean publicar = suscripcionesNotificaciones.haySuscriptores();
+                List<Notificacion> creadas = transactionTemplate.execute(estado -> insertar(solicitud, usuarioIds, despachar || publicar));
+                difusion.creadas += usuarioIds.size();
+                if (publicar) {
+                    creadas.forEach(suscripcionesNotificaciones::publicar);
+                }
+                if (despachar) {
+                    for (Notificacion notificacion : creadas) {
+                        if (despachoNotificaciones.despachar(notificacion, esperaDespachoMillis)) {
+                            difusion.despachadas++;
+                        }
+                    }
+                }
+                cursor = usuarioIds.get(usuarioIds.size() - 1);
+                if (usuarioIds.size() < tamanoLote) {
+                    break;
+                }
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                difusion.error = "Interrumpida al detener la aplicación";
+            }
+            difusion.situacion = difusion.cancelada || difusion.error != null
+                    ? EstadoDifusion.Situacion.CANCELADA : EstadoDifusion.Situacion.COMPLETADA;
+        } catch (RuntimeException e) {
+            log.error("Falló la difusión {} después de crear {} notificaciones", difusion.id, difusion.creadas, e);
+            difusion.error = e.getMessage();
+            difusion.situacion = EstadoDifusion.Situacion.FALLIDA;
+        } finally {
+            difusion.fin = new Date();
+        }
+    }
+
+    // Inserta una notificación por usuario en un solo batch. Solo si se van a despachar o publicar se piden los ids generados.
+    private List<Notificacion> insertar(SolicitudDifusion solicitud, List<Long> usuarioIds, boolean conIds) {
+        BatchPreparedStatementSetter valores = new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement sentencia, int i) throws SQLException {
+                sentencia.setString(1, solicitud.tipo());
+                sentencia.setString(2, solicitud.mensaje());
+                sentencia.setLong(3, usuarioIds.get(i));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return usuarioIds.size();
+            }
+        };
+        if (!conIds) {
+            jdbcTemplate.batchUpdate(SQL_INSERTAR, valores);
+            return List.of();
+        }
+        GeneratedKeyHolder llaves = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(conexion -> conexion.prepareStatement(SQL_INSERTAR, Statement.RETURN_GENERATED_KEYS), valores, llaves);
+        List<Map<String, Object>> generadas = llaves.getKeyList();
+        List<Notificacion> notificaciones = new ArrayList<>(usuarioIds.size());
+        for (int i = 0; i < usuarioIds.size(); i++) {
+            // Solo con el id del usuario: el proveedor resuelve el destinatario
+            Usuario usuario = new Usuario();
+            usuario.setId(usuarioIds.get(i));
+            Notificacion notificacion = new Notificacion();
+            // El nombre de la columna cambia según el driver (GENERATED_KEY en MySQL, ID en H2)
+            notificacion.setId(((Number) generadas.get(i).values().iterator().next()).longValue());
+            notificacion.setTipo(solicitud.tipo());
+            notificacion.setMensaje(solicitud.mensaje());
+            notificacion.setUsuario(usuario);
+            notificaciones.add(notificacion);
+        }
+        return notificaciones;
+    }
+
+    private static Segmento segmento(SolicitudDifusion solicitud) {
+        if (solicitud.segmento() == null) {
+            throw new IllegalArgumentException("El segmento es obligatorio");
+        }
+        return switch (solicitud.segmento()) {
+            case TODOS -> new Segmento("1 = 1", List.of());
+            case PEDIDOS_EN_ESTADO -> {
+                if (solicitud.estado() == null) {
+                    throw new IllegalArgumentException("El segmento PEDIDOS_EN_ESTADO requiere un estado");
+                }
+                // Solo pedidos de la tabla: los archivados por ArchivoPedidos no cuentan
+                yield new Segmento("EXISTS (SELECT 1 FROM pedido p WHERE p.usuario_id = u.id AND p.estado_codigo = ?)",
+                        List.of(solicitud.estado().getCodigo()));
+            }
+            case CONSULTA -> {
+                if (solicitud.consulta() == null || solicitud.consulta().isBlank()) {
+                    throw new IllegalArgumentException("El segmento CONSULTA requiere una consulta");
+                }
+                // '!' como carácter de escape funciona igual en MySQL y H2 (la barra invertida no)
+                String patron = "%" + solicitud.consulta().trim().toLowerCase(Locale.ROOT)
+                        .replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+                yield new Segmento("(LOWER(u.nombre) LIKE ? ESCAPE '!' OR LOWER(u.correo) LIKE ? ESCAPE '!')", List.of(patron, patron));
+            }
+        };
+    }
+
+    // Acota la memoria: se olvidan las difusiones terminadas más antiguas
+    private void olvidarTerminadas() {
+        if (difusiones.size() <= DIFUSIONES_RECORDADAS) {
+            return;
+        }
+        difusiones.values().stream()
+                .filter(Difusion::terminada)
+                .sorted(Comparator.comparingLong((Difusion difusion) -> difusion.id))
+                .limit(difusiones.size() - DIFUSIONES_RECORDADAS)
+                .forEach(difusion -> difusiones.remove(difusion.id));
+    }
+
+    @PreDestroy
+    void detener() {
+        ejecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,134 @@
+package com.ecomarketspa.Service;
+
+import com.ecomarketspa.Index.FiltroBloomCorreos;
+import com.ecomarketspa.Model.Usuario;
+import com.ecomarketspa.Repository.UsuarioRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Mantiene el filtro de Bloom de correos registrados (FiltroBloomCorreos).
+ *
+ * Al arrancar completa correo_norm en los usuarios creados antes de que existiera la columna y luego
+ * reconstruye el filtro en segundo plano cada 'intervalo', dimensionado con usuarioRepository.count().
+ * UsuarioService pide una reconstrucción adelantada cuando las altas superan la capacidad del filtro.
+ */
+@Service
+public class FiltroCorreosService {
+
+    private static final Logger log = LoggerFactory.getLogger(FiltroCorreosService.class);
+
+    private final Duration intervalo;
+    private final AtomicBoolean solicitada = new AtomicBoolean();
+    private ScheduledExecutorService programador;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private FiltroBloomCorreos filtroBloomCorreos;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    public FiltroCorreosService(@Value("${ecomarket.usuarios.filtro-correos.intervalo:6h}") Duration intervalo) {
+        this.intervalo = intervalo;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        completarCorreosNormalizados();
+        programador = Executors.newSingleThreadScheduledExecutor(
+                tarea -> Thread.ofPlatform().name("filtro-correos").daemon().unstarted(tarea));
+        programador.scheduleWithFixedDelay(this::reconstruirProgramado, 0, intervalo.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void detener() {
+        if (programador != null) {
+            programador.shutdownNow();
+        }
+    }
+
+    // Adelanta la próxima reconstrucción; si ya hay una pedida no se encola otra
+    public void solicitarReconstruccion() {
+        if (programador != null && solicitada.compareAndSet(false, true)) {
+            programador.execute(this::reconstruirProgramado);
+        }
+    }
+
+    public void reconstruir() {
+        long usuarios = usuarioRepository.count();
+        transactionTemplate.executeWithoutResult(estado -> filtroBloomCorreos.reconstruir(usuarios, registrar -> {
+            try (Stream<String> correos = usuarioRepository.streamCorreosNorm()) {
+                correos.forEach(registrar);
+            }
+        }));
+    }
+
+    // Usuarios guardados antes de la columna correo_norm. Se completa usuario por usuario para que un correo
+    // repetido no impida completar los demás: los que comparten el correo normalizado con otro usuario (ya
+    // completado o también pendiente) siguen sin correo_norm (las búsquedas exactas no los encuentran) hasta
+    // que se corrijan, y sus ids quedan en el log. Devuelve los usuarios completados.
+    public int completarCorreosNormalizados() {
+        Map<String, List<Long>> pendientes = new HashMap<>();
+        jdbcTemplate.query("SELECT id, correo FROM usuario WHERE correo_norm IS NULL AND correo IS NOT NULL", (RowCallbackHandler) rs -> {
+            String correoNorm = Usuario.normalizarCorreo(rs.getString(2));
+            if (correoNorm != null) {
+                pendientes.computeIfAbsent(correoNorm, correo -> new ArrayList<>()).add(rs.getLong(1));
+            }
+        });
+        int completados = 0;
+        List<Long> repetidos = new ArrayList<>();
+        for (Map.Entry<String, List<Long>> correo : pendientes.entrySet()) {
+            if (correo.getValue().size() > 1) {
+                repetidos.addAll(correo.getValue()); // No hay cómo saber a cuál de ellos le corresponde
+                continue;
+            }
+            long id = correo.getValue().getFirst();
+            try {
+                completados += jdbcTemplate.update("UPDATE usuario SET correo_norm = ? WHERE id = ? AND correo_norm IS NULL", correo.getKey(), id);
+            } catch (DataIntegrityViolationException e) {
+                repetidos.add(id); // Otro usuario ya tiene ese correo_norm
+            }
+        }
+        if (!repetidos.isEmpty()) {
+            repetidos.sort(null);
+            log.warn("{} usuarios siguen sin correo_norm porque otro usuario tiene el mismo correo; ids: {}", repetidos.size(), repetidos);
+        }
+        return completados;
+    }
+
+    private void reconstruirProgramado() {
+        solicitada.set(false);
+        try {
+            reconstruir();
+        } catch (Exception e) {
+            log.error("Error al reconstruir el filtro de correos; se reintentará en el próximo ciclo", e);
+        }
+    }
+}
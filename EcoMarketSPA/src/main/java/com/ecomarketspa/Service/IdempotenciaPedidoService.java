@@ -0,0 +1,147 @@
+package com.ecomarketspa.Service;
+
+import com.ecomarketspa.Index.CacheIdempotencia;
+import com.ecomarketspa.Model.ClaveIdempotencia;
+import com.ecomarketspa.Model.Pedido;
+import com.ecomarketspa.Repository.ClaveIdempotenciaRepository;
+import com.ecomarketspa.Repository.PedidoRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creación de pedidos con Idempotency-Key: un reintento con la misma clave devuelve el pedido
+ * original en vez de crear otro.
+ *
+ * El pedido y su clave se guardan en la misma transacción. Si dos reintentos llegan a la vez,
+ * la restricción única de la tabla hace fallar a uno de ellos, que se revierte completo y
+ * responde con el pedido del que ganó.
+ *
+ * Una clave vale por 'ttl' (el mismo de CacheIdempotencia): pasado ese plazo se borra y la clave crea un pedido
+ * nuevo. Cada 'purga' se borran de la tabla todas las vencidas para que no crezca sin límite.
+ */
+@Service
+public class IdempotenciaPedidoService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotenciaPedidoService.class);
+
+    private final Duration ttl;
+    private final Duration purga;
+    private ScheduledExecutorService programador;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private ClaveIdempotenciaRepository claveIdempotenciaRepository;
+
+    @Autowired
+    private CacheIdempotencia cacheIdempotencia;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    public IdempotenciaPedidoService(@Value("${ecomarket.idempotencia.ttl:24h}") Duration ttl,
+                                     @Value("${ecomarket.idempotencia.purga:1h}") Duration purga) {
+        this.ttl = ttl;
+        this.purga = purga;
+    }
+
+    public record Resultado(Optional<Pedido> pedido, boolean repetido) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        programador = Executors.newSingleThreadScheduledExecutor(
+                tarea -> Thread.ofPlatform().name("purga-idempotencia").daemon().unstarted(tarea));
+        programador.scheduleWithFixedDelay(this::purgarProgramado, purga.toMillis(), purga.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void detener() {
+        if (programador != null) {
+            programador.shutdownNow();
+        }
+    }
+
+    // Borra las claves vencidas y devuelve cuántas
+    public int purgarVencidas() {
+        Date limite = limiteVigencia();
+        return transactionTemplate.execute(estado -> claveIdempotenciaRepository.eliminarVencidas(limite));
+    }
+
+    // 'pedido' vacío en un resultado repetido significa que el pedido original ya fue eliminado
+    public Resultado guardarPedido(String clave, Pedido pedido) {
+        Long existente = buscarPedidoId(clave);
+        if (existente != null) {
+            return new Resultado(pedidoRepository.findById(existente), true);
+        }
+        try {
+            Pedido guardado = transactionTemplate.execute(estado -> {
+                Pedido nuevo = pedidoRepository.save(pedido);
+                ClaveIdempotencia registro = new ClaveIdempotencia();
+                registro.setClave(clave);
+                registro.setPedidoId(nuevo.getId());
+                registro.setFecha(new Date());
+                claveIdempotenciaRepository.saveAndFlush(registro); // El flush hace saltar la clave duplicada aquí mismo
+                return nuevo;
+            });
+            cacheIdempotencia.guardar(clave, guardado.getId());
+            return new Resultado(Optional.of(guardado), false);
+        } catch (DataIntegrityViolationException e) {
+            Long ganador = buscarPedidoId(clave);
+            if (ganador == null) {
+                throw e; // La violación no fue por la clave (ej. usuario inexistente)
+            }
+            return new Resultado(pedidoRepository.findById(ganador), true);
+        }
+    }
+
+    private Long buscarPedidoId(String clave) {
+        Long pedidoId = cacheIdempotencia.obtener(clave);
+        if (pedidoId != null) {
+            return pedidoId;
+        }
+        Optional<ClaveIdempotencia> registro = claveIdempotenciaRepository.findByClave(clave);
+        if (registro.isEmpty()) {
+            return null;
+        }
+        Date limite = limiteVigencia();
+        if (registro.get().getFecha() == null || registro.get().getFecha().before(limite)) {
+            // Vencida: se libera la clave para que el INSERT del pedido nuevo no choque con la restricción única
+            transactionTemplate.executeWithoutResult(estado -> claveIdempotenciaRepository.eliminarVencida(clave, limite));
+            return null;
+        }
+        cacheIdempotencia.guardar(clave, registro.get().getPedidoId(), registro.get().getFecha());
+        return registro.get().getPedidoId();
+    }
+
+    private Date limiteVigencia() {
+        return new Date(System.currentTimeMillis() - ttl.toMillis());
+    }
+
+    private void purgarProgramado() {
+        try {
+            int eliminadas = purgarVencidas();
+            if (eliminadas > 0) {
+                log.info("Se eliminaron {} claves de idempotencia vencidas", eliminadas);
+            }
+        } catch (Exception e) {
+            log.error("Error al purgar las claves de idempotencia vencidas; se reintentará en el próximo ciclo", e);
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package com.ecomarketspa.Service;
+
+import com.ecomarketspa.Dto.ResultadoImportacion;
+import com.ecomarketspa.Model.Producto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Importación masiva de productos desde CSV o NDJSON.
+ *
+ * La entrada se lee de a un registro y se inserta en lotes con JDBC batch, cada lote en su
+ * propia transacción. Si un lote falla en la base de datos se reintenta fila por fila para
+ * reportar solo las filas con error. En memoria vive un lote a la vez, sin importar el tamaño del archivo.
+ */
+@Service
+public class ImportacionProductoService {
+
+    private static final int MAX_ERRORES_DETALLADOS = 1000;
+    // Largo máximo de una fila (registro CSV o línea NDJSON): una fila más larga se descarta sin cargarla en memoria
+    static final int MAX_CARACTERES_FILA = 64 * 1024;
+    private static final String SQL_INSERTAR =
+            "INSERT INTO productos (nombre, categoria, precio, stock, descripcion, version) VALUES (?, ?, ?, ?, ?, 0)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductoService productoService;
+
+    // Columnas esperadas en la cabecera: nombre y precio son obligatorias; categoria, stock y descripcion opcionales.
+    public ResultadoImportacion importarCsv(InputStream entrada, int tamanoLote) throws IOException {
+        LectorCsv lector = new LectorCsv(new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8)), MAX_CARACTERES_FILA);
+        Importacion importacion = new Importacion(tamanoLote);
+
+        List<String> cabecera;
+        try {
+            cabecera = lector.leerRegistro();
+        } catch (LectorCsv.RegistroDemasiadoLargo e) {
+            importacion.registrarError(1, e.getMessage());
+            return importacion.resultado();
+        }
+        if (cabecera == null) {
+            return importacion.resultado();
+        }
+        Map<String, Integer> columnas = new HashMap<>();
+        for (int i = 0; i < cabecera.size(); i++) {
+            columnas.put(cabecera.get(i).trim().toLowerCase(Locale.ROOT).replace("﻿", ""), i); // Se tolera el BOM de Excel
+        }
+        if (!columnas.containsKey("nombre") || !columnas.containsKey("precio")) {
+            importacion.registrarError(1, "La cabecera debe incluir las columnas 'nombre' y 'precio'");
+            return importacion.resultado();
+        }
+
+        long fila = 1;
+        while (true) {
+            List<String> registro;
+            try {
+                registro = lector.leerRegistro();
+            } catch (LectorCsv.RegistroDemasiadoLargo e) {
+                importacion.registrarError(++fila, e.getMessage());
+                continue;
+            }
+            if (registro == null) {
+                break;
+            }
+            fila++;
+            if (registro.size() == 1 && registro.get(0).isBlank()) {
+                continue; // Línea vacía
+            }
+            String precio = campo(registro, columnas, "precio");
+            if (precio == null || precio.isBlank()) {
+                importacion.registrarError(fila, "Falta 'precio'");
+                continue;
+            }
+            String stock = campo(registro, columnas, "stock");
+            Producto producto = new Producto();
+            producto.setNombre(campo(registro, columnas, "nombre"));
+            producto.setCategoria(campo(registro, columnas, "categoria"));
+            producto.setDescripcion(campo(registro, columnas, "descripcion"));
+            try {
+                producto.setPrecio(Double.parseDouble(precio.trim()));
+            } catch (NumberFormatException e) {
+                importacion.registrarError(fila, "Valor numérico inválido en 'precio': " + precio);
+                continue;
+            }
+            try {
+                producto.setStock(stock == null || stock.isBlank() ? 0 : Integer.parseInt(stock.trim()));
+            } catch (NumberFormatException e) {
+                importacion.registrarError(fila, "Valor numérico inválido en 'stock': " + stock);
+                continue;
+            }
+            importacion.agregar(fila, producto);
+        }
+        return importacion.terminar();
+    }
+
+    // Un objeto JSON de Producto por línea. Como en el CSV, nombre y precio son obligatorios: un precio ausente
+    // no se toma como cero.
+    public ResultadoImportacion importarNdjson(InputStream entrada, int tamanoLote) throws IOException {
+        BufferedReader lector = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+        Importacion importacion = new Importacion(tamanoLote);
+
+        long fila = 0;
+        while (true) {
+            String linea;
+            try {
+                linea = leerLinea(lector);
+            } catch (LectorCsv.RegistroDemasiadoLargo e) {
+                importacion.registrarError(++fila, e.getMessage());
+                continue;
+            }
+            if (linea == null) {
+                break;
+            }
+            fila++;
+            if (linea.isBlank()) {
+                continue;
+            }
+            try {
+                JsonNode objeto = objectMapper.readTree(linea);
+                if (!objeto.hasNonNull("precio")) {
+                    importacion.registrarError(fila, "Falta 'precio'");
+                    continue;
+                }
+                Producto producto = objectMapper.treeToValue(objeto, Producto.class);
+                producto.setId(null); // La importación siempre crea productos nuevos
+                importacion.agregar(fila, producto);
+            } catch (JsonProcessingException e) {
+                importacion.registrarError(fila, "JSON inválido: " + e.getOriginalMessage());
+            }
+        }
+        return importacion.terminar();
+    }
+
+    // Como BufferedReader.readLine, pero una línea de más de MAX_CARACTERES_FILA se descarta hasta su fin sin guardarla
+    private static String leerLinea(BufferedReader lector) throws IOException {
+        StringBuilder linea = new StringBuilder();
+        int leidos = 0;
+        int c;
+        while ((c = lector.read()) != -1 && c != '\n') {
+            if (++leidos <= MAX_CARACTERES_FILA) {
+                linea.append((char) c);
+            }
+        }
+        if (c == -1 && leidos == 0) {
+            return null;
+        }
+        if (leidos > MAX_CARACTERES_FILA) {
+            throw new LectorCsv.RegistroDemasiadoLargo(MAX_CARACTERES_FILA);
+        }
+        int largo = linea.length();
+        return largo > 0 && linea.charAt(largo - 1) == '\r' ? linea.substring(0, largo - 1) : linea.toString();
+    }
+
+    private static String campo(List<String> registro, Map<String, Integer> columnas, String nombre) {
+        Integer posicion = columnas.get(nombre);
+        return posicion == null || posicion >= registro.size() ? null : registro.get(posicion);
+    }
+
+    private record FilaPendiente(long fila, Producto producto) {
+    }
+
+    // Estado de una importación en curso
+    private class Importacion {
+
+        private final int tamanoLote;
+        private final List<FilaPendiente> lote = new ArrayList<>();
+        private final List<ResultadoImportacion.ErrorFila> errores = new ArrayList<>();
+        private long filasLeidas;
+        private long filasImportadas;
+        private long filasConError;
+
+        private Importacion(int tamanoLote) {
+            this.tamanoLote = tamanoLote;
+        }
+
+        private void agregar(long fila, Producto producto) {
+            filasLeidas++;
+            String error = validar(producto);
+            if (error != null) {
+                filasConError++;
+                detallarError(fila, error);
+                return;
+            }
+            lote.add(new FilaPendiente(fila, producto));
+            if (lote.size() >= tamanoLote) {
+                escribirLote();
+            }
+        }
+
+        private void registrarError(long fila, String mensaje) {
+            filasLeidas++;
+            filasConError++;
+            detallarError(fila, mensaje);
+        }
+
+        private void detallarError(long fila, String mensaje) {
+            if (errores.size() < MAX_ERRORES_DETALLADOS) {
+                errores.add(new ResultadoImportacion.ErrorFila(fila, mensaje));
+            }
+        }
+
+        private ResultadoImportacion terminar() {
+            if (!lote.isEmpty()) {
+                escribirLote();
+            }
+            return resultado();
+        }
+
+        private ResultadoImportacion resultado() {
+            return new ResultadoImportacion(filasLeidas, filasImportadas, filasConError,
+                    List.copyOf(errores), filasConError > errores.size());
+        }
+
+        private void escribirLote() {
+            List<Producto> importados = new ArrayList<>();
+            try {
+                transactionTemplate.executeWithoutResult(estado -> insertar(lote));
+                lote.forEach(pendiente -> importados.add(pendiente.producto()));
+            } catch (DataAccessException e) {
+                // El lote completo se revirtió: se reintenta fila por fila para aislar las que fallan
+                for (FilaPendiente pendiente : lote) {
+                    try {
+                        transactionTemplate.executeWithoutResult(estado -> insertar(List.of(pendiente)));
+                        importados.add(pendiente.producto());
+                    } catch (DataAccessException errorFila) {
+                        filasConError++;
+                        detallarError(pendiente.fila(), "Error al guardar: " + errorFila.getMostSpecificCause().getMessage());
+                    }
+                }
+            }
+            filasImportadas += importados.size();
+            productoService.registrarImportados(importados);
+            lote.clear();
+        }
+    }
+
+    private static String validar(Producto producto) {
+        if (producto.getNombre() == null || producto.getNombre().isBlank()) {
+            return "El nombre es obligatorio";
+        }
+        if (producto.getPrecio() < 0 || !Double.isFinite(producto.getPrecio())) {
+            return "El precio debe ser un número mayor o igual a cero";
+        }
+        if (producto.getStock() < 0) {
+            return "El stock no puede ser negativo";
+        }
+        return null;
+    }
+
+    // Inserta las filas en un solo batch JDBC y asigna a cada producto el id generado por la base de datos
+    private void insertar(List<FilaPendiente> filas) {
+        GeneratedKeyHolder llaves = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                conexion -> conexion.prepareStatement(SQL_INSERTAR, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement sentencia, int i) throws SQLException {
+                        Producto producto = filas.get(i).producto();
+                        sentencia.setString(1, producto.getNombre());
+                        sentencia.setString(2, producto.getCategoria());
+                        sentencia.setDouble(3, producto.getPrecio());
+                        sentencia.setInt(4, producto.getStock());
+                        sentencia.setString(5, producto.getDescripcion());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return filas.size();
+                    }
+                },
+                llaves);
+
+        List<Map<String, Object>> generadas = llaves.getKeyList();
+        for (int i = 0; i < filas.size(); i++) {
+            // El nombre de la columna cambia según el driver (GENERATED_KEY en MySQL, ID en H2)
+            Object llave = generadas.get(i).values().iterator().next();
+            filas.get(i).producto().setId(((Number) llave).longValue());
+        }
+    }
+}
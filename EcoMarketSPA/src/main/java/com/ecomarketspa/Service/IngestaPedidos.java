@@ -0,0 +1,203 @@
+package com.ecomarketspa.Service;
+
+import com.ecomarketspa.Model.Pedido;
+import com.ecomarketspa.Repository.PedidoRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ingesta de pedidos nuevos con commit agrupado (opcional, ecomarket.pedidos.group-commit.habilitado).
+ *
+ * Cada petición deja su pedido en un buffer acotado y recibe un CompletableFuture. Un único hilo
+ * escritor junta hasta 'tamano-lote' pedidos, o los que hayan llegado dentro de 'ventana-ms',
+ * y los guarda en una sola transacción: un commit (y un fsync) por lote en vez de uno por pedido.
+ * Si el buffer está lleno, encolar espera hasta 'espera-ms' y luego rechaza el pedido, de modo que
+ * la presión vuelva al cliente en vez de acumular memoria. El futuro falla con TimeoutException si el
+ * pedido no se guarda dentro de 'tiempo-maximo-ms': si todavía estaba en el buffer se retira y no se guarda,
+ * pero si ya iba en el lote que se está escribiendo puede quedar guardado.
+ *
+ * Se guarda con JPA para que PedidoListener mantenga el contador de pedidos por usuario.
+ */
+@Service
+public class IngestaPedidos {
+
+    private final boolean habilitada;
+    private final int tamanoLote;
+    private final long ventanaNanos;
+    private final long esperaMillis;
+    private final long tiempoMaximoMillis;
+    private final BlockingQueue<Solicitud> buffer;
+
+    private final LongAdder lotes = new LongAdder();
+    private final LongAdder pedidosGuardados = new LongAdder();
+    private final LongAdder rechazados = new LongAdder();
+
+    private volatile boolean detenida;
+    private Thread escritor;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    public IngestaPedidos(@Value("${ecomarket.pedidos.group-commit.habilitado:false}") boolean habilitada,
+                          @Value("${ecomarket.pedidos.group-commit.capacidad:4096}") int capacidad,
+                          @Value("${ecomarket.pedidos.group-commit.tamano-lote:256}") int tamanoLote,
+                          @Value("${ecomarket.pedidos.group-commit.ventana-ms:5}") long ventanaMillis,
+                          @Value("${ecomarket.pedidos.group-commit.espera-ms:100}") long esperaMillis,
+                          @Value("${ecomarket.pedidos.group-commit.tiempo-maximo-ms:5000}") long tiempoMaximoMillis) {
+        if (capacidad <= 0 || tamanoLote <= 0) {
+            throw new IllegalArgumentException("La capacidad y el tamaño de lote deben ser mayores que cero");
+        }
+        this.habilitada = habilitada;
+        this.tamanoLote = tamanoLote;
+        this.ventanaNanos = TimeUnit.MILLISECONDS.toNanos(ventanaMillis);
+        this.esperaMillis = esperaMillis;
+        this.tiempoMaximoMillis = tiempoMaximoMillis;
+        this.buffer = new ArrayBlockingQueue<>(capacidad);
+    }
+
+    private record Solicitud(Pedido pedido, CompletableFuture<Pedido> resultado) {
+    }
+
+    @PostConstruct
+    void iniciar() {
+        if (habilitada) {
+            escritor = Thread.ofPlatform().name("ingesta-pedidos").daemon().start(this::escribirLotes);
+        }
+    }
+
+    public boolean estaHabilitada() {
+        return habilitada;
+    }
+
+    // Deja el pedido en el buffer. El futuro se completa con el pedido guardado (con su id) después del commit, o falla
+    // con TimeoutException pasado 'tiempoMaximoMillis' y con RejectedExecutionException si la ingesta se detiene antes.
+    // Lanza RejectedExecutionException si el buffer sigue lleno después de la espera máxima.
+    public CompletableFuture<Pedido> encolar(Pedido pedido) {
+        if (detenida) {
+            throw new RejectedExecutionException("La ingesta de pedidos se está deteniendo");
+        }
+        Solicitud solicitud = new Solicitud(pedido, new CompletableFuture<>());
+        try {
+            if (!buffer.offer(solicitud, esperaMillis, TimeUnit.MILLISECONDS)) {
+                rechazados.increment();
+                throw new RejectedExecutionException("El buffer de pedidos está lleno");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrumpido esperando espacio en el buffer", e);
+        }
+        solicitud.resultado().orTimeout(tiempoMaximoMillis, TimeUnit.MILLISECONDS).whenComplete((guardado, error) -> {
+            if (error instanceof TimeoutException) {
+                buffer.remove(solicitud); // Si el escritor ya lo tomó, escribir() lo descarta por estar completado
+            }
+        });
+        return solicitud.resultado();
+    }
+
+    public int pendientes() {
+        return buffer.size();
+    }
+
+    public long lotesEscritos() {
+        return lotes.sum();
+    }
+
+    public long pedidosGuardados() {
+        return pedidosGuardados.sum();
+    }
+
+    public long pedidosRechazados() {
+        return rechazados.sum();
+    }
+
+    private void escribirLotes() {
+        List<Solicitud> lote = new ArrayList<>(tamanoLote);
+        while (!detenida || !buffer.isEmpty()) {
+            try {
+                Solicitud primera = buffer.poll(100, TimeUnit.MILLISECONDS);
+                if (primera == null) {
+                    continue;
+                }
+                lote.add(primera);
+                // Se espera a lo más una ventana desde el primer pedido para completar el lote
+                long limite = System.nanoTime() + ventanaNanos;
+                while (lote.size() < tamanoLote) {
+                    if (buffer.drainTo(lote, tamanoLote - lote.size()) > 0) {
+                        continue;
+                    }
+                    long restante = limite - System.nanoTime();
+                    Solicitud siguiente = restante > 0 ? buffer.poll(restante, TimeUnit.NANOSECONDS) : null;
+                    if (siguiente == null) {
+                        break;
+                    }
+                    lote.add(siguiente);
+                }
+                escribir(lote);
+            } catch (InterruptedException e) {
+                detenida = true; // Se termina de vaciar el buffer antes de salir
+            } catch (RuntimeException e) {
+                lote.forEach(solicitud -> solicitud.resultado().completeExceptionally(e));
+            } finally {
+                lote.clear();
+            }
+        }
+    }
+
+    private void escribir(List<Solicitud> lote) {
+        lote.removeIf(solicitud -> solicitud.resultado().isDone()); // Vencidos: el cliente ya recibió el error
+        if (lote.isEmpty()) {
+            return;
+        }
+        List<Pedido> pedidos = lote.stream().map(Solicitud::pedido).toList();
+        try {
+            List<Pedido> guardados = transactionTemplate.execute(estado -> pedidoRepository.saveAll(pedidos));
+            lotes.increment();
+            pedidosGuardados.add(guardados.size());
+            for (int i = 0; i < lote.size(); i++) {
+                lote.get(i).resultado().complete(guardados.get(i));
+            }
+        } catch (RuntimeException e) {
+            // Un pedido inválido no debe hacer fallar a los demás: se reintenta cada uno en su propia transacción
+            for (Solicitud solicitud : lote) {
+                solicitud.pedido().setId(null); // El INSERT revertido pudo dejarle un id asignado
+                try {
+                    Pedido guardado = transactionTemplate.execute(estado -> pedidoRepository.save(solicitud.pedido()));
+                    pedidosGuardados.increment();
+                    solicitud.resultado().complete(guardado);
+                } catch (RuntimeException errorPedido) {
+                    solicitud.resultado().completeExceptionally(errorPedido);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    void detener() throws InterruptedException {
+        detenida = true;
+        if (escritor != null) {
+            escritor.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        // Lo que el escritor no alcanzó a guardar (o todo, si la ingesta está deshabilitada) no se guardará
+        List<Solicitud> sinGuardar = new ArrayList<>();
+        buffer.drainTo(sinGuardar);
+        sinGuardar.forEach(solicitud -> solicitud.resultado().completeExceptionally(
+                new RejectedExecutionException("La ingesta de pedidos se detuvo antes de guardar el pedido")));
+    }
+}
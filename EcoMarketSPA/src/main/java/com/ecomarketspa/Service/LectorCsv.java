@@ -0,0 +1,96 @@
+package com.ecomarketspa.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+// Lector CSV incremental (RFC 4180): separador coma, comillas dobles y saltos de línea dentro de campos entre comillas.
+// Lee un registro a la vez y acota su largo, así la memoria no depende del tamaño del archivo ni de sus líneas.
+class LectorCsv {
+
+    private final Reader entrada;
+    private final int maxCaracteres;
+    private int siguiente = -2; // -2: todavía no se leyó nada
+
+    LectorCsv(Reader entrada, int maxCaracteres) {
+        this.entrada = entrada;
+        this.maxCaracteres = maxCaracteres;
+    }
+
+    // Devuelve el siguiente registro o null al llegar al final. Un registro de más de 'maxCaracteres' se descarta
+    // hasta su fin sin guardarlo y se informa con RegistroDemasiadoLargo; el siguiente se puede leer normalmente.
+    List<String> leerRegistro() throws IOException {
+        if (siguiente == -2) {
+            siguiente = entrada.read();
+        }
+        if (siguiente == -1) {
+            return null;
+        }
+        List<String> campos = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        int largoCampo = 0; // Caracteres del campo actual, se guarden o no
+        boolean entreComillas = false;
+        int leidos = 0;
+        while (true) {
+            int c = siguiente;
+            siguiente = c == -1 ? -1 : entrada.read();
+            // Pasado el máximo se sigue recorriendo para encontrar el fin del registro, pero sin guardar nada
+            boolean excedido = ++leidos > maxCaracteres;
+            if (excedido) {
+                campos.clear();
+                campo.setLength(0);
+            }
+            if (entreComillas) {
+                if (c == -1) {
+                    throw new IOException("Comillas sin cerrar al final del archivo");
+                }
+                if (c == '"') {
+                    if (siguiente == '"') { // Comilla escapada
+                        agregar(campo, '"', excedido);
+                        largoCampo++;
+                        siguiente = entrada.read();
+                    } else {
+                        entreComillas = false;
+                    }
+                } else {
+                    agregar(campo, c, excedido);
+                    largoCampo++;
+                }
+            } else if (c == '"' && largoCampo == 0) {
+                entreComillas = true;
+            } else if (c == ',') {
+                if (!excedido) {
+                    campos.add(campo.toString());
+                }
+                campo.setLength(0);
+                largoCampo = 0;
+            } else if (c == '\r' && siguiente == '\n') {
+                // Se ignora: el \n siguiente cierra el registro
+            } else if (c == '\n' || c == -1) {
+                if (excedido) {
+                    throw new RegistroDemasiadoLargo(maxCaracteres);
+                }
+                campos.add(campo.toString());
+                return campos;
+            } else {
+                agregar(campo, c, excedido);
+                largoCampo++;
+            }
+        }
+    }
+
+    private static void agregar(StringBuilder campo, int c, boolean excedido) {
+        if (!excedido) {
+            campo.append((char) c);
+        }
+    }
+
+    // Registro o línea que supera el largo máximo. Ya se descartó completo: la lectura puede continuar.
+    static class RegistroDemasiadoLargo extends IOException {
+
+        RegistroDemasiadoLargo(int maxCaracteres) {
+            super("La fila supera el máximo de " + maxCaracteres + " caracteres");
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.ecomarketspa.Service;
+
+import com.ecomarketspa.Model.EstadoPedido;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.AbstractMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Migración de los pedidos guardados cuando el estado era texto libre (columna varchar 'estado') al código de
+ * EstadoPedido (columna estado_codigo).
+ *
+ * Con ddl-auto=update Hibernate agrega estado_codigo con 0 en las filas existentes, y ese código no corresponde
+ * a ningún estado. Al arrancar, antes de que los índices y los acumulados carguen los pedidos (ApplicationReadyEvent),
+ * se traduce el texto antiguo de esas filas y se reescriben las claves de ventas_diarias que usaban ese texto.
+ * Si no queda nada por migrar no hace nada, así que se puede dejar corriendo en cada arranque. La columna antigua
+ * se conserva para poder revisar los valores que no se reconocieron.
+ */
+@Service
+public class MigracionEstadosPedido {
+
+    private static final Logger log = LoggerFactory.getLogger(MigracionEstadosPedido.class);
+
+    // Textos que se usaban antes del enum y no coinciden con ningún nombre
+    private static final Map<String, EstadoPedido> SINONIMOS = Map.of(
+            "COMPLETADO", EstadoPedido.ENTREGADO,
+            "SIN_ESTADO", EstadoPedido.PENDIENTE); // Clave de los acumulados para pedidos sin estado
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private VentasDiariasService ventasDiariasService;
+
+    @PostConstruct
+    public void migrar() {
+        int pedidos = migrarPedidos();
+        int acumulados = ventasDiariasService.migrarClavesAntiguas(MigracionEstadosPedido::equivalente);
+        if (pedidos > 0 || acumulados > 0) {
+            log.info("Estados de pedido migrados al código: {} pedidos y {} filas de ventas_diarias", pedidos, acumulados);
+        }
+    }
+
+    // Estado que corresponde a un texto antiguo. Un pedido sin estado se guardaba como pendiente, y lo que no se
+    // reconoce también queda pendiente: es el único estado desde el que todavía se puede avanzar o cancelar.
+    static EstadoPedido equivalente(String texto) {
+        EstadoPedido reconocido = reconocer(texto);
+        return reconocido == null ? EstadoPedido.PENDIENTE : reconocido;
+    }
+
+    // null si el texto no es un nombre de estado ni un sinónimo conocido
+    private static EstadoPedido reconocer(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return EstadoPedido.PENDIENTE;
+        }
+        EstadoPedido sinonimo = SINONIMOS.get(texto.trim().toUpperCase(Locale.ROOT));
+        if (sinonimo != null) {
+            return sinonimo;
+        }
+        try {
+            return EstadoPedido.desde(texto);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private int migrarPedidos() {
+        if (!existeColumnaEstadoAntigua()) {
+            return 0; // Base creada después del enum
+        }
+        return transactionTemplate.execute(estado -> {
+            // Un UPDATE por texto distinto (son pocos) en lugar de uno por pedido
+            List<Map.Entry<String, Long>> textos = jdbcTemplate.query(
+                    "SELECT estado, COUNT(*) FROM pedido WHERE estado_codigo IS NULL OR estado_codigo = 0 GROUP BY estado",
+                    (rs, fila) -> new AbstractMap.SimpleEntry<>(rs.getString(1), rs.getLong(2)));
+            int migrados = 0;
+            for (Map.Entry<String, Long> texto : textos) {
+                EstadoPedido equivalente = reconocer(texto.getKey());
+                if (equivalente == null) {
+                    log.warn("{} pedidos con el estado desconocido '{}' quedan como PENDIENTE (el texto se conserva en la columna estado)",
+                            texto.getValue(), texto.getKey());
+                    equivalente = EstadoPedido.PENDIENTE;
+                }
+                migrados += texto.getKey() == null
+                        ? jdbcTemplate.update("UPDATE pedido SET estado_codigo = ? WHERE (estado_codigo IS NULL OR estado_codigo = 0) AND estado IS NULL",
+                                equivalente.getCodigo())
+                        : jdbcTemplate.update("UPDATE pedido SET estado_codigo = ? WHERE (estado_codigo IS NULL OR estado_codigo = 0) AND estado = ?",
+                                equivalente.getCodigo(), texto.getKey());
+            }
+            return migrados;
+        });
+    }
+
+    private boolean existeColumnaEstadoAntigua() {
+        return jdbcTemplate.execute((ConnectionCallback<Boolean>) conexion -> {
+            DatabaseMetaData metadatos = conexion.getMetaData();
+            // MySQL guarda los nombres en minúsculas y H2 en mayúsculas
+            for (String[] nombres : new String[][]{{"pedido", "estado"}, {"PEDIDO", "ESTADO"}}) {
+                try (ResultSet columnas = metadatos.getColumns(conexion.getCatalog(), conexion.getSchema(), nombres[0], nombres[1])) {
+                    if (columnas.next()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        });
+    }
+}
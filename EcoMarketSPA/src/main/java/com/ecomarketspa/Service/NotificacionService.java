@@ -1,10 +1,19 @@
 package com.ecomarketspa.Service;
 
+import com.ecomarketspa.Dto.BandejaNotificaciones;
+import com.ecomarketspa.Dto.EstadoCanalDespacho;
+import com.ecomarketspa.Model.LecturaNotificaciones;
 import com.ecomarketspa.Model.Notificacion;
+import com.ecomarketspa.Repository.LecturaNotificacionesRepository;
 import com.ecomarketspa.Repository.NotificacionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,12 +23,81 @@ public class NotificacionService {
     @Autowired
     private NotificacionRepository notificacionRepository;
 
+    @Autowired
+    private LecturaNotificacionesRepository lecturaNotificacionesRepository;
+
+    @Autowired
+    private DespachoNotificaciones despachoNotificaciones;
+
+    @Autowired
+    private SuscripcionesNotificaciones suscripcionesNotificaciones;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     public List<Notificacion> listarNotificaciones() {
         return notificacionRepository.findAll();
     }
 
+    public List<Notificacion> listarNotificacionesPorUsuario(Long usuarioId) {
+        return notificacionRepository.findByUsuarioId(usuarioId);
+    }
+
+    // Página de la bandeja del usuario anterior a 'antesDeId' (null para empezar por la más nueva)
+    @Transactional(readOnly = true)
+    public BandejaNotificaciones obtenerBandeja(Long usuarioId, Long antesDeId, int tamano) {
+        long ultimaLeidaId = ultimaLeidaId(usuarioId);
+        List<Object[]> filas = notificacionRepository.findPaginaBandeja(usuarioId,
+                antesDeId == null ? Long.MAX_VALUE : antesDeId, Limit.of(tamano));
+
+        List<BandejaNotificaciones.Entrada> entradas = new ArrayList<>(filas.size());
+        for (Object[] fila : filas) {
+            long id = ((Number) fila[0]).longValue();
+            entradas.add(new BandejaNotificaciones.Entrada(id, (String) fila[1], (String) fila[2], id <= ultimaLeidaId));
+        }
+        // Si la página vino llena puede haber más: el cursor es la última (la más antigua) entregada
+        Long siguienteCursor = filas.size() == tamano ? entradas.get(entradas.size() - 1).id() : null;
+        return new BandejaNotificaciones(usuarioId, entradas,
+                notificacionRepository.contarPosterioresA(usuarioId, ultimaLeidaId), ultimaLeidaId, siguienteCursor);
+    }
+
+    public long contarNoLeidas(Long usuarioId) {
+        return notificacionRepository.contarPosterioresA(usuarioId, ultimaLeidaId(usuarioId));
+    }
+
+    // Marca como leídas las notificaciones del usuario hasta 'hastaId' inclusive, o todas si es null, y devuelve
+    // el nuevo cursor. Nunca retrocede ni pasa de la última notificación existente, así las que lleguen después
+    // quedan sin leer. Igual que VentasDiariasService, si la fila no existe se inserta y una carrera se resuelve
+    // con la clave primaria.
+    public long marcarLeidas(Long usuarioId, Long hastaId) {
+        Long ultimaId = notificacionRepository.findUltimoIdPorUsuario(usuarioId);
+        if (ultimaId == null) {
+            return ultimaLeidaId(usuarioId);
+        }
+        long hasta = hastaId == null ? ultimaId : Math.min(hastaId, ultimaId);
+        if (avanzarLectura(usuarioId, hasta) == 0) {
+            try {
+                jdbcTemplate.update("INSERT INTO lectura_notificaciones (usuario_id, ultima_leida_id) VALUES (?, ?)", usuarioId, hasta);
+            } catch (DuplicateKeyException e) {
+                avanzarLectura(usuarioId, hasta); // Otra petición creó la fila entre medio
+            }
+        }
+        return ultimaLeidaId(usuarioId);
+    }
+
+    // Solo las notificaciones nuevas se entregan; editar una existente no la vuelve a enviar
     public Notificacion guardarNotificacion(Notificacion notificacion) {
-        return notificacionRepository.save(notificacion);
+        boolean nueva = notificacion.getId() == null;
+        Notificacion guardada = notificacionRepository.save(notificacion);
+        if (nueva) {
+            despachoNotificaciones.despacharAlConfirmar(guardada);
+            suscripcionesNotificaciones.publicarAlConfirmar(guardada);
+        }
+        return guardada;
+    }
+
+    public List<EstadoCanalDespacho> estadoDespacho() {
+        return despachoNotificaciones.estado();
     }
 
     public Optional<Notificacion> obtenerNotificacionPorId(Long id) {
@@ -29,4 +107,15 @@ public class NotificacionService {
     public void eliminarNotificacion(Long id) {
         notificacionRepository.deleteById(id);
     }
+
+    private long ultimaLeidaId(Long usuarioId) {
+        return lecturaNotificacionesRepository.findById(usuarioId)
+                .map(LecturaNotificaciones::getUltimaLeidaId)
+                .orElse(0L);
+    }
+
+    private int avanzarLectura(Long usuarioId, long hasta) {
+        return jdbcTemplate.update("UPDATE lectura_notificaciones SET ultima_leida_id = GREATEST(ultima_leida_id, ?) WHERE usuario_id = ?",
+                hasta, usuarioId);
+    }
 }
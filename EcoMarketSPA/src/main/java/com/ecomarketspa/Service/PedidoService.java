@@ -1,22 +1,64 @@
 package com.ecomarketspa.Service;
 
+import com.ecomarketspa.Index.ContadorPedidosUsuario;
+import com.ecomarketspa.Index.IndiceEstadosPedido;
+import com.ecomarketspa.Index.SegmentoPedidos;
+import com.ecomarketspa.Model.EstadoPedido;
 import com.ecomarketspa.Model.Pedido;
+import com.ecomarketspa.Model.Usuario;
 import com.ecomarketspa.Repository.PedidoRepository;
+import com.ecomarketspa.Repository.UsuarioRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+// Las consultas combinan los pedidos de la base de datos con los archivados en segmentos (ver ArchivoPedidos).
+// Si un pedido aparece en ambos lados mientras se archiva, se usa la fila de la base de datos.
 @Service
 public class PedidoService {
 
+    private static final Logger log = LoggerFactory.getLogger(PedidoService.class);
+
     @Autowired
     private PedidoRepository pedidoRepository;
 
+    @Autowired
+    private ContadorPedidosUsuario contadorPedidosUsuario;
+
+    @Autowired
+    private IndiceEstadosPedido indiceEstadosPedido;
+
+    @Autowired
+    private ArchivoPedidos archivoPedidos;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     public List<Pedido> listarPedidos() {
-        return pedidoRepository.findAll();
+        List<Pedido> pedidos = pedidoRepository.findAll();
+        return archivoPedidos.estaVacio() ? pedidos : conArchivados(pedidos, archivoPedidos.listar());
     }
 
     public Pedido guardarPedido(Pedido pedido) {
@@ -24,26 +66,170 @@ public class PedidoService {
     }
 
     public Optional<Pedido> obtenerPedidoPorId(Long id) {
-        return pedidoRepository.findById(id);
+        Optional<Pedido> pedido = pedidoRepository.findById(id);
+        if (pedido.isPresent() || archivoPedidos.estaVacio()) {
+            return pedido;
+        }
+        return archivoPedidos.buscar(id).map(fila -> desarchivar(List.of(fila)).get(0));
     }
 
+    // Los pedidos archivados son de solo lectura: si después de borrar el pedido sigue en el archivo (ya estaba
+    // archivado, o se archivó mientras tanto) se lanza IllegalStateException en lugar de dar por eliminado el pedido
     public void eliminarPedido(Long id) {
         pedidoRepository.deleteById(id);
+        if (!archivoPedidos.estaVacio() && archivoPedidos.buscar(id).isPresent()) {
+            throw new IllegalStateException("El pedido " + id + " está archivado y no se puede eliminar");
+        }
+    }
+
+    // Con el índice cargado, los ids salen del bitmap del estado y los pedidos se traen por clave primaria
+    public List<Pedido> buscarPedidosPorEstado(EstadoPedido estado) {
+        List<Pedido> pedidos = buscarPedidosPorEstadoEnBase(estado);
+        if (archivoPedidos.estaVacio()) {
+            return pedidos;
+        }
+        pedidos = conArchivados(pedidos, archivoPedidos.buscarPorEstado(estado));
+        pedidos.sort(Comparator.comparing(Pedido::getId));
+        return pedidos;
     }
 
-    public List<Pedido> buscarPedidosPorEstado(String estado) {
-        return pedidoRepository.findByEstado(estado);
+    private List<Pedido> buscarPedidosPorEstadoEnBase(EstadoPedido estado) {
+        if (!indiceEstadosPedido.estaCargado()) {
+            return pedidoRepository.findByEstado(estado);
+        }
+        List<Pedido> pedidos = ConsultaPorLotes.buscar(indiceEstadosPedido.pedidosEn(estado), pedidoRepository::findAllById);
+        pedidos.sort(Comparator.comparing(Pedido::getId)); // findAllById no garantiza el orden
+        return pedidos;
+    }
+
+    public long contarPedidosPorEstado(EstadoPedido estado) {
+        long enBase = indiceEstadosPedido.estaCargado() ? indiceEstadosPedido.contar(estado) : pedidoRepository.countByEstado(estado);
+        return enBase + archivoPedidos.contarPorEstado(estado);
     }
 
     public List<Pedido> buscarPedidosPorUsuario(Long usuarioId) {
-        return pedidoRepository.findByUsuarioId(usuarioId);
+        List<Pedido> pedidos = pedidoRepository.findByUsuarioId(usuarioId);
+        return archivoPedidos.estaVacio() ? pedidos : conArchivados(pedidos, archivoPedidos.buscarPorUsuario(usuarioId));
+    }
+
+    // Los 'limite' pedidos más recientes del usuario, del más nuevo al más antiguo
+    public List<Pedido> buscarPedidosRecientesPorUsuario(Long usuarioId, int limite) {
+        List<Pedido> pedidos = pedidoRepository.findByUsuarioIdOrderByFechaDescIdDesc(usuarioId, Limit.of(limite));
+        if (archivoPedidos.estaVacio()) {
+            return pedidos;
+        }
+        List<Pedido> combinados = conArchivados(pedidos, archivoPedidos.buscarPorUsuario(usuarioId));
+        combinados.sort(Comparator.comparing(Pedido::getFecha, Comparator.nullsLast(Comparator.reverseOrder()))
+                .thenComparing(Pedido::getId, Comparator.reverseOrder()));
+        return combinados.size() > limite ? new ArrayList<>(combinados.subList(0, limite)) : combinados;
     }
 
     public List<Pedido> buscarPedidosEntreFechas(Date startDate, Date endDate) {
-        return pedidoRepository.findByFechaBetween(startDate, endDate);
+        List<Pedido> pedidos = pedidoRepository.findByFechaBetween(startDate, endDate);
+        return archivoPedidos.estaVacio() ? pedidos : conArchivados(pedidos, archivoPedidos.buscarEntreFechas(startDate, endDate));
+    }
+
+    // Página de pedidos del rango [inicio, fin] que vienen después del cursor (despuesDeFecha, despuesDeId).
+    // Sin cursor se devuelve la primera página. El orden es (fecha, id), estable aunque varios pedidos compartan fecha.
+    public List<Pedido> buscarPedidosEntreFechasDespuesDe(Date inicio, Date fin, Date despuesDeFecha, Long despuesDeId, int tamano) {
+        Date fechaCursor = inicio;
+        long idCursor = 0L; // Cursor inicial: todos los pedidos con fecha = inicio tienen id > 0
+        if (despuesDeFecha != null && !despuesDeFecha.before(inicio)) {
+            fechaCursor = despuesDeFecha;
+            idCursor = despuesDeId == null ? 0L : despuesDeId;
+        }
+        List<Pedido> pagina = pedidoRepository.findPaginaEntreFechas(fechaCursor, idCursor, fin, Limit.of(tamano));
+        if (archivoPedidos.estaVacio()) {
+            return pagina;
+        }
+        // Cada lado aporta a lo más 'tamano' pedidos posteriores al cursor; se mezclan en orden (fecha, id) y se corta
+        List<Pedido> combinada = conArchivados(pagina, archivoPedidos.buscarPaginaEntreFechas(fechaCursor, idCursor, fin, tamano));
+        combinada.sort(Comparator.comparing((Pedido pedido) -> pedido.getFecha().getTime()).thenComparing(Pedido::getId));
+        return combinada.size() > tamano ? new ArrayList<>(combinada.subList(0, tamano)) : combinada;
+    }
+
+    // Recorre todos los pedidos del rango en lotes de 'tamanoLote' usando el cursor (fecha, id). Con open-in-view
+    // todos los lotes comparten el EntityManager de la petición: se limpia después de cada lote para no retener
+    // hasta el final de la respuesta los pedidos ya escritos ni los usuarios que trae el JOIN FETCH.
+    public void recorrerPedidosEntreFechas(Date inicio, Date fin, int tamanoLote, Consumer<Pedido> consumidor) {
+        Date fechaCursor = null;
+        Long idCursor = null;
+        List<Pedido> lote;
+        do {
+            lote = buscarPedidosEntreFechasDespuesDe(inicio, fin, fechaCursor, idCursor, tamanoLote);
+            lote.forEach(consumidor);
+            entityManager.clear();
+            if (!lote.isEmpty()) {
+                fechaCursor = lote.get(lote.size() - 1).getFecha();
+                idCursor = lote.get(lote.size() - 1).getId();
+            }
+        } while (lote.size() == tamanoLote);
     }
 
     public Long contarPedidosPorUsuario(Long usuarioId) {
-        return pedidoRepository.countByUsuarioId(usuarioId);
+        Long total = contadorPedidosUsuario.obtener(usuarioId);
+        if (total != null) {
+            return total;
+        }
+        return pedidoRepository.countByUsuarioId(usuarioId) + archivoPedidos.contarPorUsuario(usuarioId); // El contador aún no termina de cargarse
+    }
+
+    // Carga el contador de pedidos por usuario una vez que la aplicación terminó de iniciar.
+    // Los pedidos archivados siguen contando para su usuario.
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarContadorPedidos() {
+        boolean cargado = contadorPedidosUsuario.cargar(() -> {
+            Map<Long, Long> totales = new HashMap<>(archivoPedidos.contarAgrupadoPorUsuario());
+            for (Object[] fila : pedidoRepository.contarAgrupadoPorUsuario()) {
+                totales.merge(((Number) fila[0]).longValue(), ((Number) fila[1]).longValue(), Long::sum);
+            }
+            return totales;
+        });
+        if (!cargado) {
+            log.warn("El contador de pedidos por usuario no se recargó: la consulta se cruzó con cambios en todos los intentos");
+        }
+    }
+
+    // Carga el índice de pedidos por estado una vez que la aplicación terminó de iniciar
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void cargarIndiceEstados() {
+        indiceEstadosPedido.cargar(registrar -> {
+            try (Stream<Object[]> filas = pedidoRepository.streamIdYEstado()) {
+                filas.forEach(fila -> registrar.accept((Long) fila[0], (EstadoPedido) fila[1]));
+            }
+        });
+    }
+
+    // Agrega a 'pedidos' los archivados que no estén ya entre ellos
+    private List<Pedido> conArchivados(List<Pedido> pedidos, List<SegmentoPedidos.Fila> archivados) {
+        List<Pedido> combinados = new ArrayList<>(pedidos);
+        if (archivados.isEmpty()) {
+            return combinados;
+        }
+        Set<Long> enBase = new HashSet<>();
+        pedidos.forEach(pedido -> enBase.add(pedido.getId()));
+        combinados.addAll(desarchivar(archivados.stream().filter(fila -> !enBase.contains(fila.id())).toList()));
+        return combinados;
+    }
+
+    // Arma los pedidos de las filas de un segmento, trayendo sus usuarios en una sola consulta
+    private List<Pedido> desarchivar(List<SegmentoPedidos.Fila> filas) {
+        Set<Long> usuarioIds = new HashSet<>();
+        filas.forEach(fila -> usuarioIds.add(fila.usuarioId()));
+        Map<Long, Usuario> usuarios = new HashMap<>();
+        usuarioRepository.findAllById(usuarioIds).forEach(usuario -> usuarios.put(usuario.getId(), usuario));
+
+        List<Pedido> pedidos = new ArrayList<>(filas.size());
+        for (SegmentoPedidos.Fila fila : filas) {
+            Pedido pedido = new Pedido();
+            pedido.setId(fila.id());
+            pedido.setFecha(new Date(fila.fecha()));
+            pedido.setTotal(fila.total());
+            pedido.setEstado(fila.estado());
+            pedido.setUsuario(usuarios.get(fila.usuarioId()));
+            pedidos.add(pedido);
+        }
+        return pedidos;
     }
 }
@@ -0,0 +1,130 @@
+package com.ecomarketspa.Service;
+
+import com.ecomarketspa.Dto.PerfilUsuario;
+import com.ecomarketspa.Model.Notificacion;
+import com.ecomarketspa.Model.Pedido;
+import com.ecomarketspa.Model.Usuario;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Arma el perfil de un usuario (datos, pedidos recientes, cantidad de pedidos y notificaciones) consultando
+ * cada sección en paralelo, cada una en su propio hilo virtual.
+ *
+ * Todas las secciones comparten un plazo de 'tiempoMaximo' desde que empieza la solicitud; la que no termina
+ * a tiempo o falla se cancela y el perfil se devuelve sin ella. Los hilos no sobreviven a la llamada: al salir
+ * se interrumpen los que sigan corriendo. Si el usuario no existe se cancela el resto.
+ *
+ * Cada sección ocupa una conexión del pool de Hikari, que es mucho más chico que la cantidad de hilos virtuales
+ * posibles: a lo más 'consultasSimultaneas' secciones consultan a la vez entre todas las solicitudes. Una sección
+ * sin permiso hace fila hasta el plazo compartido de su solicitud, y solo queda incompleta si no lo consigue a tiempo.
+ */
+@Service
+public class PerfilUsuarioService {
+
+    private static final Logger log = LoggerFactory.getLogger(PerfilUsuarioService.class);
+
+    public static final int PEDIDOS_RECIENTES = 10;
+
+    private final Duration tiempoMaximo;
+    private final Semaphore consultas;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private NotificacionService notificacionService;
+
+    public PerfilUsuarioService(@Value("${ecomarket.usuarios.perfil.tiempo-maximo:500ms}") Duration tiempoMaximo,
+                                @Value("${ecomarket.usuarios.perfil.consultas-simultaneas:5}") int consultasSimultaneas) {
+        this.tiempoMaximo = tiempoMaximo;
+        this.consultas = new Semaphore(consultasSimultaneas);
+    }
+
+    // Optional.empty() si el usuario no existe
+    public Optional<PerfilUsuario> obtenerPerfil(Long usuarioId) {
+        long plazo = System.nanoTime() + tiempoMaximo.toNanos();
+        ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            Future<Optional<Usuario>> usuario = hilos.submit(() -> consultar(plazo, () -> usuarioService.obtenerUsuarioPorId(usuarioId)));
+            Future<List<Pedido>> pedidos = hilos.submit(() -> consultar(plazo, () -> pedidoService.buscarPedidosRecientesPorUsuario(usuarioId, PEDIDOS_RECIENTES)));
+            Future<Long> cantidad = hilos.submit(() -> consultar(plazo, () -> pedidoService.contarPedidosPorUsuario(usuarioId)));
+            Future<List<Notificacion>> notificaciones = hilos.submit(() -> consultar(plazo, () -> notificacionService.listarNotificacionesPorUsuario(usuarioId)));
+
+            Map<String, String> incompletas = new LinkedHashMap<>();
+            Optional<Usuario> encontrado = esperar("usuario", usuario, plazo, incompletas);
+            if (encontrado != null && encontrado.isEmpty()) {
+                return Optional.empty();
+            }
+            return Optional.of(new PerfilUsuario(
+                    encontrado == null ? null : encontrado.get(),
+                    esperar("pedidosRecientes", pedidos, plazo, incompletas),
+                    esperar("cantidadPedidos", cantidad, plazo, incompletas),
+                    esperar("notificaciones", notificaciones, plazo, incompletas),
+                    incompletas));
+        } finally {
+            hilos.shutdownNow(); // No se espera a las secciones canceladas: un JDBC bloqueado no siempre atiende la interrupción
+        }
+    }
+
+    // Secciones que todavía pueden empezar a consultar
+    public int consultasDisponibles() {
+        return consultas.availablePermits();
+    }
+
+    // Se toma el permiso dentro del hilo y no al enviar la tarea: una tarea cancelada antes de empezar nunca lo toma.
+    // Una sección cancelada por el plazo lo conserva hasta que su consulta termine, porque sigue ocupando la conexión.
+    // La espera por el permiso no pasa del plazo de la solicitud: después de eso nadie leería el resultado.
+    private <T> T consultar(long plazo, Supplier<T> seccion) throws InterruptedException {
+        if (!consultas.tryAcquire(Math.max(0, plazo - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+            throw new RejectedExecutionException("Sin conexiones disponibles para el perfil");
+        }
+        try {
+            return seccion.get();
+        } finally {
+            consultas.release();
+        }
+    }
+
+    // Resultado de la sección, o null si no terminó antes del plazo o falló
+    private static <T> T esperar(String seccion, Future<T> tarea, long plazo, Map<String, String> incompletas) {
+        try {
+            return tarea.get(Math.max(0, plazo - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            incompletas.put(seccion, "Tiempo agotado");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RejectedExecutionException) {
+                incompletas.put(seccion, "Sin conexiones disponibles");
+                return null;
+            }
+            log.warn("No se pudo obtener la sección {} del perfil", seccion, e.getCause());
+            incompletas.put(seccion, "Error al consultar");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            incompletas.put(seccion, "Interrumpida");
+        }
+        tarea.cancel(true);
+        return null;
+    }
+}
@@ -1,37 +1,127 @@
 package com.ecomarketspa.Service;
 
+import com.ecomarketspa.Index.CacheCategorias;
+import com.ecomarketspa.Index.IndicePrecios;
+import com.ecomarketspa.Index.IndiceTexto;
+import com.ecomarketspa.Index.VersionCatalogo;
 import com.ecomarketspa.Model.Producto;
 import com.ecomarketspa.Repository.ProductoRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class ProductoService {
 
+    private static final int TAMANO_LOTE_INDEXACION = 2000;
+    private static final int FILAS_POR_LIMPIEZA_EXPORTACION = 1000;
+
     @Autowired
     private ProductoRepository productoRepository;
 
+    @Autowired
+    private IndicePrecios indicePrecios;
+
+    @Autowired
+    private CacheCategorias cacheCategorias;
+
+    @Autowired
+    private IndiceTexto indiceTexto;
+
+    @Autowired
+    private VersionCatalogo versionCatalogo;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     public List<Producto> listarProductos() {
         return productoRepository.findAll();
     }
 
+    // Al actualizar se respeta la versión que envió el cliente: si otro guardó antes, save lanza
+    // ObjectOptimisticLockingFailureException en lugar de pisar esos cambios. Los clientes que no envían versión
+    // siguen funcionando como antes: se guarda sobre la versión actual.
     public Producto guardarProducto(Producto producto) {
-        return productoRepository.save(producto);
+        if (producto.getId() != null && producto.getVersion() == null) {
+            producto.setVersion(productoRepository.findVersionById(producto.getId()).orElse(0L));
+        }
+        Producto guardado = productoRepository.save(producto);
+        versionCatalogo.incrementar();
+        indicePrecios.actualizar(guardado.getId(), guardado.getPrecio());
+        cacheCategorias.invalidarProducto(guardado.getId(), guardado.getCategoria());
+        indiceTexto.indexar(guardado.getId(), guardado.getNombre(), guardado.getDescripcion());
+        return guardado;
+    }
+
+    // Actualiza los índices en memoria con productos insertados fuera de JPA (importación masiva)
+    public void registrarImportados(List<Producto> importados) {
+        if (importados.isEmpty()) {
+            return;
+        }
+        long[] ids = new long[importados.size()];
+        double[] precios = new double[importados.size()];
+        String[] nombres = new String[importados.size()];
+        String[] descripciones = new String[importados.size()];
+        for (int i = 0; i < importados.size(); i++) {
+            Producto producto = importados.get(i);
+            ids[i] = producto.getId();
+            precios[i] = producto.getPrecio();
+            nombres[i] = producto.getNombre();
+            descripciones[i] = producto.getDescripcion();
+            cacheCategorias.invalidarProducto(producto.getId(), producto.getCategoria());
+        }
+        indicePrecios.actualizarLote(ids, precios);
+        indiceTexto.indexarLote(ids, nombres, descripciones);
+        versionCatalogo.incrementar();
     }
 
     public Optional<Producto> obtenerProductoPorId(Long id) {
         return productoRepository.findById(id);
     }
 
+    public Optional<Long> obtenerVersionProducto(Long id) {
+        return productoRepository.findVersionById(id);
+    }
+
+    // ETag del listado completo; cambia con cualquier escritura sobre productos
+    public String obtenerEtagCatalogo() {
+        return versionCatalogo.etag();
+    }
+
     public void eliminarProducto(Long id) {
         productoRepository.deleteById(id);
+        versionCatalogo.incrementar();
+        indicePrecios.eliminar(id);
+        cacheCategorias.invalidarProducto(id, null);
+        indiceTexto.eliminar(id);
     }
 
     public List<Producto> buscarPorCategoria(String categoria) {
-        return productoRepository.findByCategoria(categoria);
+        long[] ids = cacheCategorias.obtener(categoria);
+        if (ids != null) {
+            return ConsultaPorLotes.buscar(ids, productoRepository::findAllById);
+        }
+        long generacion = cacheCategorias.generacionActual(); // Se toma antes de consultar para no cachear datos obsoletos
+        List<Producto> productos = productoRepository.findByCategoria(categoria);
+        cacheCategorias.guardar(categoria, productos.stream().mapToLong(Producto::getId).toArray(), generacion);
+        return productos;
+    }
+
+    public Map<String, Long> obtenerEstadisticasCacheCategorias() {
+        return cacheCategorias.estadisticas();
     }
 
     public List<Producto> buscarPorStockBajoUmbral(int stock) {
@@ -39,6 +129,104 @@ public class ProductoService {
     }
 
     public List<Producto> buscarPorRangoDePrecio(double minPrecio, double maxPrecio) {
-        return productoRepository.findByPrecioBetween(minPrecio, maxPrecio);
+        if (!indicePrecios.estaCargado()) {
+            return productoRepository.findByPrecioBetween(minPrecio, maxPrecio); // El índice aún no termina de cargarse
+        }
+        // Un rango amplio puede abarcar casi todo el catálogo: se trae en lotes para no superar el límite de parámetros
+        return ConsultaPorLotes.buscar(indicePrecios.buscarEntre(minPrecio, maxPrecio), productoRepository::findAllById);
+    }
+
+    // Carga el índice de precios una vez que la aplicación terminó de iniciar
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarIndicePrecios() {
+        List<Object[]> filas = productoRepository.findIdsYPrecios();
+        long[] ids = new long[filas.size()];
+        double[] precios = new double[filas.size()];
+        for (int i = 0; i < filas.size(); i++) {
+            ids[i] = ((Number) filas.get(i)[0]).longValue();
+            precios[i] = ((Number) filas.get(i)[1]).doubleValue();
+        }
+        indicePrecios.cargar(ids, precios);
+    }
+
+    // --- Paginación por cursor (keyset) ---
+
+    // Devuelve hasta 'tamano' productos con id mayor que 'despuesDeId', ordenados por id.
+    // A diferencia de OFFSET, el costo no crece con la profundidad de la página.
+    public List<Producto> listarProductosDespuesDe(Long despuesDeId, int tamano) {
+        long cursor = despuesDeId == null ? 0L : despuesDeId;
+        return productoRepository.findByIdGreaterThanOrderByIdAsc(cursor, Limit.of(tamano));
+    }
+
+    // Recorre todo el catálogo en lotes de 'tamanoLote' usando el cursor por id. Con open-in-view (también en el
+    // hilo de un StreamingResponseBody) todos los lotes comparten el EntityManager de la petición, así que se
+    // limpia después de cada lote para que en memoria solo viva un lote a la vez.
+    public void recorrerProductos(int tamanoLote, Consumer<Producto> consumidor) {
+        recorrerLotes(tamanoLote, lote -> lote.forEach(consumidor));
+    }
+
+    // Recorre el catálogo completo con un cursor de la base de datos, en una sola consulta.
+    // El contexto de persistencia se limpia cada cierta cantidad de filas para que la memoria se mantenga constante.
+    @Transactional(readOnly = true)
+    public long exportarProductos(Consumer<Producto> consumidor) {
+        long exportados = 0;
+        try (Stream<Producto> productos = productoRepository.streamAllByOrderByIdAsc()) {
+            for (Producto producto : (Iterable<Producto>) productos::iterator) {
+                consumidor.accept(producto);
+                if (++exportados % FILAS_POR_LIMPIEZA_EXPORTACION == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        return exportados;
+    }
+
+    private void recorrerLotes(int tamanoLote, Consumer<List<Producto>> consumidor) {
+        Long cursor = 0L;
+        List<Producto> lote;
+        do {
+            lote = listarProductosDespuesDe(cursor, tamanoLote);
+            consumidor.accept(lote);
+            entityManager.clear();
+            if (!lote.isEmpty()) {
+                cursor = lote.get(lote.size() - 1).getId();
+            }
+        } while (lote.size() == tamanoLote);
+    }
+
+    // --- Búsqueda de texto completo ---
+
+    // Busca en nombre y descripción; los resultados vienen ordenados por relevancia.
+    public List<Producto> buscarPorTexto(String consulta, int limite) {
+        List<Long> ids = indiceTexto.buscar(consulta, limite);
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Producto> porId = new HashMap<>();
+        productoRepository.findAllById(ids).forEach(producto -> porId.put(producto.getId(), producto));
+        // findAllById no respeta el orden de los ids, así que se restaura el orden del ranking
+        List<Producto> resultado = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Producto producto = porId.get(id);
+            if (producto != null) {
+                resultado.add(producto);
+            }
+        }
+        return resultado;
+    }
+
+    // Reconstruye el índice de texto al iniciar. La lectura es secuencial por lotes (keyset)
+    // y cada lote se tokeniza e indexa en paralelo.
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruirIndiceTexto() {
+        IndiceTexto.Reconstruccion reconstruccion = indiceTexto.iniciarReconstruccion();
+        try {
+            recorrerLotes(TAMANO_LOTE_INDEXACION, lote -> lote.parallelStream()
+                    .forEach(producto -> reconstruccion.agregar(producto.getId(), producto.getNombre(), producto.getDescripcion())));
+        } catch (RuntimeException e) {
+            reconstruccion.descartar(); // Si no, las escrituras seguirían acumulándose para siempre
+            throw e;
+        }
+        reconstruccion.publicar();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,21 @@
+package com.ecomarketspa.Service;
+
+import com.ecomarketspa.Model.Notificacion;
+
+import java.util.List;
+
+/**
+ * Entrega las notificaciones de un canal (el valor de Notificacion.tipo: "Email", "SMS", "App") a un proveedor externo.
+ *
+ * DespachoNotificaciones toma todos los beans de este tipo y arma una cola por canal. enviar recibe lotes
+ * de a lo más tamanoLote() notificaciones; si lanza una excepción el lote completo se reintenta más tarde,
+ * así que el proveedor debe tolerar repetidos (el id de la notificación sirve como clave de idempotencia).
+ */
+public interface ProveedorNotificaciones {
+
+    String canal();
+
+    int tamanoLote();
+
+    void enviar(List<Notificacion> lote);
+}
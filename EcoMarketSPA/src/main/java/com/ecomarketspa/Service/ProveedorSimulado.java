@@ -0,0 +1,86 @@
+package com.ecomarketspa.Service;
+
+import com.ecomarketspa.Model.Notificacion;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Proveedor en memoria: no entrega nada, solo espera la latencia configurada por llamada y falla con la
+// probabilidad indicada. Permite probar y medir DespachoNotificaciones sin servicios externos.
+public class ProveedorSimulado implements ProveedorNotificaciones {
+
+    private final String canal;
+    private final int tamanoLote;
+    private volatile Duration latencia;
+    private volatile double tasaFallos;
+
+    private final LongAdder llamadas = new LongAdder();
+    private final LongAdder entregadas = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final AtomicInteger loteMaximo = new AtomicInteger();
+
+    public ProveedorSimulado(String canal, int tamanoLote, Duration latencia, double tasaFallos) {
+        if (tamanoLote <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser mayor que cero");
+        }
+        this.canal = canal;
+        this.tamanoLote = tamanoLote;
+        this.latencia = latencia;
+        this.tasaFallos = tasaFallos;
+    }
+
+    @Override
+    public String canal() {
+        return canal;
+    }
+
+    @Override
+    public int tamanoLote() {
+        return tamanoLote;
+    }
+
+    @Override
+    public void enviar(List<Notificacion> lote) {
+        if (lote.size() > tamanoLote) {
+            throw new IllegalArgumentException("El lote supera el máximo de " + tamanoLote + " notificaciones por llamada");
+        }
+        llamadas.increment();
+        loteMaximo.accumulateAndGet(lote.size(), Math::max);
+        if (!latencia.isZero()) {
+            LockSupport.parkNanos(latencia.toNanos());
+        }
+        if (tasaFallos > 0 && ThreadLocalRandom.current().nextDouble() < tasaFallos) {
+            fallos.increment();
+            throw new IllegalStateException("Fallo simulado del proveedor de " + canal);
+        }
+        entregadas.add(lote.size());
+    }
+
+    public void setLatencia(Duration latencia) {
+        this.latencia = latencia;
+    }
+
+    public void setTasaFallos(double tasaFallos) {
+        this.tasaFallos = tasaFallos;
+    }
+
+    public long llamadas() {
+        return llamadas.sum();
+    }
+
+    public long entregadas() {
+        return entregadas.sum();
+    }
+
+    public long fallos() {
+        return fallos.sum();
+    }
+
+    public int loteMaximo() {
+        return loteMaximo.get();
+    }
+}
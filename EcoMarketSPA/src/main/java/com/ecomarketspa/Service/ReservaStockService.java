@@ -0,0 +1,131 @@
+package com.ecomarketspa.Service;
+
+import com.ecomarketspa.Dto.SolicitudReserva;
+import com.ecomarketspa.Index.VersionCatalogo;
+import com.ecomarketspa.Model.EstadoReserva;
+import com.ecomarketspa.Model.ReservaStock;
+import com.ecomarketspa.Repository.ProductoRepository;
+import com.ecomarketspa.Repository.ReservaStockRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+
+@Service
+public class ReservaStockService {
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private ReservaStockRepository reservaStockRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private VersionCatalogo versionCatalogo;
+
+    // Reserva unidades de un producto. Devuelve vacío si el producto no existe o no tiene stock suficiente.
+    @Transactional
+    public Optional<ReservaStock> reservar(Long productoId, int cantidad) {
+        validarCantidad(cantidad);
+        if (productoRepository.descontarStock(productoId, cantidad) == 0) {
+            return Optional.empty();
+        }
+        versionCatalogo.incrementar();
+        return Optional.of(reservaStockRepository.save(nuevaReserva(productoId, cantidad)));
+    }
+
+    // Reserva varios productos en una sola ida y vuelta a la base de datos, con un único UPDATE condicional.
+    // Es todo o nada: si a un producto no le alcanza el stock, se revierte el lote completo. No se usa un batch JDBC
+    // porque con rewriteBatchedStatements el driver de MySQL devuelve SUCCESS_NO_INFO (-2) por fila y no se sabría
+    // qué producto quedó sin stock; el conteo de una sola sentencia siempre es exacto.
+    @Transactional
+    public Optional<List<ReservaStock>> reservarLote(List<SolicitudReserva> solicitudes) {
+        // Se agrupan por producto y se ordenan por id: la sentencia recorre la clave primaria en ese orden, así todas
+        // las transacciones bloquean las filas en el mismo orden y no se producen deadlocks
+        Map<Long, Integer> cantidadPorProducto = new TreeMap<>();
+        for (SolicitudReserva solicitud : solicitudes) {
+            validarCantidad(solicitud.cantidad());
+            cantidadPorProducto.merge(solicitud.productoId(), solicitud.cantidad(), Integer::sum);
+        }
+        if (cantidadPorProducto.isEmpty()) {
+            return Optional.of(List.of());
+        }
+
+        StringBuilder descuento = new StringBuilder("CASE id");
+        StringJoiner condiciones = new StringJoiner(" OR ");
+        List<Object> parametros = new ArrayList<>();
+        List<Object> parametrosCondicion = new ArrayList<>();
+        cantidadPorProducto.forEach((productoId, cantidad) -> {
+            descuento.append(" WHEN ? THEN ?");
+            parametros.add(productoId);
+            parametros.add(cantidad);
+            condiciones.add("(id = ? AND stock >= ?)");
+            parametrosCondicion.add(productoId);
+            parametrosCondicion.add(cantidad);
+        });
+        parametros.addAll(parametrosCondicion);
+        int filas = jdbcTemplate.update("UPDATE productos SET stock = stock - " + descuento + " END, version = version + 1 WHERE "
+                + condiciones, parametros.toArray());
+
+        if (filas != cantidadPorProducto.size()) { // Algún producto no existe o no tiene stock suficiente
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return Optional.empty();
+        }
+
+        versionCatalogo.incrementar();
+        List<ReservaStock> reservas = new ArrayList<>();
+        cantidadPorProducto.forEach((productoId, cantidad) -> reservas.add(nuevaReserva(productoId, cantidad)));
+        return Optional.of(reservaStockRepository.saveAll(reservas));
+    }
+
+    // Confirma una reserva activa. Devuelve false si no existe o ya fue confirmada/liberada.
+    @Transactional
+    public boolean confirmar(Long reservaId) {
+        return reservaStockRepository.cambiarEstado(reservaId, EstadoReserva.ACTIVA, EstadoReserva.CONFIRMADA) == 1;
+    }
+
+    // Libera una reserva activa y devuelve su stock al producto. La transición de estado es condicional,
+    // así una reserva no puede liberarse dos veces aunque lleguen dos peticiones a la vez.
+    @Transactional
+    public boolean liberar(Long reservaId) {
+        Optional<ReservaStock> reserva = reservaStockRepository.findById(reservaId);
+        if (reserva.isEmpty()
+                || reservaStockRepository.cambiarEstado(reservaId, EstadoReserva.ACTIVA, EstadoReserva.LIBERADA) == 0) {
+            return false;
+        }
+        productoRepository.devolverStock(reserva.get().getProductoId(), reserva.get().getCantidad());
+        versionCatalogo.incrementar();
+        return true;
+    }
+
+    public Optional<ReservaStock> obtenerReservaPorId(Long id) {
+        return reservaStockRepository.findById(id);
+    }
+
+    private ReservaStock nuevaReserva(Long productoId, int cantidad) {
+        ReservaStock reserva = new ReservaStock();
+        reserva.setProductoId(productoId);
+        reserva.setCantidad(cantidad);
+        reserva.setEstado(EstadoReserva.ACTIVA);
+        reserva.setFecha(new Date());
+        return reserva;
+    }
+
+    private void validarCantidad(int cantidad) {
+        if (cantidad <= 0) {
+            throw new IllegalArgumentException("La cantidad a reservar debe ser mayor que cero");
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package com.ecomarketspa.Service;
+
+import com.ecomarketspa.Dto.BandejaNotificaciones;
+import com.ecomarketspa.Model.Notificacion;
+import com.ecomarketspa.Repository.NotificacionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Envío por Server-Sent Events de las notificaciones nuevas a los usuarios conectados, para que la app no
+ * tenga que consultar /api/notificaciones cada pocos segundos.
+ *
+ * Los suscriptores se reparten en 'fragmentos' por usuario_id. Cada fragmento tiene su propia cola de entrada
+ * y un hilo que busca a los suscriptores del usuario y les pasa el evento, así el reparto usa varios núcleos
+ * y quien guarda la notificación solo la encola. Cada suscriptor tiene una cola de hasta 'pendientes-maximos'
+ * eventos y un hilo virtual que los escribe en la conexión: un cliente lento solo se bloquea a sí mismo y,
+ * si su cola se llena, se le cierra la conexión (el cliente reconecta con Last-Event-ID y recupera lo que
+ * le faltó). Cada 'latido' el fragmento envía un comentario para mantener viva la conexión y detectar las
+ * que se cortaron.
+ *
+ * ResponseBodyEmitter sincroniza send() y complete() sobre el emisor. Si el fragmento completara a un suscriptor
+ * cuyo escritor está bloqueado en send(), se quedaría esperando ese monitor y detendría el reparto de todo el
+ * fragmento: al desalojar solo lo marca como cerrado e interrumpe a su escritor, que completa el emisor al salir.
+ * Y como un hilo virtual bloqueado en I/O dentro de synchronized fija su hilo portador (JDK 21), el escritor no
+ * llama a send() ni a complete() por sí mismo: se los pasa a un grupo fijo de 'escrituras' hilos de plataforma y
+ * espera el resultado sin ocupar el portador. Un cliente lento bloquea a lo más uno de esos hilos.
+ *
+ * Al reconectar, el escritor reenvía hasta 'pendientes-maximos' - 1 notificaciones perdidas antes de los eventos en
+ * vivo. Si hay más, en lugar de reenviar una parte se envía un evento 'resincronizar' para que el cliente recargue la
+ * bandeja. La consulta de las perdidas nunca corre en el hilo de la petición (ver reenviarPerdidas).
+ *
+ * La entrega es de mejor esfuerzo: la bandeja (NotificacionService.obtenerBandeja) sigue siendo la fuente de verdad.
+ */
+@Service
+public class SuscripcionesNotificaciones {
+
+    private static final String EVENTO = "notificacion";
+    private static final String RESINCRONIZAR = "resincronizar";
+
+    private final Fragmento[] fragmentos;
+    private final int pendientesMaximos;
+    private final long tiempoMaximoMillis;
+    private final long latidoNanos;
+    private final int maximo;
+    private final ExecutorService escrituras;
+
+    private final AtomicInteger suscriptores = new AtomicInteger();
+    private final LongAdder publicadas = new LongAdder();
+    private final LongAdder entregadas = new LongAdder();
+    private final LongAdder descartadas = new LongAdder();
+    private final LongAdder desalojadas = new LongAdder();
+    private volatile boolean detenido;
+
+    @Autowired
+    private NotificacionRepository notificacionRepository;
+
+    public SuscripcionesNotificaciones(@Value("${ecomarket.notificaciones.sse.fragmentos:0}") int fragmentos,
+                                       @Value("${ecomarket.notificaciones.sse.capacidad-fragmento:10000}") int capacidadFragmento,
+                                       @Value("${ecomarket.notificaciones.sse.pendientes-maximos:100}") int pendientesMaximos,
+                                       @Value("${ecomarket.notificaciones.sse.latido:15s}") Duration latido,
+                                       @Value("${ecomarket.notificaciones.sse.tiempo-maximo:30m}") Duration tiempoMaximo,
+                                       @Value("${ecomarket.notificaciones.sse.maximo:20000}") int maximo,
+                                       @Value("${ecomarket.notificaciones.sse.escrituras:16}") int escrituras) {
+        if (capacidadFragmento <= 0 || pendientesMaximos <= 0 || maximo <= 0 || escrituras <= 0) {
+            throw new IllegalArgumentException("Las capacidades y el máximo de suscriptores deben ser mayores que cero");
+        }
+        int cantidad = fragmentos > 0 ? fragmentos : Runtime.getRuntime().availableProcessors(); // 0: uno por núcleo
+        this.fragmentos = new Fragmento[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            this.fragmentos[i] = new Fragmento(capacidadFragmento);
+        }
+        this.pendientesMaximos = pendientesMaximos;
+        this.tiempoMaximoMillis = tiempoMaximo.toMillis();
+        this.latidoNanos = latido.toNanos();
+        this.maximo = maximo;
+        this.escrituras = Executors.newFixedThreadPool(escrituras, Thread.ofPlatform().name("sse-escritura-", 0).daemon().factory());
+    }
+
+    private static final class Fragmento {
+
+        private final Map<Long, Set<Suscriptor>> porUsuario = new ConcurrentHashMap<>();
+        private final BlockingQueue<Notificacion> entrada;
+        private Thread hilo;
+
+        Fragmento(int capacidad) {
+            this.entrada = new ArrayBlockingQueue<>(capacidad);
+        }
+    }
+
+    private static final class Suscriptor {
+
+        private final Long usuarioId;
+        private final SseEmitter emisor;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> pendientes;
+        private final AtomicBoolean cerrado = new AtomicBoolean();
+        private volatile Thread escritor;
+
+        Suscriptor(Long usuarioId, SseEmitter emisor, int pendientesMaximos) {
+            this.usuarioId = usuarioId;
+            this.emisor = emisor;
+            this.pendientes = new ArrayBlockingQueue<>(pendientesMaximos);
+        }
+    }
+
+    @PostConstruct
+    void iniciar() {
+        for (int i = 0; i < fragmentos.length; i++) {
+            Fragmento fragmento = fragmentos[i];
+            fragmento.hilo = Thread.ofPlatform().name("sse-fragmento-" + i).daemon().start(() -> repartir(fragmento));
+        }
+    }
+
+    // Abre la suscripción de un usuario. Con 'ultimoId' (la cabecera Last-Event-ID de una reconexión) primero se
+    // reenvían las notificaciones posteriores a ese id; alguna puede llegar repetida, el cliente descarta por id.
+    // Lanza RejectedExecutionException si el nodo ya tiene el máximo de suscriptores.
+    public SseEmitter suscribir(Long usuarioId, Long ultimoId) {
+        return suscribir(usuarioId, ultimoId, new SseEmitter(tiempoMaximoMillis));
+    }
+
+    SseEmitter suscribir(Long usuarioId, Long ultimoId, SseEmitter emisor) {
+        if (detenido || suscriptores.incrementAndGet() > maximo) {
+            suscriptores.decrementAndGet();
+            throw new RejectedExecutionException("Se alcanzó el máximo de " + maximo + " suscriptores");
+        }
+        Suscriptor suscriptor = new Suscriptor(usuarioId, emisor, pendientesMaximos);
+        emisor.onCompletion(() -> cerrar(suscriptor));
+        emisor.onTimeout(() -> cerrar(suscriptor));
+        emisor.onError(error -> cerrar(suscriptor));
+
+        // Primero en la cola, para que el escritor lo envíe antes que cualquier evento (envía las cabeceras de inmediato)
+        suscriptor.pendientes.offer(SseEmitter.event().comment("conectado"));
+        // Se registra antes de leer las perdidas para no dejar un hueco entre la consulta y el registro
+        fragmento(usuarioId).porUsuario.computeIfAbsent(usuarioId, id -> ConcurrentHashMap.newKeySet()).add(suscriptor);
+        suscriptor.escritor = Thread.ofVirtual().name("sse-usuario-" + usuarioId).start(() -> escribir(suscriptor, ultimoId));
+        if (suscriptor.cerrado.get()) {
+            suscriptor.escritor.interrupt(); // Se cerró antes de que cerrar() pudiera ver al escritor
+        }
+        return emisor;
+    }
+
+    // Envía las notificaciones posteriores a 'ultimoId', hasta 'pendientes-maximos' - 1. Si hay más, reenviar solo
+    // las primeras dejaría un hueco que el Last-Event-ID de los eventos en vivo saltaría al reconectar.
+    // La consulta no corre en el hilo de la petición: con open-in-view su EntityManager retendría la conexión hasta
+    // que termine la suscripción (hasta 'tiempo-maximo'), y unos pocos clientes reconectando agotarían el pool.
+    // Corre en un hilo de 'escrituras' porque el driver JDBC bloquea dentro de synchronized, como send().
+    private void reenviarPerdidas(Suscriptor suscriptor, long ultimoId) throws IOException, InterruptedException {
+        int reenvio = Math.max(1, pendientesMaximos - 1);
+        List<Object[]> perdidas;
+        try {
+            perdidas = esperar(escrituras.submit(
+                    () -> notificacionRepository.findPosterioresA(suscriptor.usuarioId, ultimoId, Limit.of(reenvio + 1))));
+        } catch (RuntimeException e) {
+            perdidas = null; // Sin poder consultarlas, el cliente recarga la bandeja
+        }
+        if (perdidas == null || perdidas.size() > reenvio) {
+            enviar(suscriptor, SseEmitter.event().name(RESINCRONIZAR)
+                    .data("/api/notificaciones/usuario/" + suscriptor.usuarioId)); // Sin id: el cliente conserva su Last-Event-ID
+            return;
+        }
+        for (Object[] fila : perdidas) {
+            enviar(suscriptor, evento(((Number) fila[0]).longValue(), (String) fila[1], (String) fila[2]));
+            entregadas.increment();
+        }
+    }
+
+    // Encola la notificación para sus suscriptores; dentro de una transacción espera al commit
+    public void publicarAlConfirmar(Notificacion notificacion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publicar(notificacion);
+                }
+            });
+        } else {
+            publicar(notificacion);
+        }
+    }
+
+    public void publicar(Notificacion notificacion) {
+        if (notificacion.getUsuario() == null || notificacion.getUsuario().getId() == null) {
+            return;
+        }
+        Fragmento fragmento = fragmento(notificacion.getUsuario().getId());
+        if (!fragmento.porUsuario.containsKey(notificacion.getUsuario().getId())) {
+            return; // El usuario no está conectado a este nodo
+        }
+        if (fragmento.entrada.offer(notificacion)) {
+            publicadas.increment();
+        } else {
+            descartadas.increment(); // El cliente la verá en la bandeja
+        }
+    }
+
+    public boolean haySuscriptores() {
+        return suscriptores.get() > 0;
+    }
+
+    public Map<String, Long> estadisticas() {
+        Map<String, Long> estadisticas = new LinkedHashMap<>();
+        estadisticas.put("suscriptores", (long) suscriptores.get());
+        estadisticas.put("fragmentos", (long) fragmentos.length);
+        estadisticas.put("publicadas", publicadas.sum());
+        estadisticas.put("entregadas", entregadas.sum());
+        estadisticas.put("descartadas", descartadas.sum());
+        estadisticas.put("desalojadas", desalojadas.sum());
+        return estadisticas;
+    }
+
+    private Fragmento fragmento(long usuarioId) {
+        return fragmentos[Math.floorMod(Long.hashCode(usuarioId * 0x9E3779B97F4A7C15L), fragmentos.length)];
+    }
+
+    private void repartir(Fragmento fragmento) {
+        long proximoLatido = System.nanoTime() + latidoNanos;
+        while (!detenido) {
+            try {
+                Notificacion notificacion = fragmento.entrada.poll(Math.max(0, proximoLatido - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (notificacion != null) {
+                    Set<Suscriptor> destino = fragmento.porUsuario.get(notificacion.getUsuario().getId());
+                    if (destino != null) {
+                        SseEmitter.SseEventBuilder evento = evento(notificacion.getId(), notificacion.getTipo(), notificacion.getMensaje());
+                        destino.forEach(suscriptor -> entregar(suscriptor, evento));
+                    }
+                }
+                if (System.nanoTime() - proximoLatido >= 0) {
+                    fragmento.porUsuario.values().forEach(usuario -> usuario.forEach(
+                            suscriptor -> entregar(suscriptor, SseEmitter.event().comment("latido"))));
+                    proximoLatido = System.nanoTime() + latidoNanos;
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    // Nunca bloquea al fragmento: si la cola del suscriptor está llena, se lo desaloja
+    private void entregar(Suscriptor suscriptor, SseEmitter.SseEventBuilder evento) {
+        if (!suscriptor.pendientes.offer(evento)) {
+            desalojadas.increment();
+            cerrar(suscriptor);
+        }
+    }
+
+    // Envía el comentario inicial, las perdidas desde 'ultimoId' (si reconectó) y después los eventos en vivo.
+    // Los que llegan mientras tanto esperan en la cola y se envían después de las perdidas.
+    private void escribir(Suscriptor suscriptor, Long ultimoId) {
+        try {
+            enviar(suscriptor, suscriptor.pendientes.take());
+            if (ultimoId != null) {
+                reenviarPerdidas(suscriptor, ultimoId);
+            }
+            while (!suscriptor.cerrado.get()) {
+                SseEmitter.SseEventBuilder evento = suscriptor.pendientes.take();
+                enviar(suscriptor, evento);
+                entregadas.increment();
+            }
+        } catch (InterruptedException e) {
+            // Se cerró la suscripción
+        } catch (IOException | IllegalStateException | RejectedExecutionException e) {
+            // El cliente se desconectó, el emisor ya terminó o el servicio se está deteniendo
+        } finally {
+            cerrar(suscriptor);
+            completar(suscriptor);
+        }
+    }
+
+    // Envía en un hilo de 'escrituras' y espera sin fijar el portador
+    private void enviar(Suscriptor suscriptor, SseEmitter.SseEventBuilder evento) throws IOException, InterruptedException {
+        esperar(escrituras.submit(() -> {
+            suscriptor.emisor.send(evento);
+            return null;
+        }));
+    }
+
+    // Espera el resultado de una tarea de 'escrituras'; al interrumpir al escritor se cancela la tarea
+    private static <T> T esperar(Future<T> tarea) throws IOException, InterruptedException {
+        try {
+            return tarea.get();
+        } catch (InterruptedException e) {
+            tarea.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException error) {
+                throw error;
+            }
+            if (e.getCause() instanceof RuntimeException error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // Sin esperar: si un envío cancelado sigue bloqueado en el socket, complete() espera el monitor en ese hilo
+    private void completar(Suscriptor suscriptor) {
+        try {
+            escrituras.execute(suscriptor.emisor::complete);
+        } catch (RejectedExecutionException e) {
+            suscriptor.emisor.complete(); // Ya se detuvo el servicio: la conexión se está cerrando de todos modos
+        }
+    }
+
+    // Deja de repartirle eventos e interrumpe a su escritor. No completa el emisor: eso lo hace el escritor al salir.
+    private void cerrar(Suscriptor suscriptor) {
+        if (!suscriptor.cerrado.compareAndSet(false, true)) {
+            return;
+        }
+        fragmento(suscriptor.usuarioId).porUsuario.computeIfPresent(suscriptor.usuarioId, (id, usuario) -> {
+            usuario.remove(suscriptor);
+            return usuario.isEmpty() ? null : usuario;
+        });
+        suscriptores.decrementAndGet();
+        Thread escritor = suscriptor.escritor;
+        if (escritor != null && escritor != Thread.currentThread()) {
+            escritor.interrupt();
+        }
+    }
+
+    // Lleva como id el de la notificación, así el navegador lo envía como Last-Event-ID al reconectar
+    private static SseEmitter.SseEventBuilder evento(long id, String tipo, String mensaje) {
+        return SseEmitter.event()
+                .id(Long.toString(id))
+                .name(EVENTO)
+                .data(new BandejaNotificaciones.Entrada(id, tipo, mensaje, false), MediaType.APPLICATION_JSON);
+    }
+
+    @PreDestroy
+    void detener() {
+        detenido = true;
+        List<Suscriptor> abiertos = new ArrayList<>();
+        for (Fragmento fragmento : fragmentos) {
+            if (fragmento.hilo != null) {
+                fragmento.hilo.interrupt();
+            }
+            fragmento.porUsuario.values().forEach(abiertos::addAll);
+        }
+        abiertos.forEach(this::cerrar);
+        escrituras.shutdown(); // Los escritores interrumpidos todavía encolan su complete()
+    }
+}
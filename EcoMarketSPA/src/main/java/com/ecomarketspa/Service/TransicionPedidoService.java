@@ -0,0 +1,116 @@
+package com.ecomarketspa.Service;
+
+import com.ecomarketspa.Dto.ResultadoTransicion;
+import com.ecomarketspa.Index.IndiceEstadosPedido;
+import com.ecomarketspa.Index.UsuariosConPedidosPendientes;
+import com.ecomarketspa.Model.EstadoPedido;
+import com.ecomarketspa.Repository.PedidoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Cambios de estado masivos: en vez de un merge por pedido, cada lote se bloquea con un SELECT ... FOR UPDATE,
+ * se valida contra las transiciones de EstadoPedido y se aplica con un UPDATE ... WHERE id IN (...) AND estado = ?
+ * por cada estado de origen.
+ *
+ * Cada lote es su propia transacción para no mantener bloqueados miles de pedidos a la vez. Si un lote falla,
+ * los anteriores quedan aplicados.
+ */
+@Service
+public class TransicionPedidoService {
+
+    public static final int IDS_POR_LOTE = 500;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private IndiceEstadosPedido indiceEstadosPedido;
+
+    @Autowired
+    private UsuariosConPedidosPendientes usuariosConPedidosPendientes;
+
+    @Autowired
+    private VentasDiariasService ventasDiariasService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private record Acumulado(LocalDate dia, EstadoPedido estado) {
+    }
+
+    public ResultadoTransicion transicionar(Collection<Long> ids, EstadoPedido destino) {
+        // Ordenados por id, todas las transacciones bloquean los pedidos en el mismo orden y no se producen deadlocks
+        List<Long> ordenados = ids.stream().filter(Objects::nonNull).distinct().sorted().toList();
+        List<Long> aplicados = new ArrayList<>();
+        List<ResultadoTransicion.Rechazo> rechazados = new ArrayList<>();
+        for (int desde = 0; desde < ordenados.size(); desde += IDS_POR_LOTE) {
+            List<Long> lote = ordenados.subList(desde, Math.min(ordenados.size(), desde + IDS_POR_LOTE));
+            List<ResultadoTransicion.Rechazo> rechazadosLote = new ArrayList<>();
+            aplicados.addAll(transactionTemplate.execute(estado -> aplicarLote(lote, destino, rechazadosLote)));
+            rechazados.addAll(rechazadosLote);
+        }
+        return new ResultadoTransicion(destino, aplicados, rechazados);
+    }
+
+    private List<Long> aplicarLote(List<Long> lote, EstadoPedido destino, List<ResultadoTransicion.Rechazo> rechazados) {
+        Map<Long, Object[]> actuales = new HashMap<>();
+        for (Object[] fila : pedidoRepository.bloquearParaTransicion(lote)) {
+            actuales.put((Long) fila[0], fila);
+        }
+
+        Map<EstadoPedido, List<Long>> porOrigen = new EnumMap<>(EstadoPedido.class);
+        Map<Acumulado, double[]> ventas = new HashMap<>(); // [cantidad, total] que se mueven de un acumulado diario a otro
+        Map<Long, Long> pendientesPorUsuario = new HashMap<>(); // Pedidos PENDIENTE que gana o pierde cada usuario
+        for (Long id : lote) {
+            Object[] fila = actuales.get(id);
+            if (fila == null) {
+                rechazados.add(new ResultadoTransicion.Rechazo(id, "Pedido no encontrado"));
+                continue;
+            }
+            EstadoPedido origen = (EstadoPedido) fila[1];
+            if (!origen.puedePasarA(destino)) {
+                rechazados.add(new ResultadoTransicion.Rechazo(id, "No se puede pasar de " + origen + " a " + destino));
+                continue;
+            }
+            porOrigen.computeIfAbsent(origen, estado -> new ArrayList<>()).add(id);
+            long deltaPendientes = (destino == EstadoPedido.PENDIENTE ? 1 : 0) - (origen == EstadoPedido.PENDIENTE ? 1 : 0);
+            if (deltaPendientes != 0 && fila[4] != null) {
+                pendientesPorUsuario.merge((Long) fila[4], deltaPendientes, Long::sum);
+            }
+            if (fila[2] != null) {
+                LocalDate dia = VentasDiariasService.dia((Date) fila[2]);
+                double total = fila[3] == null ? 0 : (Double) fila[3];
+                double[] saliente = ventas.computeIfAbsent(new Acumulado(dia, origen), clave -> new double[2]);
+                saliente[0]--;
+                saliente[1] -= total;
+                double[] entrante = ventas.computeIfAbsent(new Acumulado(dia, destino), clave -> new double[2]);
+                entrante[0]++;
+                entrante[1] += total;
+            }
+        }
+
+        List<Long> aplicados = new ArrayList<>();
+        porOrigen.forEach((origen, idsOrigen) -> {
+            pedidoRepository.cambiarEstado(idsOrigen, origen, destino); // Las filas ya están bloqueadas: se actualizan todas
+            idsOrigen.forEach(id -> indiceEstadosPedido.registrarCambio(id, destino));
+            aplicados.addAll(idsOrigen);
+        });
+        pendientesPorUsuario.forEach(usuariosConPedidosPendientes::registrarCambio);
+        ventas.forEach((acumulado, valores) ->
+                ventasDiariasService.registrar(acumulado.dia(), acumulado.estado(), (long) valores[0], valores[1]));
+        aplicados.sort(null);
+        return aplicados;
+    }
+}
@@ -1,26 +1,73 @@
 package com.ecomarketspa.Service;
 
 
+import com.ecomarketspa.Index.FiltroBloomCorreos;
+import com.ecomarketspa.Index.IndiceTrigramas;
+import com.ecomarketspa.Index.UsuariosConPedidosPendientes;
+import com.ecomarketspa.Model.EstadoPedido;
 import com.ecomarketspa.Model.Usuario;
+import com.ecomarketspa.Repository.PedidoRepository;
 import com.ecomarketspa.Repository.UsuarioRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 public class UsuarioService {
 
+    private static final Logger log = LoggerFactory.getLogger(UsuarioService.class);
+
     @Autowired
     private UsuarioRepository usuarioRepository;
 
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private UsuariosConPedidosPendientes usuariosConPedidosPendientes;
+
+    @Autowired
+    private IndiceTrigramas indiceTrigramas;
+
+    @Autowired
+    private FiltroBloomCorreos filtroBloomCorreos;
+
+    @Autowired
+    private FiltroCorreosService filtroCorreosService;
+
     public List<Usuario> listarUsuarios() {
         return usuarioRepository.findAll();
     }
 
     public Usuario guardarUsuario(Usuario usuario) {
-        return usuarioRepository.save(usuario);
+        Usuario guardado = usuarioRepository.save(usuario);
+        indiceTrigramas.indexar(guardado.getId(), guardado.getNombre(), guardado.getCorreo());
+        filtroBloomCorreos.agregar(guardado.getCorreoNorm());
+        if (filtroBloomCorreos.estaSaturado()) {
+            filtroCorreosService.solicitarReconstruccion();
+        }
+        return guardado;
+    }
+
+    // Si el correo de 'usuario' ya pertenece a otro usuario. Para distinguir un choque con el índice único de correo_norm
+    // de otras violaciones de integridad: consulta la base de datos sin pasar por el filtro de Bloom, porque el otro
+    // usuario pudo crearse en otro nodo y no estar en el filtro local.
+    public boolean correoRegistradoPorOtro(Usuario usuario) {
+        String correoNorm = Usuario.normalizarCorreo(usuario.getCorreo());
+        return correoNorm != null && usuarioRepository.findByCorreoNorm(correoNorm)
+                .filter(existente -> !existente.getId().equals(usuario.getId()))
+                .isPresent();
     }
 
     public Optional<Usuario> obtenerUsuarioPorId(Long id) {
@@ -29,19 +76,73 @@ public class UsuarioService {
 
     public void eliminarUsuario(Long id) {
         usuarioRepository.deleteById(id);
+        indiceTrigramas.eliminar(id);
     }
 
     // --- Nuevos métodos de servicio para HATEOAS ---
 
+    // Con el índice de trigramas cargado, la búsqueda parcial además ignora tildes ("jose" encuentra "José")
     public List<Usuario> buscarPorNombre(String nombre) {
-        return usuarioRepository.findByNombreContainingIgnoreCase(nombre);
+        if (!indiceTrigramas.estaCargado()) {
+            return usuarioRepository.findByNombreContainingIgnoreCase(nombre);
+        }
+        return buscarPorIds(indiceTrigramas.buscarPorNombre(nombre));
     }
 
     public List<Usuario> buscarPorCorreo(String correo) {
-        return usuarioRepository.findByCorreoContainingIgnoreCase(correo);
+        if (!indiceTrigramas.estaCargado()) {
+            return usuarioRepository.findByCorreoContainingIgnoreCase(correo);
+        }
+        return buscarPorIds(indiceTrigramas.buscarPorCorreo(correo));
     }
 
+    // Búsqueda exacta sin distinguir mayúsculas; si el filtro de Bloom descarta el correo no se consulta la base de datos
+    public Optional<Usuario> buscarPorCorreoExacto(String correo) {
+        String correoNorm = Usuario.normalizarCorreo(correo);
+        if (correoNorm == null || !filtroBloomCorreos.puedeExistir(correoNorm)) {
+            return Optional.empty();
+        }
+        return usuarioRepository.findByCorreoNorm(correoNorm);
+    }
+
+    // Con el conjunto en memoria cargado no se toca la tabla de pedidos; mientras tanto se usa la consulta con EXISTS
     public List<Usuario> buscarUsuariosConPedidosPendientes() {
-        return usuarioRepository.findUsuariosConPedidosPorEstado("PENDIENTE"); // Aquí fijamos el estado a "PENDIENTE"
+        if (!usuariosConPedidosPendientes.estaCargado()) {
+            return usuarioRepository.findUsuariosConPedidosPorEstado(EstadoPedido.PENDIENTE);
+        }
+        return buscarPorIds(usuariosConPedidosPendientes.usuarioIds());
+    }
+
+    // Carga el conjunto de usuarios con pedidos pendientes una vez que la aplicación terminó de iniciar
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarUsuariosConPedidosPendientes() {
+        boolean cargado = usuariosConPedidosPendientes.cargar(() -> {
+            Map<Long, Long> pendientes = new HashMap<>();
+            for (Object[] fila : pedidoRepository.contarPorUsuarioEnEstado(EstadoPedido.PENDIENTE)) {
+                pendientes.put(((Number) fila[0]).longValue(), ((Number) fila[1]).longValue());
+            }
+            return pendientes;
+        });
+        if (!cargado) {
+            log.warn("Los usuarios con pedidos pendientes no se recargaron: la consulta se cruzó con cambios en todos los intentos");
+        }
+    }
+
+    // Carga el índice de trigramas una vez que la aplicación terminó de iniciar
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void cargarIndiceTrigramas() {
+        indiceTrigramas.cargar(registrar -> {
+            try (Stream<Object[]> filas = usuarioRepository.streamIdNombreCorreo()) {
+                filas.forEach(fila -> registrar.accept(new IndiceTrigramas.Registro((Long) fila[0], (String) fila[1], (String) fila[2], false)));
+            }
+        });
+    }
+
+    // Usuarios de 'ids' ordenados por id, consultados en lotes para no armar un IN gigante
+    private List<Usuario> buscarPorIds(long[] ids) {
+        List<Usuario> usuarios = ConsultaPorLotes.buscar(ids, usuarioRepository::findAllById);
+        usuarios.sort(Comparator.comparing(Usuario::getId));
+        return usuarios;
     }
 }
@@ -0,0 +1,263 @@
+package com.ecomarketspa.Service;
+
+import com.ecomarketspa.Dto.ResumenVentas;
+import com.ecomarketspa.Model.EstadoPedido;
+import com.ecomarketspa.Model.VentaDiaria;
+import com.ecomarketspa.Repository.VentaDiariaRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Acumulados diarios de pedidos por estado (tabla ventas_diarias) para consultar ventas por rango sin leer cada pedido.
+ *
+ * Todos los pedidos de hoy en un mismo estado caen en la misma fila: actualizarla dentro de la transacción de cada
+ * pedido serializaba las inserciones detrás de su bloqueo. Por eso los cambios se suman en memoria después del
+ * commit (un pedido revertido no cuenta) y cada 'intervalo' se vuelcan todos juntos en una sola transacción, con
+ * una actualización por fila tocada. consultar() vuelca antes de leer. Si el proceso se cae, se pierde a lo más un
+ * intervalo de cambios: por eso al arrancar inicializar() recalcula desde los pedidos los acumulados de los últimos
+ * 'diasRecalculo' días, o la tabla completa si está vacía.
+ */
+@Service
+public class VentasDiariasService {
+
+    private static final Logger log = LoggerFactory.getLogger(VentasDiariasService.class);
+
+    private record Acumulado(LocalDate dia, String estado) {
+    }
+
+    private record Cambio(long cantidad, double total) {
+
+        Cambio sumar(Cambio otro) {
+            return new Cambio(cantidad + otro.cantidad, total + otro.total);
+        }
+    }
+
+    private final Duration intervalo;
+    private final int diasRecalculo;
+    private final ConcurrentHashMap<Acumulado, Cambio> pendientes = new ConcurrentHashMap<>();
+    private ScheduledExecutorService programador;
+
+    @Autowired
+    private VentaDiariaRepository ventaDiariaRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    public VentasDiariasService(@Value("${ecomarket.pedidos.ventas-diarias.intervalo:1s}") Duration intervalo,
+                                @Value("${ecomarket.pedidos.ventas-diarias.dias-recalculo:30}") int diasRecalculo) {
+        this.intervalo = intervalo;
+        this.diasRecalculo = diasRecalculo;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciarVolcado() {
+        programador = Executors.newSingleThreadScheduledExecutor(
+                tarea -> Thread.ofPlatform().name("ventas-diarias").daemon().unstarted(tarea));
+        programador.scheduleWithFixedDelay(this::volcarProgramado, intervalo.toMillis(), intervalo.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void detener() {
+        if (programador != null) {
+            programador.shutdownNow();
+        }
+        volcarProgramado(); // Lo que quede en memoria
+    }
+
+    // Suma 'cantidad' pedidos y 'total' al acumulado del día de 'fecha' en 'estado' (valores negativos restan).
+    // Se llama desde PedidoListener, dentro de la transacción que guarda el pedido: el cambio se aplica después del
+    // commit, así que si ésta se revierte no cuenta.
+    public void registrar(Date fecha, EstadoPedido estado, long cantidad, double total) {
+        if (fecha == null) {
+            return; // Sin fecha el pedido no cae en ningún rango consultable
+        }
+        registrar(dia(fecha), estado, cantidad, total);
+    }
+
+    public void registrar(LocalDate dia, EstadoPedido estado, long cantidad, double total) {
+        Acumulado acumulado = new Acumulado(dia, estado.name());
+        Cambio cambio = new Cambio(cantidad, total);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pendientes.merge(acumulado, cambio, Cambio::sumar);
+                }
+            });
+        } else {
+            pendientes.merge(acumulado, cambio, Cambio::sumar);
+        }
+    }
+
+    // Escribe en ventas_diarias los cambios acumulados en memoria, en una sola transacción. Si falla, los cambios
+    // vuelven a memoria para el próximo volcado.
+    public synchronized void volcar() {
+        List<Map.Entry<Acumulado, Cambio>> lote = new ArrayList<>();
+        for (Acumulado acumulado : pendientes.keySet()) {
+            Cambio cambio = pendientes.remove(acumulado); // merge y remove son atómicos por clave: no se pierde ninguno
+            if (cambio != null && (cambio.cantidad() != 0 || cambio.total() != 0)) {
+                lote.add(Map.entry(acumulado, cambio));
+            }
+        }
+        if (lote.isEmpty()) {
+            return;
+        }
+        // Siempre en el mismo orden, para que dos nodos volcando a la vez no se bloqueen mutuamente
+        lote.sort(Map.Entry.comparingByKey(Comparator.comparing(Acumulado::dia).thenComparing(Acumulado::estado)));
+        try {
+            transactionTemplate.executeWithoutResult(estado -> lote.forEach(entrada -> escribir(entrada.getKey(), entrada.getValue())));
+        } catch (RuntimeException e) {
+            lote.forEach(entrada -> pendientes.merge(entrada.getKey(), entrada.getValue(), Cambio::sumar));
+            throw e;
+        }
+    }
+
+    // Ventas entre 'inicio' y 'fin' (ambos incluidos) sumando los acumulados diarios; 'estado' es opcional.
+    // Vuelca antes los cambios en memoria para incluir los pedidos recién confirmados.
+    public ResumenVentas consultar(LocalDate inicio, LocalDate fin, EstadoPedido estado) {
+        volcar();
+        List<VentaDiaria> filas = estado == null
+                ? ventaDiariaRepository.findByDiaBetweenOrderByDia(inicio, fin)
+                : ventaDiariaRepository.findByDiaBetweenAndEstadoOrderByDia(inicio, fin, estado.name());
+
+        long cantidad = 0;
+        double total = 0;
+        Map<String, ResumenVentas.Totales> porEstado = new TreeMap<>();
+        Map<LocalDate, ResumenVentas.Dia> porDia = new TreeMap<>();
+        for (VentaDiaria fila : filas) {
+            if (fila.getCantidad() == 0) {
+                continue; // Día que quedó vacío tras eliminar o cambiar de estado sus pedidos
+            }
+            cantidad += fila.getCantidad();
+            total += fila.getTotal();
+            porEstado.merge(fila.getEstado(), new ResumenVentas.Totales(fila.getCantidad(), fila.getTotal()),
+                    (a, b) -> new ResumenVentas.Totales(a.cantidad() + b.cantidad(), a.total() + b.total()));
+            porDia.merge(fila.getDia(), new ResumenVentas.Dia(fila.getDia(), fila.getCantidad(), fila.getTotal()),
+                    (a, b) -> new ResumenVentas.Dia(a.dia(), a.cantidad() + b.cantidad(), a.total() + b.total()));
+        }
+        return new ResumenVentas(inicio, fin, cantidad, total, porEstado, new ArrayList<>(porDia.values()));
+    }
+
+    // Al arrancar: si la tabla de acumulados está vacía (primera puesta en marcha) se llena a partir de todos los
+    // pedidos; si no, se recalculan desde los pedidos los días recientes, donde cae lo que no alcanzó a volcarse si
+    // el proceso anterior se cayó. Desde ahí en adelante la mantiene PedidoListener.
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public synchronized void inicializar() {
+        if (ventaDiariaRepository.count() == 0) {
+            recalcular(null);
+        } else if (diasRecalculo > 0) {
+            recalcular(LocalDate.now().minusDays(diasRecalculo - 1));
+        }
+    }
+
+    // Reemplaza los acumulados desde 'desde' (null: todos) por los que resultan de los pedidos. Los cambios en memoria
+    // de esos días se descartan porque los pedidos ya los incluyen; solo cuenta dos veces un pedido confirmado justo
+    // antes de la consulta cuyo cambio llega a memoria justo después, y eso solo puede pasar en el arranque.
+    private void recalcular(LocalDate desde) {
+        pendientes.keySet().removeIf(acumulado -> desde == null || !acumulado.dia().isBefore(desde));
+        StringBuilder nombreEstado = new StringBuilder("CASE estado_codigo"); // Los acumulados guardan el nombre del estado
+        for (EstadoPedido estado : EstadoPedido.values()) {
+            nombreEstado.append(" WHEN ").append(estado.getCodigo()).append(" THEN '").append(estado.name()).append("'");
+        }
+        nombreEstado.append(" END");
+        String insertar = "INSERT INTO ventas_diarias (dia, estado, cantidad, total) " +
+                "SELECT CAST(fecha AS DATE), " + nombreEstado + ", COUNT(*), COALESCE(SUM(total), 0) FROM pedido ";
+        String agrupar = " GROUP BY CAST(fecha AS DATE), estado_codigo";
+        if (desde == null) {
+            jdbcTemplate.update(insertar + "WHERE fecha IS NOT NULL" + agrupar);
+            return;
+        }
+        int anteriores = jdbcTemplate.update("DELETE FROM ventas_diarias WHERE dia >= ?", desde);
+        int recalculadas = jdbcTemplate.update(insertar + "WHERE fecha >= ?" + agrupar, Timestamp.valueOf(desde.atStartOfDay()));
+        log.info("Acumulados de ventas diarias recalculados desde {}: {} filas reemplazadas por {}", desde, anteriores, recalculadas);
+    }
+
+    // Acumulados guardados antes del enum, con el texto libre del pedido ("Pendiente", "Completado") o "SIN_ESTADO"
+    // como clave: cada fila se borra y se suma a la del estado equivalente de ese día. Se compara en Java y no con
+    // NOT IN porque con la collation por defecto de MySQL 'Pendiente' = 'PENDIENTE'. Devuelve las filas migradas.
+    @Transactional
+    public int migrarClavesAntiguas(Function<String, EstadoPedido> equivalente) {
+        Set<String> nombres = new HashSet<>();
+        for (EstadoPedido estado : EstadoPedido.values()) {
+            nombres.add(estado.name());
+        }
+        List<VentaDiaria> antiguas = new ArrayList<>();
+        for (VentaDiaria fila : ventaDiariaRepository.findAll()) {
+            if (!nombres.contains(fila.getEstado())) {
+                antiguas.add(fila);
+            }
+        }
+        Map<Acumulado, Cambio> migrados = new TreeMap<>(Comparator.comparing(Acumulado::dia).thenComparing(Acumulado::estado));
+        for (VentaDiaria fila : antiguas) {
+            jdbcTemplate.update("DELETE FROM ventas_diarias WHERE dia = ? AND estado = ?", fila.getDia(), fila.getEstado());
+            migrados.merge(new Acumulado(fila.getDia(), equivalente.apply(fila.getEstado()).name()),
+                    new Cambio(fila.getCantidad(), fila.getTotal()), Cambio::sumar);
+        }
+        migrados.forEach(this::escribir);
+        return antiguas.size();
+    }
+
+    // Día calendario con la misma zona horaria con la que se guarda la fecha del pedido
+    public static LocalDate dia(Date fecha) {
+        return new Timestamp(fecha.getTime()).toLocalDateTime().toLocalDate();
+    }
+
+    private void volcarProgramado() {
+        try {
+            volcar();
+        } catch (Exception e) {
+            log.error("Error al volcar los acumulados de ventas diarias; se reintentará en el próximo ciclo", e);
+        }
+    }
+
+    private void escribir(Acumulado acumulado, Cambio cambio) {
+        if (actualizar(acumulado.dia(), acumulado.estado(), cambio.cantidad(), cambio.total()) > 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.update("INSERT INTO ventas_diarias (dia, estado, cantidad, total) VALUES (?, ?, ?, ?)",
+                    acumulado.dia(), acumulado.estado(), cambio.cantidad(), cambio.total());
+        } catch (DuplicateKeyException e) {
+            // Otro nodo creó la fila del día entre medio
+            actualizar(acumulado.dia(), acumulado.estado(), cambio.cantidad(), cambio.total());
+        }
+    }
+
+    private int actualizar(LocalDate dia, String estado, long cantidad, double total) {
+        return jdbcTemplate.update("UPDATE ventas_diarias SET cantidad = cantidad + ?, total = total + ? WHERE dia = ? AND estado = ?",
+                cantidad, total, dia, estado);
+    }
+}
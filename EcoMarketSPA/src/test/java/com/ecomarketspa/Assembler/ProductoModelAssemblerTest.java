@@ -0,0 +1,69 @@
+package com.ecomarketspa.Assembler;
+
+import com.ecomarketspa.Controller.ProductoController;
+import com.ecomarketspa.Model.Producto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+public class ProductoModelAssemblerTest {
+
+    private final ProductoModelAssembler assembler = new ProductoModelAssembler();
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    @DisplayName("Test para generar los mismos enlaces que linkTo(methodOn(...)) en cada petición")
+    void testEnlacesIgualesALinkTo() {
+        // La plantilla se compila en la primera petición y no debe arrastrar su host a las siguientes
+        for (String host : new String[]{"localhost", "tienda.ecomarket.cl"}) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/productos");
+            request.setServerName(host);
+            request.setServerPort(8443);
+            request.setScheme("https");
+            request.setContextPath("/eco");
+            request.setRequestURI("/eco/api/productos");
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+            for (long id : new long[]{1L, 42L}) {
+                Producto producto = new Producto();
+                producto.setId(id);
+                EntityModel<Producto> model = assembler.toModel(producto);
+
+                assertEquals(linkTo(methodOn(ProductoController.class).obtenerProductoPorId(id, null)).withSelfRel().getHref(),
+                        model.getRequiredLink(IanaLinkRelations.SELF).getHref());
+                assertEquals(linkTo(methodOn(ProductoController.class).listarProductos(null)).withRel("productos").getHref(),
+                        model.getRequiredLink("productos").getHref());
+            }
+            assertEquals("https://" + host + ":8443/eco/api/productos/42",
+                    assembler.toModel(producto(42L)).getRequiredLink(IanaLinkRelations.SELF).getHref());
+        }
+    }
+
+    @Test
+    @DisplayName("Test para armar enlaces fuera de una petición HTTP")
+    void testEnlacesSinPeticion() {
+        EntityModel<Producto> model = assembler.toModel(producto(7L));
+
+        assertEquals(linkTo(methodOn(ProductoController.class).obtenerProductoPorId(7L, null)).withSelfRel().getHref(),
+                model.getRequiredLink(IanaLinkRelations.SELF).getHref());
+    }
+
+    private static Producto producto(long id) {
+        Producto producto = new Producto();
+        producto.setId(id);
+        return producto;
+    }
+}
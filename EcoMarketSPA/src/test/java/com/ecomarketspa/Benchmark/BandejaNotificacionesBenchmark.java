@@ -0,0 +1,85 @@
+package com.ecomarketspa.Benchmark;
+
+import com.ecomarketspa.Service.DespachoNotificaciones;
+import com.ecomarketspa.Service.NotificacionService;
+import com.ecomarketspa.Service.SuscripcionesNotificaciones;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Compara lo que hacía el cliente para ver sus notificaciones (descargar todas y filtrar) contra la bandeja
+// por usuario: una página por cursor y el conteo de no leídas sobre el índice (usuario_id, id).
+// Ejecutar con: mvn test -Pbenchmark -Dtest=BandejaNotificacionesBenchmark
+@Tag("benchmark")
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({NotificacionService.class, DespachoNotificaciones.class, SuscripcionesNotificaciones.class})
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:benchmark-bandeja;DB_CLOSE_DELAY=-1")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class BandejaNotificacionesBenchmark {
+
+    private static final int USUARIOS = 5_000;
+    private static final int NOTIFICACIONES = 500_000;
+
+    @Autowired
+    private NotificacionService notificacionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void medirBandeja() {
+        poblar();
+        long[] usuarioIds = jdbcTemplate.queryForList("SELECT id FROM usuario", Long.class).stream().mapToLong(Long::longValue).toArray();
+        for (int i = 0; i < USUARIOS; i += 2) {
+            notificacionService.marcarLeidas(usuarioIds[i], null); // La mitad de los usuarios tiene todo leído
+        }
+
+        Cronometro.reportar("listar todas y filtrar en el cliente", NOTIFICACIONES, Cronometro.medirMicros(5, () -> {
+            long usuarioId = aleatorio(usuarioIds);
+            return notificacionService.listarNotificaciones().stream()
+                    .filter(notificacion -> notificacion.getUsuario().getId() == usuarioId).count();
+        }));
+        Cronometro.reportar("findByUsuarioId", NOTIFICACIONES, Cronometro.medirMicros(200,
+                () -> notificacionService.listarNotificacionesPorUsuario(aleatorio(usuarioIds)).size()));
+        Cronometro.reportar("bandeja: primera página de 20", NOTIFICACIONES, Cronometro.medirMicros(2_000,
+                () -> notificacionService.obtenerBandeja(aleatorio(usuarioIds), null, 20)));
+        Cronometro.reportar("bandeja: conteo de no leídas", NOTIFICACIONES, Cronometro.medirMicros(2_000,
+                () -> notificacionService.contarNoLeidas(aleatorio(usuarioIds))));
+    }
+
+    private void poblar() {
+        List<Object[]> usuarios = new ArrayList<>();
+        for (int i = 0; i < USUARIOS; i++) {
+            usuarios.add(new Object[]{"Usuario " + i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO usuario (nombre) VALUES (?)", usuarios);
+        long primerUsuario = jdbcTemplate.queryForObject("SELECT MIN(id) FROM usuario", Long.class);
+
+        List<Object[]> lote = new ArrayList<>();
+        for (int i = 0; i < NOTIFICACIONES; i++) {
+            lote.add(new Object[]{"App", "Mensaje " + i, primerUsuario + ThreadLocalRandom.current().nextInt(USUARIOS)});
+            if (lote.size() == 10_000) {
+                jdbcTemplate.batchUpdate("INSERT INTO notificacion (tipo, mensaje, usuario_id) VALUES (?, ?, ?)", lote);
+                lote.clear();
+            }
+        }
+    }
+
+    private static long aleatorio(long[] ids) {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+}
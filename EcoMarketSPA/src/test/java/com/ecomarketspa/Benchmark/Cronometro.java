@@ -0,0 +1,40 @@
+package com.ecomarketspa.Benchmark;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+// Utilidad mínima para los benchmarks: calienta la operación y luego mide el tiempo promedio por iteración.
+final class Cronometro {
+
+    private static final int ITERACIONES_CALENTAMIENTO = 5;
+
+    private Cronometro() {
+    }
+
+    static double medirMicros(int iteraciones, Supplier<?> operacion) {
+        for (int i = 0; i < ITERACIONES_CALENTAMIENTO; i++) {
+            operacion.get();
+        }
+        long inicio = System.nanoTime();
+        for (int i = 0; i < iteraciones; i++) {
+            operacion.get();
+        }
+        return (System.nanoTime() - inicio) / 1_000.0 / iteraciones;
+    }
+
+    static void reportar(String escenario, int tamano, double micros) {
+        System.out.printf("[benchmark] %-40s n=%,10d  %,12.1f us/op%n", escenario, tamano, micros);
+    }
+
+    // Latencias en nanosegundos de todas las solicitudes de una carga: informa p50, p99 y máximo
+    static void reportarPercentiles(String escenario, long[] nanos) {
+        long[] ordenadas = nanos.clone();
+        Arrays.sort(ordenadas);
+        System.out.printf("[benchmark] %-40s n=%,10d  p50=%,10.1f us  p99=%,10.1f us  max=%,10.1f us%n", escenario, ordenadas.length,
+                percentil(ordenadas, 0.50) / 1_000.0, percentil(ordenadas, 0.99) / 1_000.0, ordenadas[ordenadas.length - 1] / 1_000.0);
+    }
+
+    private static long percentil(long[] ordenadas, double percentil) {
+        return ordenadas[Math.min(ordenadas.length - 1, (int) Math.ceil(percentil * ordenadas.length) - 1)];
+    }
+}
@@ -0,0 +1,110 @@
+package com.ecomarketspa.Benchmark;
+
+import com.ecomarketspa.Config.ProveedoresSimuladosConfig;
+import com.ecomarketspa.Dto.EstadoCanalDespacho;
+import com.ecomarketspa.Model.Notificacion;
+import com.ecomarketspa.Service.DespachoNotificaciones;
+import com.ecomarketspa.Service.ProveedorNotificaciones;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Prueba de carga sin servicios externos: compara enviar cada notificación dentro de la petición (una llamada
+// al proveedor por notificación) contra encolarla en DespachoNotificaciones, que responde al instante y envía
+// en lotes. Los proveedores simulados tardan 20 ms por llamada y fallan el 1%.
+// Ejecutar con: mvn test -Pbenchmark -Dtest=DespachoNotificacionesBenchmark
+@Tag("benchmark")
+@SpringBootTest(classes = {DespachoNotificaciones.class, ProveedoresSimuladosConfig.class}, properties = {
+        "ecomarket.notificaciones.proveedores-simulados=true",
+        "ecomarket.notificaciones.simulados.latencia=20ms",
+        "ecomarket.notificaciones.simulados.tasa-fallos=0.01",
+        "ecomarket.notificaciones.despacho.capacidad=50000",
+        "ecomarket.notificaciones.despacho.hilos=4",
+        "ecomarket.notificaciones.despacho.espera-ms=50",
+        "ecomarket.notificaciones.despacho.espera-inicial=50ms"})
+public class DespachoNotificacionesBenchmark {
+
+    private static final String[] CANALES = {"Email", "SMS", "App"};
+    private static final int CLIENTES = 16;
+    private static final int SINCRONAS_POR_CLIENTE = 100;
+    private static final int ASINCRONAS_POR_CLIENTE = 5_000;
+
+    @Autowired
+    private DespachoNotificaciones despachoNotificaciones;
+
+    @Autowired
+    private List<ProveedorNotificaciones> proveedores;
+
+    @Test
+    void medirDespacho() throws Exception {
+        Map<String, ProveedorNotificaciones> porCanal = proveedores.stream()
+                .collect(Collectors.toMap(ProveedorNotificaciones::canal, Function.identity()));
+
+        long inicio = System.nanoTime();
+        long[] sincronas = cargar(SINCRONAS_POR_CLIENTE, notificacion -> {
+            try {
+                porCanal.get(notificacion.getTipo()).enviar(List.of(notificacion));
+            } catch (IllegalStateException e) {
+                // El fallo simulado llega a la petición: sin cola, reintentar también bloquearía al cliente
+            }
+        });
+        reportarRendimiento("envío dentro de la petición", sincronas.length, System.nanoTime() - inicio);
+        Cronometro.reportarPercentiles("envío dentro de la petición", sincronas);
+
+        inicio = System.nanoTime();
+        long[] asincronas = cargar(ASINCRONAS_POR_CLIENTE, despachoNotificaciones::despachar);
+        Cronometro.reportarPercentiles("encolar en DespachoNotificaciones", asincronas);
+        while (despachoNotificaciones.estado().stream().anyMatch(canal -> canal.enviadas() + canal.fallidas() < canal.encoladas())) {
+            LockSupport.parkNanos(1_000_000);
+        }
+        reportarRendimiento("entrega por DespachoNotificaciones", asincronas.length, System.nanoTime() - inicio);
+        for (EstadoCanalDespacho canal : despachoNotificaciones.estado()) {
+            System.out.printf("[benchmark]   %-5s enviadas=%,d lotes=%,d reintentos=%,d fallidas=%,d rechazadas=%,d%n", canal.canal(),
+                    canal.enviadas(), canal.lotes(), canal.reintentos(), canal.fallidas(), canal.rechazadas());
+        }
+    }
+
+    // Cada cliente hace sus solicitudes en serie; devuelve la latencia de cada una en nanosegundos
+    private long[] cargar(int porCliente, Consumer<Notificacion> solicitud) throws Exception {
+        long[] latencias = new long[CLIENTES * porCliente];
+        try (ExecutorService clientes = Executors.newFixedThreadPool(CLIENTES)) {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int c = 0; c < CLIENTES; c++) {
+                int cliente = c;
+                tareas.add(clientes.submit(() -> {
+                    for (int i = 0; i < porCliente; i++) {
+                        int n = cliente * porCliente + i;
+                        Notificacion notificacion = new Notificacion();
+                        notificacion.setId((long) n);
+                        notificacion.setTipo(CANALES[n % CANALES.length]);
+                        notificacion.setMensaje("Mensaje " + n);
+                        long t = System.nanoTime();
+                        solicitud.accept(notificacion);
+                        latencias[n] = System.nanoTime() - t;
+                    }
+                }));
+            }
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+        }
+        return latencias;
+    }
+
+    private static void reportarRendimiento(String escenario, int notificaciones, long nanos) {
+        System.out.printf("[benchmark] %-40s n=%,10d  %,12.0f notificaciones/s%n", escenario, notificaciones,
+                notificaciones / (nanos / 1e9));
+    }
+}
@@ -0,0 +1,108 @@
+package com.ecomarketspa.Benchmark;
+
+import com.ecomarketspa.Config.ProveedoresSimuladosConfig;
+import com.ecomarketspa.Dto.EstadoDifusion;
+import com.ecomarketspa.Dto.SolicitudDifusion;
+import com.ecomarketspa.Model.Notificacion;
+import com.ecomarketspa.Repository.NotificacionRepository;
+import com.ecomarketspa.Repository.UsuarioRepository;
+import com.ecomarketspa.Service.DespachoNotificaciones;
+import com.ecomarketspa.Service.DifusionNotificacionService;
+import com.ecomarketspa.Service.SuscripcionesNotificaciones;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+// Compara una notificación por usuario guardada con JPA (lo que hacía el cliente con un POST por usuario)
+// contra DifusionNotificacionService, que lee los ids por páginas e inserta con batch JDBC.
+// Ejecutar con: mvn test -Pbenchmark -Dtest=DifusionNotificacionBenchmark
+@Tag("benchmark")
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({DifusionNotificacionService.class, DespachoNotificaciones.class, SuscripcionesNotificaciones.class, ProveedoresSimuladosConfig.class})
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:benchmark-difusion;DB_CLOSE_DELAY=-1",
+        "ecomarket.notificaciones.simulados.latencia=1ms",
+        "ecomarket.notificaciones.despacho.capacidad=50000"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class DifusionNotificacionBenchmark {
+
+    private static final int USUARIOS = 200_000;
+    private static final int UNO_POR_UNO = 5_000;
+
+    @Autowired
+    private DifusionNotificacionService difusionNotificacionService;
+
+    @Autowired
+    private NotificacionRepository notificacionRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void medirDifusion() {
+        poblar();
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM usuario ORDER BY id LIMIT " + UNO_POR_UNO, Long.class);
+
+        long inicio = System.nanoTime();
+        for (Long id : ids) {
+            Notificacion notificacion = new Notificacion();
+            notificacion.setTipo("Oferta");
+            notificacion.setMensaje("Descuento");
+            notificacion.setUsuario(usuarioRepository.getReferenceById(id));
+            notificacionRepository.save(notificacion);
+        }
+        reportar("un save() por usuario", ids.size(), System.nanoTime() - inicio);
+        jdbcTemplate.update("DELETE FROM notificacion");
+
+        for (String tipo : new String[]{"Oferta", "Email"}) {
+            inicio = System.nanoTime();
+            EstadoDifusion difusion = esperarFin(difusionNotificacionService.iniciarDifusion(
+                    new SolicitudDifusion(tipo, "Descuento", SolicitudDifusion.Segmento.TODOS, null, null)));
+            reportar("difusión por lotes (" + tipo + ")", difusion.notificacionesCreadas(), System.nanoTime() - inicio);
+            jdbcTemplate.update("DELETE FROM notificacion");
+        }
+    }
+
+    private void poblar() {
+        List<Object[]> lote = new ArrayList<>();
+        for (int i = 0; i < USUARIOS; i++) {
+            lote.add(new Object[]{"Usuario " + i, "usuario" + i + "@example.com"});
+            if (lote.size() == 10_000) {
+                jdbcTemplate.batchUpdate("INSERT INTO usuario (nombre, correo) VALUES (?, ?)", lote);
+                lote.clear();
+            }
+        }
+    }
+
+    private EstadoDifusion esperarFin(EstadoDifusion iniciada) {
+        while (true) {
+            EstadoDifusion difusion = difusionNotificacionService.obtenerDifusion(iniciada.id()).orElseThrow();
+            if (difusion.fin() != null) {
+                return difusion;
+            }
+            LockSupport.parkNanos(1_000_000);
+        }
+    }
+
+    private static void reportar(String escenario, long notificaciones, long nanos) {
+        System.out.printf("[benchmark] %-40s n=%,10d  %,12.0f notificaciones/s%n", escenario, notificaciones,
+                notificaciones / (nanos / 1e9));
+    }
+}
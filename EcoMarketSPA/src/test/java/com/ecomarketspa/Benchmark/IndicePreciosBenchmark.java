@@ -0,0 +1,82 @@
+package com.ecomarketspa.Benchmark;
+
+import com.ecomarketspa.Index.IndicePrecios;
+import com.ecomarketspa.Repository.ProductoRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+// Compara la consulta findByPrecioBetween (sin índice en la columna precio) con el índice en memoria.
+// Ejecutar con: mvn test -Pbenchmark -Dtest=IndicePreciosBenchmark
+@Tag("benchmark")
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class IndicePreciosBenchmark {
+
+    private static final int ITERACIONES = 20;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @ParameterizedTest
+    @ValueSource(ints = {10_000, 100_000, 1_000_000})
+    void compararRangoDePrecio(int cantidad) {
+        long[] ids = new long[cantidad];
+        double[] precios = new double[cantidad];
+        poblarProductos(cantidad, ids, precios);
+
+        IndicePrecios indice = new IndicePrecios();
+        indice.cargar(ids, precios);
+
+        // Rango angosto (~0,1% del catálogo), como el de un filtro de tienda
+        double min = 50_000.0;
+        double max = 50_100.0;
+
+        double consulta = Cronometro.medirMicros(ITERACIONES, () -> productoRepository.findByPrecioBetween(min, max));
+        double soloIndice = Cronometro.medirMicros(ITERACIONES, () -> indice.buscarEntre(min, max));
+        double indiceMasCarga = Cronometro.medirMicros(ITERACIONES,
+                () -> productoRepository.findAllById(Arrays.stream(indice.buscarEntre(min, max)).boxed().toList()));
+
+        Cronometro.reportar("findByPrecioBetween", cantidad, consulta);
+        Cronometro.reportar("IndicePrecios.buscarEntre", cantidad, soloIndice);
+        Cronometro.reportar("IndicePrecios + findAllById", cantidad, indiceMasCarga);
+    }
+
+    private void poblarProductos(int cantidad, long[] ids, double[] precios) {
+        jdbcTemplate.update("DELETE FROM productos");
+        Random random = new Random(42);
+        List<Object[]> lote = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            ids[i] = i + 1L;
+            precios[i] = 1_000 + random.nextDouble() * 99_000;
+            lote.add(new Object[]{ids[i], "Producto " + i, "Categoria " + (i % 20), precios[i], 10, "Descripción"});
+            if (lote.size() == 5_000) {
+                insertar(lote);
+            }
+        }
+        insertar(lote);
+    }
+
+    private void insertar(List<Object[]> lote) {
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO productos (id, nombre, categoria, precio, stock, descripcion) VALUES (?, ?, ?, ?, ?, ?)", lote);
+        lote.clear();
+    }
+}
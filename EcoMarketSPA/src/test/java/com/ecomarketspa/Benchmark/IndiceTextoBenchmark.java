@@ -0,0 +1,56 @@
+package com.ecomarketspa.Benchmark;
+
+import com.ecomarketspa.Index.IndiceTexto;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+// Mide el tiempo de consulta del índice de texto con 1M de productos sintéticos.
+// Ejecutar con: mvn test -Pbenchmark -Dtest=IndiceTextoBenchmark
+@Tag("benchmark")
+public class IndiceTextoBenchmark {
+
+    private static final int PRODUCTOS = 1_000_000;
+    private static final String[] PALABRAS = {
+            "jabón", "bolsa", "algodón", "orgánico", "bambú", "cepillo", "champú", "sólido", "reutilizable", "vidrio",
+            "botella", "acero", "natural", "vegano", "compostable", "tela", "madera", "cera", "abeja", "envoltorio",
+            "té", "café", "granel", "aceite", "coco", "lavanda", "menta", "limón", "carbón", "arcilla"};
+
+    @Test
+    void medirConsultas() {
+        IndiceTexto indice = new IndiceTexto();
+        long inicio = System.nanoTime();
+        IndiceTexto.Reconstruccion reconstruccion = indice.iniciarReconstruccion();
+        IntStream.range(0, PRODUCTOS).parallel().forEach(i -> {
+            Random random = new Random(i);
+            reconstruccion.agregar(i + 1L, frase(random, 3) + " " + i, frase(random, 12));
+        });
+        reconstruccion.publicar();
+        System.out.printf("[benchmark] indexación en paralelo de %,d productos: %,d ms%n",
+                PRODUCTOS, (System.nanoTime() - inicio) / 1_000_000);
+
+        Cronometro.reportar("buscar 'jabon lavanda'", PRODUCTOS,
+                Cronometro.medirMicros(200, () -> indice.buscar("jabon lavanda", 20)));
+        Cronometro.reportar("buscar 'cepillo bambu compos' (prefijo)", PRODUCTOS,
+                Cronometro.medirMicros(200, () -> indice.buscar("cepillo bambu compos", 20)));
+        Cronometro.reportar("buscar '123456' (término único)", PRODUCTOS,
+                Cronometro.medirMicros(200, () -> indice.buscar("123456", 20)));
+        Cronometro.reportar("buscar 'lavanda 12345' (selectivo)", PRODUCTOS,
+                Cronometro.medirMicros(200, () -> indice.buscar("lavanda 12345", 20)));
+        Cronometro.reportar("indexar (actualización incremental)", PRODUCTOS,
+                Cronometro.medirMicros(50, () -> {
+                    indice.indexar(42L, "Jabón de lavanda", "Hecho a mano");
+                    return null;
+                }));
+    }
+
+    private static String frase(Random random, int palabras) {
+        StringBuilder frase = new StringBuilder();
+        for (int i = 0; i < palabras; i++) {
+            frase.append(PALABRAS[random.nextInt(PALABRAS.length)]).append(' ');
+        }
+        return frase.toString();
+    }
+}
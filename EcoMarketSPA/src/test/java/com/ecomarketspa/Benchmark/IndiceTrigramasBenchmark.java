@@ -0,0 +1,69 @@
+package com.ecomarketspa.Benchmark;
+
+import com.ecomarketspa.Index.IndiceTrigramas;
+import com.ecomarketspa.Repository.UsuarioRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Compara la búsqueda por subcadena con LIKE '%x%' (findByNombreContainingIgnoreCase) contra el índice de trigramas
+// sobre 300 mil usuarios sintéticos en H2. Ejecutar con: mvn test -Pbenchmark -Dtest=IndiceTrigramasBenchmark
+@Tag("benchmark")
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:benchmark-trigramas;DB_CLOSE_DELAY=-1")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class IndiceTrigramasBenchmark {
+
+    private static final int USUARIOS = 300_000;
+    private static final String[] NOMBRES = {"José", "María", "Vicente", "Camila", "Benjamín", "Valentina", "Tomás", "Sofía", "Matías", "Ignacia"};
+    private static final String[] APELLIDOS = {"Soto", "López", "González", "Muñoz", "Rojas", "Díaz", "Pérez", "Contreras", "Fuentes", "Araya"};
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void medirBusquedas() {
+        Random random = new Random(42);
+        List<Object[]> filas = new ArrayList<>(USUARIOS);
+        for (int i = 0; i < USUARIOS; i++) {
+            filas.add(new Object[]{NOMBRES[random.nextInt(NOMBRES.length)] + " " + APELLIDOS[random.nextInt(APELLIDOS.length)] + " " + i,
+                    "cliente" + i + "@example.com"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO usuario (nombre, correo) VALUES (?, ?)", filas);
+
+        IndiceTrigramas indice = new IndiceTrigramas();
+        long inicio = System.nanoTime();
+        indice.cargar(registrar -> jdbcTemplate.query("SELECT id, nombre, correo FROM usuario", fila -> {
+            registrar.accept(new IndiceTrigramas.Registro(fila.getLong(1), fila.getString(2), fila.getString(3), false));
+        }));
+        System.out.printf("[benchmark] carga del índice de trigramas con %,d usuarios: %,d ms%n",
+                USUARIOS, (System.nanoTime() - inicio) / 1_000_000);
+
+        for (String consulta : new String[]{"muñoz 1234", "contreras", "12345", "ía"}) {
+            Cronometro.reportar("LIKE nombre '" + consulta + "'", USUARIOS,
+                    Cronometro.medirMicros(20, () -> usuarioRepository.findByNombreContainingIgnoreCase(consulta).size()));
+            Cronometro.reportar("trigramas nombre '" + consulta + "'", USUARIOS,
+                    Cronometro.medirMicros(200, () -> indice.buscarPorNombre(consulta).length));
+        }
+        Cronometro.reportar("LIKE correo 'cliente99999@'", USUARIOS,
+                Cronometro.medirMicros(20, () -> usuarioRepository.findByCorreoContainingIgnoreCase("cliente99999@").size()));
+        Cronometro.reportar("trigramas correo 'cliente99999@'", USUARIOS,
+                Cronometro.medirMicros(200, () -> indice.buscarPorCorreo("cliente99999@").length));
+    }
+}
@@ -0,0 +1,96 @@
+package com.ecomarketspa.Benchmark;
+
+import com.ecomarketspa.Index.ContadorPedidosUsuario;
+import com.ecomarketspa.Index.IndiceEstadosPedido;
+import com.ecomarketspa.Index.UsuariosConPedidosPendientes;
+import com.ecomarketspa.Model.EstadoPedido;
+import com.ecomarketspa.Model.Pedido;
+import com.ecomarketspa.Model.Usuario;
+import com.ecomarketspa.Repository.PedidoRepository;
+import com.ecomarketspa.Repository.UsuarioRepository;
+import com.ecomarketspa.Service.IngestaPedidos;
+import com.ecomarketspa.Service.VentasDiariasService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Compara el throughput de un commit por pedido contra el commit agrupado de IngestaPedidos.
+// Usa H2 en archivo para que cada commit escriba en disco. Ejecutar con:
+// mvn test -Pbenchmark -Dtest=IngestaPedidosBenchmark
+@Tag("benchmark")
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({IngestaPedidos.class, ContadorPedidosUsuario.class, IndiceEstadosPedido.class, UsuariosConPedidosPendientes.class, VentasDiariasService.class})
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:file:./target/benchmark-ingesta;LOCK_TIMEOUT=10000",
+        "ecomarket.pedidos.group-commit.habilitado=true",
+        "ecomarket.pedidos.group-commit.tamano-lote=256",
+        "ecomarket.pedidos.group-commit.ventana-ms=2"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class IngestaPedidosBenchmark {
+
+    private static final int PEDIDOS = 5_000;
+    private static final int HILOS = 32;
+
+    @Autowired
+    private IngestaPedidos ingestaPedidos;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Test
+    void medirThroughput() throws Exception {
+        Usuario usuario = new Usuario();
+        usuario.setNombre("Cliente Benchmark");
+        Usuario guardado = usuarioRepository.save(usuario);
+
+        medir("commit por pedido", () -> pedidoRepository.save(pedido(guardado)));
+        long lotesAntes = ingestaPedidos.lotesEscritos();
+        medir("commit agrupado", () -> ingestaPedidos.encolar(pedido(guardado)).join());
+        System.out.printf("[benchmark] commit agrupado: %,d pedidos en %,d transacciones%n",
+                PEDIDOS, ingestaPedidos.lotesEscritos() - lotesAntes);
+    }
+
+    private void medir(String escenario, Callable<Pedido> guardar) throws Exception {
+        ExecutorService hilos = Executors.newFixedThreadPool(HILOS);
+        long inicio = System.nanoTime();
+        List<Future<Pedido>> resultados = new ArrayList<>();
+        for (int i = 0; i < PEDIDOS; i++) {
+            resultados.add(hilos.submit(guardar));
+        }
+        for (Future<Pedido> resultado : resultados) {
+            resultado.get();
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        hilos.shutdown();
+        System.out.printf("[benchmark] %-40s hilos=%d  %,10.0f pedidos/s%n", escenario, HILOS, PEDIDOS / segundos);
+    }
+
+    private static Pedido pedido(Usuario usuario) {
+        Pedido pedido = new Pedido();
+        pedido.setEstado(EstadoPedido.PENDIENTE);
+        pedido.setFecha(new Date());
+        pedido.setTotal(10.0);
+        pedido.setUsuario(usuario);
+        return pedido;
+    }
+}
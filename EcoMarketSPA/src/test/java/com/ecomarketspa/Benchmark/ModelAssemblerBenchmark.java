@@ -0,0 +1,58 @@
+package com.ecomarketspa.Benchmark;
+
+import com.ecomarketspa.Assembler.ProductoModelAssembler;
+import com.ecomarketspa.Controller.ProductoController;
+import com.ecomarketspa.Model.Producto;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+// Compara armar 10k EntityModel con linkTo(methodOn(...)) por entidad contra las plantillas precompiladas.
+// Ejecutar con: mvn test -Pbenchmark -Dtest=ModelAssemblerBenchmark
+@Tag("benchmark")
+public class ModelAssemblerBenchmark {
+
+    private static final int MODELOS = 10_000;
+
+    @Test
+    void medirEnsamblado() {
+        List<Producto> productos = LongStream.rangeClosed(1, MODELOS).mapToObj(id -> {
+            Producto producto = new Producto();
+            producto.setId(id);
+            return producto;
+        }).toList();
+        ProductoModelAssembler assembler = new ProductoModelAssembler();
+
+        Cronometro.reportar("linkTo(methodOn) por entidad", MODELOS,
+                Cronometro.medirMicros(20, () -> enPeticion(() -> productos.stream().map(ModelAssemblerBenchmark::modeloOriginal).toList())));
+        Cronometro.reportar("plantillas precompiladas", MODELOS,
+                Cronometro.medirMicros(20, () -> enPeticion(() -> productos.stream().map(assembler::toModel).toList())));
+    }
+
+    // Implementación anterior de ProductoModelAssembler.toModel
+    private static EntityModel<Producto> modeloOriginal(Producto producto) {
+        return EntityModel.of(producto,
+                linkTo(methodOn(ProductoController.class).obtenerProductoPorId(producto.getId(), null)).withSelfRel(),
+                linkTo(methodOn(ProductoController.class).listarProductos(null)).withRel("productos"));
+    }
+
+    // Cada medición simula una petición nueva, como un GET del listado completo
+    private static <T> T enPeticion(Supplier<T> operacion) {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest("GET", "/api/productos")));
+        try {
+            return operacion.get();
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+}
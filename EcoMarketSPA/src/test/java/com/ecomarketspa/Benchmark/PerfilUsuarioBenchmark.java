@@ -0,0 +1,155 @@
+package com.ecomarketspa.Benchmark;
+
+import com.ecomarketspa.Index.ContadorPedidosUsuario;
+import com.ecomarketspa.Index.FiltroBloomCorreos;
+import com.ecomarketspa.Index.IndiceEstadosPedido;
+import com.ecomarketspa.Index.IndiceTrigramas;
+import com.ecomarketspa.Index.UsuariosConPedidosPendientes;
+import com.ecomarketspa.Model.Notificacion;
+import com.ecomarketspa.Model.Usuario;
+import com.ecomarketspa.Service.ArchivoPedidos;
+import com.ecomarketspa.Service.DespachoNotificaciones;
+import com.ecomarketspa.Service.FiltroCorreosService;
+import com.ecomarketspa.Service.NotificacionService;
+import com.ecomarketspa.Service.PedidoService;
+import com.ecomarketspa.Service.PerfilUsuarioService;
+import com.ecomarketspa.Service.SuscripcionesNotificaciones;
+import com.ecomarketspa.Service.UsuarioService;
+import com.ecomarketspa.Service.VentasDiariasService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+
+// Carga concurrente sobre el perfil de usuario: compara la latencia de las tres llamadas secuenciales que hacía
+// el frontend (usuario, pedidos del usuario y todas las notificaciones filtradas en el cliente) contra
+// PerfilUsuarioService. Ejecutar con: mvn test -Pbenchmark -Dtest=PerfilUsuarioBenchmark
+//
+// La diferencia no es solo por el paralelismo: la línea base carga todos los pedidos del usuario y la tabla
+// completa de notificaciones, mientras que el perfil trae los 10 pedidos más recientes por índice y solo las
+// notificaciones del usuario. Se usan el plazo, los permisos y el pool que trae la aplicación, y se informa
+// cuántos perfiles salieron incompletos: con 16 clientes x 4 secciones y 5 permisos parte de las secciones hace
+// fila, y un p99 bajo no sirve si fue a costa de devolver perfiles sin secciones.
+@Tag("benchmark")
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PerfilUsuarioService.class, UsuarioService.class, PedidoService.class, NotificacionService.class, DespachoNotificaciones.class, SuscripcionesNotificaciones.class, ArchivoPedidos.class,
+        ContadorPedidosUsuario.class, IndiceEstadosPedido.class, UsuariosConPedidosPendientes.class, IndiceTrigramas.class,
+        FiltroBloomCorreos.class, FiltroCorreosService.class, VentasDiariasService.class})
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:benchmark-perfil;DB_CLOSE_DELAY=-1")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class PerfilUsuarioBenchmark {
+
+    private static final int USUARIOS = 2_000;
+    private static final int PEDIDOS = 100_000;
+    private static final int NOTIFICACIONES = 20_000;
+    private static final int CLIENTES = 16;
+    private static final int SOLICITUDES_POR_CLIENTE = 100;
+
+    @Autowired
+    private PerfilUsuarioService perfilUsuarioService;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private NotificacionService notificacionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void medirLatencias() throws Exception {
+        poblar();
+        pedidoService.cargarContadorPedidos();
+
+        medir("tres llamadas secuenciales", usuarioId -> {
+            usuarioService.obtenerUsuarioPorId(usuarioId);
+            pedidoService.buscarPedidosPorUsuario(usuarioId);
+            List<Notificacion> propias = new ArrayList<>();
+            for (Notificacion notificacion : notificacionService.listarNotificaciones()) {
+                if (notificacion.getUsuario().getId() == usuarioId) {
+                    propias.add(notificacion);
+                }
+            }
+        });
+        AtomicInteger incompletos = new AtomicInteger();
+        medir("perfil en paralelo (hilos virtuales)", usuarioId -> perfilUsuarioService.obtenerPerfil(usuarioId)
+                .filter(perfil -> !perfil.incompletas().isEmpty())
+                .ifPresent(perfil -> incompletos.incrementAndGet()));
+        System.out.printf("[benchmark] %-40s %,d de %,d perfiles con secciones incompletas (incluye el calentamiento)%n",
+                "perfil en paralelo (hilos virtuales)", incompletos.get(), CLIENTES * SOLICITUDES_POR_CLIENTE + 20);
+    }
+
+    private void medir(String escenario, LongConsumer solicitud) throws Exception {
+        for (int i = 0; i < 20; i++) {
+            solicitud.accept(1L + i); // Calentamiento
+        }
+        long[] latencias = new long[CLIENTES * SOLICITUDES_POR_CLIENTE];
+        try (ExecutorService clientes = Executors.newFixedThreadPool(CLIENTES)) {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int c = 0; c < CLIENTES; c++) {
+                int cliente = c;
+                tareas.add(clientes.submit(() -> {
+                    for (int i = 0; i < SOLICITUDES_POR_CLIENTE; i++) {
+                        long usuarioId = 1 + ThreadLocalRandom.current().nextInt(USUARIOS);
+                        long inicio = System.nanoTime();
+                        solicitud.accept(usuarioId);
+                        latencias[cliente * SOLICITUDES_POR_CLIENTE + i] = System.nanoTime() - inicio;
+                    }
+                }));
+            }
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+        }
+        Cronometro.reportarPercentiles(escenario, latencias);
+    }
+
+    private void poblar() {
+        Random random = new Random(42);
+        List<Object[]> usuarios = new ArrayList<>(USUARIOS);
+        for (int i = 1; i <= USUARIOS; i++) {
+            usuarios.add(new Object[]{"Cliente " + i, "cliente" + i + "@example.com", "cliente" + i + "@example.com"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO usuario (nombre, correo, correo_norm) VALUES (?, ?, ?)", usuarios);
+        Long primero = jdbcTemplate.queryForObject("SELECT MIN(id) FROM usuario", Long.class);
+
+        List<Object[]> pedidos = new ArrayList<>(PEDIDOS);
+        long ahora = System.currentTimeMillis();
+        for (int i = 0; i < PEDIDOS; i++) {
+            pedidos.add(new Object[]{primero + random.nextInt(USUARIOS), new Timestamp(ahora - random.nextInt(1_000_000_000)),
+                    1 + random.nextInt(5), random.nextDouble() * 100});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO pedido (usuario_id, fecha, estado_codigo, total) VALUES (?, ?, ?, ?)", pedidos);
+
+        List<Object[]> notificaciones = new ArrayList<>(NOTIFICACIONES);
+        for (int i = 0; i < NOTIFICACIONES; i++) {
+            notificaciones.add(new Object[]{primero + random.nextInt(USUARIOS), "PEDIDO", "Tu pedido cambió de estado"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO notificacion (usuario_id, tipo, mensaje) VALUES (?, ?, ?)", notificaciones);
+        System.out.printf("[benchmark] datos: %,d usuarios, %,d pedidos, %,d notificaciones%n", USUARIOS, PEDIDOS, NOTIFICACIONES);
+    }
+}
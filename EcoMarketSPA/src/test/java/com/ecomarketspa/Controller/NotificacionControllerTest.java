@@ -1,8 +1,14 @@
 package com.ecomarketspa.Controller;
 
+import com.ecomarketspa.Dto.BandejaNotificaciones;
+import com.ecomarketspa.Dto.EstadoDifusion;
+import com.ecomarketspa.Dto.SolicitudDifusion;
+import com.ecomarketspa.Model.EstadoPedido;
 import com.ecomarketspa.Model.Notificacion;
 import com.ecomarketspa.Model.Usuario; // Necesitamos el modelo Usuario
+import com.ecomarketspa.Service.DifusionNotificacionService;
 import com.ecomarketspa.Service.NotificacionService;
+import com.ecomarketspa.Service.SuscripcionesNotificaciones;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -12,9 +18,12 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
@@ -32,6 +41,12 @@ public class NotificacionControllerTest {
     @MockBean // Mock de NotificacionService
     private NotificacionService notificacionService;
 
+    @MockBean
+    private DifusionNotificacionService difusionNotificacionService;
+
+    @MockBean
+    private SuscripcionesNotificaciones suscripcionesNotificaciones;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -162,5 +177,81 @@ public class NotificacionControllerTest {
                 .andExpect(jsonPath("$.mensaje").value("Tu factura vence mañana."))
                 .andExpect(jsonPath("$.usuario.id").value(usuario1.getId()));
     }
-}
 
+    @Test
+    @DisplayName("Test para iniciar una difusión - POST /api/notificaciones/difusiones")
+    void testIniciarDifusion() throws Exception {
+        SolicitudDifusion solicitud = new SolicitudDifusion("Email", "Tienes pedidos pendientes",
+                SolicitudDifusion.Segmento.PEDIDOS_EN_ESTADO, EstadoPedido.PENDIENTE, null);
+        when(difusionNotificacionService.iniciarDifusion(solicitud))
+                .thenReturn(new EstadoDifusion(7L, solicitud, EstadoDifusion.Situacion.EN_COLA, 0, 0, 0, null, null, null));
+
+        mockMvc.perform(post("/api/notificaciones/difusiones")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(solicitud)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "http://localhost/api/notificaciones/difusiones/7"))
+                .andExpect(jsonPath("$.id").value(7L))
+                .andExpect(jsonPath("$.situacion").value("EN_COLA"));
+    }
+
+    @Test
+    @DisplayName("Test para rechazar una difusión inválida - POST /api/notificaciones/difusiones")
+    void testIniciarDifusionInvalida() throws Exception {
+        when(difusionNotificacionService.iniciarDifusion(any(SolicitudDifusion.class)))
+                .thenThrow(new IllegalArgumentException("El segmento PEDIDOS_EN_ESTADO requiere un estado"));
+
+        mockMvc.perform(post("/api/notificaciones/difusiones")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"tipo\":\"Email\",\"mensaje\":\"Hola\",\"segmento\":\"PEDIDOS_EN_ESTADO\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Test para obtener la bandeja de un usuario - GET /api/notificaciones/usuario/{usuarioId}")
+    void testObtenerBandeja() throws Exception {
+        when(notificacionService.obtenerBandeja(10L, 50L, 100)).thenReturn(new BandejaNotificaciones(10L,
+                List.of(new BandejaNotificaciones.Entrada(2L, "Email", "Hola", false)), 1, 1L, null));
+
+        mockMvc.perform(get("/api/notificaciones/usuario/{usuarioId}", 10L)
+                        .param("antesDeId", "50")
+                        .param("tamano", "5000")) // Se acota al máximo
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.notificaciones[0].id").value(2L))
+                .andExpect(jsonPath("$.notificaciones[0].leida").value(false))
+                .andExpect(jsonPath("$.noLeidas").value(1))
+                .andExpect(jsonPath("$.siguienteCursor").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Test para marcar como leídas - POST /api/notificaciones/usuario/{usuarioId}/leidas")
+    void testMarcarLeidas() throws Exception {
+        when(notificacionService.marcarLeidas(10L, 7L)).thenReturn(7L);
+        when(notificacionService.contarNoLeidas(10L)).thenReturn(3L);
+
+        mockMvc.perform(post("/api/notificaciones/usuario/{usuarioId}/leidas", 10L).param("hastaId", "7"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ultimaLeidaId").value(7))
+                .andExpect(jsonPath("$.noLeidas").value(3));
+    }
+
+    @Test
+    @DisplayName("Test para suscribirse por SSE - GET /api/notificaciones/usuario/{usuarioId}/stream")
+    void testSuscribir() throws Exception {
+        when(suscripcionesNotificaciones.suscribir(10L, 7L)).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/api/notificaciones/usuario/{usuarioId}/stream", 10L)
+                        .header("Last-Event-ID", "7")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+    }
+
+    @Test
+    @DisplayName("Test para rechazar suscripciones con el nodo lleno - GET /api/notificaciones/usuario/{usuarioId}/stream")
+    void testSuscribirNodoLleno() throws Exception {
+        when(suscripcionesNotificaciones.suscribir(10L, null)).thenThrow(new RejectedExecutionException("lleno"));
+
+        mockMvc.perform(get("/api/notificaciones/usuario/{usuarioId}/stream", 10L))
+                .andExpect(status().isServiceUnavailable());
+    }
+}
@@ -1,5 +1,6 @@
 package com.ecomarketspa.Controller;
 
+import com.ecomarketspa.Model.EstadoPedido;
 import com.ecomarketspa.Model.Pedido;
 import com.ecomarketspa.Model.Usuario; // Necesitamos el modelo Usuario
 import com.ecomarketspa.Service.PedidoService;
@@ -51,14 +52,14 @@ public class PedidoControllerTest {
 
         pedido1 = new Pedido();
         pedido1.setId(1L);
-        pedido1.setEstado("Pendiente");
+        pedido1.setEstado(EstadoPedido.PENDIENTE);
         pedido1.setFecha(new Date());
         pedido1.setTotal(150.75);
         pedido1.setUsuario(usuario1); // Asociamos el usuario
 
         pedido2 = new Pedido();
         pedido2.setId(2L);
-        pedido2.setEstado("Completado");
+        pedido2.setEstado(EstadoPedido.ENTREGADO);
         pedido2.setFecha(new Date(System.currentTimeMillis() - 86400000)); // Un día antes
         pedido2.setTotal(25.00);
         pedido2.setUsuario(usuario1); // Asociamos el mismo usuario
@@ -73,7 +74,7 @@ public class PedidoControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.length()").value(2))
-                .andExpect(jsonPath("$[0].estado").value("Pendiente"))
+                .andExpect(jsonPath("$[0].estado").value("PENDIENTE"))
                 .andExpect(jsonPath("$[1].total").value(25.00));
         // Aquí no podemos verificar directamente el objeto Usuario anidado con jsonPath simple
         // Si necesitas verificar los detalles del usuario anidado, necesitarías .andExpect(jsonPath("$[0].usuario.id").value(10L))
@@ -89,7 +90,7 @@ public class PedidoControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.id").value(1L))
-                .andExpect(jsonPath("$.estado").value("Pendiente"))
+                .andExpect(jsonPath("$.estado").value("PENDIENTE"))
                 .andExpect(jsonPath("$.total").value(150.75))
                 .andExpect(jsonPath("$.usuario.id").value(usuario1.getId())); // Verificamos el ID del usuario asociado
     }
@@ -107,7 +108,7 @@ public class PedidoControllerTest {
     @DisplayName("Test para crear un nuevo pedido - POST /api/pedidos")
     void testGuardarPedido() throws Exception {
         Pedido nuevoPedido = new Pedido();
-        nuevoPedido.setEstado("Nuevo");
+        nuevoPedido.setEstado(EstadoPedido.PENDIENTE);
         nuevoPedido.setFecha(new Date());
         nuevoPedido.setTotal(50.00);
         nuevoPedido.setUsuario(usuario1); // Asociar el usuario mock
@@ -121,7 +122,7 @@ public class PedidoControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.id").value(1L))
-                .andExpect(jsonPath("$.estado").value("Pendiente")) // Coincide con el mock
+                .andExpect(jsonPath("$.estado").value("PENDIENTE")) // Coincide con el mock
                 .andExpect(jsonPath("$.usuario.id").value(usuario1.getId())); // Coincide con el mock
     }
 
@@ -150,7 +151,7 @@ public class PedidoControllerTest {
     void testActualizarPedido() throws Exception {
         Pedido pedidoActualizado = new Pedido();
         pedidoActualizado.setId(1L);
-        pedidoActualizado.setEstado("Enviado");
+        pedidoActualizado.setEstado(EstadoPedido.ENVIADO);
         pedidoActualizado.setFecha(new Date());
         pedidoActualizado.setTotal(160.00);
         pedidoActualizado.setUsuario(usuario1); // El mismo usuario asociado
@@ -164,7 +165,7 @@ public class PedidoControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.id").value(1L))
-                .andExpect(jsonPath("$.estado").value("Enviado"))
+                .andExpect(jsonPath("$.estado").value("ENVIADO"))
                 .andExpect(jsonPath("$.total").value(160.00))
                 .andExpect(jsonPath("$.usuario.id").value(usuario1.getId()));
     }
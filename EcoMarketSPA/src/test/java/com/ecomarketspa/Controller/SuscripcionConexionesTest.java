@@ -0,0 +1,73 @@
+package com.ecomarketspa.Controller;
+
+import com.ecomarketspa.Service.SuscripcionesNotificaciones;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Aplicación completa con open-in-view activo (el valor por defecto): las reconexiones SSE con Last-Event-ID
+// no deben retener conexiones del pool mientras la suscripción sigue abierta
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:sse-conexiones;DB_CLOSE_DELAY=-1",
+        "spring.datasource.hikari.maximum-pool-size=3",
+        "spring.datasource.hikari.connection-timeout=1000",
+        "ecomarket.notificaciones.sse.latido=1h"}) // Sin latidos: 'entregadas' cuenta solo las notificaciones perdidas
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+public class SuscripcionConexionesTest {
+
+    private static final int RECONEXIONES = 10; // Más que el pool
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private HikariDataSource dataSource;
+
+    @Autowired
+    private SuscripcionesNotificaciones suscripcionesNotificaciones;
+
+    @Test
+    @DisplayName("Test para seguir atendiendo peticiones con más reconexiones SSE que conexiones en el pool")
+    void testReconexionesNoRetienenConexiones() throws Exception {
+        jdbcTemplate.update("INSERT INTO usuario (nombre, correo, correo_norm) VALUES ('Ana', 'ana@example.com', 'ana@example.com')");
+        Long usuarioId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM usuario", Long.class);
+        jdbcTemplate.update("INSERT INTO notificacion (usuario_id, tipo, mensaje) VALUES (?, 'App', 'Pedido enviado')", usuarioId);
+
+        for (int i = 0; i < RECONEXIONES; i++) {
+            mockMvc.perform(get("/api/notificaciones/usuario/{usuarioId}/stream", usuarioId).header("Last-Event-ID", "0"))
+                    .andExpect(request().asyncStarted());
+        }
+        esperarHasta(() -> suscripcionesNotificaciones.estadisticas().get("entregadas") >= RECONEXIONES); // Una perdida cada una
+
+        assertEquals(RECONEXIONES, suscripcionesNotificaciones.estadisticas().get("suscriptores"));
+        assertEquals(0, dataSource.getHikariPoolMXBean().getActiveConnections(), "Las suscripciones abiertas no retienen conexiones");
+        mockMvc.perform(get("/api/usuarios/{id}", usuarioId)).andExpect(status().isOk());
+    }
+
+    private static void esperarHasta(BooleanSupplier condicion) {
+        long limite = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condicion.getAsBoolean()) {
+            assertTrue(System.nanoTime() < limite, "La condición no se cumplió a tiempo");
+            LockSupport.parkNanos(Duration.ofMillis(5).toNanos());
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.ecomarketspa.Controller;
 
 import com.ecomarketspa.Model.Usuario;
+import com.ecomarketspa.Service.PerfilUsuarioService;
 import com.ecomarketspa.Service.UsuarioService;
 import com.fasterxml.jackson.databind.ObjectMapper; // Para convertir objetos Java a JSON y viceversa
 import org.junit.jupiter.api.BeforeEach;
@@ -31,6 +32,9 @@ public class UsuarioControllerTest {
     @MockBean // Crea un mock del UsuarioService y lo inyecta en el contexto de Spring
     private UsuarioService usuarioService;
 
+    @MockBean
+    private PerfilUsuarioService perfilUsuarioService;
+
     @Autowired
     private ObjectMapper objectMapper; // Para convertir objetos Java a JSON y JSON a objetos Java
 
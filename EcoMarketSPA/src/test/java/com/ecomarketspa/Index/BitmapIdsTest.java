@@ -0,0 +1,61 @@
+package com.ecomarketspa.Index;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BitmapIdsTest {
+
+    @Test
+    @DisplayName("Test para agregar, quitar y consultar ids")
+    void testAgregarQuitarContiene() {
+        BitmapIds bitmap = new BitmapIds();
+
+        assertTrue(bitmap.agregar(5));
+        assertFalse(bitmap.agregar(5), "Un id repetido no se agrega dos veces");
+        assertTrue(bitmap.agregar(70_000)); // Otro bloque
+        assertTrue(bitmap.contiene(5));
+        assertFalse(bitmap.contiene(6));
+        assertEquals(2, bitmap.cardinalidad());
+
+        assertTrue(bitmap.quitar(5));
+        assertFalse(bitmap.quitar(5));
+        assertArrayEquals(new long[]{70_000}, bitmap.aArreglo());
+    }
+
+    @Test
+    @DisplayName("Test para coincidir con un TreeSet al pasar de arreglo a mapa de bits y de vuelta")
+    void testCoincideConTreeSet() {
+        BitmapIds bitmap = new BitmapIds();
+        TreeSet<Long> esperado = new TreeSet<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 50_000; i++) { // Bloques densos y dispersos, con ids sobre 2^32
+            long id = random.nextBoolean() ? random.nextInt(20_000) : (1L << 32) + random.nextInt(1_000_000);
+            assertEquals(esperado.add(id), bitmap.agregar(id));
+        }
+        for (int i = 0; i < 40_000; i++) {
+            long id = random.nextInt(20_000);
+            assertEquals(esperado.remove(id), bitmap.quitar(id));
+        }
+
+        assertEquals(esperado.size(), bitmap.cardinalidad());
+        assertArrayEquals(esperado.stream().mapToLong(Long::longValue).toArray(), bitmap.aArreglo());
+    }
+
+    @Test
+    @DisplayName("Test para guardar ids consecutivos en menos de un bit por id")
+    void testIdsConsecutivosCompactos() {
+        BitmapIds bitmap = new BitmapIds();
+        for (long id = 1; id <= 1_000_000; id++) {
+            bitmap.agregar(id);
+        }
+
+        assertEquals(1_000_000, bitmap.cardinalidad());
+        assertTrue(bitmap.bytesAproximados() <= 1_000_000 / 8 + 8192 * 2,
+                "Un millón de ids consecutivos debe ocupar del orden de 125 KB");
+    }
+}
@@ -0,0 +1,66 @@
+package com.ecomarketspa.Index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheCategoriasTest {
+
+    private CacheCategorias cacheCategorias;
+
+    @BeforeEach
+    void setUp() {
+        cacheCategorias = new CacheCategorias(2);
+    }
+
+    @Test
+    @DisplayName("Test para contar aciertos y fallos")
+    void testAciertosYFallos() {
+        assertNull(cacheCategorias.obtener("Accesorios"));
+        cacheCategorias.guardar("Accesorios", new long[]{3L, 1L}, cacheCategorias.generacionActual());
+
+        assertArrayEquals(new long[]{1L, 3L}, cacheCategorias.obtener("Accesorios"), "Los ids se guardan ordenados");
+        assertEquals(1L, cacheCategorias.estadisticas().get("aciertos"));
+        assertEquals(1L, cacheCategorias.estadisticas().get("fallos"));
+    }
+
+    @Test
+    @DisplayName("Test para desalojar la categoría menos usada al superar la capacidad")
+    void testDesalojoLru() {
+        cacheCategorias.guardar("A", new long[]{1L}, cacheCategorias.generacionActual());
+        cacheCategorias.guardar("B", new long[]{2L}, cacheCategorias.generacionActual());
+        cacheCategorias.obtener("A"); // "B" queda como la menos usada
+        cacheCategorias.guardar("C", new long[]{3L}, cacheCategorias.generacionActual());
+
+        assertNotNull(cacheCategorias.obtener("A"));
+        assertNull(cacheCategorias.obtener("B"));
+        assertNotNull(cacheCategorias.obtener("C"));
+        assertEquals(1L, cacheCategorias.estadisticas().get("desalojos"));
+        assertEquals(2L, cacheCategorias.estadisticas().get("entradas"));
+    }
+
+    @Test
+    @DisplayName("Test para invalidar la categoría anterior cuando un producto cambia de categoría")
+    void testInvalidarProductoMovido() {
+        cacheCategorias.guardar("Accesorios", new long[]{1L, 2L}, cacheCategorias.generacionActual());
+        cacheCategorias.guardar("Hogar", new long[]{5L}, cacheCategorias.generacionActual());
+
+        // El producto 2 pasa de "Accesorios" a "Cuidado Personal"
+        cacheCategorias.invalidarProducto(2L, "Cuidado Personal");
+
+        assertNull(cacheCategorias.obtener("Accesorios"), "La categoría de origen debe invalidarse");
+        assertNotNull(cacheCategorias.obtener("Hogar"), "Las demás categorías se conservan");
+    }
+
+    @Test
+    @DisplayName("Test para no guardar resultados leídos antes de una invalidación")
+    void testNoGuardarResultadoObsoleto() {
+        long generacion = cacheCategorias.generacionActual();
+        cacheCategorias.invalidarProducto(7L, "Accesorios"); // Escritura concurrente con la lectura
+        cacheCategorias.guardar("Accesorios", new long[]{1L}, generacion);
+
+        assertNull(cacheCategorias.obtener("Accesorios"));
+    }
+}
@@ -0,0 +1,61 @@
+package com.ecomarketspa.Index;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheIdempotenciaTest {
+
+    @Test
+    @DisplayName("Test para recuperar el pedido asociado a una clave")
+    void testGuardarYObtener() {
+        CacheIdempotencia cache = new CacheIdempotencia(10, Duration.ofHours(1));
+        cache.guardar("clave-1", 42L);
+
+        assertEquals(42L, cache.obtener("clave-1"));
+        assertNull(cache.obtener("clave-2"));
+    }
+
+    @Test
+    @DisplayName("Test para descartar las claves vencidas")
+    void testClaveVencida() {
+        CacheIdempotencia cache = new CacheIdempotencia(10, Duration.ZERO);
+        cache.guardar("clave-1", 42L);
+
+        assertNull(cache.obtener("clave-1"));
+        assertEquals(0, cache.tamano());
+    }
+
+    @Test
+    @DisplayName("Test para vencer una clave leída de la base cuando vence su registro y no un TTL después")
+    void testVencimientoDesdeLaFechaDelRegistro() {
+        CacheIdempotencia cache = new CacheIdempotencia(10, Duration.ofHours(1));
+        long ahora = System.currentTimeMillis();
+        cache.guardar("vencida", 1L, new Date(ahora - Duration.ofMinutes(61).toMillis()));
+        cache.guardar("vigente", 2L, new Date(ahora - Duration.ofMinutes(59).toMillis()));
+
+        assertNull(cache.obtener("vencida"), "Creada hace más de un TTL");
+        assertEquals(2L, cache.obtener("vigente"));
+    }
+
+    @Test
+    @DisplayName("Test para no superar la capacidad configurada")
+    void testCapacidadAcotada() {
+        CacheIdempotencia cache = new CacheIdempotencia(100, Duration.ofHours(1));
+        for (long i = 0; i < 1_000; i++) {
+            cache.guardar("clave-" + i, i);
+        }
+
+        assertTrue(cache.tamano() <= 100, "La caché no debe crecer por sobre su capacidad");
+    }
+
+    @Test
+    @DisplayName("Test para rechazar una capacidad no positiva")
+    void testCapacidadInvalida() {
+        assertThrows(IllegalArgumentException.class, () -> new CacheIdempotencia(0, Duration.ofHours(1)));
+    }
+}
@@ -0,0 +1,82 @@
+package com.ecomarketspa.Index;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ContadorPedidosUsuarioTest {
+
+    @Test
+    @DisplayName("Test para devolver null hasta cargar y luego sumar los cambios")
+    void testObtener() {
+        ContadorPedidosUsuario contador = new ContadorPedidosUsuario();
+        assertNull(contador.obtener(1L), "Sin cargar el servicio consulta la base de datos");
+
+        assertTrue(contador.cargar(() -> Map.of(1L, 3L)));
+        contador.registrarCambio(1L, 1);
+        contador.registrarCambio(2L, 1);
+
+        assertEquals(4L, contador.obtener(1L));
+        assertEquals(1L, contador.obtener(2L));
+        assertEquals(0L, contador.obtener(3L));
+    }
+
+    @Test
+    @DisplayName("Test para no contar dos veces un pedido cuyo commit llega mientras corre la consulta")
+    void testCargarConCambioEnVuelo() {
+        ContadorPedidosUsuario contador = new ContadorPedidosUsuario();
+        AtomicInteger consultas = new AtomicInteger();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            contador.registrarCambio(5L, 1); // Pedido creado en una transacción que todavía no confirma
+
+            contador.cargar(() -> {
+                if (consultas.incrementAndGet() == 1) {
+                    confirmar(); // El commit llega antes de que la consulta tome su foto
+                }
+                return Map.of(5L, 1L);
+            });
+        } finally {
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        }
+
+        assertEquals(2, consultas.get(), "Con un cambio en vuelo la primera consulta se descarta");
+        assertEquals(1L, contador.obtener(5L));
+    }
+
+    @Test
+    @DisplayName("Test para no aplicar los cambios de una transacción revertida")
+    void testRollback() {
+        ContadorPedidosUsuario contador = new ContadorPedidosUsuario();
+        contador.cargar(Map::of);
+        TransactionSynchronizationManager.initSynchronization();
+        List<TransactionSynchronization> sincronizaciones;
+        try {
+            contador.registrarCambio(1L, 1);
+            sincronizaciones = TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        sincronizaciones.forEach(sincronizacion -> sincronizacion.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertEquals(0L, contador.obtener(1L));
+        assertTrue(contador.cargar(() -> Map.of(1L, 2L)), "Sin cambios en vuelo la carga converge al primer intento");
+        assertEquals(2L, contador.obtener(1L));
+    }
+
+    private static void confirmar() {
+        List<TransactionSynchronization> sincronizaciones = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        sincronizaciones.forEach(TransactionSynchronization::afterCommit);
+        sincronizaciones.forEach(sincronizacion -> sincronizacion.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    }
+}
@@ -0,0 +1,65 @@
+package com.ecomarketspa.Index;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FiltroBloomCorreosTest {
+
+    @Test
+    @DisplayName("Test para considerar que todo puede existir antes de la primera reconstrucción")
+    void testSinReconstruir() {
+        FiltroBloomCorreos filtro = new FiltroBloomCorreos(0.01);
+        assertFalse(filtro.estaCargado());
+        assertTrue(filtro.puedeExistir("cualquiera@example.com"));
+    }
+
+    @Test
+    @DisplayName("Test para no dar falsos negativos y mantener los falsos positivos cerca de lo configurado")
+    void testFalsosPositivos() {
+        FiltroBloomCorreos filtro = new FiltroBloomCorreos(0.01);
+        filtro.reconstruir(10_000, registrar -> {
+            for (int i = 0; i < 10_000; i++) {
+                registrar.accept("cliente" + i + "@example.com");
+            }
+        });
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filtro.puedeExistir("cliente" + i + "@example.com"));
+        }
+        int falsosPositivos = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filtro.puedeExistir("otro" + i + "@example.com")) {
+                falsosPositivos++;
+            }
+        }
+        assertTrue(falsosPositivos < 2_000, "Falsos positivos: " + falsosPositivos);
+    }
+
+    @Test
+    @DisplayName("Test para conservar las altas que llegan mientras corre una reconstrucción")
+    void testAltasDuranteReconstruccion() {
+        FiltroBloomCorreos filtro = new FiltroBloomCorreos(0.01);
+        filtro.reconstruir(10, registrar -> {
+            registrar.accept("ana@example.com");
+            filtro.agregar("luis@example.com");
+        });
+
+        assertTrue(filtro.puedeExistir("ana@example.com"));
+        assertTrue(filtro.puedeExistir("luis@example.com"));
+        assertFalse(filtro.estaSaturado());
+    }
+
+    @Test
+    @DisplayName("Test para avisar que el filtro se saturó cuando se agregan más correos que su capacidad")
+    void testSaturado() {
+        FiltroBloomCorreos filtro = new FiltroBloomCorreos(0.01);
+        filtro.reconstruir(0, registrar -> {
+        });
+        for (int i = 0; i <= 1024; i++) {
+            filtro.agregar("nuevo" + i + "@example.com");
+        }
+        assertTrue(filtro.estaSaturado());
+    }
+}
@@ -0,0 +1,66 @@
+package com.ecomarketspa.Index;
+
+import com.ecomarketspa.Model.EstadoPedido;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IndiceEstadosPedidoTest {
+
+    private final IndiceEstadosPedido indice = new IndiceEstadosPedido();
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Test para mover un pedido entre estados y quitarlo al eliminarlo")
+    void testMoverYEliminar() {
+        indice.registrarCambio(1L, EstadoPedido.PENDIENTE);
+        indice.registrarCambio(2L, EstadoPedido.PENDIENTE);
+        indice.registrarCambio(1L, EstadoPedido.ENVIADO);
+
+        assertArrayEquals(new long[]{2L}, indice.pedidosEn(EstadoPedido.PENDIENTE));
+        assertEquals(1, indice.contar(EstadoPedido.ENVIADO));
+
+        indice.registrarCambio(1L, null);
+        assertEquals(0, indice.contar(EstadoPedido.ENVIADO));
+    }
+
+    @Test
+    @DisplayName("Test para aplicar los cambios recién después del commit")
+    void testAplicarDespuesDelCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        indice.registrarCambio(1L, EstadoPedido.PENDIENTE);
+        assertEquals(0, indice.contar(EstadoPedido.PENDIENTE));
+
+        for (TransactionSynchronization sincronizacion : TransactionSynchronizationManager.getSynchronizations()) {
+            sincronizacion.afterCommit();
+        }
+        assertEquals(1, indice.contar(EstadoPedido.PENDIENTE));
+    }
+
+    @Test
+    @DisplayName("Test para conservar los cambios confirmados mientras corre la carga")
+    void testCargaConCambiosConcurrentes() {
+        indice.registrarCambio(9L, EstadoPedido.CANCELADO); // Anterior a la carga: la carga lo reemplaza
+        indice.cargar(registrar -> {
+            registrar.accept(1L, EstadoPedido.PENDIENTE);
+            registrar.accept(2L, EstadoPedido.PENDIENTE);
+            indice.registrarCambio(2L, EstadoPedido.ENTREGADO); // Se confirma mientras se recorre la tabla
+            indice.registrarCambio(3L, EstadoPedido.PENDIENTE);
+        });
+
+        assertTrue(indice.estaCargado());
+        assertArrayEquals(new long[]{1L, 3L}, indice.pedidosEn(EstadoPedido.PENDIENTE));
+        assertArrayEquals(new long[]{2L}, indice.pedidosEn(EstadoPedido.ENTREGADO));
+        assertEquals(0, indice.contar(EstadoPedido.CANCELADO));
+    }
+}
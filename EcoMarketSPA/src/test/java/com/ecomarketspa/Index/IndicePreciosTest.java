@@ -0,0 +1,67 @@
+package com.ecomarketspa.Index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IndicePreciosTest {
+
+    private IndicePrecios indicePrecios;
+
+    @BeforeEach
+    void setUp() {
+        indicePrecios = new IndicePrecios();
+        indicePrecios.cargar(new long[]{1L, 2L, 3L, 4L}, new double[]{12.50, 5.99, 30.00, 5.99});
+    }
+
+    @Test
+    @DisplayName("Test para buscar ids dentro de un rango de precio")
+    void testBuscarEntre() {
+        assertTrue(indicePrecios.estaCargado());
+        assertArrayEquals(new long[]{2L, 4L, 1L}, indicePrecios.buscarEntre(5.99, 12.50), "Los límites del rango son inclusivos");
+        assertArrayEquals(new long[]{3L}, indicePrecios.buscarEntre(13.0, 100.0));
+        assertArrayEquals(new long[0], indicePrecios.buscarEntre(100.0, 200.0), "Un rango sin productos devuelve un arreglo vacío");
+        assertArrayEquals(new long[0], indicePrecios.buscarEntre(20.0, 10.0), "Un rango invertido devuelve un arreglo vacío");
+    }
+
+    @Test
+    @DisplayName("Test para actualizar el precio de un producto existente y agregar uno nuevo")
+    void testActualizar() {
+        indicePrecios.actualizar(3L, 1.00); // Se mueve al inicio
+        indicePrecios.actualizar(5L, 8.00); // Producto nuevo
+
+        assertEquals(5, indicePrecios.tamano());
+        assertArrayEquals(new long[]{3L, 2L, 4L, 5L, 1L}, indicePrecios.buscarEntre(0.0, 100.0));
+    }
+
+    @Test
+    @DisplayName("Test para actualizar varios productos en un solo lote")
+    void testActualizarLote() {
+        indicePrecios.actualizarLote(new long[]{1L, 6L, 5L}, new double[]{3.00, 20.00, 8.00});
+
+        assertEquals(6, indicePrecios.tamano());
+        assertArrayEquals(new long[]{1L, 2L, 4L, 5L, 6L, 3L}, indicePrecios.buscarEntre(0.0, 100.0));
+    }
+
+    @Test
+    @DisplayName("Test para eliminar un producto del índice")
+    void testEliminar() {
+        indicePrecios.eliminar(2L);
+        indicePrecios.eliminar(99L); // Un id inexistente no cambia nada
+
+        assertEquals(3, indicePrecios.tamano());
+        assertArrayEquals(new long[]{4L, 1L}, indicePrecios.buscarEntre(0.0, 20.0));
+    }
+
+    @Test
+    @DisplayName("Test para verificar que una búsqueda en curso no ve escrituras posteriores")
+    void testLecturaSobreInstantanea() {
+        long[] antes = indicePrecios.buscarEntre(0.0, 100.0);
+        indicePrecios.eliminar(1L);
+
+        assertEquals(4, antes.length, "El resultado ya entregado no debe cambiar tras una escritura");
+        assertEquals(3, indicePrecios.buscarEntre(0.0, 100.0).length);
+    }
+}
@@ -0,0 +1,130 @@
+package com.ecomarketspa.Index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IndiceTextoTest {
+
+    private IndiceTexto indiceTexto;
+
+    @BeforeEach
+    void setUp() {
+        indiceTexto = new IndiceTexto();
+        indiceTexto.indexar(1L, "Jabón Artesanal", "Jabón hecho a mano con ingredientes naturales.");
+        indiceTexto.indexar(2L, "Bolsa de Tela Reutilizable", "Bolsa ecológica de algodón orgánico.");
+        indiceTexto.indexar(3L, "Champú Sólido", "Alternativa al jabón líquido, sin envase plástico.");
+    }
+
+    @Test
+    @DisplayName("Test para tokenizar ignorando mayúsculas, tildes y palabras vacías")
+    void testTokenizar() {
+        assertEquals(List.of("jabon", "algodon", "organico"), IndiceTexto.tokenizar("Jabón de ALGODÓN orgánico"));
+        assertTrue(IndiceTexto.tokenizar("   ").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test para buscar sin importar tildes y ordenar por relevancia")
+    void testBuscarConRanking() {
+        // "jabon" aparece en el nombre del producto 1 y solo en la descripción del 3
+        assertEquals(List.of(1L, 3L), indiceTexto.buscar("JABON", 10));
+        assertEquals(List.of(2L), indiceTexto.buscar("algodón", 10));
+    }
+
+    @Test
+    @DisplayName("Test para completar la última palabra como prefijo")
+    void testBuscarPorPrefijo() {
+        assertEquals(List.of(2L), indiceTexto.buscar("bolsa reutil", 10));
+        assertEquals(List.of(3L), indiceTexto.buscar("cham", 10));
+        assertTrue(indiceTexto.buscar("reutil bolsa", 10).isEmpty(), "Solo la última palabra se completa como prefijo");
+    }
+
+    @Test
+    @DisplayName("Test para encontrar productos de un prefijo que se expande a más términos que el máximo puntuado")
+    void testBuscarPorPrefijoConMuchasExpansiones() {
+        for (long id = 100; id < 300; id++) {
+            indiceTexto.indexar(id, "Vela aroma" + id, null); // 200 términos distintos con el prefijo "aroma"
+        }
+
+        List<Long> encontrados = indiceTexto.buscar("vela aroma", 500);
+
+        assertEquals(200, encontrados.size(), "Ningún producto queda fuera por pasar del máximo de expansiones");
+        assertTrue(encontrados.contains(299L));
+        assertEquals(List.of(299L), indiceTexto.buscar("vela aroma299", 10));
+    }
+
+    @Test
+    @DisplayName("Test para indexar varios productos en un solo lote")
+    void testIndexarLote() {
+        indiceTexto.indexarLote(
+                new long[]{4L, 2L, 4L},
+                new String[]{"Cepillo de Bambú", "Bolsa de Yute", "Cepillo Dental de Bambú"},
+                new String[]{null, "Bolsa resistente.", "Mango compostable."});
+
+        assertEquals(List.of(4L), indiceTexto.buscar("dental bambu", 10), "Para un id repetido vale la última fila del lote");
+        assertEquals(List.of(), indiceTexto.buscar("reutilizable", 10), "El producto 2 se reemplaza completo");
+        assertEquals(List.of(2L), indiceTexto.buscar("yute", 10));
+        assertEquals(List.of(1L), indiceTexto.buscar("artesanal", 10), "Los productos fuera del lote no cambian");
+    }
+
+    @Test
+    @DisplayName("Test para actualizar y eliminar productos del índice")
+    void testActualizarYEliminar() {
+        indiceTexto.indexar(2L, "Bolsa de Yute", "Bolsa resistente.");
+        indiceTexto.eliminar(3L);
+
+        assertTrue(indiceTexto.buscar("algodon", 10).isEmpty(), "La descripción anterior ya no debe encontrarse");
+        assertEquals(List.of(2L), indiceTexto.buscar("yute", 10));
+        assertEquals(List.of(1L), indiceTexto.buscar("jabon", 10));
+        assertEquals(2, indiceTexto.tamano());
+    }
+
+    @Test
+    @DisplayName("Test para respetar el límite de resultados")
+    void testLimite() {
+        assertEquals(List.of(1L), indiceTexto.buscar("jabon", 1));
+        assertTrue(indiceTexto.buscar("jabon", 0).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test para reconstruir el índice sin perder escrituras concurrentes")
+    void testReconstruccion() {
+        IndiceTexto.Reconstruccion reconstruccion = indiceTexto.iniciarReconstruccion();
+        reconstruccion.agregar(1L, "Jabón Artesanal", "Jabón hecho a mano.");
+        reconstruccion.agregar(2L, "Bolsa de Tela", "Bolsa de algodón.");
+
+        // Escrituras que llegan mientras la reconstrucción está en curso
+        indiceTexto.indexar(4L, "Cepillo de Bambú", "Biodegradable.");
+        indiceTexto.eliminar(2L);
+
+        assertEquals(List.of(3L), indiceTexto.buscar("champu", 10), "Antes de publicar se sigue usando el índice anterior");
+
+        reconstruccion.publicar();
+
+        assertTrue(indiceTexto.buscar("champu", 10).isEmpty(), "El producto 3 no estaba en la reconstrucción");
+        assertTrue(indiceTexto.buscar("bolsa", 10).isEmpty(), "La eliminación concurrente se conserva");
+        assertEquals(List.of(4L), indiceTexto.buscar("bambu", 10));
+        assertEquals(List.of(1L), indiceTexto.buscar("jab", 10));
+    }
+
+    @Test
+    @DisplayName("Test para descartar una reconstrucción fallida sin seguir acumulando escrituras")
+    void testDescartarReconstruccion() {
+        IndiceTexto.Reconstruccion reconstruccion = indiceTexto.iniciarReconstruccion();
+        reconstruccion.agregar(1L, "Jabón Artesanal", "Jabón hecho a mano.");
+        indiceTexto.indexar(4L, "Cepillo de Bambú", "Biodegradable.");
+
+        reconstruccion.descartar();
+        indiceTexto.indexar(5L, "Botella Reutilizable", "Acero.");
+
+        assertNull(ReflectionTestUtils.getField(indiceTexto, "cambiosPendientes"), "Las escrituras ya no se acumulan");
+        assertEquals(List.of(3L), indiceTexto.buscar("champu", 10), "El índice anterior sigue vigente");
+        assertEquals(List.of(4L), indiceTexto.buscar("bambu", 10));
+        assertEquals(List.of(5L), indiceTexto.buscar("botella", 10));
+    }
+}
@@ -0,0 +1,90 @@
+package com.ecomarketspa.Index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IndiceTrigramasTest {
+
+    private IndiceTrigramas indice;
+
+    @BeforeEach
+    void setUp() {
+        indice = new IndiceTrigramas();
+        indice.indexar(1L, "José Pérez", "jose.perez@example.com");
+        indice.indexar(2L, "María López", "maria.lopez@ejemplo.cl");
+        indice.indexar(3L, "Josefina Abcxbcd", "josefina@example.com");
+    }
+
+    @Test
+    @DisplayName("Test para buscar subcadenas sin importar mayúsculas ni tildes")
+    void testBuscarSubcadena() {
+        assertArrayEquals(new long[]{1L, 3L}, indice.buscarPorNombre("JOSE"));
+        assertArrayEquals(new long[]{2L}, indice.buscarPorNombre("ría ló"));
+        assertArrayEquals(new long[]{1L, 3L}, indice.buscarPorCorreo("@example."));
+        assertArrayEquals(new long[0], indice.buscarPorCorreo("gmail"));
+    }
+
+    @Test
+    @DisplayName("Test para descartar candidatos que tienen todos los trigramas pero no la subcadena")
+    void testVerificarCandidatos() {
+        // "abcxbcd" contiene "abc" y "bcd", los dos trigramas de "abcd", pero no "abcd"
+        assertArrayEquals(new long[0], indice.buscarPorNombre("abcd"));
+        assertArrayEquals(new long[]{3L}, indice.buscarPorNombre("bcd"));
+    }
+
+    @Test
+    @DisplayName("Test para normalizar igual sin importar el idioma del sistema")
+    void testIdiomaDelSistema() {
+        Locale original = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr")); // En turco "I" pasa a "ı" sin punto
+        try {
+            indice.indexar(4L, "IRIS DIAZ", "IRIS@EXAMPLE.COM");
+            assertArrayEquals(new long[]{4L}, indice.buscarPorNombre("iris"));
+            assertArrayEquals(new long[]{4L}, indice.buscarPorCorreo("iris@"));
+        } finally {
+            Locale.setDefault(original);
+        }
+    }
+
+    @Test
+    @DisplayName("Test para consultas de menos de tres caracteres")
+    void testConsultaCorta() {
+        assertArrayEquals(new long[]{1L, 2L}, indice.buscarPorNombre("ez"));
+        assertArrayEquals(new long[]{1L, 2L, 3L}, indice.buscarPorCorreo(""));
+    }
+
+    @Test
+    @DisplayName("Test para actualizar y eliminar usuarios del índice")
+    void testActualizarYEliminar() {
+        indice.indexar(1L, "Pedro Gómez", null);
+        indice.eliminar(2L);
+
+        assertArrayEquals(new long[]{3L}, indice.buscarPorNombre("jose"));
+        assertArrayEquals(new long[]{1L}, indice.buscarPorNombre("gomez"));
+        assertArrayEquals(new long[0], indice.buscarPorCorreo("perez"), "Un correo null deja de encontrarse");
+        assertArrayEquals(new long[0], indice.buscarPorNombre("maria"));
+        assertEquals(2, indice.tamano());
+    }
+
+    @Test
+    @DisplayName("Test para cargar el índice sin perder los cambios que llegan durante la carga")
+    void testCargar() {
+        assertFalse(indice.estaCargado());
+        indice.cargar(registrar -> {
+            registrar.accept(new IndiceTrigramas.Registro(10L, "Ana Ruiz", "ana@example.com", false));
+            registrar.accept(new IndiceTrigramas.Registro(11L, "Luis Díaz", "luis@example.com", false));
+            indice.indexar(12L, "Ana Torres", "ana.torres@example.com"); // Llega mientras corre la carga
+            indice.eliminar(11L);
+        });
+
+        assertTrue(indice.estaCargado());
+        assertArrayEquals(new long[]{10L, 12L}, indice.buscarPorNombre("ana"));
+        assertArrayEquals(new long[0], indice.buscarPorNombre("diaz"));
+        assertArrayEquals(new long[0], indice.buscarPorNombre("jose"), "La carga reemplaza el contenido anterior");
+    }
+}
@@ -0,0 +1,82 @@
+package com.ecomarketspa.Index;
+
+import com.ecomarketspa.Model.EstadoPedido;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SegmentoPedidosTest {
+
+    @TempDir
+    Path directorio;
+
+    private static final List<SegmentoPedidos.Fila> FILAS = List.of(
+            new SegmentoPedidos.Fila(3, 1_000, 10.5, 7, EstadoPedido.ENTREGADO),
+            new SegmentoPedidos.Fila(5, 2_000, 20.0, 8, EstadoPedido.CANCELADO),
+            new SegmentoPedidos.Fila(9, 3_000, 30.0, 7, EstadoPedido.ENTREGADO));
+
+    @Test
+    @DisplayName("Test para leer de vuelta las filas escritas en un segmento")
+    void testEscribirYLeer() throws IOException {
+        SegmentoPedidos segmento = escribir(FILAS);
+
+        assertEquals(3, segmento.filas());
+        assertEquals(3, segmento.idMinimo());
+        assertEquals(9, segmento.idMaximo());
+        assertEquals(FILAS.get(1), segmento.fila(1));
+        assertEquals(FILAS.get(2), segmento.buscar(9));
+        assertNull(segmento.buscar(4));
+        assertNull(segmento.buscar(100));
+    }
+
+    @Test
+    @DisplayName("Test para filtrar por usuario, estado y fecha y contar sin recorrer las filas")
+    void testFiltrosYConteos() throws IOException {
+        SegmentoPedidos segmento = escribir(FILAS);
+
+        assertEquals(List.of(FILAS.get(0), FILAS.get(2)), filtrar(consumidor -> segmento.filtrarPorUsuario(7, consumidor)));
+        assertEquals(List.of(FILAS.get(1)), filtrar(consumidor -> segmento.filtrarPorEstado(EstadoPedido.CANCELADO, consumidor)));
+        assertTrue(filtrar(consumidor -> segmento.filtrarPorEstado(EstadoPedido.PENDIENTE, consumidor)).isEmpty());
+        assertEquals(List.of(FILAS.get(1), FILAS.get(2)), filtrar(consumidor -> segmento.filtrarPorFecha(1_500, 3_000, consumidor)));
+
+        assertEquals(2, segmento.contarPorEstado(EstadoPedido.ENTREGADO));
+        assertEquals(0, segmento.contarPorEstado(EstadoPedido.ENVIADO));
+        Map<Long, Long> porUsuario = new HashMap<>();
+        segmento.contarPorUsuario(porUsuario);
+        assertEquals(Map.of(7L, 2L, 8L, 1L), porUsuario);
+    }
+
+    @Test
+    @DisplayName("Test para rechazar filas desordenadas y archivos que no son segmentos")
+    void testValidaciones() throws IOException {
+        List<SegmentoPedidos.Fila> desordenadas = new ArrayList<>(FILAS);
+        desordenadas.add(FILAS.get(0));
+        assertThrows(IllegalArgumentException.class, () -> escribir(desordenadas));
+
+        Path otro = directorio.resolve("otro.seg");
+        Files.write(otro, new byte[64]);
+        assertThrows(IOException.class, () -> SegmentoPedidos.abrir(otro));
+    }
+
+    private SegmentoPedidos escribir(List<SegmentoPedidos.Fila> filas) throws IOException {
+        Path archivo = directorio.resolve("segmento-" + System.nanoTime() + ".seg");
+        SegmentoPedidos.escribir(archivo, filas);
+        return SegmentoPedidos.abrir(archivo);
+    }
+
+    private static List<SegmentoPedidos.Fila> filtrar(java.util.function.Consumer<java.util.function.Consumer<SegmentoPedidos.Fila>> filtro) {
+        List<SegmentoPedidos.Fila> filas = new ArrayList<>();
+        filtro.accept(filas::add);
+        return filas;
+    }
+}
@@ -0,0 +1,105 @@
+package com.ecomarketspa.Index;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UsuariosConPedidosPendientesTest {
+
+    @Test
+    @DisplayName("Test para mantener en el conjunto solo a los usuarios con pedidos pendientes")
+    void testRegistrarCambios() {
+        UsuariosConPedidosPendientes usuarios = new UsuariosConPedidosPendientes();
+        usuarios.registrarCambio(1L, 1);
+        usuarios.registrarCambio(1L, 1);
+        usuarios.registrarCambio(2L, 1);
+        usuarios.registrarCambio(null, 1);
+
+        usuarios.registrarCambio(1L, -1);
+        usuarios.registrarCambio(2L, -1);
+
+        assertArrayEquals(new long[]{1L}, usuarios.usuarioIds());
+        assertTrue(usuarios.contiene(1L));
+        assertFalse(usuarios.contiene(2L), "Al llegar a cero sale del conjunto");
+    }
+
+    @Test
+    @DisplayName("Test para repetir la consulta agrupada si se registran cambios mientras corre")
+    void testCargar() {
+        UsuariosConPedidosPendientes usuarios = new UsuariosConPedidosPendientes();
+        usuarios.registrarCambio(9L, 1); // Anterior a la carga: la consulta lo reemplaza
+        assertFalse(usuarios.estaCargado());
+        AtomicInteger consultas = new AtomicInteger();
+
+        boolean cargado = usuarios.cargar(() -> {
+            if (consultas.incrementAndGet() == 1) {
+                usuarios.registrarCambio(3L, 1); // Confirmado mientras corre la primera consulta
+                usuarios.registrarCambio(1L, -1);
+                return Map.of(1L, 1L, 2L, 4L);
+            }
+            return Map.of(2L, 4L, 3L, 1L); // La segunda ya los incluye
+        });
+
+        assertTrue(cargado);
+        assertTrue(usuarios.estaCargado());
+        assertEquals(2, consultas.get());
+        assertArrayEquals(new long[]{2L, 3L}, usuarios.usuarioIds());
+        assertEquals(2, usuarios.tamano());
+    }
+
+    @Test
+    @DisplayName("Test para no contar dos veces un pedido cuyo commit llega mientras corre la consulta")
+    void testCargarConCambioEnVuelo() {
+        UsuariosConPedidosPendientes usuarios = new UsuariosConPedidosPendientes();
+        AtomicInteger consultas = new AtomicInteger();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            usuarios.registrarCambio(5L, 1); // Pedido pendiente en una transacción que todavía no confirma
+
+            usuarios.cargar(() -> {
+                if (consultas.incrementAndGet() == 1) {
+                    confirmar(); // El commit llega antes de que la consulta tome su foto
+                }
+                return Map.of(5L, 1L);
+            });
+        } finally {
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        }
+
+        assertEquals(2, consultas.get(), "Con un cambio en vuelo la primera consulta se descarta");
+        assertTrue(usuarios.contiene(5L));
+        usuarios.registrarCambio(5L, -1);
+        assertFalse(usuarios.contiene(5L), "El pedido quedó contado una sola vez");
+    }
+
+    @Test
+    @DisplayName("Test para dejar el conjunto como estaba si la consulta siempre se cruza con cambios")
+    void testCargarSinConverger() {
+        UsuariosConPedidosPendientes usuarios = new UsuariosConPedidosPendientes();
+
+        boolean cargado = usuarios.cargar(() -> {
+            usuarios.registrarCambio(1L, 1);
+            return Map.of(1L, 1L);
+        });
+
+        assertFalse(cargado);
+        assertFalse(usuarios.estaCargado());
+    }
+
+    private static void confirmar() {
+        List<TransactionSynchronization> sincronizaciones = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        sincronizaciones.forEach(TransactionSynchronization::afterCommit);
+        sincronizaciones.forEach(sincronizacion -> sincronizacion.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    }
+}
@@ -0,0 +1,49 @@
+package com.ecomarketspa.Index;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VersionCatalogoTest {
+
+    private VersionCatalogo versionCatalogo;
+
+    @BeforeEach
+    void setUp() {
+        versionCatalogo = new VersionCatalogo();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Test para cambiar el ETag con cada escritura fuera de una transacción")
+    void testIncrementarSinTransaccion() {
+        String etagInicial = versionCatalogo.etag();
+        versionCatalogo.incrementar();
+
+        assertEquals(1, versionCatalogo.actual());
+        assertNotEquals(etagInicial, versionCatalogo.etag());
+        assertTrue(etagInicial.startsWith("\"") && etagInicial.endsWith("\""), "El ETag debe ir entre comillas");
+    }
+
+    @Test
+    @DisplayName("Test para aplicar el incremento recién después del commit")
+    void testIncrementarDespuesDelCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        versionCatalogo.incrementar();
+        assertEquals(0, versionCatalogo.actual(), "Antes del commit los lectores deben seguir viendo la versión anterior");
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals(1, versionCatalogo.actual());
+    }
+}
@@ -0,0 +1,198 @@
+package com.ecomarketspa.Service;
+
+import com.ecomarketspa.Index.ContadorPedidosUsuario;
+import com.ecomarketspa.Index.IndiceEstadosPedido;
+import com.ecomarketspa.Index.SegmentoPedidos;
+import com.ecomarketspa.Index.UsuariosConPedidosPendientes;
+import com.ecomarketspa.Model.EstadoPedido;
+import com.ecomarketspa.Model.Pedido;
+import com.ecomarketspa.Model.Usuario;
+import com.ecomarketspa.Repository.PedidoRepository;
+import com.ecomarketspa.Repository.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Los pedidos archivados deben salir de la tabla y seguir apareciendo en las consultas de PedidoService
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ArchivoPedidos.class, PedidoService.class, ContadorPedidosUsuario.class, IndiceEstadosPedido.class, UsuariosConPedidosPendientes.class, VentasDiariasService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // El archivador confirma sus propias transacciones
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD) // Cada test abre los segmentos de cero
+public class ArchivoPedidosTest {
+
+    private static final Path DIRECTORIO = crearDirectorio();
+
+    @DynamicPropertySource
+    static void propiedades(DynamicPropertyRegistry registro) {
+        registro.add("ecomarket.pedidos.archivo.directorio", DIRECTORIO::toString);
+        registro.add("ecomarket.pedidos.archivo.antiguedad", () -> "30d");
+        registro.add("ecomarket.pedidos.archivo.pedidos-por-segmento", () -> "2");
+    }
+
+    @Autowired
+    private ArchivoPedidos archivoPedidos;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private AutowireCapableBeanFactory beanFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Usuario ana;
+
+    @BeforeEach
+    void setUp() {
+        pedidoRepository.deleteAll();
+        usuarioRepository.deleteAll();
+        ana = new Usuario();
+        ana.setNombre("Ana");
+        ana = usuarioRepository.save(ana);
+        pedidoService.cargarIndiceEstados();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(DIRECTORIO);
+        Files.createDirectories(DIRECTORIO);
+    }
+
+    @Test
+    @DisplayName("Test para archivar solo pedidos antiguos en estado final y seguir consultándolos")
+    void testArchivarYConsultar() throws IOException {
+        Pedido entregado = pedidoService.guardarPedido(pedido(EstadoPedido.ENTREGADO, 400, 10.0));
+        Pedido cancelado = pedidoService.guardarPedido(pedido(EstadoPedido.CANCELADO, 300, 20.0));
+        Pedido otroEntregado = pedidoService.guardarPedido(pedido(EstadoPedido.ENTREGADO, 200, 30.0));
+        Pedido pendienteAntiguo = pedidoService.guardarPedido(pedido(EstadoPedido.PENDIENTE, 400, 40.0));
+        Pedido entregadoReciente = pedidoService.guardarPedido(pedido(EstadoPedido.ENTREGADO, 1, 50.0));
+
+        assertEquals(3, archivoPedidos.archivar());
+
+        assertEquals(2, archivoPedidos.cantidadSegmentos(), "Con dos pedidos por segmento se escriben dos segmentos");
+        assertEquals(2, pedidoRepository.count(), "Los pedidos archivados salen de la tabla");
+        assertTrue(pedidoRepository.existsById(pendienteAntiguo.getId()));
+
+        Pedido archivado = pedidoService.obtenerPedidoPorId(cancelado.getId()).orElseThrow();
+        assertEquals(EstadoPedido.CANCELADO, archivado.getEstado());
+        assertEquals(20.0, archivado.getTotal());
+        assertEquals(ana.getId(), archivado.getUsuario().getId());
+        assertThrows(IllegalStateException.class, () -> pedidoService.eliminarPedido(cancelado.getId()),
+                "Un pedido archivado no se da por eliminado");
+        assertTrue(pedidoService.obtenerPedidoPorId(cancelado.getId()).isPresent());
+
+        assertEquals(List.of(entregado.getId(), otroEntregado.getId(), entregadoReciente.getId()),
+                ids(pedidoService.buscarPedidosPorEstado(EstadoPedido.ENTREGADO)));
+        assertEquals(3, pedidoService.contarPedidosPorEstado(EstadoPedido.ENTREGADO));
+        assertEquals(5, pedidoService.buscarPedidosPorUsuario(ana.getId()).size());
+        pedidoService.cargarContadorPedidos();
+        assertEquals(5L, pedidoService.contarPedidosPorUsuario(ana.getId()));
+
+        // Recorrido por cursor de todo el rango en páginas de 2: mezcla ambos lados en orden (fecha, id)
+        Date inicio = hace(500);
+        Date fin = new Date();
+        List<Long> recorridos = new java.util.ArrayList<>();
+        pedidoService.recorrerPedidosEntreFechas(inicio, fin, 2, pedido -> recorridos.add(pedido.getId()));
+        assertEquals(List.of(entregado.getId(), pendienteAntiguo.getId(), cancelado.getId(), otroEntregado.getId(), entregadoReciente.getId()),
+                recorridos);
+        assertEquals(0, archivoPedidos.archivar(), "Volver a archivar no encuentra nada nuevo");
+    }
+
+    @Test
+    @DisplayName("Test para terminar al arrancar un archivado que no alcanzó a eliminar sus filas")
+    void testCompletarArchivadoInterrumpido() throws IOException {
+        Pedido entregado = pedidoService.guardarPedido(pedido(EstadoPedido.ENTREGADO, 400, 10.0));
+        // Segmento ya escrito cuyas filas siguen en la base de datos, como si el proceso se hubiera caído antes del DELETE
+        SegmentoPedidos.escribir(DIRECTORIO.resolve("pedidos-interrumpido.seg"), List.of(new SegmentoPedidos.Fila(
+                entregado.getId(), entregado.getFecha().getTime(), 10.0, ana.getId(), EstadoPedido.ENTREGADO)));
+        Files.write(DIRECTORIO.resolve("pedidos-a-medias.seg.tmp"), new byte[10]);
+
+        ArchivoPedidos reiniciado = beanFactory.createBean(ArchivoPedidos.class);
+
+        assertFalse(pedidoRepository.existsById(entregado.getId()));
+        assertTrue(reiniciado.buscar(entregado.getId()).isPresent());
+        assertFalse(Files.exists(DIRECTORIO.resolve("pedidos-a-medias.seg.tmp")), "Los segmentos a medio escribir se descartan");
+    }
+
+    @Test
+    @DisplayName("Test para no archivar una copia vieja de un pedido que se modifica mientras se archiva")
+    void testArchivarPedidoModificadoEnParalelo() throws Exception {
+        Pedido entregado = pedidoService.guardarPedido(pedido(EstadoPedido.ENTREGADO, 400, 10.0));
+        CountDownLatch bloqueado = new CountDownLatch(1);
+        Thread corrector = Thread.ofPlatform().start(() -> transactionTemplate.executeWithoutResult(estado -> {
+            jdbcTemplate.update("UPDATE pedido SET total = 99 WHERE id = ?", entregado.getId());
+            bloqueado.countDown();
+            LockSupport.parkNanos(Duration.ofMillis(300).toNanos()); // El archivador llega mientras la fila está bloqueada
+        }));
+        bloqueado.await();
+
+        assertEquals(1, archivoPedidos.archivar());
+        corrector.join();
+
+        assertFalse(pedidoRepository.existsById(entregado.getId()));
+        assertEquals(99.0, archivoPedidos.buscar(entregado.getId()).orElseThrow().total(), "El segmento guarda el total confirmado");
+    }
+
+    private Pedido pedido(EstadoPedido estado, int diasAtras, double total) {
+        Pedido pedido = new Pedido();
+        pedido.setEstado(estado);
+        pedido.setFecha(hace(diasAtras));
+        pedido.setTotal(total);
+        pedido.setUsuario(ana);
+        return pedido;
+    }
+
+    private static Date hace(int dias) {
+        return new Date(System.currentTimeMillis() - Duration.ofDays(dias).toMillis());
+    }
+
+    private static List<Long> ids(List<Pedido> pedidos) {
+        return pedidos.stream().map(Pedido::getId).toList();
+    }
+
+    private static Path crearDirectorio() {
+        try {
+            return Files.createTempDirectory("archivo-pedidos");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
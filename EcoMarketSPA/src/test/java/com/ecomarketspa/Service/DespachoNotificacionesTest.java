@@ -0,0 +1,162 @@
+package com.ecomarketspa.Service;
+
+import com.ecomarketspa.Dto.EstadoCanalDespacho;
+import com.ecomarketspa.Model.Notificacion;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.time.Duration;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Colas por canal con proveedores simulados: lotes, reintentos, descarte y contrapresión
+@SpringBootTest(classes = {DespachoNotificaciones.class, DespachoNotificacionesTest.Proveedores.class}, properties = {
+        "ecomarket.notificaciones.despacho.capacidad=200",
+        "ecomarket.notificaciones.despacho.hilos=1",
+        "ecomarket.notificaciones.despacho.ventana-ms=20",
+        "ecomarket.notificaciones.despacho.espera-ms=10",
+        "ecomarket.notificaciones.despacho.reintentos=3",
+        "ecomarket.notificaciones.despacho.espera-inicial=10ms",
+        "ecomarket.notificaciones.despacho.espera-maxima=40ms"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD) // Cada test parte de colas y contadores nuevos
+public class DespachoNotificacionesTest {
+
+    @Configuration
+    static class Proveedores {
+
+        @Bean
+        ProveedorSimulado correo() {
+            return new ProveedorSimulado("Email", 100, Duration.ZERO, 0);
+        }
+
+        @Bean
+        ProveedorSimulado sms() {
+            return new ProveedorSimulado("SMS", 10, Duration.ZERO, 0);
+        }
+
+        @Bean
+        ProveedorSimulado app() {
+            return new ProveedorSimulado("App", 10, Duration.ZERO, 0);
+        }
+    }
+
+    @Autowired
+    private DespachoNotificaciones despachoNotificaciones;
+
+    @Autowired
+    private ProveedorSimulado correo;
+
+    @Autowired
+    private ProveedorSimulado sms;
+
+    @Autowired
+    private ProveedorSimulado app;
+
+    @Test
+    @DisplayName("Test para enviar las notificaciones en lotes por canal")
+    void testEnviaEnLotes() {
+        for (int i = 0; i < 150; i++) {
+            assertTrue(despachoNotificaciones.despachar(notificacion(i, i % 2 == 0 ? "Email" : "email")));
+        }
+
+        esperarHasta(() -> correo.entregadas() == 150);
+        assertTrue(correo.loteMaximo() <= 100, "Ningún lote debe superar el máximo del proveedor");
+        assertTrue(correo.llamadas() < 150, "Las notificaciones deben agruparse en lotes");
+        assertEquals(0, sms.llamadas() + app.llamadas(), "Cada notificación va solo a su canal");
+        esperarHasta(() -> estado("Email").enviadas() == 150);
+        EstadoCanalDespacho estado = estado("Email");
+        assertEquals(150, estado.encoladas());
+        assertEquals(estado.lotes(), correo.llamadas());
+        assertEquals(0, estado.fallidas());
+    }
+
+    @Test
+    @DisplayName("Test para reintentar los lotes que fallan")
+    void testReintentaHastaEntregar() {
+        sms.setTasaFallos(1);
+        for (int i = 0; i < 30; i++) {
+            despachoNotificaciones.despachar(notificacion(i, "SMS"));
+        }
+        esperarHasta(() -> sms.fallos() >= 3);
+
+        sms.setTasaFallos(0);
+
+        esperarHasta(() -> sms.entregadas() == 30);
+        esperarHasta(() -> estado("SMS").enReintento() == 0);
+        EstadoCanalDespacho estado = estado("SMS");
+        assertTrue(estado.reintentos() > 0);
+        assertEquals(30, estado.enviadas());
+        assertEquals(0, estado.fallidas());
+    }
+
+    @Test
+    @DisplayName("Test para descartar después del máximo de reintentos")
+    void testDescartaTrasReintentos() {
+        sms.setTasaFallos(1);
+        for (int i = 0; i < 5; i++) {
+            despachoNotificaciones.despachar(notificacion(i, "SMS"));
+        }
+
+        esperarHasta(() -> estado("SMS").fallidas() == 5);
+        EstadoCanalDespacho estado = estado("SMS");
+        assertEquals(0, estado.enviadas());
+        assertEquals(15, estado.reintentos(), "Cada notificación se reintenta 3 veces antes de descartarse");
+        assertEquals(0, estado.enReintento());
+    }
+
+    @Test
+    @DisplayName("Test para rechazar cuando la cola del canal está llena")
+    void testRechazaConColaLlena() {
+        app.setLatencia(Duration.ofMillis(300));
+        int aceptadas = 0;
+        for (int i = 0; i < 400; i++) {
+            if (despachoNotificaciones.despachar(notificacion(i, "App"))) {
+                aceptadas++;
+            }
+        }
+
+        assertTrue(aceptadas < 400, "Con la cola llena se deben rechazar notificaciones");
+        assertEquals(400 - aceptadas, estado("App").rechazadas());
+        assertTrue(despachoNotificaciones.despachar(notificacion(1000, "Email")), "Un canal lento no debe bloquear a los demás");
+
+        app.setLatencia(Duration.ZERO);
+        int esperadas = aceptadas;
+        esperarHasta(() -> app.entregadas() == esperadas);
+    }
+
+    @Test
+    @DisplayName("Test para ignorar los tipos sin proveedor")
+    void testTipoSinCanal() {
+        assertFalse(despachoNotificaciones.despachar(notificacion(1, "Oferta Especial")));
+        assertFalse(despachoNotificaciones.despachar(notificacion(2, null)));
+        assertEquals(2, despachoNotificaciones.sinCanal());
+        assertEquals(3, despachoNotificaciones.estado().size());
+    }
+
+    private EstadoCanalDespacho estado(String canal) {
+        return despachoNotificaciones.estado().stream().filter(estado -> estado.canal().equals(canal)).findFirst().orElseThrow();
+    }
+
+    private static void esperarHasta(BooleanSupplier condicion) {
+        long limite = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condicion.getAsBoolean()) {
+            assertTrue(System.nanoTime() < limite, "La condición no se cumplió a tiempo");
+            LockSupport.parkNanos(Duration.ofMillis(1).toNanos());
+        }
+    }
+
+    private static Notificacion notificacion(long id, String tipo) {
+        Notificacion notificacion = new Notificacion();
+        notificacion.setId(id);
+        notificacion.setTipo(tipo);
+        notificacion.setMensaje("Mensaje " + id);
+        return notificacion;
+    }
+}
@@ -0,0 +1,134 @@
+package com.ecomarketspa.Service;
+
+import com.ecomarketspa.Config.ProveedoresSimuladosConfig;
+import com.ecomarketspa.Dto.EstadoDifusion;
+import com.ecomarketspa.Dto.SolicitudDifusion;
+import com.ecomarketspa.Model.EstadoPedido;
+import com.ecomarketspa.Repository.NotificacionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Difusión por segmentos contra una base H2 real, con páginas pequeñas para recorrer varias
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({DifusionNotificacionService.class, DespachoNotificaciones.class, SuscripcionesNotificaciones.class, ProveedoresSimuladosConfig.class})
+@TestPropertySource(properties = {
+        "ecomarket.notificaciones.difusion.tamano-lote=7",
+        "ecomarket.notificaciones.simulados.latencia=0ms"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // La difusión corre en su propio hilo y transacciones
+public class DifusionNotificacionServiceTest {
+
+    @Autowired
+    private DifusionNotificacionService difusionNotificacionService;
+
+    @Autowired
+    private NotificacionRepository notificacionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM notificacion");
+        jdbcTemplate.update("DELETE FROM pedido");
+        jdbcTemplate.update("DELETE FROM usuario");
+        for (int i = 1; i <= 20; i++) {
+            String nombre = i % 5 == 0 ? "Ana 50% " + i : "Usuario " + i;
+            jdbcTemplate.update("INSERT INTO usuario (nombre, correo) VALUES (?, ?)", nombre, "usuario" + i + "@example.com");
+        }
+    }
+
+    @Test
+    @DisplayName("Test para difundir a todos los usuarios en varios lotes")
+    void testDifundirATodos() {
+        EstadoDifusion difusion = esperarFin(difusionNotificacionService.iniciarDifusion(
+                new SolicitudDifusion("Email", "Nuevos productos", SolicitudDifusion.Segmento.TODOS, null, null)));
+
+        assertEquals(EstadoDifusion.Situacion.COMPLETADA, difusion.situacion());
+        assertEquals(20, difusion.usuariosEstimados());
+        assertEquals(20, difusion.notificacionesCreadas());
+        assertEquals(20, difusion.notificacionesDespachadas());
+        assertEquals(usuarioIds("SELECT id FROM usuario"), usuarioIds("SELECT usuario_id FROM notificacion"),
+                "Cada usuario recibe exactamente una notificación");
+        assertTrue(notificacionRepository.findAll().stream().allMatch(n -> n.getMensaje().equals("Nuevos productos")));
+    }
+
+    @Test
+    @DisplayName("Test para difundir a los usuarios con pedidos en un estado")
+    void testDifundirPorEstadoDePedido() {
+        List<Long> usuarios = usuarioIds("SELECT id FROM usuario");
+        insertarPedido(usuarios.get(0), EstadoPedido.PENDIENTE);
+        insertarPedido(usuarios.get(0), EstadoPedido.PENDIENTE);
+        insertarPedido(usuarios.get(3), EstadoPedido.PENDIENTE);
+        insertarPedido(usuarios.get(5), EstadoPedido.ENTREGADO);
+
+        EstadoDifusion difusion = esperarFin(difusionNotificacionService.iniciarDifusion(new SolicitudDifusion(
+                "SMS", "Tu pedido sigue pendiente", SolicitudDifusion.Segmento.PEDIDOS_EN_ESTADO, EstadoPedido.PENDIENTE, null)));
+
+        assertEquals(EstadoDifusion.Situacion.COMPLETADA, difusion.situacion());
+        assertEquals(List.of(usuarios.get(0), usuarios.get(3)), usuarioIds("SELECT usuario_id FROM notificacion"));
+    }
+
+    @Test
+    @DisplayName("Test para difundir a los usuarios que coinciden con una consulta")
+    void testDifundirPorConsulta() {
+        // '%' es literal en la consulta: solo los "Ana 50% ..." coinciden
+        EstadoDifusion difusion = esperarFin(difusionNotificacionService.iniciarDifusion(new SolicitudDifusion(
+                "Oferta", "Descuento", SolicitudDifusion.Segmento.CONSULTA, null, "ANA 50%")));
+
+        assertEquals(EstadoDifusion.Situacion.COMPLETADA, difusion.situacion());
+        assertEquals(4, difusion.notificacionesCreadas());
+        assertEquals(0, difusion.notificacionesDespachadas(), "Un tipo sin canal se guarda pero no se entrega");
+        assertEquals(usuarioIds("SELECT id FROM usuario WHERE nombre LIKE 'Ana%'"), usuarioIds("SELECT usuario_id FROM notificacion"));
+    }
+
+    @Test
+    @DisplayName("Test para rechazar segmentos incompletos")
+    void testSolicitudInvalida() {
+        assertThrows(IllegalArgumentException.class, () -> difusionNotificacionService.iniciarDifusion(
+                new SolicitudDifusion("Email", "Hola", SolicitudDifusion.Segmento.PEDIDOS_EN_ESTADO, null, null)));
+        assertThrows(IllegalArgumentException.class, () -> difusionNotificacionService.iniciarDifusion(
+                new SolicitudDifusion("Email", "Hola", SolicitudDifusion.Segmento.CONSULTA, null, " ")));
+        assertThrows(IllegalArgumentException.class, () -> difusionNotificacionService.iniciarDifusion(
+                new SolicitudDifusion("Email", "", SolicitudDifusion.Segmento.TODOS, null, null)));
+        assertFalse(difusionNotificacionService.cancelarDifusion(999L));
+    }
+
+    private EstadoDifusion esperarFin(EstadoDifusion iniciada) {
+        long limite = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (true) {
+            EstadoDifusion difusion = difusionNotificacionService.obtenerDifusion(iniciada.id()).orElseThrow();
+            if (difusion.fin() != null) {
+                return difusion;
+            }
+            assertTrue(System.nanoTime() < limite, "La difusión no terminó a tiempo");
+            LockSupport.parkNanos(Duration.ofMillis(5).toNanos());
+        }
+    }
+
+    private List<Long> usuarioIds(String sql) {
+        return jdbcTemplate.queryForList(sql, Long.class).stream().sorted().toList();
+    }
+
+    private void insertarPedido(long usuarioId, EstadoPedido estado) {
+        jdbcTemplate.update("INSERT INTO pedido (usuario_id, fecha, estado_codigo, total) VALUES (?, CURRENT_TIMESTAMP, ?, 10.0)",
+                usuarioId, estado.getCodigo());
+    }
+}
@@ -0,0 +1,102 @@
+package com.ecomarketspa.Service;
+
+import com.ecomarketspa.Index.FiltroBloomCorreos;
+import com.ecomarketspa.Index.IndiceEstadosPedido;
+import com.ecomarketspa.Index.IndiceTrigramas;
+import com.ecomarketspa.Index.UsuariosConPedidosPendientes;
+import com.ecomarketspa.Model.Usuario;
+import com.ecomarketspa.Repository.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({UsuarioService.class, FiltroCorreosService.class, FiltroBloomCorreos.class, IndiceTrigramas.class, IndiceEstadosPedido.class, UsuariosConPedidosPendientes.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // Cada guardado confirma, como en producción
+public class FiltroCorreosServiceTest {
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private FiltroCorreosService filtroCorreosService;
+
+    @Autowired
+    private FiltroBloomCorreos filtroBloomCorreos;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        usuarioRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Test para buscar por correo exacto y rechazar un correo repetido con otras mayúsculas")
+    void testCorreoExactoYUnico() {
+        Usuario ana = usuarioService.guardarUsuario(usuario("Ana", " Ana.Ruiz@Example.com"));
+        filtroCorreosService.reconstruir();
+
+        assertEquals("ana.ruiz@example.com", usuarioRepository.findById(ana.getId()).orElseThrow().getCorreoNorm());
+        assertEquals(ana.getId(), usuarioService.buscarPorCorreoExacto("ANA.RUIZ@example.com").orElseThrow().getId());
+        assertTrue(usuarioService.buscarPorCorreoExacto("ana.ruiz@example.cl").isEmpty());
+        assertThrows(DataIntegrityViolationException.class, () -> usuarioService.guardarUsuario(usuario("Otra Ana", "ana.ruiz@EXAMPLE.com")));
+    }
+
+    @Test
+    @DisplayName("Test para completar correo_norm de usuarios antiguos y encontrarlos después de reconstruir el filtro")
+    void testCompletarYReconstruir() {
+        jdbcTemplate.update("INSERT INTO usuario (nombre, correo) VALUES ('Luis', ' Luis@Example.com ')");
+        filtroCorreosService.reconstruir();
+        assertTrue(usuarioService.buscarPorCorreoExacto("luis@example.com").isEmpty(), "Sin correo_norm no se encuentra");
+
+        assertEquals(1, filtroCorreosService.completarCorreosNormalizados());
+        filtroCorreosService.reconstruir();
+
+        assertTrue(filtroBloomCorreos.puedeExistir("luis@example.com"));
+        assertEquals("Luis", usuarioService.buscarPorCorreoExacto("luis@example.com").orElseThrow().getNombre());
+    }
+
+    @Test
+    @DisplayName("Test para completar correo_norm de los usuarios sin correo repetido aunque otros lo tengan")
+    void testCompletarConCorreosRepetidos() {
+        Usuario ana = usuarioService.guardarUsuario(usuario("Ana", "ana@example.com"));
+        jdbcTemplate.update("INSERT INTO usuario (nombre, correo) VALUES ('Otra Ana', ' ANA@example.com')"); // Repite uno ya completado
+        jdbcTemplate.update("INSERT INTO usuario (nombre, correo) VALUES ('Pepe', 'pepe@example.com')");
+        jdbcTemplate.update("INSERT INTO usuario (nombre, correo) VALUES ('Otro Pepe', 'Pepe@Example.com ')"); // Repetido entre pendientes
+        jdbcTemplate.update("INSERT INTO usuario (nombre, correo) VALUES ('Luis', 'luis@example.com')");
+
+        assertEquals(1, filtroCorreosService.completarCorreosNormalizados());
+
+        assertEquals(List.of("Ana", "Luis"), jdbcTemplate.queryForList(
+                "SELECT nombre FROM usuario WHERE correo_norm IS NOT NULL ORDER BY nombre", String.class));
+        assertEquals("ana@example.com", usuarioRepository.findById(ana.getId()).orElseThrow().getCorreoNorm());
+        assertEquals(0, filtroCorreosService.completarCorreosNormalizados(), "Los repetidos siguen pendientes hasta corregirlos");
+    }
+
+    private static Usuario usuario(String nombre, String correo) {
+        Usuario usuario = new Usuario();
+        usuario.setNombre(nombre);
+        usuario.setCorreo(correo);
+        return usuario;
+    }
+}
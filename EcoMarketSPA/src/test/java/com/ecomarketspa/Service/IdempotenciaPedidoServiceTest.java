@@ -0,0 +1,190 @@
+package com.ecomarketspa.Service;
+
+import com.ecomarketspa.Index.CacheIdempotencia;
+import com.ecomarketspa.Index.ContadorPedidosUsuario;
+import com.ecomarketspa.Index.IndiceEstadosPedido;
+import com.ecomarketspa.Index.UsuariosConPedidosPendientes;
+import com.ecomarketspa.Model.ClaveIdempotencia;
+import com.ecomarketspa.Model.EstadoPedido;
+import com.ecomarketspa.Model.Pedido;
+import com.ecomarketspa.Model.Usuario;
+import com.ecomarketspa.Repository.ClaveIdempotenciaRepository;
+import com.ecomarketspa.Repository.PedidoRepository;
+import com.ecomarketspa.Repository.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Reintentos con la misma Idempotency-Key deben devolver el pedido original sin crear otro
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({IdempotenciaPedidoService.class, CacheIdempotencia.class, ContadorPedidosUsuario.class, IndiceEstadosPedido.class, UsuariosConPedidosPendientes.class, VentasDiariasService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // Cada guardado confirma su propia transacción
+public class IdempotenciaPedidoServiceTest {
+
+    @Autowired
+    private IdempotenciaPedidoService idempotenciaPedidoService;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private ClaveIdempotenciaRepository claveIdempotenciaRepository;
+
+    private Usuario usuario; // La caché se comparte entre tests del mismo contexto: cada test usa sus propias claves
+
+    @BeforeEach
+    void setUp() {
+        claveIdempotenciaRepository.deleteAll();
+        pedidoRepository.deleteAll();
+        usuarioRepository.deleteAll();
+        usuario = new Usuario();
+        usuario.setNombre("Ana");
+        usuario = usuarioRepository.save(usuario);
+    }
+
+    @Test
+    @DisplayName("Test para devolver el pedido original al reintentar con la misma clave")
+    void testReintentoDevuelvePedidoOriginal() {
+        IdempotenciaPedidoService.Resultado primero = idempotenciaPedidoService.guardarPedido("clave-reintento", pedido());
+        IdempotenciaPedidoService.Resultado reintento = idempotenciaPedidoService.guardarPedido("clave-reintento", pedido());
+
+        assertFalse(primero.repetido());
+        assertTrue(reintento.repetido());
+        assertEquals(primero.pedido().get().getId(), reintento.pedido().get().getId());
+        assertEquals(1, pedidoRepository.count());
+        assertEquals(1, claveIdempotenciaRepository.count());
+    }
+
+    @Test
+    @DisplayName("Test para recuperar la clave desde la tabla cuando no está en caché")
+    void testClaveSoloEnTabla() {
+        Pedido existente = pedidoRepository.save(pedido());
+        ClaveIdempotencia registro = new ClaveIdempotencia();
+        registro.setClave("clave-antigua");
+        registro.setPedidoId(existente.getId());
+        registro.setFecha(new Date());
+        claveIdempotenciaRepository.save(registro);
+
+        IdempotenciaPedidoService.Resultado resultado = idempotenciaPedidoService.guardarPedido("clave-antigua", pedido());
+
+        assertTrue(resultado.repetido());
+        assertEquals(existente.getId(), resultado.pedido().get().getId());
+        assertEquals(1, pedidoRepository.count());
+    }
+
+    @Test
+    @DisplayName("Test para crear un pedido nuevo cuando la clave de la tabla ya venció")
+    void testClaveVencida() {
+        Pedido anterior = pedidoRepository.save(pedido());
+        claveIdempotenciaRepository.save(clave("clave-vencida", anterior.getId(), hace(Duration.ofHours(25))));
+
+        IdempotenciaPedidoService.Resultado resultado = idempotenciaPedidoService.guardarPedido("clave-vencida", pedido());
+
+        assertFalse(resultado.repetido());
+        assertNotEquals(anterior.getId(), resultado.pedido().get().getId());
+        assertEquals(2, pedidoRepository.count());
+        assertEquals(resultado.pedido().get().getId(), claveIdempotenciaRepository.findByClave("clave-vencida").get().getPedidoId());
+    }
+
+    @Test
+    @DisplayName("Test para purgar solo las claves vencidas")
+    void testPurgarVencidas() {
+        Long pedidoId = pedidoRepository.save(pedido()).getId();
+        claveIdempotenciaRepository.save(clave("purga-vencida", pedidoId, hace(Duration.ofDays(3))));
+        claveIdempotenciaRepository.save(clave("purga-sin-fecha", pedidoId, null));
+        claveIdempotenciaRepository.save(clave("purga-vigente", pedidoId, hace(Duration.ofHours(1))));
+
+        assertEquals(2, idempotenciaPedidoService.purgarVencidas());
+        assertEquals(List.of("purga-vigente"), claveIdempotenciaRepository.findAll().stream().map(ClaveIdempotencia::getClave).toList());
+    }
+
+    @Test
+    @DisplayName("Test para informar un pedido original eliminado como vacío")
+    void testPedidoOriginalEliminado() {
+        Long id = idempotenciaPedidoService.guardarPedido("clave-eliminado", pedido()).pedido().get().getId();
+        pedidoRepository.deleteById(id);
+
+        IdempotenciaPedidoService.Resultado resultado = idempotenciaPedidoService.guardarPedido("clave-eliminado", pedido());
+
+        assertTrue(resultado.repetido());
+        assertTrue(resultado.pedido().isEmpty());
+        assertEquals(0, pedidoRepository.count());
+    }
+
+    @Test
+    @DisplayName("Test para crear un solo pedido con reintentos simultáneos de la misma clave")
+    void testReintentosSimultaneos() throws Exception {
+        int hilos = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<IdempotenciaPedidoService.Resultado>> resultados = new ArrayList<>();
+        try {
+            for (int i = 0; i < hilos; i++) {
+                resultados.add(executor.submit(() -> {
+                    largada.await();
+                    return idempotenciaPedidoService.guardarPedido("clave-carrera", pedido());
+                }));
+            }
+            largada.countDown();
+
+            Long id = null;
+            int originales = 0;
+            for (Future<IdempotenciaPedidoService.Resultado> futuro : resultados) {
+                IdempotenciaPedidoService.Resultado resultado = futuro.get();
+                originales += resultado.repetido() ? 0 : 1;
+                if (id == null) {
+                    id = resultado.pedido().get().getId();
+                }
+                assertEquals(id, resultado.pedido().get().getId());
+            }
+            assertEquals(1, originales);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, pedidoRepository.count());
+    }
+
+    private static ClaveIdempotencia clave(String clave, Long pedidoId, Date fecha) {
+        ClaveIdempotencia registro = new ClaveIdempotencia();
+        registro.setClave(clave);
+        registro.setPedidoId(pedidoId);
+        registro.setFecha(fecha);
+        return registro;
+    }
+
+    private static Date hace(Duration tiempo) {
+        return new Date(System.currentTimeMillis() - tiempo.toMillis());
+    }
+
+    private Pedido pedido() {
+        Pedido pedido = new Pedido();
+        pedido.setEstado(EstadoPedido.PENDIENTE);
+        pedido.setFecha(new Date());
+        pedido.setTotal(10.0);
+        pedido.setUsuario(usuario);
+        return pedido;
+    }
+}
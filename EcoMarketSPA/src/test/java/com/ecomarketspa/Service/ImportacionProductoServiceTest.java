@@ -0,0 +1,195 @@
+package com.ecomarketspa.Service;
+
+import com.ecomarketspa.Dto.ResultadoImportacion;
+import com.ecomarketspa.Model.Producto;
+import com.ecomarketspa.Repository.ProductoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+// Importación contra una base H2 real para ejercitar el batch JDBC y la recuperación fila por fila
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ImportacionProductoService.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // Cada lote abre su propia transacción, como en producción
+public class ImportacionProductoServiceTest {
+
+    @Autowired
+    private ImportacionProductoService importacionProductoService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @MockBean
+    private ProductoService productoService;
+
+    @BeforeEach
+    void setUp() {
+        productoRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Test para importar un CSV con comillas, saltos de línea y filas inválidas")
+    void testImportarCsv() throws Exception {
+        String csv = """
+                nombre,precio,stock,categoria,descripcion
+                Jabón Artesanal,5.99,100,Higiene,"Hecho a mano, sin químicos"
+                Bolsa de Tela,12.50,,Accesorios,"Línea 1
+                Línea 2"
+                ,3.00,10,Higiene,Sin nombre
+                Champú Sólido,no-es-precio,5,Higiene,
+                Cepillo de Bambú,-1,5,Higiene,
+                "Vela \"\"Natural\"\"",8.00,20,Hogar,
+                """;
+
+        ResultadoImportacion resultado = importacionProductoService.importarCsv(flujo(csv), 2);
+
+        assertEquals(6, resultado.filasLeidas());
+        assertEquals(3, resultado.filasImportadas());
+        assertEquals(3, resultado.filasConError());
+        assertEquals(List.of(4L, 5L, 6L), resultado.errores().stream().map(ResultadoImportacion.ErrorFila::fila).toList(),
+                "La fila reportada es el registro del CSV contando la cabecera");
+        assertFalse(resultado.erroresTruncados());
+
+        List<Producto> guardados = productoRepository.findAll();
+        guardados.sort(Comparator.comparing(Producto::getId));
+        assertEquals(List.of("Jabón Artesanal", "Bolsa de Tela", "Vela \"Natural\""),
+                guardados.stream().map(Producto::getNombre).toList());
+        assertEquals("Hecho a mano, sin químicos", guardados.get(0).getDescripcion());
+        assertEquals("Línea 1\nLínea 2", guardados.get(1).getDescripcion());
+        assertEquals(0, guardados.get(1).getStock(), "Un stock vacío se importa como cero");
+        verify(productoService, atLeastOnce()).registrarImportados(anyList());
+    }
+
+    @Test
+    @DisplayName("Test para distinguir un precio faltante de un valor numérico inválido")
+    void testImportarCsvMensajesDeError() throws Exception {
+        String csv = """
+                nombre,precio,stock
+                Jabón,,10
+                Bolsa,abc,10
+                Vela,8.00,muchos
+                Champú
+                """;
+
+        ResultadoImportacion resultado = importacionProductoService.importarCsv(flujo(csv), 10);
+
+        assertEquals(0, resultado.filasImportadas());
+        assertEquals(List.of("Falta 'precio'", "Valor numérico inválido en 'precio': abc",
+                        "Valor numérico inválido en 'stock': muchos", "Falta 'precio'"),
+                resultado.errores().stream().map(ResultadoImportacion.ErrorFila::mensaje).toList());
+    }
+
+    @Test
+    @DisplayName("Test para rechazar un CSV sin las columnas obligatorias")
+    void testImportarCsvSinCabeceraValida() throws Exception {
+        ResultadoImportacion resultado = importacionProductoService.importarCsv(flujo("nombre,stock\nJabón,10\n"), 10);
+
+        assertEquals(0, resultado.filasImportadas());
+        assertEquals(1, resultado.filasConError());
+        assertEquals(0, productoRepository.count());
+    }
+
+    @Test
+    @DisplayName("Test para aislar una fila que falla en la base de datos sin perder el resto de su lote")
+    void testImportarNdjsonConErrorDeBaseDeDatos() throws Exception {
+        String nombreDemasiadoLargo = "x".repeat(300); // Supera el largo de la columna
+        String ndjson = """
+                {"nombre":"Jabón","precio":5.99,"stock":10}
+                {"nombre":"%s","precio":1.0,"stock":1}
+                {"nombre":"Bolsa","precio":12.5,"stock":3}
+
+                {esto no es json}
+                {"nombre":"Vela","precio":8.0,"stock":20,"id":999}
+                """.formatted(nombreDemasiadoLargo);
+
+        ResultadoImportacion resultado = importacionProductoService.importarNdjson(flujo(ndjson), 3);
+
+        assertEquals(5, resultado.filasLeidas(), "Las líneas vacías se ignoran");
+        assertEquals(3, resultado.filasImportadas());
+        assertEquals(List.of(2L, 5L), resultado.errores().stream().map(ResultadoImportacion.ErrorFila::fila).toList());
+        assertEquals(3, productoRepository.count());
+        assertTrue(productoRepository.findAll().stream().noneMatch(p -> p.getId() == 999L), "El id del JSON se ignora");
+        verify(productoService).registrarImportados(argThat(lote -> lote.size() == 2 && lote.stream().allMatch(p -> p.getId() != null)));
+    }
+
+    @Test
+    @DisplayName("Test para rechazar una línea NDJSON sin precio en lugar de importarla con precio cero")
+    void testImportarNdjsonSinPrecio() throws Exception {
+        String ndjson = """
+                {"nombre":"Jabón","stock":10}
+                {"nombre":"Bolsa","precio":null}
+                {"nombre":"Vela","precio":0,"stock":20}
+                """;
+
+        ResultadoImportacion resultado = importacionProductoService.importarNdjson(flujo(ndjson), 10);
+
+        assertEquals(1, resultado.filasImportadas(), "Un precio cero explícito sí es válido");
+        assertEquals(List.of("Falta 'precio'", "Falta 'precio'"),
+                resultado.errores().stream().map(ResultadoImportacion.ErrorFila::mensaje).toList());
+        assertEquals(List.of("Vela"), productoRepository.findAll().stream().map(Producto::getNombre).toList());
+    }
+
+    @Test
+    @DisplayName("Test para informar como error de fila un registro demasiado largo sin perder los siguientes")
+    void testImportarFilasDemasiadoLargas() throws Exception {
+        String largo = "x".repeat(ImportacionProductoService.MAX_CARACTERES_FILA + 1);
+        String csv = "nombre,precio\nJabón,5.99\n\"" + largo + "\n\",1.0\nSin,comillas" + largo + "\nBolsa,12.5\n";
+        String ndjson = "{\"nombre\":\"Vela\",\"precio\":8.0}\n{\"nombre\":\"" + largo + "\"}\r\n{\"nombre\":\"Cesta\",\"precio\":3.0}\n";
+
+        ResultadoImportacion deCsv = importacionProductoService.importarCsv(flujo(csv), 10);
+        ResultadoImportacion deNdjson = importacionProductoService.importarNdjson(flujo(ndjson), 10);
+
+        assertEquals(2, deCsv.filasImportadas());
+        assertEquals(List.of(3L, 4L), deCsv.errores().stream().map(ResultadoImportacion.ErrorFila::fila).toList());
+        assertTrue(deCsv.errores().get(0).mensaje().contains("supera el máximo"), deCsv.errores().get(0).mensaje());
+        assertEquals(2, deNdjson.filasImportadas());
+        assertEquals(List.of(2L), deNdjson.errores().stream().map(ResultadoImportacion.ErrorFila::fila).toList());
+        assertEquals(List.of("Bolsa", "Cesta", "Jabón", "Vela"),
+                productoRepository.findAll().stream().map(Producto::getNombre).sorted().toList());
+    }
+
+    @Test
+    @DisplayName("Test para importar varios lotes y acotar el detalle de errores")
+    void testImportarMuchasFilas() throws Exception {
+        StringBuilder csv = new StringBuilder("nombre,precio\n");
+        for (int i = 0; i < 2500; i++) {
+            csv.append("Producto ").append(i).append(',').append(i % 2 == 0 ? "1.0" : "x").append('\n');
+        }
+
+        ResultadoImportacion resultado = importacionProductoService.importarCsv(flujo(csv.toString()), 100);
+
+        assertEquals(1250, resultado.filasImportadas());
+        assertEquals(1250, resultado.filasConError());
+        assertEquals(1000, resultado.errores().size());
+        assertTrue(resultado.erroresTruncados());
+        assertEquals(1250, productoRepository.count());
+        verify(productoService, times(13)).registrarImportados(anyList());
+    }
+
+    private static InputStream flujo(String contenido) {
+        return new ByteArrayInputStream(contenido.getBytes(StandardCharsets.UTF_8));
+    }
+}
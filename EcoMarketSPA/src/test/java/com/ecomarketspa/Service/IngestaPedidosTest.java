@@ -0,0 +1,147 @@
+package com.ecomarketspa.Service;
+
+import com.ecomarketspa.Index.ContadorPedidosUsuario;
+import com.ecomarketspa.Index.IndiceEstadosPedido;
+import com.ecomarketspa.Index.UsuariosConPedidosPendientes;
+import com.ecomarketspa.Model.EstadoPedido;
+import com.ecomarketspa.Model.Pedido;
+import com.ecomarketspa.Model.Usuario;
+import com.ecomarketspa.Repository.PedidoRepository;
+import com.ecomarketspa.Repository.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Commit agrupado contra una base H2 real
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({IngestaPedidos.class, ContadorPedidosUsuario.class, IndiceEstadosPedido.class, UsuariosConPedidosPendientes.class, VentasDiariasService.class})
+@TestPropertySource(properties = {
+        "ecomarket.pedidos.group-commit.habilitado=true",
+        "ecomarket.pedidos.group-commit.tamano-lote=50",
+        "ecomarket.pedidos.group-commit.ventana-ms=20"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // El hilo escritor usa sus propias transacciones
+public class IngestaPedidosTest {
+
+    @Autowired
+    private IngestaPedidos ingestaPedidos;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    private Usuario usuario;
+
+    @BeforeEach
+    void setUp() {
+        pedidoRepository.deleteAll();
+        usuarioRepository.deleteAll();
+        usuario = new Usuario();
+        usuario.setNombre("Cliente Test");
+        usuario = usuarioRepository.save(usuario);
+    }
+
+    @Test
+    @DisplayName("Test para guardar pedidos concurrentes en lotes y devolver el id a cada petición")
+    void testGuardarEnLotes() throws Exception {
+        long lotesIniciales = ingestaPedidos.lotesEscritos();
+        ExecutorService hilos = Executors.newFixedThreadPool(8);
+        List<Future<Pedido>> resultados = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            resultados.add(hilos.submit(() -> ingestaPedidos.encolar(pedido(usuario)).join()));
+        }
+        List<Long> ids = new ArrayList<>();
+        for (Future<Pedido> resultado : resultados) {
+            ids.add(resultado.get().getId());
+        }
+        hilos.shutdown();
+
+        assertEquals(200, ids.stream().filter(id -> id != null).distinct().count(), "Cada petición recibe su propio id");
+        assertEquals(200, pedidoRepository.count());
+        assertTrue(ingestaPedidos.lotesEscritos() - lotesIniciales < 200, "Varios pedidos deben compartir transacción");
+    }
+
+    @Test
+    @DisplayName("Test para que un pedido inválido falle solo sin arrastrar al resto de su lote")
+    void testPedidoInvalidoNoAfectaAlLote() {
+        CompletableFuture<Pedido> antes = ingestaPedidos.encolar(pedido(usuario));
+        CompletableFuture<Pedido> invalido = ingestaPedidos.encolar(pedido(null)); // usuario_id es obligatorio
+        CompletableFuture<Pedido> despues = ingestaPedidos.encolar(pedido(usuario));
+
+        assertNotNull(antes.join().getId());
+        assertNotNull(despues.join().getId());
+        assertThrows(CompletionException.class, invalido::join);
+        assertEquals(2, pedidoRepository.count());
+    }
+
+    @Test
+    @DisplayName("Test para rechazar pedidos cuando el buffer está lleno")
+    void testContrapresion() {
+        // Sin iniciar el hilo escritor nadie vacía el buffer
+        IngestaPedidos sinEscritor = new IngestaPedidos(true, 2, 10, 5, 10, 5000);
+        sinEscritor.encolar(pedido(usuario));
+        sinEscritor.encolar(pedido(usuario));
+
+        assertThrows(RejectedExecutionException.class, () -> sinEscritor.encolar(pedido(usuario)));
+        assertEquals(1, sinEscritor.pedidosRechazados());
+        assertEquals(2, sinEscritor.pendientes());
+    }
+
+    @Test
+    @DisplayName("Test para vencer y retirar del buffer un pedido que no se guarda a tiempo")
+    void testTiempoMaximo() {
+        IngestaPedidos sinEscritor = new IngestaPedidos(true, 10, 10, 5, 10, 50);
+        CompletableFuture<Pedido> resultado = sinEscritor.encolar(pedido(usuario));
+
+        CompletionException error = assertThrows(CompletionException.class, resultado::join);
+        assertInstanceOf(TimeoutException.class, error.getCause());
+        assertEquals(0, sinEscritor.pendientes(), "El pedido vencido ya no se guardará");
+    }
+
+    @Test
+    @DisplayName("Test para fallar los pedidos que quedan en el buffer al detener la ingesta")
+    void testDetenerFallaPendientes() throws InterruptedException {
+        IngestaPedidos sinEscritor = new IngestaPedidos(true, 10, 10, 5, 10, 60_000);
+        CompletableFuture<Pedido> resultado = sinEscritor.encolar(pedido(usuario));
+
+        sinEscritor.detener();
+
+        CompletionException error = assertThrows(CompletionException.class, resultado::join);
+        assertInstanceOf(RejectedExecutionException.class, error.getCause());
+        assertEquals(0, sinEscritor.pendientes());
+        assertThrows(RejectedExecutionException.class, () -> sinEscritor.encolar(pedido(usuario)));
+    }
+
+    private static Pedido pedido(Usuario usuario) {
+        Pedido pedido = new Pedido();
+        pedido.setEstado(EstadoPedido.PENDIENTE);
+        pedido.setFecha(new Date());
+        pedido.setTotal(10.0);
+        pedido.setUsuario(usuario);
+        return pedido;
+    }
+}
@@ -0,0 +1,116 @@
+package com.ecomarketspa.Service;
+
+import com.ecomarketspa.Model.EstadoPedido;
+import com.ecomarketspa.Model.Usuario;
+import com.ecomarketspa.Repository.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Base creada cuando el estado del pedido era texto libre: Hibernate agregó estado_codigo con 0 en las filas existentes
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({MigracionEstadosPedido.class, VentasDiariasService.class})
+@TestPropertySource(properties = "ecomarket.pedidos.ventas-diarias.intervalo=1h")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class MigracionEstadosPedidoTest {
+
+    private static final LocalDate LUNES = LocalDate.of(2024, 3, 4);
+
+    @Autowired
+    private MigracionEstadosPedido migracionEstadosPedido;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Usuario usuario;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("ALTER TABLE pedido ADD COLUMN estado VARCHAR(255)");
+        usuario = new Usuario();
+        usuario.setNombre("Ana");
+        usuario = usuarioRepository.save(usuario);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM pedido");
+        jdbcTemplate.update("DELETE FROM ventas_diarias");
+        usuarioRepository.deleteAll();
+        jdbcTemplate.execute("ALTER TABLE pedido DROP COLUMN estado");
+    }
+
+    @Test
+    @DisplayName("Test para traducir el estado de texto de los pedidos antiguos a su código")
+    void testMigrarPedidos() {
+        long pendiente = pedidoAntiguo("Pendiente", 0);
+        long entregado = pedidoAntiguo("Completado", 0);
+        long enviado = pedidoAntiguo(" enviado ", 0);
+        long sinEstado = pedidoAntiguo(null, 0);
+        long desconocido = pedidoAntiguo("Extraviado", 0);
+        long yaMigrado = pedidoAntiguo("Pendiente", EstadoPedido.CANCELADO.getCodigo()); // Cambió de estado después del enum
+
+        migracionEstadosPedido.migrar();
+
+        assertEquals(EstadoPedido.PENDIENTE, estado(pendiente));
+        assertEquals(EstadoPedido.ENTREGADO, estado(entregado));
+        assertEquals(EstadoPedido.ENVIADO, estado(enviado));
+        assertEquals(EstadoPedido.PENDIENTE, estado(sinEstado));
+        assertEquals(EstadoPedido.PENDIENTE, estado(desconocido));
+        assertEquals(EstadoPedido.CANCELADO, estado(yaMigrado), "El código ya asignado no se toca");
+        assertEquals("Extraviado", jdbcTemplate.queryForObject("SELECT estado FROM pedido WHERE id = ?", String.class, desconocido),
+                "El texto antiguo se conserva para revisarlo");
+    }
+
+    @Test
+    @DisplayName("Test para juntar los acumulados con claves de texto en el estado equivalente")
+    void testMigrarAcumulados() {
+        acumulado(LUNES, "Pendiente", 2, 10.0);
+        acumulado(LUNES, "SIN_ESTADO", 1, 5.0);
+        acumulado(LUNES, "PENDIENTE", 1, 1.0); // Ya escrita con el nombre del enum
+        acumulado(LUNES, "Completado", 1, 7.0);
+        acumulado(LUNES.plusDays(1), "Entregado", 3, 30.0);
+
+        migracionEstadosPedido.migrar();
+        migracionEstadosPedido.migrar(); // Sin nada pendiente no cambia nada
+
+        assertEquals(List.of("2024-03-04 ENTREGADO 1 7.0", "2024-03-04 PENDIENTE 4 16.0", "2024-03-05 ENTREGADO 3 30.0"),
+                jdbcTemplate.query("SELECT dia, estado, cantidad, total FROM ventas_diarias ORDER BY dia, estado",
+                        (rs, fila) -> rs.getDate(1) + " " + rs.getString(2) + " " + rs.getLong(3) + " " + rs.getDouble(4)));
+    }
+
+    private long pedidoAntiguo(String estado, int codigo) {
+        jdbcTemplate.update("INSERT INTO pedido (usuario_id, fecha, estado, estado_codigo, total) VALUES (?, ?, ?, ?, ?)",
+                usuario.getId(), Timestamp.valueOf(LUNES.atTime(13, 30)), estado, codigo, 10.0);
+        return jdbcTemplate.queryForObject("SELECT MAX(id) FROM pedido", Long.class);
+    }
+
+    private EstadoPedido estado(long id) {
+        return EstadoPedido.desdeCodigo(jdbcTemplate.queryForObject("SELECT estado_codigo FROM pedido WHERE id = ?", Integer.class, id));
+    }
+
+    private void acumulado(LocalDate dia, String estado, long cantidad, double total) {
+        jdbcTemplate.update("INSERT INTO ventas_diarias (dia, estado, cantidad, total) VALUES (?, ?, ?, ?)", dia, estado, cantidad, total);
+    }
+}
@@ -0,0 +1,124 @@
+package com.ecomarketspa.Service;
+
+import com.ecomarketspa.Dto.BandejaNotificaciones;
+import com.ecomarketspa.Model.Notificacion;
+import com.ecomarketspa.Model.Usuario;
+import com.ecomarketspa.Repository.NotificacionRepository;
+import com.ecomarketspa.Repository.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Bandeja por usuario con cursor de lectura contra una base H2 real
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({NotificacionService.class, DespachoNotificaciones.class, SuscripcionesNotificaciones.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class NotificacionServiceBandejaTest {
+
+    @Autowired
+    private NotificacionService notificacionService;
+
+    @Autowired
+    private NotificacionRepository notificacionRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Usuario ana;
+    private Usuario beto;
+    private List<Long> deAna; // Ids de las notificaciones de Ana en orden de creación
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM lectura_notificaciones");
+        notificacionRepository.deleteAll();
+        usuarioRepository.deleteAll();
+        ana = usuarioRepository.save(usuario("Ana"));
+        beto = usuarioRepository.save(usuario("Beto"));
+        deAna = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            deAna.add(notificacionService.guardarNotificacion(notificacion(ana, "Aviso " + i)).getId());
+            notificacionService.guardarNotificacion(notificacion(beto, "Otro " + i)); // Intercaladas con las de Ana
+        }
+    }
+
+    @Test
+    @DisplayName("Test para recorrer la bandeja por cursor de la más nueva a la más antigua")
+    void testPaginarBandeja() {
+        List<Long> recorridas = new ArrayList<>();
+        Long cursor = null;
+        int paginas = 0;
+        do {
+            BandejaNotificaciones pagina = notificacionService.obtenerBandeja(ana.getId(), cursor, 5);
+            pagina.notificaciones().forEach(entrada -> recorridas.add(entrada.id()));
+            cursor = pagina.siguienteCursor();
+            paginas++;
+        } while (cursor != null);
+
+        assertEquals(3, paginas);
+        assertEquals(deAna.reversed(), recorridas, "Cada notificación de Ana una sola vez y solo las suyas");
+        assertEquals(12, notificacionService.contarNoLeidas(ana.getId()));
+    }
+
+    @Test
+    @DisplayName("Test para marcar como leídas hasta una notificación")
+    void testMarcarLeidasHasta() {
+        long cursor = notificacionService.marcarLeidas(ana.getId(), deAna.get(7));
+
+        assertEquals(deAna.get(7), cursor);
+        assertEquals(4, notificacionService.contarNoLeidas(ana.getId()));
+        assertEquals(12, notificacionService.contarNoLeidas(beto.getId()), "El cursor es por usuario");
+        BandejaNotificaciones bandeja = notificacionService.obtenerBandeja(ana.getId(), null, 20);
+        assertEquals(4, bandeja.noLeidas());
+        assertEquals(List.of(false, false, false, false, true), bandeja.notificaciones().stream()
+                .limit(5).map(BandejaNotificaciones.Entrada::leida).toList());
+
+        // Un cursor anterior no desmarca nada
+        assertEquals(deAna.get(7), notificacionService.marcarLeidas(ana.getId(), deAna.get(2)));
+        assertEquals(4, notificacionService.contarNoLeidas(ana.getId()));
+    }
+
+    @Test
+    @DisplayName("Test para marcar todas como leídas sin adelantarse a las que lleguen después")
+    void testMarcarTodasLeidas() {
+        assertEquals(deAna.get(11), notificacionService.marcarLeidas(ana.getId(), null));
+        assertEquals(0, notificacionService.contarNoLeidas(ana.getId()));
+
+        // Un hastaId mayor que la última existente no marca de antemano las futuras
+        notificacionService.marcarLeidas(ana.getId(), Long.MAX_VALUE);
+        notificacionService.guardarNotificacion(notificacion(ana, "Nueva"));
+        assertEquals(1, notificacionService.contarNoLeidas(ana.getId()));
+    }
+
+    private static Usuario usuario(String nombre) {
+        Usuario usuario = new Usuario();
+        usuario.setNombre(nombre);
+        return usuario;
+    }
+
+    private static Notificacion notificacion(Usuario usuario, String mensaje) {
+        Notificacion notificacion = new Notificacion();
+        notificacion.setTipo("Aviso");
+        notificacion.setMensaje(mensaje);
+        notificacion.setUsuario(usuario);
+        return notificacion;
+    }
+}
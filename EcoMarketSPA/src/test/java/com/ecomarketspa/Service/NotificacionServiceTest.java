@@ -2,6 +2,7 @@ package com.ecomarketspa.Service;
 
 import com.ecomarketspa.Model.Notificacion; // Asegúrate de que el path del modelo es correcto
 import com.ecomarketspa.Model.Usuario;      // También necesitarás el modelo Usuario
+import com.ecomarketspa.Repository.LecturaNotificacionesRepository;
 import com.ecomarketspa.Repository.NotificacionRepository; // Asegúrate de que el path del repositorio es correcto
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -10,6 +11,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import java.util.Arrays;
 import java.util.List;
@@ -26,6 +28,18 @@ public class NotificacionServiceTest {
     @Mock
     private NotificacionRepository notificacionRepository;
 
+    @Mock
+    private LecturaNotificacionesRepository lecturaNotificacionesRepository;
+
+    @Mock
+    private DespachoNotificaciones despachoNotificaciones;
+
+    @Mock
+    private SuscripcionesNotificaciones suscripcionesNotificaciones;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
     @InjectMocks
     private NotificacionService notificacionService;
 
@@ -91,6 +105,20 @@ public class NotificacionServiceTest {
         assertEquals(usuario1.getId(), notificacionGuardada.getUsuario().getId(), "El ID del usuario asociado debe coincidir");
 
         verify(notificacionRepository, times(1)).save(any(Notificacion.class));
+        verify(despachoNotificaciones, times(1)).despacharAlConfirmar(notificacion1); // Se entrega la notificación ya guardada
+        verify(suscripcionesNotificaciones, times(1)).publicarAlConfirmar(notificacion1); // Y se empuja a los suscriptores SSE
+    }
+
+    @Test
+    @DisplayName("Test para no volver a entregar una notificación editada")
+    void testActualizarNotificacionNoSeDespacha() {
+        notificacion1.setMensaje("Tu pedido #123 fue actualizado.");
+        when(notificacionRepository.save(notificacion1)).thenReturn(notificacion1);
+
+        notificacionService.guardarNotificacion(notificacion1);
+
+        verify(notificacionRepository, times(1)).save(notificacion1);
+        verifyNoInteractions(despachoNotificaciones, suscripcionesNotificaciones);
     }
 
     @Test
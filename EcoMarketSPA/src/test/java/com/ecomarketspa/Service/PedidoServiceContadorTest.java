@@ -0,0 +1,111 @@
+package com.ecomarketspa.Service;
+
+import com.ecomarketspa.Index.ContadorPedidosUsuario;
+import com.ecomarketspa.Index.IndiceEstadosPedido;
+import com.ecomarketspa.Index.UsuariosConPedidosPendientes;
+import com.ecomarketspa.Model.EstadoPedido;
+import com.ecomarketspa.Model.Pedido;
+import com.ecomarketspa.Model.Usuario;
+import com.ecomarketspa.Repository.PedidoRepository;
+import com.ecomarketspa.Repository.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// El contador en memoria debe coincidir con COUNT(*) tras altas, reasignaciones, bajas y rollbacks
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PedidoService.class, ArchivoPedidos.class, ContadorPedidosUsuario.class, IndiceEstadosPedido.class, UsuariosConPedidosPendientes.class, VentasDiariasService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // Los cambios se aplican al contador después del commit
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD) // Cada test parte con un contador nuevo
+public class PedidoServiceContadorTest {
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    private Usuario ana;
+    private Usuario beto;
+
+    @BeforeEach
+    void setUp() {
+        pedidoRepository.deleteAll();
+        usuarioRepository.deleteAll();
+        ana = usuarioRepository.save(usuario("Ana"));
+        beto = usuarioRepository.save(usuario("Beto"));
+    }
+
+    @Test
+    @DisplayName("Test para mantener el contador al crear, reasignar y eliminar pedidos")
+    void testContadorSigueLosCambios() {
+        pedidoService.guardarPedido(pedido(ana));
+        pedidoService.cargarContadorPedidos(); // Ya se cargó al iniciar el contexto: volver a cargar debe reconciliar, no duplicar
+        assertConteos();
+
+        Pedido segundo = pedidoService.guardarPedido(pedido(ana));
+        pedidoService.guardarPedido(pedido(beto));
+        assertConteos();
+        assertEquals(2L, pedidoService.contarPedidosPorUsuario(ana.getId()));
+
+        segundo.setUsuario(beto); // Reasignación con una entidad desprendida, como llega desde el controlador
+        pedidoService.guardarPedido(segundo);
+        assertConteos();
+        assertEquals(1L, pedidoService.contarPedidosPorUsuario(ana.getId()));
+
+        pedidoService.eliminarPedido(segundo.getId());
+        assertConteos();
+        assertEquals(1L, pedidoService.contarPedidosPorUsuario(beto.getId()));
+    }
+
+    @Test
+    @DisplayName("Test para no contar pedidos cuya transacción falla")
+    void testContadorIgnoraRollback() {
+        pedidoService.cargarContadorPedidos();
+        Pedido sinUsuario = pedido(null);
+
+        assertThrows(DataIntegrityViolationException.class, () -> pedidoService.guardarPedido(sinUsuario));
+        assertEquals(0L, pedidoService.contarPedidosPorUsuario(ana.getId()));
+        assertConteos();
+    }
+
+    private void assertConteos() {
+        for (Usuario usuario : new Usuario[]{ana, beto}) {
+            assertEquals(pedidoRepository.countByUsuarioId(usuario.getId()), pedidoService.contarPedidosPorUsuario(usuario.getId()),
+                    "El contador de " + usuario.getNombre() + " debe coincidir con la base de datos");
+        }
+    }
+
+    private static Usuario usuario(String nombre) {
+        Usuario usuario = new Usuario();
+        usuario.setNombre(nombre);
+        return usuario;
+    }
+
+    private static Pedido pedido(Usuario usuario) {
+        Pedido pedido = new Pedido();
+        pedido.setEstado(EstadoPedido.PENDIENTE);
+        pedido.setFecha(new Date());
+        pedido.setTotal(10.0);
+        pedido.setUsuario(usuario);
+        return pedido;
+    }
+}
@@ -0,0 +1,123 @@
+package com.ecomarketspa.Service;
+
+import com.ecomarketspa.Index.ContadorPedidosUsuario;
+import com.ecomarketspa.Index.FiltroBloomCorreos;
+import com.ecomarketspa.Index.IndiceEstadosPedido;
+import com.ecomarketspa.Index.IndiceTrigramas;
+import com.ecomarketspa.Index.UsuariosConPedidosPendientes;
+import com.ecomarketspa.Model.EstadoPedido;
+import com.ecomarketspa.Model.Pedido;
+import com.ecomarketspa.Model.Usuario;
+import com.ecomarketspa.Repository.PedidoRepository;
+import com.ecomarketspa.Repository.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// El índice en memoria por estado debe coincidir con la base de datos tras altas, cambios de estado y bajas
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PedidoService.class, ArchivoPedidos.class, UsuarioService.class, ContadorPedidosUsuario.class, IndiceEstadosPedido.class, UsuariosConPedidosPendientes.class, IndiceTrigramas.class, FiltroBloomCorreos.class, FiltroCorreosService.class, VentasDiariasService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // Los cambios se aplican al índice después del commit
+public class PedidoServiceEstadosTest {
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    private Usuario ana;
+    private Usuario beto;
+
+    @BeforeEach
+    void setUp() {
+        pedidoRepository.deleteAll();
+        usuarioRepository.deleteAll();
+        ana = usuarioRepository.save(usuario("Ana"));
+        beto = usuarioRepository.save(usuario("Beto"));
+        pedidoService.cargarIndiceEstados(); // Cada test parte de un índice recargado desde la tabla
+        usuarioService.cargarUsuariosConPedidosPendientes();
+    }
+
+    @Test
+    @DisplayName("Test para seguir los cambios de estado en el índice")
+    void testIndiceSigueLosCambios() {
+        Pedido primero = pedidoService.guardarPedido(pedido(ana, null)); // Sin estado se crea PENDIENTE
+        Pedido segundo = pedidoService.guardarPedido(pedido(beto, EstadoPedido.PENDIENTE));
+        assertEquals(EstadoPedido.PENDIENTE, primero.getEstado());
+        assertEstados();
+
+        segundo.setEstado(EstadoPedido.ENVIADO);
+        pedidoService.guardarPedido(segundo);
+        assertEstados();
+        assertEquals(List.of(primero.getId()), ids(pedidoService.buscarPedidosPorEstado(EstadoPedido.PENDIENTE)));
+        assertEquals(List.of(ana.getId()), usuarioService.buscarUsuariosConPedidosPendientes().stream().map(Usuario::getId).toList());
+
+        pedidoService.eliminarPedido(primero.getId());
+        assertEstados();
+        assertTrue(usuarioService.buscarUsuariosConPedidosPendientes().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test para reconstruir el índice desde la tabla")
+    void testCargarIndice() {
+        pedidoService.guardarPedido(pedido(ana, EstadoPedido.ENTREGADO));
+        pedidoService.guardarPedido(pedido(beto, EstadoPedido.CANCELADO));
+
+        pedidoService.cargarIndiceEstados();
+
+        assertEstados();
+        assertEquals(1, pedidoService.contarPedidosPorEstado(EstadoPedido.CANCELADO));
+    }
+
+    private void assertEstados() {
+        for (EstadoPedido estado : EstadoPedido.values()) {
+            assertEquals(pedidoRepository.countByEstado(estado), pedidoService.contarPedidosPorEstado(estado),
+                    "El índice de " + estado + " debe coincidir con la base de datos");
+            assertEquals(ids(pedidoRepository.findByEstado(estado)).stream().sorted().toList(),
+                    ids(pedidoService.buscarPedidosPorEstado(estado)));
+        }
+        // El conjunto en memoria debe coincidir con la consulta EXISTS
+        assertEquals(usuarioRepository.findUsuariosConPedidosPorEstado(EstadoPedido.PENDIENTE).stream().map(Usuario::getId).sorted().toList(),
+                usuarioService.buscarUsuariosConPedidosPendientes().stream().map(Usuario::getId).toList());
+    }
+
+    private static List<Long> ids(List<Pedido> pedidos) {
+        return pedidos.stream().map(Pedido::getId).toList();
+    }
+
+    private static Usuario usuario(String nombre) {
+        Usuario usuario = new Usuario();
+        usuario.setNombre(nombre);
+        return usuario;
+    }
+
+    private static Pedido pedido(Usuario usuario, EstadoPedido estado) {
+        Pedido pedido = new Pedido();
+        pedido.setEstado(estado);
+        pedido.setFecha(new Date());
+        pedido.setTotal(10.0);
+        pedido.setUsuario(usuario);
+        return pedido;
+    }
+}
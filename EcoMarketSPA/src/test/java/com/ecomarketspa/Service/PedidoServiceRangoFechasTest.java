@@ -0,0 +1,137 @@
+package com.ecomarketspa.Service;
+
+import com.ecomarketspa.Index.ContadorPedidosUsuario;
+import com.ecomarketspa.Index.IndiceEstadosPedido;
+import com.ecomarketspa.Index.UsuariosConPedidosPendientes;
+import com.ecomarketspa.Model.EstadoPedido;
+import com.ecomarketspa.Model.Pedido;
+import com.ecomarketspa.Model.Usuario;
+import com.ecomarketspa.Repository.PedidoRepository;
+import com.ecomarketspa.Repository.UsuarioRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Paginación por cursor (fecha, id) contra una base H2 real
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PedidoService.class, ArchivoPedidos.class, ContadorPedidosUsuario.class, IndiceEstadosPedido.class, UsuariosConPedidosPendientes.class, VentasDiariasService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class PedidoServiceRangoFechasTest {
+
+    private static final long DIA = 86_400_000L;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<Pedido> guardados = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        pedidoRepository.deleteAll();
+        usuarioRepository.deleteAll();
+        Usuario usuario = new Usuario();
+        usuario.setNombre("Cliente Test");
+        usuario = usuarioRepository.save(usuario);
+
+        guardados.clear();
+        // 10 días con 5 pedidos cada uno en la misma fecha exacta, insertados en orden inverso de fecha
+        for (int dia = 9; dia >= 0; dia--) {
+            for (int i = 0; i < 5; i++) {
+                Pedido pedido = new Pedido();
+                pedido.setEstado(EstadoPedido.PENDIENTE);
+                pedido.setFecha(new Date(dia * DIA));
+                pedido.setTotal(10.0);
+                pedido.setUsuario(usuario);
+                guardados.add(pedidoRepository.save(pedido));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Test para paginar un rango de fechas sin repetir ni saltar pedidos con la misma fecha")
+    void testPaginarEntreFechas() {
+        Date inicio = new Date(2 * DIA);
+        Date fin = new Date(7 * DIA);
+        List<Long> esperados = guardados.stream()
+                .filter(p -> !p.getFecha().before(inicio) && !p.getFecha().after(fin))
+                .sorted(Comparator.comparing(Pedido::getFecha).thenComparing(Pedido::getId))
+                .map(Pedido::getId)
+                .toList();
+
+        List<Long> recorridos = new ArrayList<>();
+        Date fechaCursor = null;
+        Long idCursor = null;
+        List<Pedido> pagina;
+        do {
+            pagina = pedidoService.buscarPedidosEntreFechasDespuesDe(inicio, fin, fechaCursor, idCursor, 4);
+            pagina.forEach(p -> recorridos.add(p.getId()));
+            if (!pagina.isEmpty()) {
+                fechaCursor = pagina.get(pagina.size() - 1).getFecha();
+                idCursor = pagina.get(pagina.size() - 1).getId();
+            }
+        } while (pagina.size() == 4);
+
+        assertEquals(30, esperados.size());
+        assertEquals(esperados, recorridos);
+        assertEquals("Cliente Test",
+                pedidoService.buscarPedidosEntreFechasDespuesDe(inicio, fin, null, null, 1).get(0).getUsuario().getNombre(),
+                "El usuario viene cargado en la misma consulta");
+    }
+
+    @Test
+    @DisplayName("Test para recorrer todo un rango en lotes")
+    void testRecorrerEntreFechas() {
+        List<Pedido> recorridos = new ArrayList<>();
+        pedidoService.recorrerPedidosEntreFechas(new Date(0), new Date(9 * DIA), 7, recorridos::add);
+
+        assertEquals(50, recorridos.size());
+        assertEquals(50, recorridos.stream().map(Pedido::getId).distinct().count());
+    }
+
+    @Test
+    @DisplayName("Test para recorrer el rango por lotes sin acumular pedidos ni usuarios en el EntityManager de la petición")
+    void testRecorrerConOpenInView() {
+        // Como OpenEntityManagerInViewInterceptor: un EntityManager ligado al hilo que comparten todos los lotes
+        EntityManager deLaPeticion = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(deLaPeticion));
+        List<Pedido> recorridos = new ArrayList<>();
+        try {
+            pedidoService.recorrerPedidosEntreFechas(new Date(0), new Date(9 * DIA), 7, recorridos::add);
+            assertEquals(guardados.size(), recorridos.size());
+            assertTrue(recorridos.stream().noneMatch(pedido -> deLaPeticion.contains(pedido) || deLaPeticion.contains(pedido.getUsuario())),
+                    "Ningún lote queda en el contexto de la petición");
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            deLaPeticion.close();
+        }
+    }
+}
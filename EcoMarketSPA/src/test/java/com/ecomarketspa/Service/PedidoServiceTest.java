@@ -1,8 +1,13 @@
 package com.ecomarketspa.Service;
 
+import com.ecomarketspa.Index.ContadorPedidosUsuario;
+import com.ecomarketspa.Index.IndiceEstadosPedido;
+import com.ecomarketspa.Model.EstadoPedido;
 import com.ecomarketspa.Model.Pedido; // Asegúrate de que el path del modelo es correcto
 import com.ecomarketspa.Model.Usuario; // También necesitarás el modelo Usuario
 import com.ecomarketspa.Repository.PedidoRepository; // Asegúrate de que el path del repositorio es correcto
+import com.ecomarketspa.Repository.UsuarioRepository;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -10,7 +15,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
@@ -27,6 +34,21 @@ public class PedidoServiceTest {
     @Mock
     private PedidoRepository pedidoRepository;
 
+    @Mock
+    private ContadorPedidosUsuario contadorPedidosUsuario;
+
+    @Mock
+    private IndiceEstadosPedido indiceEstadosPedido;
+
+    @Mock
+    private ArchivoPedidos archivoPedidos;
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    @Mock // recorrerPedidosEntreFechas limpia el contexto de persistencia entre lotes
+    private EntityManager entityManager;
+
     @InjectMocks
     private PedidoService pedidoService;
 
@@ -47,14 +69,14 @@ public class PedidoServiceTest {
         // Inicializamos los objetos Pedido con datos de prueba
         pedido1 = new Pedido();
         pedido1.setId(1L);
-        pedido1.setEstado("Pendiente");
+        pedido1.setEstado(EstadoPedido.PENDIENTE);
         pedido1.setFecha(new Date()); // Fecha actual para la prueba
         pedido1.setTotal(150.75);
         pedido1.setUsuario(usuario1); // Asociamos el usuario
 
         pedido2 = new Pedido();
         pedido2.setId(2L);
-        pedido2.setEstado("Completado");
+        pedido2.setEstado(EstadoPedido.ENTREGADO);
         pedido2.setFecha(new Date(System.currentTimeMillis() - 86400000)); // Un día antes
         pedido2.setTotal(25.00);
         pedido2.setUsuario(usuario1); // Asociamos el mismo usuario
@@ -79,7 +101,7 @@ public class PedidoServiceTest {
     @DisplayName("Test para guardar un nuevo pedido")
     void testGuardarPedido() {
         Pedido nuevoPedido = new Pedido();
-        nuevoPedido.setEstado("Nuevo");
+        nuevoPedido.setEstado(EstadoPedido.PENDIENTE);
         nuevoPedido.setFecha(new Date());
         nuevoPedido.setTotal(50.00);
         nuevoPedido.setUsuario(usuario1);
@@ -91,7 +113,7 @@ public class PedidoServiceTest {
 
         assertNotNull(pedidoGuardado, "El pedido guardado no debería ser nulo");
         assertEquals(1L, pedidoGuardado.getId(), "El ID del pedido guardado debería ser 1");
-        assertEquals("Pendiente", pedidoGuardado.getEstado(), "El estado del pedido debe coincidir con el mock");
+        assertEquals(EstadoPedido.PENDIENTE, pedidoGuardado.getEstado(), "El estado del pedido debe coincidir con el mock");
         assertEquals(usuario1.getId(), pedidoGuardado.getUsuario().getId(), "El ID del usuario asociado debe coincidir");
         // Puedes añadir más aserciones sobre el total, fecha, etc., si es relevante que coincidan con el mock
 
@@ -141,7 +163,7 @@ public class PedidoServiceTest {
         // Objeto con los datos que simulan una actualización
         Pedido pedidoActualizadoDatos = new Pedido();
         pedidoActualizadoDatos.setId(1L); // ID existente
-        pedidoActualizadoDatos.setEstado("Enviado");
+        pedidoActualizadoDatos.setEstado(EstadoPedido.ENVIADO);
         pedidoActualizadoDatos.setFecha(new Date());
         pedidoActualizadoDatos.setTotal(160.00); // Nuevo total
         pedidoActualizadoDatos.setUsuario(usuario1); // El mismo usuario
@@ -156,10 +178,71 @@ public class PedidoServiceTest {
         // Verificamos el resultado
         assertNotNull(result);
         assertEquals(1L, result.getId(), "El ID debería ser el mismo");
-        assertEquals("Enviado", result.getEstado(), "El estado debería estar actualizado");
+        assertEquals(EstadoPedido.ENVIADO, result.getEstado(), "El estado debería estar actualizado");
         assertEquals(160.00, result.getTotal(), 0.001, "El total debería estar actualizado");
         assertEquals(usuario1.getId(), result.getUsuario().getId(), "El ID del usuario debería ser el mismo");
 
         verify(pedidoRepository, times(1)).save(any(Pedido.class));
     }
+
+    @Test
+    @DisplayName("Test para recorrer un rango de fechas por páginas usando el cursor (fecha, id)")
+    void testRecorrerPedidosEntreFechas() {
+        Date inicio = new Date(0);
+        Date fin = new Date();
+        // Dos pedidos con la misma fecha: el id desempata el cursor
+        pedido2.setFecha(pedido1.getFecha());
+        pedido2.setId(2L);
+        when(pedidoRepository.findPaginaEntreFechas(inicio, 0L, fin, Limit.of(1))).thenReturn(List.of(pedido1));
+        when(pedidoRepository.findPaginaEntreFechas(pedido1.getFecha(), 1L, fin, Limit.of(1))).thenReturn(List.of(pedido2));
+        when(pedidoRepository.findPaginaEntreFechas(pedido2.getFecha(), 2L, fin, Limit.of(1))).thenReturn(List.of());
+
+        List<Pedido> recorridos = new ArrayList<>();
+        pedidoService.recorrerPedidosEntreFechas(inicio, fin, 1, recorridos::add);
+
+        assertEquals(List.of(pedido1, pedido2), recorridos);
+        verify(pedidoRepository, times(3)).findPaginaEntreFechas(any(), anyLong(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Test para contar pedidos por usuario desde el contador en memoria")
+    void testContarPedidosPorUsuario() {
+        when(contadorPedidosUsuario.obtener(10L)).thenReturn(3L);
+
+        assertEquals(3L, pedidoService.contarPedidosPorUsuario(10L));
+        verify(pedidoRepository, never()).countByUsuarioId(anyLong());
+    }
+
+    @Test
+    @DisplayName("Test para contar pedidos en la base de datos mientras el contador no está cargado")
+    void testContarPedidosPorUsuarioSinContadorCargado() {
+        when(contadorPedidosUsuario.obtener(10L)).thenReturn(null);
+        when(pedidoRepository.countByUsuarioId(10L)).thenReturn(2L);
+
+        assertEquals(2L, pedidoService.contarPedidosPorUsuario(10L));
+    }
+
+    @Test
+    @DisplayName("Test para buscar pedidos por estado a partir del índice en memoria")
+    void testBuscarPedidosPorEstadoConIndice() {
+        when(indiceEstadosPedido.estaCargado()).thenReturn(true);
+        when(indiceEstadosPedido.pedidosEn(EstadoPedido.PENDIENTE)).thenReturn(new long[]{1L, 2L});
+        when(pedidoRepository.findAllById(List.of(1L, 2L))).thenReturn(Arrays.asList(pedido2, pedido1));
+
+        List<Pedido> pedidos = pedidoService.buscarPedidosPorEstado(EstadoPedido.PENDIENTE);
+
+        assertEquals(List.of(pedido1, pedido2), pedidos, "Los pedidos deben venir ordenados por id");
+        verify(pedidoRepository, never()).findByEstado(any());
+    }
+
+    @Test
+    @DisplayName("Test para contar pedidos por estado desde el índice o, si no está cargado, desde la base de datos")
+    void testContarPedidosPorEstado() {
+        when(indiceEstadosPedido.estaCargado()).thenReturn(true, false);
+        when(indiceEstadosPedido.contar(EstadoPedido.ENVIADO)).thenReturn(7L);
+        when(pedidoRepository.countByEstado(EstadoPedido.ENVIADO)).thenReturn(6L);
+
+        assertEquals(7L, pedidoService.contarPedidosPorEstado(EstadoPedido.ENVIADO));
+        assertEquals(6L, pedidoService.contarPedidosPorEstado(EstadoPedido.ENVIADO));
+    }
 }
@@ -0,0 +1,147 @@
+package com.ecomarketspa.Service;
+
+import com.ecomarketspa.Dto.PerfilUsuario;
+import com.ecomarketspa.Model.Notificacion;
+import com.ecomarketspa.Model.Pedido;
+import com.ecomarketspa.Model.Usuario;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class PerfilUsuarioServiceTest {
+
+    @Mock
+    private UsuarioService usuarioService;
+
+    @Mock
+    private PedidoService pedidoService;
+
+    @Mock
+    private NotificacionService notificacionService;
+
+    @InjectMocks
+    private PerfilUsuarioService perfilUsuarioService = new PerfilUsuarioService(Duration.ofMillis(300), 4);
+
+    private Usuario usuario;
+    private Pedido pedido;
+    private Notificacion notificacion;
+
+    @BeforeEach
+    void setUp() {
+        usuario = new Usuario();
+        usuario.setId(1L);
+        usuario.setNombre("Ana");
+        pedido = new Pedido();
+        pedido.setId(10L);
+        pedido.setUsuario(usuario);
+        notificacion = new Notificacion();
+        notificacion.setId(20L);
+        notificacion.setUsuario(usuario);
+    }
+
+    @Test
+    @DisplayName("Test para armar el perfil completo cuando todas las secciones responden")
+    void testPerfilCompleto() {
+        when(usuarioService.obtenerUsuarioPorId(1L)).thenReturn(Optional.of(usuario));
+        when(pedidoService.buscarPedidosRecientesPorUsuario(1L, PerfilUsuarioService.PEDIDOS_RECIENTES)).thenReturn(List.of(pedido));
+        when(pedidoService.contarPedidosPorUsuario(1L)).thenReturn(7L);
+        when(notificacionService.listarNotificacionesPorUsuario(1L)).thenReturn(List.of(notificacion));
+
+        PerfilUsuario perfil = perfilUsuarioService.obtenerPerfil(1L).orElseThrow();
+
+        assertEquals(usuario, perfil.usuario());
+        assertEquals(List.of(pedido), perfil.pedidosRecientes());
+        assertEquals(7L, perfil.cantidadPedidos());
+        assertEquals(List.of(notificacion), perfil.notificaciones());
+        assertTrue(perfil.incompletas().isEmpty());
+        assertEquals(4, perfilUsuarioService.consultasDisponibles(), "Cada sección devuelve su permiso al terminar");
+    }
+
+    @Test
+    @DisplayName("Test para devolver el perfil parcial cuando una sección se demora y otra falla")
+    void testPerfilParcial() {
+        when(usuarioService.obtenerUsuarioPorId(1L)).thenReturn(Optional.of(usuario));
+        when(pedidoService.buscarPedidosRecientesPorUsuario(1L, PerfilUsuarioService.PEDIDOS_RECIENTES)).thenAnswer(invocacion -> {
+            Thread.sleep(5_000);
+            return List.of(pedido);
+        });
+        when(pedidoService.contarPedidosPorUsuario(1L)).thenThrow(new IllegalStateException("Base de datos no disponible"));
+        when(notificacionService.listarNotificacionesPorUsuario(1L)).thenReturn(List.of(notificacion));
+
+        long inicio = System.nanoTime();
+        PerfilUsuario perfil = perfilUsuarioService.obtenerPerfil(1L).orElseThrow();
+        long milis = (System.nanoTime() - inicio) / 1_000_000;
+
+        assertTrue(milis < 2_000, "Debe responder al vencer el plazo y no esperar a la sección lenta: " + milis + " ms");
+        assertEquals(usuario, perfil.usuario());
+        assertNull(perfil.pedidosRecientes());
+        assertNull(perfil.cantidadPedidos());
+        assertEquals(List.of(notificacion), perfil.notificaciones());
+        assertEquals(Map.of("pedidosRecientes", "Tiempo agotado", "cantidadPedidos", "Error al consultar"), perfil.incompletas());
+    }
+
+    @Test
+    @DisplayName("Test para dejar incompletas las secciones que no consiguen permiso antes del plazo")
+    void testSinConexionesDisponibles() {
+        PerfilUsuarioService sinPermisos = new PerfilUsuarioService(Duration.ofMillis(300), 0);
+
+        long inicio = System.nanoTime();
+        PerfilUsuario perfil = sinPermisos.obtenerPerfil(1L).orElseThrow();
+        long milis = (System.nanoTime() - inicio) / 1_000_000;
+
+        assertTrue(milis < 2_000, "La espera por un permiso no pasa del plazo: " + milis + " ms");
+        assertNull(perfil.usuario());
+        assertEquals(Set.of("usuario", "pedidosRecientes", "cantidadPedidos", "notificaciones"), perfil.incompletas().keySet());
+        // La espera del permiso y la del resultado vencen juntas: cualquiera de las dos puede informar la sección
+        assertTrue(perfil.incompletas().values().stream().allMatch(Set.of("Tiempo agotado", "Sin conexiones disponibles")::contains),
+                perfil.incompletas().toString());
+        verifyNoInteractions(usuarioService, pedidoService, notificacionService);
+        assertEquals(0, sinPermisos.consultasDisponibles());
+    }
+
+    @Test
+    @DisplayName("Test para esperar un permiso de consulta que se libera antes del plazo")
+    void testEsperarPermisoDentroDelPlazo() throws Exception {
+        PerfilUsuarioService unPermiso = new PerfilUsuarioService(Duration.ofSeconds(5), 1);
+        ReflectionTestUtils.setField(unPermiso, "usuarioService", usuarioService);
+        ReflectionTestUtils.setField(unPermiso, "pedidoService", pedidoService);
+        ReflectionTestUtils.setField(unPermiso, "notificacionService", notificacionService);
+        when(usuarioService.obtenerUsuarioPorId(1L)).thenReturn(Optional.of(usuario));
+        when(pedidoService.buscarPedidosRecientesPorUsuario(1L, PerfilUsuarioService.PEDIDOS_RECIENTES)).thenReturn(List.of(pedido));
+        when(pedidoService.contarPedidosPorUsuario(1L)).thenReturn(7L);
+        when(notificacionService.listarNotificacionesPorUsuario(1L)).thenReturn(List.of(notificacion));
+
+        // Con un solo permiso las cuatro secciones hacen fila y consultan una tras otra
+        PerfilUsuario perfil = unPermiso.obtenerPerfil(1L).orElseThrow();
+
+        assertEquals(usuario, perfil.usuario());
+        assertEquals(List.of(pedido), perfil.pedidosRecientes());
+        assertEquals(7L, perfil.cantidadPedidos());
+        assertEquals(List.of(notificacion), perfil.notificaciones());
+        assertTrue(perfil.incompletas().isEmpty(), perfil.incompletas().toString());
+        assertEquals(1, unPermiso.consultasDisponibles());
+    }
+
+    @Test
+    @DisplayName("Test para no devolver perfil si el usuario no existe")
+    void testUsuarioInexistente() {
+        when(usuarioService.obtenerUsuarioPorId(99L)).thenReturn(Optional.empty());
+
+        assertTrue(perfilUsuarioService.obtenerPerfil(99L).isEmpty());
+    }
+}
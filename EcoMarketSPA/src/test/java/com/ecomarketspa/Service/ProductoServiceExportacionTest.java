@@ -0,0 +1,102 @@
+package com.ecomarketspa.Service;
+
+import com.ecomarketspa.Index.CacheCategorias;
+import com.ecomarketspa.Index.IndicePrecios;
+import com.ecomarketspa.Index.IndiceTexto;
+import com.ecomarketspa.Index.VersionCatalogo;
+import com.ecomarketspa.Model.Producto;
+import com.ecomarketspa.Repository.ProductoRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Exportación con cursor contra una base H2 real
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ProductoService.class, IndicePrecios.class, CacheCategorias.class, IndiceTexto.class, VersionCatalogo.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // La exportación abre su propia transacción de solo lectura
+public class ProductoServiceExportacionTest {
+
+    private static final int PRODUCTOS = 2500;
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        productoRepository.deleteAll();
+        List<Object[]> filas = new ArrayList<>();
+        IntStream.range(0, PRODUCTOS).forEach(i -> filas.add(new Object[]{"Producto " + i, "Categoria " + (i % 7), i * 1.5, i}));
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO productos (nombre, categoria, precio, stock, version) VALUES (?, ?, ?, ?, 0)", filas);
+    }
+
+    @Test
+    @DisplayName("Test para exportar todo el catálogo en orden liberando el contexto de persistencia")
+    void testExportarProductos() {
+        AtomicLong anterior = new AtomicLong(Long.MIN_VALUE);
+        AtomicReference<Producto> primero = new AtomicReference<>();
+        List<Boolean> primeroSigueAdministrado = new ArrayList<>();
+
+        long exportados = productoService.exportarProductos(producto -> {
+            assertTrue(producto.getId() > anterior.getAndSet(producto.getId()), "Los productos salen ordenados por id");
+            primero.compareAndSet(null, producto);
+            primeroSigueAdministrado.add(entityManager.contains(primero.get()));
+        });
+
+        assertEquals(PRODUCTOS, exportados);
+        assertEquals(PRODUCTOS, primeroSigueAdministrado.size());
+        assertTrue(primeroSigueAdministrado.get(999), "Antes de la primera limpieza la entidad sigue en el contexto");
+        assertFalse(primeroSigueAdministrado.get(1000), "Después de 1000 filas el contexto se limpia");
+    }
+
+    @Test
+    @DisplayName("Test para recorrer el catálogo por lotes sin acumular entidades en el EntityManager de la petición")
+    void testRecorrerProductosConOpenInView() {
+        // Como OpenEntityManagerInViewInterceptor: un EntityManager ligado al hilo que comparten todos los lotes
+        EntityManager deLaPeticion = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(deLaPeticion));
+        List<Producto> recorridos = new ArrayList<>();
+        try {
+            productoService.recorrerProductos(500, recorridos::add);
+            assertEquals(PRODUCTOS, recorridos.size());
+            assertTrue(recorridos.stream().noneMatch(deLaPeticion::contains), "Ningún lote queda en el contexto de la petición");
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            deLaPeticion.close();
+        }
+    }
+}
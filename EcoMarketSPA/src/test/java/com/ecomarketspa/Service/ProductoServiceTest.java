@@ -1,7 +1,12 @@
 package com.ecomarketspa.Service;
 
+import com.ecomarketspa.Index.CacheCategorias;
+import com.ecomarketspa.Index.IndicePrecios;
+import com.ecomarketspa.Index.IndiceTexto;
+import com.ecomarketspa.Index.VersionCatalogo;
 import com.ecomarketspa.Model.Producto;
 import com.ecomarketspa.Repository.ProductoRepository;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -9,14 +14,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -26,6 +38,21 @@ public class ProductoServiceTest {
     @Mock
     private ProductoRepository productoRepository;
 
+    @Mock
+    private IndicePrecios indicePrecios;
+
+    @Mock
+    private CacheCategorias cacheCategorias;
+
+    @Mock
+    private IndiceTexto indiceTexto;
+
+    @Mock
+    private VersionCatalogo versionCatalogo;
+
+    @Mock // recorrerProductos limpia el contexto de persistencia entre lotes
+    private EntityManager entityManager;
+
     // @InjectMocks inyecta los mocks creados (productoRepository) en ProductoService
     @InjectMocks
     private ProductoService productoService;
@@ -105,6 +132,23 @@ public class ProductoServiceTest {
         verify(productoRepository, times(1)).save(any(Producto.class));
     }
 
+    @Test
+    @DisplayName("Test para actualizar un producto con la versión del cliente e invalidar la versión del catálogo")
+    void testGuardarProductoExistenteConVersion() {
+        Producto cambios = new Producto();
+        cambios.setId(1L);
+        cambios.setNombre("Jabón Artesanal de Avena");
+        cambios.setPrecio(6.50);
+        cambios.setVersion(2L);
+        when(productoRepository.save(cambios)).thenReturn(cambios);
+
+        productoService.guardarProducto(cambios);
+
+        assertEquals(2L, cambios.getVersion(), "La versión enviada a save debe ser la del cliente");
+        verify(productoRepository, never()).findVersionById(anyLong());
+        verify(versionCatalogo).incrementar();
+    }
+
     @Test
     @DisplayName("Test para obtener un producto por ID existente")
     void testObtenerProductoPorIdExistente() {
@@ -183,4 +227,143 @@ public class ProductoServiceTest {
         // Verificamos que el método save fue llamado una vez con cualquier objeto Producto.
         verify(productoRepository, times(1)).save(any(Producto.class));
     }
+
+    @Test
+    @DisplayName("Test para listar productos después de un cursor")
+    void testListarProductosDespuesDe() {
+        when(productoRepository.findByIdGreaterThanOrderByIdAsc(1L, Limit.of(10))).thenReturn(List.of(producto2));
+
+        List<Producto> pagina = productoService.listarProductosDespuesDe(1L, 10);
+
+        assertEquals(1, pagina.size(), "La página debería contener solo los productos posteriores al cursor");
+        assertEquals(2L, pagina.get(0).getId());
+        verify(productoRepository, times(1)).findByIdGreaterThanOrderByIdAsc(1L, Limit.of(10));
+    }
+
+    @Test
+    @DisplayName("Test para recorrer el catálogo completo por lotes")
+    void testRecorrerProductos() {
+        // Lote lleno (tamaño 1) seguido de otro lote lleno y finalmente uno vacío
+        when(productoRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(1))).thenReturn(List.of(producto1));
+        when(productoRepository.findByIdGreaterThanOrderByIdAsc(1L, Limit.of(1))).thenReturn(List.of(producto2));
+        when(productoRepository.findByIdGreaterThanOrderByIdAsc(2L, Limit.of(1))).thenReturn(Collections.emptyList());
+
+        List<Producto> recorridos = new ArrayList<>();
+        productoService.recorrerProductos(1, recorridos::add);
+
+        assertEquals(Arrays.asList(producto1, producto2), recorridos, "Se deberían recorrer todos los productos en orden de id");
+        verify(productoRepository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("Test para buscar por rango de precio usando el índice en memoria")
+    void testBuscarPorRangoDePrecioConIndice() {
+        when(indicePrecios.estaCargado()).thenReturn(true);
+        when(indicePrecios.buscarEntre(5.0, 10.0)).thenReturn(new long[]{1L});
+        when(productoRepository.findAllById(List.of(1L))).thenReturn(List.of(producto1));
+
+        List<Producto> productos = productoService.buscarPorRangoDePrecio(5.0, 10.0);
+
+        assertEquals(List.of(producto1), productos);
+        verify(productoRepository, never()).findByPrecioBetween(anyDouble(), anyDouble());
+    }
+
+    @Test
+    @DisplayName("Test para traer en lotes un rango de precio que abarca muchos productos")
+    void testBuscarPorRangoDePrecioEnLotes() {
+        long[] ids = LongStream.rangeClosed(1, 2_500).toArray();
+        when(indicePrecios.estaCargado()).thenReturn(true);
+        when(indicePrecios.buscarEntre(0.0, 1_000.0)).thenReturn(ids);
+        when(productoRepository.findAllById(anyList())).thenReturn(List.of(producto1));
+
+        List<Producto> productos = productoService.buscarPorRangoDePrecio(0.0, 1_000.0);
+
+        assertEquals(3, productos.size(), "Un resultado por cada lote consultado");
+        verify(productoRepository, times(3)).findAllById(argThat(lote -> ((Collection<?>) lote).size() <= 1_000));
+    }
+
+    @Test
+    @DisplayName("Test para buscar por rango de precio antes de que el índice esté cargado")
+    void testBuscarPorRangoDePrecioSinIndice() {
+        when(indicePrecios.estaCargado()).thenReturn(false);
+        when(productoRepository.findByPrecioBetween(5.0, 10.0)).thenReturn(List.of(producto1));
+
+        List<Producto> productos = productoService.buscarPorRangoDePrecio(5.0, 10.0);
+
+        assertEquals(List.of(producto1), productos);
+        verify(indicePrecios, never()).buscarEntre(anyDouble(), anyDouble());
+    }
+
+    @Test
+    @DisplayName("Test para mantener el índice de precios al guardar y eliminar")
+    void testMantenerIndicePrecios() {
+        when(productoRepository.save(any(Producto.class))).thenReturn(producto1);
+
+        productoService.guardarProducto(producto1);
+        productoService.eliminarProducto(2L);
+
+        verify(indicePrecios, times(1)).actualizar(1L, 5.99);
+        verify(indicePrecios, times(1)).eliminar(2L);
+    }
+
+    @Test
+    @DisplayName("Test para buscar por categoría cuando no está en la caché")
+    void testBuscarPorCategoriaFalloDeCache() {
+        when(cacheCategorias.obtener("Accesorios")).thenReturn(null);
+        when(cacheCategorias.generacionActual()).thenReturn(3L);
+        when(productoRepository.findByCategoria("Accesorios")).thenReturn(List.of(producto2));
+
+        List<Producto> productos = productoService.buscarPorCategoria("Accesorios");
+
+        assertEquals(List.of(producto2), productos);
+        verify(cacheCategorias, times(1)).guardar("Accesorios", new long[]{2L}, 3L);
+    }
+
+    @Test
+    @DisplayName("Test para buscar por categoría cuando está en la caché")
+    void testBuscarPorCategoriaAciertoDeCache() {
+        when(cacheCategorias.obtener("Accesorios")).thenReturn(new long[]{2L});
+        when(productoRepository.findAllById(List.of(2L))).thenReturn(List.of(producto2));
+
+        List<Producto> productos = productoService.buscarPorCategoria("Accesorios");
+
+        assertEquals(List.of(producto2), productos);
+        verify(productoRepository, never()).findByCategoria(anyString());
+    }
+
+    @Test
+    @DisplayName("Test para invalidar la caché de categorías al guardar y eliminar")
+    void testInvalidarCacheCategorias() {
+        when(productoRepository.save(any(Producto.class))).thenReturn(producto1);
+
+        productoService.guardarProducto(producto1);
+        productoService.eliminarProducto(2L);
+
+        verify(cacheCategorias, times(1)).invalidarProducto(1L, "Cuidado Personal");
+        verify(cacheCategorias, times(1)).invalidarProducto(2L, null);
+    }
+
+    @Test
+    @DisplayName("Test para buscar por texto conservando el orden de relevancia")
+    void testBuscarPorTexto() {
+        when(indiceTexto.buscar("jabon", 10)).thenReturn(List.of(2L, 1L));
+        // El repositorio devuelve los productos en otro orden
+        when(productoRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(producto1, producto2));
+
+        List<Producto> productos = productoService.buscarPorTexto("jabon", 10);
+
+        assertEquals(List.of(producto2, producto1), productos, "Se debe respetar el orden del ranking");
+    }
+
+    @Test
+    @DisplayName("Test para mantener el índice de texto al guardar y eliminar")
+    void testMantenerIndiceTexto() {
+        when(productoRepository.save(any(Producto.class))).thenReturn(producto1);
+
+        productoService.guardarProducto(producto1);
+        productoService.eliminarProducto(2L);
+
+        verify(indiceTexto, times(1)).indexar(1L, "Jabón Artesanal", "Jabón hecho a mano con ingredientes naturales.");
+        verify(indiceTexto, times(1)).eliminar(2L);
+    }
 }
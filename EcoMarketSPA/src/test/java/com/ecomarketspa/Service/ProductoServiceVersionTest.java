@@ -0,0 +1,72 @@
+package com.ecomarketspa.Service;
+
+import com.ecomarketspa.Index.CacheCategorias;
+import com.ecomarketspa.Index.IndicePrecios;
+import com.ecomarketspa.Index.IndiceTexto;
+import com.ecomarketspa.Index.VersionCatalogo;
+import com.ecomarketspa.Model.Producto;
+import com.ecomarketspa.Repository.ProductoRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Bloqueo optimista con la versión que envía el cliente, contra una base H2 real
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ProductoService.class, IndicePrecios.class, CacheCategorias.class, IndiceTexto.class, VersionCatalogo.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // Cada save confirma su propia transacción, como desde el controlador
+public class ProductoServiceVersionTest {
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Test
+    @DisplayName("Test para rechazar una actualización hecha sobre una versión vencida")
+    void testActualizarConVersionVencida() {
+        Producto creado = productoService.guardarProducto(producto(null, 0L, 5.0));
+
+        // Dos clientes leen la misma versión; el primero guarda y el segundo llega tarde
+        Producto primero = productoService.guardarProducto(producto(creado.getId(), creado.getVersion(), 6.0));
+        assertEquals(creado.getVersion() + 1, primero.getVersion());
+
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> productoService.guardarProducto(producto(creado.getId(), creado.getVersion(), 7.0)));
+        assertEquals(6.0, productoRepository.findById(creado.getId()).orElseThrow().getPrecio(), "Se conservan los cambios del primero");
+    }
+
+    @Test
+    @DisplayName("Test para actualizar sin enviar la versión, como los clientes anteriores al control de concurrencia")
+    void testActualizarSinVersion() {
+        Producto creado = productoService.guardarProducto(producto(null, null, 5.0));
+        productoService.guardarProducto(producto(creado.getId(), creado.getVersion(), 6.0)); // La versión ya no es la inicial
+
+        Producto actualizado = productoService.guardarProducto(producto(creado.getId(), null, 7.0));
+
+        assertEquals(creado.getVersion() + 2, actualizado.getVersion());
+        assertEquals(7.0, productoRepository.findById(creado.getId()).orElseThrow().getPrecio());
+    }
+
+    private static Producto producto(Long id, Long version, double precio) {
+        Producto producto = new Producto();
+        producto.setId(id);
+        producto.setVersion(version);
+        producto.setNombre("Jabón Artesanal");
+        producto.setCategoria("Higiene");
+        producto.setPrecio(precio);
+        producto.setStock(10);
+        return producto;
+    }
+}
@@ -0,0 +1,153 @@
+package com.ecomarketspa.Service;
+
+import com.ecomarketspa.Dto.SolicitudReserva;
+import com.ecomarketspa.Index.VersionCatalogo;
+import com.ecomarketspa.Model.EstadoReserva;
+import com.ecomarketspa.Model.Producto;
+import com.ecomarketspa.Model.ReservaStock;
+import com.ecomarketspa.Repository.ProductoRepository;
+import com.ecomarketspa.Repository.ReservaStockRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Prueba de estrés contra una base H2 real: las reservas concurrentes nunca deben dejar stock negativo
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ReservaStockService.class, VersionCatalogo.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // Cada llamada al servicio abre su propia transacción, como en producción
+public class ReservaStockServiceConcurrenciaTest {
+
+    private static final int STOCK_INICIAL = 200;
+
+    @Autowired
+    private ReservaStockService reservaStockService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private ReservaStockRepository reservaStockRepository;
+
+    @Autowired
+    private VersionCatalogo versionCatalogo;
+
+    @BeforeEach
+    void setUp() {
+        reservaStockRepository.deleteAll();
+        productoRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Test de estrés: el stock nunca queda negativo al aumentar la contención")
+    void testReservasConcurrentesSinSobreventa() throws Exception {
+        for (int hilos : new int[]{1, 2, 4, 8}) {
+            Producto producto = crearProducto(STOCK_INICIAL);
+            AtomicInteger exitosas = new AtomicInteger();
+            CountDownLatch largada = new CountDownLatch(1);
+            ExecutorService executor = Executors.newFixedThreadPool(hilos);
+
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int h = 0; h < hilos; h++) {
+                tareas.add(executor.submit(() -> {
+                    largada.await();
+                    // Cada hilo intenta reservar de a 3 unidades hasta que se agote el stock
+                    while (reservaStockService.reservar(producto.getId(), 3).isPresent()) {
+                        exitosas.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            long inicio = System.nanoTime();
+            largada.countDown();
+            for (Future<?> tarea : tareas) {
+                tarea.get(60, TimeUnit.SECONDS);
+            }
+            double segundos = (System.nanoTime() - inicio) / 1_000_000_000.0;
+            executor.shutdown();
+
+            int stockFinal = productoRepository.findById(producto.getId()).orElseThrow().getStock();
+            System.out.printf("[estres] hilos=%d reservas=%d throughput=%.0f reservas/s%n",
+                    hilos, exitosas.get(), exitosas.get() / segundos);
+
+            assertTrue(stockFinal >= 0, "El stock nunca debe quedar negativo");
+            assertEquals(STOCK_INICIAL / 3, exitosas.get(), "Deben concretarse exactamente las reservas que caben en el stock");
+            assertEquals(STOCK_INICIAL % 3, stockFinal);
+        }
+    }
+
+    @Test
+    @DisplayName("Test para reservar un lote completo o nada")
+    void testReservarLoteTodoONada() {
+        Producto conStock = crearProducto(10);
+        Producto sinStock = crearProducto(1);
+
+        Optional<List<ReservaStock>> rechazado = reservaStockService.reservarLote(List.of(
+                new SolicitudReserva(conStock.getId(), 5),
+                new SolicitudReserva(sinStock.getId(), 2)));
+
+        assertTrue(rechazado.isEmpty());
+        assertEquals(10, productoRepository.findById(conStock.getId()).orElseThrow().getStock(), "El lote rechazado no descuenta stock");
+
+        Optional<List<ReservaStock>> aceptado = reservaStockService.reservarLote(List.of(
+                new SolicitudReserva(conStock.getId(), 5),
+                new SolicitudReserva(sinStock.getId(), 1),
+                new SolicitudReserva(conStock.getId(), 2))); // Se agrupa con la primera solicitud
+
+        assertTrue(aceptado.isPresent());
+        assertEquals(2, aceptado.get().size());
+        assertEquals(3, productoRepository.findById(conStock.getId()).orElseThrow().getStock());
+        assertEquals(0, productoRepository.findById(sinStock.getId()).orElseThrow().getStock());
+    }
+
+    @Test
+    @DisplayName("Test para confirmar y liberar reservas una sola vez")
+    void testConfirmarYLiberar() {
+        Producto producto = crearProducto(10);
+        long versionCatalogoInicial = versionCatalogo.actual();
+        ReservaStock aConfirmar = reservaStockService.reservar(producto.getId(), 4).orElseThrow();
+        ReservaStock aLiberar = reservaStockService.reservar(producto.getId(), 3).orElseThrow();
+
+        assertTrue(reservaStockService.confirmar(aConfirmar.getId()));
+        assertFalse(reservaStockService.liberar(aConfirmar.getId()), "Una reserva confirmada no se puede liberar");
+
+        assertTrue(reservaStockService.liberar(aLiberar.getId()));
+        assertFalse(reservaStockService.liberar(aLiberar.getId()), "Una reserva no se libera dos veces");
+
+        Producto actualizado = productoRepository.findById(producto.getId()).orElseThrow();
+        assertEquals(6, actualizado.getStock());
+        assertEquals(3, actualizado.getVersion(), "Cada cambio de stock incrementa la versión del producto");
+        assertEquals(versionCatalogoInicial + 3, versionCatalogo.actual(), "Confirmar no cambia el stock ni la versión del catálogo");
+        assertEquals(EstadoReserva.LIBERADA, reservaStockRepository.findById(aLiberar.getId()).orElseThrow().getEstado());
+    }
+
+    private Producto crearProducto(int stock) {
+        Producto producto = new Producto();
+        producto.setNombre("Jabón Artesanal");
+        producto.setCategoria("Cuidado Personal");
+        producto.setPrecio(5.99);
+        producto.setStock(stock);
+        producto.setDescripcion("Jabón hecho a mano con ingredientes naturales.");
+        return productoRepository.save(producto);
+    }
+}
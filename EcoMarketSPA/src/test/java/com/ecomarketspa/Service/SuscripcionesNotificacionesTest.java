@@ -0,0 +1,231 @@
+package com.ecomarketspa.Service;
+
+import com.ecomarketspa.Model.Notificacion;
+import com.ecomarketspa.Model.Usuario;
+import com.ecomarketspa.Repository.NotificacionRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+// Suscripciones SSE con emisores de prueba que registran lo que se les escribe en lugar de una conexión real
+@SpringBootTest(classes = SuscripcionesNotificaciones.class, properties = {
+        "ecomarket.notificaciones.sse.fragmentos=4",
+        "ecomarket.notificaciones.sse.pendientes-maximos=20",
+        "ecomarket.notificaciones.sse.latido=300ms",
+        "ecomarket.notificaciones.sse.maximo=10000",
+        "ecomarket.notificaciones.sse.escrituras=4"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD) // Cada test parte sin suscriptores
+public class SuscripcionesNotificacionesTest {
+
+    private static final int SUSCRIPTORES = 10_000;
+
+    @Autowired
+    private SuscripcionesNotificaciones suscripcionesNotificaciones;
+
+    @MockBean
+    private NotificacionRepository notificacionRepository;
+
+    // Registra cada evento escrito y el hilo que lo escribió; con 'bloqueo' simula un cliente que no lee.
+    // send() es synchronized como en ResponseBodyEmitter: un cliente bloqueado retiene el monitor del emisor.
+    static class EmisorDePrueba extends SseEmitter {
+
+        private final List<String> eventos = new CopyOnWriteArrayList<>();
+        private final AtomicInteger recibidas = new AtomicInteger(); // Solo las notificaciones, sin comentarios
+        private final CountDownLatch bloqueo;
+        private volatile boolean soloHilosDeEscritura = true;
+        private volatile boolean completado;
+        private volatile Thread completadoPor;
+
+        EmisorDePrueba() {
+            this(new CountDownLatch(0));
+        }
+
+        EmisorDePrueba(CountDownLatch bloqueo) {
+            this.bloqueo = bloqueo;
+        }
+
+        @Override
+        public synchronized void send(SseEventBuilder evento) throws IOException {
+            try {
+                bloqueo.await();
+            } catch (InterruptedException e) {
+                throw new IOException("Conexión cerrada", e);
+            }
+            soloHilosDeEscritura &= Thread.currentThread().getName().startsWith("sse-escritura-");
+            StringBuilder texto = new StringBuilder();
+            evento.build().forEach(parte -> texto.append(parte.getData()));
+            eventos.add(texto.toString());
+            if (texto.indexOf("event:notificacion") >= 0) {
+                recibidas.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void complete() {
+            completadoPor = Thread.currentThread();
+            completado = true;
+            super.complete();
+        }
+
+        List<String> notificaciones() {
+            return eventos.stream().filter(evento -> evento.contains("event:notificacion")).toList();
+        }
+    }
+
+    @Test
+    @DisplayName("Test para sostener 10.000 suscriptores y entregar a cada uno su notificación")
+    void testDiezMilSuscriptores() {
+        List<EmisorDePrueba> emisores = new ArrayList<>(SUSCRIPTORES);
+        for (long usuarioId = 1; usuarioId <= SUSCRIPTORES; usuarioId++) {
+            EmisorDePrueba emisor = new EmisorDePrueba();
+            suscripcionesNotificaciones.suscribir(usuarioId, null, emisor);
+            emisores.add(emisor);
+        }
+        assertEquals(SUSCRIPTORES, suscripcionesNotificaciones.estadisticas().get("suscriptores"));
+        assertThrows(RejectedExecutionException.class,
+                () -> suscripcionesNotificaciones.suscribir(SUSCRIPTORES + 1L, null, new EmisorDePrueba()),
+                "Con el máximo alcanzado se rechazan nuevas suscripciones");
+
+        // Se publica desde varios hilos, como harían varias peticiones guardando a la vez
+        IntStream.rangeClosed(1, SUSCRIPTORES).parallel()
+                .forEach(usuarioId -> suscripcionesNotificaciones.publicar(notificacion(usuarioId, usuarioId)));
+
+        esperarHasta(() -> emisores.stream().allMatch(emisor -> emisor.recibidas.get() == 1));
+        for (int i = 0; i < SUSCRIPTORES; i++) {
+            assertTrue(emisores.get(i).notificaciones().getFirst().startsWith("id:" + (i + 1) + "\n"),
+                    "Cada suscriptor recibe solo la notificación de su usuario");
+            assertTrue(emisores.get(i).soloHilosDeEscritura, "Los envíos se hacen en los hilos de plataforma de escritura");
+        }
+        assertEquals(SUSCRIPTORES, suscripcionesNotificaciones.estadisticas().get("publicadas"));
+        assertEquals(0, suscripcionesNotificaciones.estadisticas().get("desalojadas"));
+    }
+
+    @Test
+    @DisplayName("Test para entregar a todos los dispositivos de un usuario y a nadie más")
+    void testVariosDispositivos() {
+        EmisorDePrueba telefono = new EmisorDePrueba();
+        EmisorDePrueba navegador = new EmisorDePrueba();
+        EmisorDePrueba otroUsuario = new EmisorDePrueba();
+        suscripcionesNotificaciones.suscribir(1L, null, telefono);
+        suscripcionesNotificaciones.suscribir(1L, null, navegador);
+        suscripcionesNotificaciones.suscribir(2L, null, otroUsuario);
+
+        suscripcionesNotificaciones.publicar(notificacion(30L, 1L));
+        suscripcionesNotificaciones.publicar(notificacion(31L, 3L)); // Sin suscriptores: no se publica
+
+        esperarHasta(() -> telefono.notificaciones().size() == 1 && navegador.notificaciones().size() == 1);
+        assertTrue(telefono.notificaciones().getFirst().startsWith("id:30\n"));
+        assertTrue(otroUsuario.notificaciones().isEmpty());
+        assertEquals(1, suscripcionesNotificaciones.estadisticas().get("publicadas"));
+    }
+
+    @Test
+    @DisplayName("Test para desalojar a un suscriptor que no consume sus eventos")
+    void testDesalojaSuscriptorLento() {
+        CountDownLatch bloqueo = new CountDownLatch(1);
+        EmisorDePrueba lento = new EmisorDePrueba(bloqueo);
+        EmisorDePrueba rapido = new EmisorDePrueba();
+        suscripcionesNotificaciones.suscribir(1L, null, lento);
+        suscripcionesNotificaciones.suscribir(1L, null, rapido);
+
+        // Una a una para que el rápido siempre esté al día: solo se llena la cola del lento
+        for (long id = 1; id <= 25; id++) {
+            suscripcionesNotificaciones.publicar(notificacion(id, 1L));
+            long recibidas = id;
+            esperarHasta(() -> rapido.recibidas.get() == recibidas);
+        }
+
+        esperarHasta(() -> lento.completado);
+        assertTrue(lento.completadoPor.getName().startsWith("sse-escritura-"), "Lo completa su escritor y no el hilo del fragmento");
+        assertEquals(1, suscripcionesNotificaciones.estadisticas().get("desalojadas"));
+        assertEquals(1, suscripcionesNotificaciones.estadisticas().get("suscriptores"), "El suscriptor rápido sigue conectado");
+        assertFalse(rapido.completado);
+        bloqueo.countDown();
+    }
+
+    @Test
+    @DisplayName("Test para enviar latidos a los suscriptores sin notificaciones")
+    void testLatido() {
+        EmisorDePrueba emisor = new EmisorDePrueba();
+        suscripcionesNotificaciones.suscribir(1L, null, emisor);
+
+        esperarHasta(() -> emisor.eventos.stream().filter(evento -> evento.equals(":latido\n\n")).count() >= 2);
+        assertEquals(":conectado\n\n", emisor.eventos.getFirst());
+        assertTrue(emisor.notificaciones().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test para reenviar las notificaciones posteriores a Last-Event-ID al reconectar")
+    void testReenviaAlReconectar() {
+        when(notificacionRepository.findPosterioresA(any(), any(Long.class), any(Limit.class))).thenReturn(List.of(
+                new Object[]{6L, "Email", "Pedido enviado"},
+                new Object[]{7L, "App", "Pedido entregado"}));
+        EmisorDePrueba emisor = new EmisorDePrueba();
+
+        suscripcionesNotificaciones.suscribir(1L, 5L, emisor);
+        suscripcionesNotificaciones.publicar(notificacion(8L, 1L));
+
+        esperarHasta(() -> emisor.notificaciones().size() == 3);
+        assertEquals(List.of("6", "7", "8"), emisor.notificaciones().stream()
+                .map(evento -> evento.substring(3, evento.indexOf('\n'))).toList(), "Las perdidas primero y en orden");
+    }
+
+    @Test
+    @DisplayName("Test para pedir resincronizar la bandeja si las perdidas no caben en la cola")
+    void testResincronizarAlReconectar() {
+        List<Object[]> perdidas = new ArrayList<>();
+        for (long id = 6; id < 26; id++) { // Una más de las 19 que se reenvían junto al comentario inicial
+            perdidas.add(new Object[]{id, "App", "Mensaje " + id});
+        }
+        when(notificacionRepository.findPosterioresA(any(), any(Long.class), any(Limit.class))).thenReturn(perdidas);
+        EmisorDePrueba emisor = new EmisorDePrueba();
+
+        suscripcionesNotificaciones.suscribir(1L, 5L, emisor);
+        suscripcionesNotificaciones.publicar(notificacion(30L, 1L));
+
+        esperarHasta(() -> emisor.notificaciones().size() == 1);
+        assertTrue(emisor.eventos.get(1).startsWith("event:resincronizar\n"), "Se avisa antes de los eventos en vivo");
+        assertFalse(emisor.eventos.get(1).contains("id:"), "Sin id el cliente conserva su Last-Event-ID");
+        assertTrue(emisor.notificaciones().getFirst().startsWith("id:30\n"), "Ninguna de las perdidas se reenvía a medias");
+    }
+
+    private static Notificacion notificacion(long id, long usuarioId) {
+        Usuario usuario = new Usuario();
+        usuario.setId(usuarioId);
+        Notificacion notificacion = new Notificacion();
+        notificacion.setId(id);
+        notificacion.setTipo("App");
+        notificacion.setMensaje("Mensaje " + id);
+        notificacion.setUsuario(usuario);
+        return notificacion;
+    }
+
+    private static void esperarHasta(BooleanSupplier condicion) {
+        long limite = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condicion.getAsBoolean()) {
+            assertTrue(System.nanoTime() < limite, "La condición no se cumplió a tiempo");
+            LockSupport.parkNanos(Duration.ofMillis(5).toNanos());
+        }
+    }
+}
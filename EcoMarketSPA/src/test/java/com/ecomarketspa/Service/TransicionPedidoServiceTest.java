@@ -0,0 +1,143 @@
+package com.ecomarketspa.Service;
+
+import com.ecomarketspa.Dto.ResultadoTransicion;
+import com.ecomarketspa.Dto.ResumenVentas;
+import com.ecomarketspa.Index.ContadorPedidosUsuario;
+import com.ecomarketspa.Index.IndiceEstadosPedido;
+import com.ecomarketspa.Index.UsuariosConPedidosPendientes;
+import com.ecomarketspa.Model.EstadoPedido;
+import com.ecomarketspa.Model.Pedido;
+import com.ecomarketspa.Model.Usuario;
+import com.ecomarketspa.Repository.PedidoRepository;
+import com.ecomarketspa.Repository.UsuarioRepository;
+import com.ecomarketspa.Repository.VentaDiariaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Los cambios de estado masivos deben respetar las transiciones y mantener el índice de estados y los acumulados diarios
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({TransicionPedidoService.class, PedidoService.class, ArchivoPedidos.class, ContadorPedidosUsuario.class, IndiceEstadosPedido.class, UsuariosConPedidosPendientes.class, VentasDiariasService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // Cada lote confirma su propia transacción
+public class TransicionPedidoServiceTest {
+
+    private static final LocalDate DIA = LocalDate.of(2024, 5, 10);
+
+    @Autowired
+    private TransicionPedidoService transicionPedidoService;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private VentasDiariasService ventasDiariasService;
+
+    @Autowired
+    private UsuariosConPedidosPendientes usuariosConPedidosPendientes;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private VentaDiariaRepository ventaDiariaRepository;
+
+    private Usuario usuario;
+
+    @BeforeEach
+    void setUp() {
+        pedidoRepository.deleteAll();
+        ventasDiariasService.volcar(); // Las restas de los pedidos borrados, para que no caigan en el test siguiente
+        ventaDiariaRepository.deleteAll();
+        usuarioRepository.deleteAll();
+        usuario = new Usuario();
+        usuario.setNombre("Ana");
+        usuario = usuarioRepository.save(usuario);
+        pedidoService.cargarIndiceEstados();
+    }
+
+    @Test
+    @DisplayName("Test para aplicar las transiciones válidas y rechazar las demás con su motivo")
+    void testAplicarYRechazar() {
+        Pedido procesando = pedidoService.guardarPedido(pedido(EstadoPedido.PROCESANDO, 10.0));
+        Pedido pendiente = pedidoService.guardarPedido(pedido(EstadoPedido.PENDIENTE, 20.0));
+        Pedido entregado = pedidoService.guardarPedido(pedido(EstadoPedido.ENTREGADO, 30.0));
+        long inexistente = entregado.getId() + 1000;
+
+        ResultadoTransicion resultado = transicionPedidoService.transicionar(
+                List.of(procesando.getId(), pendiente.getId(), entregado.getId(), inexistente, procesando.getId()), EstadoPedido.ENVIADO);
+
+        assertEquals(List.of(procesando.getId()), resultado.aplicados(), "Los ids repetidos se aplican una sola vez");
+        assertEquals(List.of(pendiente.getId(), entregado.getId(), inexistente),
+                resultado.rechazados().stream().map(ResultadoTransicion.Rechazo::id).toList());
+        assertEquals("Pedido no encontrado", resultado.rechazados().get(2).motivo());
+
+        assertEquals(EstadoPedido.ENVIADO, pedidoRepository.findById(procesando.getId()).get().getEstado());
+        assertEquals(EstadoPedido.PENDIENTE, pedidoRepository.findById(pendiente.getId()).get().getEstado());
+        assertEquals(1, pedidoService.contarPedidosPorEstado(EstadoPedido.ENVIADO));
+        assertEquals(0, pedidoService.contarPedidosPorEstado(EstadoPedido.PROCESANDO));
+
+        ResumenVentas ventas = ventasDiariasService.consultar(DIA, DIA, null);
+        assertEquals(new ResumenVentas.Totales(1, 10.0), ventas.porEstado().get("ENVIADO"));
+        assertNull(ventas.porEstado().get("PROCESANDO"));
+        assertEquals(60.0, ventas.total(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Test para aplicar en varios lotes más pedidos que el tamaño de un lote")
+    void testVariosLotes() {
+        List<Pedido> pedidos = new ArrayList<>();
+        LongStream.range(0, TransicionPedidoService.IDS_POR_LOTE + 20).forEach(i -> pedidos.add(pedido(EstadoPedido.PROCESANDO, 1.0)));
+        List<Long> ids = pedidoRepository.saveAll(pedidos).stream().map(Pedido::getId).toList();
+
+        ResultadoTransicion resultado = transicionPedidoService.transicionar(ids, EstadoPedido.ENVIADO);
+
+        assertEquals(ids.size(), resultado.aplicados().size());
+        assertTrue(resultado.rechazados().isEmpty());
+        assertEquals(ids.size(), pedidoRepository.countByEstado(EstadoPedido.ENVIADO));
+        assertEquals(ids.size(), pedidoService.contarPedidosPorEstado(EstadoPedido.ENVIADO));
+        assertEquals(ids.size(), ventasDiariasService.consultar(DIA, DIA, EstadoPedido.ENVIADO).cantidad());
+    }
+
+    @Test
+    @DisplayName("Test para sacar al usuario del conjunto de pendientes cuando su último pedido PENDIENTE cambia de estado")
+    void testUsuariosConPedidosPendientes() {
+        Pedido primero = pedidoService.guardarPedido(pedido(EstadoPedido.PENDIENTE, 1.0));
+        Pedido segundo = pedidoService.guardarPedido(pedido(EstadoPedido.PENDIENTE, 1.0));
+        assertTrue(usuariosConPedidosPendientes.contiene(usuario.getId()));
+
+        transicionPedidoService.transicionar(List.of(primero.getId()), EstadoPedido.PROCESANDO);
+        assertTrue(usuariosConPedidosPendientes.contiene(usuario.getId()), "Aún le queda un pedido pendiente");
+
+        transicionPedidoService.transicionar(List.of(segundo.getId()), EstadoPedido.CANCELADO);
+        assertFalse(usuariosConPedidosPendientes.contiene(usuario.getId()));
+    }
+
+    private Pedido pedido(EstadoPedido estado, double total) {
+        Pedido pedido = new Pedido();
+        pedido.setEstado(estado);
+        pedido.setFecha(Timestamp.valueOf(DIA.atTime(9, 0)));
+        pedido.setTotal(total);
+        pedido.setUsuario(usuario);
+        return pedido;
+    }
+}
@@ -1,6 +1,11 @@
 package com.ecomarketspa.Service;
 
+import com.ecomarketspa.Index.FiltroBloomCorreos;
+import com.ecomarketspa.Index.IndiceTrigramas;
+import com.ecomarketspa.Index.UsuariosConPedidosPendientes;
+import com.ecomarketspa.Model.EstadoPedido;
 import com.ecomarketspa.Model.Usuario;
+import com.ecomarketspa.Repository.PedidoRepository;
 import com.ecomarketspa.Repository.UsuarioRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -12,7 +17,9 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -24,6 +31,21 @@ public class UsuarioServiceTest {
     @Mock
     private UsuarioRepository usuarioRepository;
 
+    @Mock
+    private PedidoRepository pedidoRepository;
+
+    @Mock
+    private UsuariosConPedidosPendientes usuariosConPedidosPendientes;
+
+    @Mock
+    private IndiceTrigramas indiceTrigramas;
+
+    @Mock
+    private FiltroBloomCorreos filtroBloomCorreos;
+
+    @Mock
+    private FiltroCorreosService filtroCorreosService;
+
     @InjectMocks
     private UsuarioService usuarioService;
 
@@ -133,4 +155,117 @@ public class UsuarioServiceTest {
         // Verificamos que el método save fue llamado una vez con cualquier objeto Usuario.
         verify(usuarioRepository, times(1)).save(any(Usuario.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Test para buscar usuarios con pedidos pendientes desde el conjunto en memoria, sin consultar pedidos")
+    void testBuscarUsuariosConPedidosPendientesEnMemoria() {
+        when(usuariosConPedidosPendientes.estaCargado()).thenReturn(true);
+        when(usuariosConPedidosPendientes.usuarioIds()).thenReturn(new long[]{1L, 2L});
+        when(usuarioRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(usuario2, usuario1));
+
+        assertEquals(List.of(usuario1, usuario2), usuarioService.buscarUsuariosConPedidosPendientes());
+        verify(usuarioRepository, never()).findUsuariosConPedidosPorEstado(any());
+        verifyNoInteractions(pedidoRepository);
+    }
+
+    @Test
+    @DisplayName("Test para buscar usuarios con pedidos PENDIENTE en la base de datos mientras el índice no está cargado")
+    void testBuscarUsuariosConPedidosPendientesSinIndice() {
+        when(usuariosConPedidosPendientes.estaCargado()).thenReturn(false);
+        when(usuarioRepository.findUsuariosConPedidosPorEstado(EstadoPedido.PENDIENTE)).thenReturn(List.of(usuario2));
+
+        assertEquals(List.of(usuario2), usuarioService.buscarUsuariosConPedidosPendientes());
+    }
+
+    @Test
+    @DisplayName("Test para buscar usuarios por nombre con el índice de trigramas, ordenados por id")
+    void testBuscarPorNombreConIndice() {
+        when(indiceTrigramas.estaCargado()).thenReturn(true);
+        when(indiceTrigramas.buscarPorNombre("o")).thenReturn(new long[]{1L, 2L});
+        when(usuarioRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(usuario2, usuario1));
+
+        assertEquals(List.of(usuario1, usuario2), usuarioService.buscarPorNombre("o"));
+        verify(usuarioRepository, never()).findByNombreContainingIgnoreCase(any());
+    }
+
+    @Test
+    @DisplayName("Test para buscar usuarios por correo en la base de datos mientras el índice no está cargado")
+    void testBuscarPorCorreoSinIndice() {
+        when(indiceTrigramas.estaCargado()).thenReturn(false);
+        when(usuarioRepository.findByCorreoContainingIgnoreCase("maria")).thenReturn(List.of(usuario2));
+
+        assertEquals(List.of(usuario2), usuarioService.buscarPorCorreo("maria"));
+        verify(indiceTrigramas, never()).buscarPorCorreo(any());
+    }
+
+    @Test
+    @DisplayName("Test para mantener el índice de trigramas al guardar y eliminar usuarios")
+    void testMantenerIndiceTrigramas() {
+        when(usuarioRepository.save(any(Usuario.class))).thenReturn(usuario1);
+
+        usuarioService.guardarUsuario(usuario1);
+        usuarioService.eliminarUsuario(2L);
+
+        verify(indiceTrigramas).indexar(1L, "Vicente Soto", "vicente.soto@example.com");
+        verify(indiceTrigramas).eliminar(2L);
+    }
+
+    @Test
+    @DisplayName("Test para buscar por correo exacto normalizando mayúsculas y espacios")
+    void testBuscarPorCorreoExacto() {
+        when(filtroBloomCorreos.puedeExistir("vicente.soto@example.com")).thenReturn(true);
+        when(usuarioRepository.findByCorreoNorm("vicente.soto@example.com")).thenReturn(Optional.of(usuario1));
+
+        assertEquals(Optional.of(usuario1), usuarioService.buscarPorCorreoExacto("  Vicente.Soto@EXAMPLE.com "));
+    }
+
+    @Test
+    @DisplayName("Test para no consultar la base de datos cuando el filtro de Bloom descarta el correo")
+    void testBuscarPorCorreoExactoDescartado() {
+        when(filtroBloomCorreos.puedeExistir("nadie@example.com")).thenReturn(false);
+
+        assertTrue(usuarioService.buscarPorCorreoExacto("nadie@example.com").isEmpty());
+        assertTrue(usuarioService.buscarPorCorreoExacto("   ").isEmpty());
+        verify(usuarioRepository, never()).findByCorreoNorm(any());
+    }
+
+    @Test
+    @DisplayName("Test para adelantar la reconstrucción del filtro de correos cuando se satura")
+    void testSolicitarReconstruccionFiltroSaturado() {
+        usuario1.setCorreoNorm("vicente.soto@example.com");
+        when(usuarioRepository.save(any(Usuario.class))).thenReturn(usuario1);
+        when(filtroBloomCorreos.estaSaturado()).thenReturn(true);
+
+        usuarioService.guardarUsuario(usuario1);
+
+        verify(filtroBloomCorreos).agregar("vicente.soto@example.com");
+        verify(filtroCorreosService).solicitarReconstruccion();
+    }
+
+    @Test
+    @DisplayName("Test para cargar el conjunto de usuarios con pedidos pendientes desde la consulta agrupada")
+    void testCargarUsuariosConPedidosPendientes() {
+        when(pedidoRepository.contarPorUsuarioEnEstado(EstadoPedido.PENDIENTE)).thenReturn(List.<Object[]>of(new Object[]{1L, 3L}));
+        doAnswer(invocacion -> {
+            Supplier<Map<Long, Long>> consulta = invocacion.getArgument(0);
+            assertEquals(Map.of(1L, 3L), consulta.get());
+            return null;
+        }).when(usuariosConPedidosPendientes).cargar(any());
+
+        usuarioService.cargarUsuariosConPedidosPendientes();
+
+        verify(usuariosConPedidosPendientes).cargar(any());
+    }
+
+    @Test
+    @DisplayName("Test para distinguir un correo registrado por otro usuario del correo propio")
+    void testCorreoRegistradoPorOtro() {
+        when(usuarioRepository.findByCorreoNorm("vicente.soto@example.com")).thenReturn(Optional.of(usuario1));
+        Usuario nuevo = new Usuario();
+        nuevo.setCorreo(" Vicente.Soto@Example.com ");
+
+        assertTrue(usuarioService.correoRegistradoPorOtro(nuevo));
+        assertFalse(usuarioService.correoRegistradoPorOtro(usuario1), "El propio usuario no cuenta como otro");
+        verifyNoInteractions(filtroBloomCorreos);
+    }
+}
@@ -0,0 +1,193 @@
+package com.ecomarketspa.Service;
+
+import com.ecomarketspa.Dto.ResumenVentas;
+import com.ecomarketspa.Index.ContadorPedidosUsuario;
+import com.ecomarketspa.Index.IndiceEstadosPedido;
+import com.ecomarketspa.Index.UsuariosConPedidosPendientes;
+import com.ecomarketspa.Model.EstadoPedido;
+import com.ecomarketspa.Model.Pedido;
+import com.ecomarketspa.Model.Usuario;
+import com.ecomarketspa.Model.VentaDiaria;
+import com.ecomarketspa.Repository.PedidoRepository;
+import com.ecomarketspa.Repository.UsuarioRepository;
+import com.ecomarketspa.Repository.VentaDiariaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Los acumulados diarios deben seguir a los pedidos al crearlos, cambiarlos de estado, de día o eliminarlos
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PedidoService.class, ArchivoPedidos.class, ContadorPedidosUsuario.class, IndiceEstadosPedido.class, UsuariosConPedidosPendientes.class, VentasDiariasService.class})
+@TestPropertySource(properties = "ecomarket.pedidos.ventas-diarias.intervalo=1h") // Solo vuelcan los tests
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // Los acumulados se confirman después de cada pedido
+public class VentasDiariasServiceTest {
+
+    private static final LocalDate LUNES = LocalDate.of(2024, 3, 4);
+    private static final LocalDate MARTES = LUNES.plusDays(1);
+
+    @Autowired
+    private VentasDiariasService ventasDiariasService;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private VentaDiariaRepository ventaDiariaRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Usuario usuario;
+
+    @BeforeEach
+    void setUp() {
+        pedidoRepository.deleteAll();
+        ventasDiariasService.volcar(); // Las restas de los pedidos borrados, para que no caigan en el test siguiente
+        ventaDiariaRepository.deleteAll();
+        usuarioRepository.deleteAll();
+        usuario = new Usuario();
+        usuario.setNombre("Ana");
+        usuario = usuarioRepository.save(usuario);
+    }
+
+    @Test
+    @DisplayName("Test para sumar por día y por estado los pedidos creados")
+    void testAcumularPedidosCreados() {
+        pedidoService.guardarPedido(pedido(LUNES, EstadoPedido.PENDIENTE, 10.0));
+        pedidoService.guardarPedido(pedido(LUNES, EstadoPedido.ENVIADO, 20.0));
+        pedidoService.guardarPedido(pedido(MARTES, EstadoPedido.PENDIENTE, 5.0));
+        pedidoService.guardarPedido(pedido(MARTES.plusDays(1), EstadoPedido.PENDIENTE, 100.0)); // Fuera del rango consultado
+
+        ResumenVentas resumen = ventasDiariasService.consultar(LUNES, MARTES, null);
+
+        assertEquals(3, resumen.cantidad());
+        assertEquals(35.0, resumen.total(), 1e-9);
+        assertEquals(new ResumenVentas.Totales(2, 15.0), resumen.porEstado().get("PENDIENTE"));
+        assertEquals(2, resumen.dias().size());
+        assertEquals(new ResumenVentas.Dia(LUNES, 2, 30.0), resumen.dias().get(0));
+        assertEquals(15.0, ventasDiariasService.consultar(LUNES, MARTES, EstadoPedido.PENDIENTE).total(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Test para mover el pedido entre acumulados al cambiar estado, día o monto")
+    void testMoverPedidoModificado() {
+        Pedido pedido = pedidoService.guardarPedido(pedido(LUNES, EstadoPedido.PENDIENTE, 10.0));
+
+        pedido.setEstado(EstadoPedido.ENVIADO);
+        pedido.setTotal(12.0);
+        pedidoService.guardarPedido(pedido);
+        ResumenVentas resumen = ventasDiariasService.consultar(LUNES, LUNES, null);
+        assertNull(resumen.porEstado().get("PENDIENTE"));
+        assertEquals(new ResumenVentas.Totales(1, 12.0), resumen.porEstado().get("ENVIADO"));
+
+        pedido.setFecha(fecha(MARTES));
+        pedidoService.guardarPedido(pedido);
+        assertEquals(0, ventasDiariasService.consultar(LUNES, LUNES, null).cantidad());
+        assertEquals(12.0, ventasDiariasService.consultar(MARTES, MARTES, null).total(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Test para restar los pedidos eliminados y no sumar los que fallan")
+    void testEliminarYRollback() {
+        Pedido pedido = pedidoService.guardarPedido(pedido(LUNES, EstadoPedido.PENDIENTE, 10.0));
+        pedidoService.guardarPedido(pedido(LUNES, EstadoPedido.PENDIENTE, 7.0));
+
+        pedidoService.eliminarPedido(pedido.getId());
+        Pedido sinUsuario = pedido(LUNES, EstadoPedido.PENDIENTE, 50.0);
+        sinUsuario.setUsuario(null);
+        assertThrows(DataIntegrityViolationException.class, () -> pedidoService.guardarPedido(sinUsuario));
+
+        ResumenVentas resumen = ventasDiariasService.consultar(LUNES, LUNES, null);
+        assertEquals(1, resumen.cantidad());
+        assertEquals(7.0, resumen.total(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Test para juntar en memoria los cambios de un mismo día y escribirlos en un solo volcado")
+    void testVolcarCambiosAgrupados() {
+        for (int i = 0; i < 100; i++) {
+            pedidoService.guardarPedido(pedido(LUNES, EstadoPedido.PENDIENTE, 2.0));
+        }
+        assertEquals(0, ventaDiariaRepository.count(), "Los pedidos no tocan la fila del día al guardarse");
+
+        ventasDiariasService.volcar();
+
+        VentaDiaria fila = ventaDiariaRepository.findAll().getFirst();
+        assertEquals(1, ventaDiariaRepository.count());
+        assertEquals(100, fila.getCantidad());
+        assertEquals(200.0, fila.getTotal(), 1e-9);
+        ventasDiariasService.volcar();
+        assertEquals(100, ventaDiariaRepository.findAll().getFirst().getCantidad(), "Un segundo volcado no repite cambios");
+    }
+
+    @Test
+    @DisplayName("Test para llenar los acumulados desde los pedidos existentes")
+    void testInicializarDesdePedidos() {
+        pedidoService.guardarPedido(pedido(LUNES, EstadoPedido.PENDIENTE, 10.0));
+        pedidoService.guardarPedido(pedido(LUNES, null, 4.0)); // Se crea como PENDIENTE
+        ventasDiariasService.volcar();
+        ventaDiariaRepository.deleteAll(); // Como antes de que existiera la tabla de acumulados
+
+        ventasDiariasService.inicializar();
+
+        ResumenVentas resumen = ventasDiariasService.consultar(LUNES, LUNES, null);
+        assertEquals(2, resumen.cantidad());
+        assertEquals(14.0, resumen.total(), 1e-9);
+        assertEquals(new ResumenVentas.Totales(2, 14.0), resumen.porEstado().get("PENDIENTE"));
+    }
+
+    @Test
+    @DisplayName("Test para recuperar al arrancar los cambios recientes que no alcanzaron a volcarse")
+    void testRecalcularDiasRecientesAlArrancar() {
+        LocalDate hoy = LocalDate.now();
+        pedidoService.guardarPedido(pedido(LUNES, EstadoPedido.ENTREGADO, 7.0));
+        pedidoService.guardarPedido(pedido(hoy, EstadoPedido.PENDIENTE, 10.0));
+        ventasDiariasService.volcar();
+        // Como si el proceso se hubiera caído antes del volcado: el pedido quedó guardado, su acumulado no
+        jdbcTemplate.update("INSERT INTO pedido (usuario_id, fecha, estado_codigo, total) VALUES (?, ?, ?, ?)",
+                usuario.getId(), fecha(hoy), EstadoPedido.PENDIENTE.getCodigo(), 5.0);
+        jdbcTemplate.update("UPDATE ventas_diarias SET cantidad = 99 WHERE dia = ?", LUNES); // Fuera de la ventana
+
+        ventasDiariasService.inicializar();
+
+        assertEquals(new ResumenVentas.Totales(2, 15.0), ventasDiariasService.consultar(hoy, hoy, null).porEstado().get("PENDIENTE"));
+        assertEquals(99, ventasDiariasService.consultar(LUNES, LUNES, null).cantidad(), "Los días antiguos no se recalculan");
+    }
+
+    private Pedido pedido(LocalDate dia, EstadoPedido estado, double total) {
+        Pedido pedido = new Pedido();
+        pedido.setEstado(estado);
+        pedido.setFecha(fecha(dia));
+        pedido.setTotal(total);
+        pedido.setUsuario(usuario);
+        return pedido;
+    }
+
+    private static Date fecha(LocalDate dia) {
+        return Timestamp.valueOf(dia.atTime(13, 30));
+    }
+}